@@ -0,0 +1,55 @@
+package com.retailer.reward_service.benchmark;
+
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.service.TransactionIngestionService;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds a benchmark application context with synthetic customers and transactions.
+ * <p>
+ * Transactions are spread over the last four months, so part of them falls outside the default reward window.
+ * They go through the bulk ingestion path, which keeps the monthly ledger up to date.
+ */
+final class BenchmarkData {
+
+    private static final int SEED_CHUNK_CUSTOMERS = 1_000;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return the IDs of the created customers
+     */
+    static List<Integer> seed(ApplicationContext context, int customers, int transactionsPerCustomer) throws IOException {
+        CustomerRepository customerRepository = context.getBean(CustomerRepository.class);
+        TransactionIngestionService ingestionService = context.getBean(TransactionIngestionService.class);
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        List<Integer> customerIds = new ArrayList<>(customers);
+        for (int offset = 0; offset < customers; offset += SEED_CHUNK_CUSTOMERS) {
+            List<Customer> chunk = new ArrayList<>();
+            for (int i = offset; i < Math.min(offset + SEED_CHUNK_CUSTOMERS, customers); i++) {
+                chunk.add(Customer.builder().name("Customer " + i).build());
+            }
+            StringBuilder csv = new StringBuilder();
+            for (Customer customer : customerRepository.saveAll(chunk)) {
+                customerIds.add(customer.getCustomerId());
+                for (int t = 0; t < transactionsPerCustomer; t++) {
+                    csv.append(customer.getCustomerId()).append(',')
+                            .append(1 + random.nextInt(30_000) / 100.0).append(',')
+                            .append(today.minusDays(random.nextInt(120))).append('\n');
+                }
+            }
+            ingestionService.ingest(new StringReader(csv.toString()), TransactionIngestionService.Format.CSV);
+        }
+        return customerIds;
+    }
+}
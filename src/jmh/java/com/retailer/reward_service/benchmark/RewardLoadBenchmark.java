@@ -0,0 +1,267 @@
+package com.retailer.reward_service.benchmark;
+
+import com.retailer.reward_service.RewardServiceApplication;
+import com.retailer.reward_service.repository.CustomerRepository;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Closed-loop HTTP load test of the rewards API, comparing execution modes under many concurrent connections.
+ * <p>
+ * For every mode an application is started on a random port against its own in-memory database, filled by the
+ * {@code generate} profile with Zipf-skewed synthetic data, and {@code connections} clients each send one request
+ * after the other for the warmup and the measured duration. Modes: {@code platform} (Tomcat worker pool) and
+ * {@code virtual} (the {@code virtual} Spring profile: virtual threads on Java 21 and the database bulkhead).
+ * <p>
+ * Scenarios: {@code single} requests {@code path} with every customer ID in turn; the default path uses a
+ * non-default window so every request reaches the database instead of the reward cache. {@code mixed} replays a
+ * fixed, seeded sequence of {@value #MIXED_REQUESTS} requests: 60% single customers of the default window, 20%
+ * single customers of a 6-month window, 10% customer pages and 10% leaderboard pages, with customers picked by a
+ * Zipf law so a few are hot. The same data and sequence are used on every run.
+ * <p>
+ * Options are {@code key=value} arguments: {@code modes}, {@code scenario}, {@code connections}, {@code warmup}
+ * and {@code duration} (seconds), {@code customers}, {@code transactionsPerCustomer} (on average), {@code path}
+ * (the customer ID is appended) and {@code target} (base URL of an already running server; no application is
+ * started, and customer IDs are assumed to run from 1 to {@code customers}).
+ * The client and the server share the machine, so compare modes with each other rather than with production.
+ */
+public final class RewardLoadBenchmark {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "modes", "platform,virtual",
+            "scenario", "single",
+            "connections", "5000",
+            "warmup", "5",
+            "duration", "20",
+            "customers", "1000",
+            "transactionsPerCustomer", "10",
+            "path", "/api/rewards/customers?months=6&id=",
+            "target", "");
+
+    private static final int MIXED_REQUESTS = 100_000;
+
+    private static final long SEED = 42;
+
+    private RewardLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected key=value with a key of " + DEFAULTS.keySet());
+            }
+            options.put(option[0], option[1]);
+        }
+        if (Runtime.version().feature() < 21) {
+            System.out.println("WARNING: running on Java " + Runtime.version().feature()
+                    + ", the virtual mode keeps platform threads and only adds the bulkhead");
+        }
+
+        System.out.printf("%-10s %-8s %7s %10s %10s %10s %8s %9s %9s %9s%n",
+                "mode", "scenario", "conns", "requests", "ok/s", "503/s", "errors", "p50 ms", "p99 ms", "max ms");
+        if (!options.get("target").isEmpty()) {
+            // Customers of an external server are unknown, so IDs cycle over the requested count
+            List<Integer> customerIds = IntStream.rangeClosed(1, Integer.parseInt(options.get("customers"))).boxed().toList();
+            run("external", options.get("target"), customerIds, options);
+            return;
+        }
+        for (String mode : options.get("modes").split(",")) {
+            try (ConfigurableApplicationContext context = start(mode.trim(), options)) {
+                List<Integer> customerIds = context.getBean(CustomerRepository.class)
+                        .findCustomerIdsAfter(Integer.MIN_VALUE, Limit.unlimited());
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                run(mode.trim(), "http://localhost:" + port, customerIds, options);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String mode, Map<String, String> options) {
+        if (!mode.equals("platform") && !mode.equals("virtual")) {
+            throw new IllegalArgumentException("Unknown mode " + mode + ", expected platform or virtual");
+        }
+        long customers = Long.parseLong(options.get("customers"));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(RewardServiceApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "reward.generator.customers=" + customers,
+                        "reward.generator.transactions=" + customers * Long.parseLong(options.get("transactionsPerCustomer")),
+                        "reward.generator.seed=" + SEED,
+                        "logging.level.root=WARN");
+        if (mode.equals("virtual")) {
+            builder.profiles("generate", "virtual");
+        } else {
+            builder.profiles("generate");
+        }
+        return builder.run();
+    }
+
+    // The request URLs of the scenario, sent in order and from the start again when exhausted
+    private static List<String> urls(String baseUrl, List<Integer> customerIds, Map<String, String> options) {
+        List<String> urls = new ArrayList<>();
+        switch (options.get("scenario")) {
+            case "single" -> customerIds.forEach(customerId -> urls.add(baseUrl + options.get("path") + customerId));
+            case "mixed" -> {
+                SplittableRandom random = new SplittableRandom(SEED);
+                double[] cumulativeWeights = new double[customerIds.size()];
+                double weightSum = 0;
+                for (int i = 0; i < cumulativeWeights.length; i++) {
+                    weightSum += 1.0 / (i + 1);
+                    cumulativeWeights[i] = weightSum;
+                }
+                for (int i = 0; i < MIXED_REQUESTS; i++) {
+                    int hotCustomer = customerIds.get(pick(cumulativeWeights, random.nextDouble() * weightSum));
+                    int anyCustomer = customerIds.get(random.nextInt(customerIds.size()));
+                    int request = random.nextInt(100);
+                    if (request < 60) {
+                        urls.add(baseUrl + "/api/rewards/customers?id=" + hotCustomer);
+                    } else if (request < 80) {
+                        urls.add(baseUrl + "/api/rewards/customers?months=6&id=" + hotCustomer);
+                    } else if (request < 90) {
+                        urls.add(baseUrl + "/api/rewards/customers?limit=100&after=" + anyCustomer);
+                    } else {
+                        urls.add(baseUrl + "/api/rewards/leaderboard?limit=10&after=" + random.nextInt(1_000));
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario " + options.get("scenario") + ", expected single or mixed");
+        }
+        return urls;
+    }
+
+    // The first index whose cumulative weight reaches the value
+    private static int pick(double[] cumulativeWeights, double value) {
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void run(String mode, String baseUrl, List<Integer> customerIds, Map<String, String> options) throws InterruptedException {
+        int connections = Integer.parseInt(options.get("connections"));
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(clientExecutor)
+                .build();
+        List<String> urls = urls(baseUrl, customerIds, options);
+        try {
+            Load warmup = new Load(client, urls);
+            warmup.run(connections, Long.parseLong(options.get("warmup")));
+            Load measured = new Load(client, urls);
+            double seconds = measured.run(connections, Long.parseLong(options.get("duration")));
+            measured.print(mode, options.get("scenario"), connections, seconds);
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * One phase of requests from a fixed number of concurrent clients.
+     */
+    private static final class Load {
+
+        private final HttpClient client;
+
+        private final List<String> urls;
+
+        private final AtomicInteger nextUrl = new AtomicInteger();
+
+        private final Recorder latencies = new Recorder(3);
+
+        private final LongAdder ok = new LongAdder();
+
+        private final LongAdder rejected = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private volatile long deadlineNanos;
+
+        private CountDownLatch finished;
+
+        Load(HttpClient client, List<String> urls) {
+            this.client = client;
+            this.urls = urls;
+        }
+
+        /**
+         * @return the elapsed time in seconds
+         */
+        double run(int connections, long seconds) throws InterruptedException {
+            finished = new CountDownLatch(connections);
+            long start = System.nanoTime();
+            deadlineNanos = start + TimeUnit.SECONDS.toNanos(seconds);
+            for (int i = 0; i < connections; i++) {
+                send();
+            }
+            finished.await();
+            return (System.nanoTime() - start) / 1e9;
+        }
+
+        private void send() {
+            int index = Math.floorMod(nextUrl.getAndIncrement(), urls.size());
+            HttpRequest request = HttpRequest.newBuilder(URI.create(urls.get(index)))
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            long sentNanos = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long now = System.nanoTime();
+                latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(now - sentNanos));
+                if (failure != null) {
+                    errors.increment();
+                } else if (response.statusCode() == 200) {
+                    ok.increment();
+                } else if (response.statusCode() == 503) {
+                    rejected.increment();
+                } else {
+                    errors.increment();
+                }
+                if (now < deadlineNanos) {
+                    send();
+                } else {
+                    finished.countDown();
+                }
+            });
+        }
+
+        void print(String mode, String scenario, int connections, double seconds) {
+            Histogram histogram = latencies.getIntervalHistogram();
+            System.out.printf("%-10s %-8s %7d %10d %10.1f %10.1f %8d %9.1f %9.1f %9.1f%n",
+                    mode, scenario, connections, histogram.getTotalCount(), ok.sum() / seconds, rejected.sum() / seconds, errors.sum(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.retailer.reward_service.benchmark;
+
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.service.RewardPointsCalculator;
+import com.retailer.reward_service.service.RewardRules;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the in-memory points calculation: a single transaction across the tier boundaries, compiled rules
+ * with 2, 24 and 48 tiers with and without promotions against the former hard-coded formula, and a full customer
+ * with 10, 1k and 100k transactions accumulated into monthly points.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RewardPointsCalculatorBenchmark {
+
+    @State(Scope.Thread)
+    public static class Tier {
+
+        /**
+         * Below, on and above the 50 and 100 tier boundaries.
+         */
+        @Param({"25.0", "50.0", "75.0", "100.0", "150.0"})
+        double amount;
+    }
+
+    @State(Scope.Thread)
+    public static class Rules {
+
+        @Param({"2", "24", "48"})
+        int tiers;
+
+        @Param({"0", "12"})
+        int promotions;
+
+        RewardRules rules;
+
+        double[] amounts;
+
+        long[] epochDays;
+
+        @Setup
+        public void setUp() {
+            List<RewardRulesDefinition.Tier> tierList = new ArrayList<>();
+            for (int i = 0; i < tiers; i++) {
+                tierList.add(new RewardRulesDefinition.Tier(BigDecimal.valueOf(50L * (i + 1)), BigDecimal.valueOf(i + 1)));
+            }
+            List<RewardRulesDefinition.Promotion> promotionList = new ArrayList<>();
+            for (int i = 0; i < promotions; i++) {
+                LocalDate from = LocalDate.of(2025, i + 1, 1);
+                promotionList.add(new RewardRulesDefinition.Promotion("month-" + (i + 1), from, from.plusDays(9), new BigDecimal("1.5")));
+            }
+            rules = RewardRules.compile(new RewardRulesDefinition("benchmark", tierList, promotionList));
+
+            Random random = new Random(42);
+            amounts = new double[1024];
+            epochDays = new long[1024];
+            long firstDay = LocalDate.of(2025, 1, 1).toEpochDay();
+            for (int i = 0; i < amounts.length; i++) {
+                // Spread over all tiers and up to 50 dollars above the highest threshold
+                amounts[i] = 1 + random.nextInt(50 * (tiers + 1) * 100) / 100.0;
+                epochDays[i] = firstDay + random.nextInt(365);
+            }
+        }
+    }
+
+    /**
+     * The hard-coded formula the rule engine replaced, kept as the baseline.
+     */
+    private static int hardCodedPoints(double amount) {
+        if (amount > 100) {
+            return (int) ((amount - 100) * 2) + 50;
+        }
+        if (amount > 50) {
+            return (int) (amount - 50);
+        }
+        return 0;
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+
+        @Param({"10", "1000", "100000"})
+        int transactionsPerCustomer;
+
+        double[] amounts;
+
+        int[] periods;
+
+        final RewardPointsCalculator.MonthlyAccumulator accumulator = new RewardPointsCalculator.MonthlyAccumulator(YearMonth.of(2025, 1), 12);
+
+        @Setup
+        public void setUp() {
+            Random random = new Random(42);
+            amounts = new double[transactionsPerCustomer];
+            periods = new int[transactionsPerCustomer];
+            for (int i = 0; i < transactionsPerCustomer; i++) {
+                amounts[i] = 1 + random.nextInt(30_000) / 100.0;
+                periods[i] = 202501 + random.nextInt(12);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int calculatePoints(Tier tier) {
+        return RewardRules.DEFAULT.calculatePoints(tier.amount, 20_000L);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int calculatePointsHardCoded(Tier tier) {
+        return hardCodedPoints(tier.amount);
+    }
+
+    /**
+     * Points of 1024 transactions under the compiled rules.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public long calculatePointsCompiledRules(Rules rules) {
+        long total = 0;
+        for (int i = 0; i < rules.amounts.length; i++) {
+            total += rules.rules.calculatePoints(rules.amounts[i], rules.epochDays[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    public Map<YearMonth, Integer> calculateCustomerRewards(Customer customer) {
+        RewardPointsCalculator.MonthlyAccumulator accumulator = customer.accumulator;
+        accumulator.reset();
+        for (int i = 0; i < customer.amounts.length; i++) {
+            accumulator.add(customer.periods[i], RewardRules.DEFAULT.calculatePoints(customer.amounts[i], 20_000L));
+        }
+        return accumulator.toMonthlyPoints();
+    }
+}
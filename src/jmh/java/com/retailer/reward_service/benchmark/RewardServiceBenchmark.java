@@ -0,0 +1,89 @@
+package com.retailer.reward_service.benchmark;
+
+import com.retailer.reward_service.RewardServiceApplication;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.service.ColumnarTransactionStore;
+import com.retailer.reward_service.service.RewardServiceImpl;
+import com.retailer.reward_service.service.RewardWindowResolver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link RewardServiceImpl} against an embedded H2 database seeded by {@link BenchmarkData}.
+ * <p>
+ * The service is called on its target object, bypassing the reward caches, and the reward snapshot is disabled,
+ * so every invocation calculates from the configured backend: the database ({@code jpa}) or the
+ * {@link ColumnarTransactionStore} loaded after seeding ({@code columnar}).
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RewardServiceBenchmark {
+
+    @Param({"100", "10000"})
+    private int customers;
+
+    @Param({"10", "100"})
+    private int transactionsPerCustomer;
+
+    @Param({"jpa", "columnar"})
+    private String backend;
+
+    private ConfigurableApplicationContext context;
+
+    private RewardServiceImpl rewardService;
+
+    private RewardWindow window;
+
+    private List<Integer> customerIds;
+
+    private int nextCustomer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(RewardServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "logging.level.root=WARN",
+                        "reward.snapshot.enabled=false",
+                        "reward.store.backend=" + backend)
+                .run();
+        rewardService = AopTestUtils.getUltimateTargetObject(context.getBean(RewardServiceImpl.class));
+        window = context.getBean(RewardWindowResolver.class).defaultWindow();
+        customerIds = BenchmarkData.seed(context, customers, transactionsPerCustomer);
+        // Seeded customers were created after the startup load
+        ColumnarTransactionStore store = context.getBean(ColumnarTransactionStore.class);
+        if (store.isEnabled()) {
+            store.reload();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<RewardResponse> calculateAllCustomersRewards() {
+        return rewardService.calculateAllCustomersRewards(window);
+    }
+
+    @Benchmark
+    public RewardResponse calculateCustomerRewardsById() {
+        Integer customerId = customerIds.get(nextCustomer);
+        nextCustomer = (nextCustomer + 1) % customerIds.size();
+        return rewardService.calculateCustomerRewardsById(customerId, window);
+    }
+}
@@ -0,0 +1,109 @@
+package com.retailer.reward_service.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+
+/**
+ * Configures the reward caches.
+ * <p>
+ * Caches are backed by Caffeine (size-bounded, W-TinyLFU eviction) and entries expire at the next
+ * midnight, because the reward window is computed from {@link LocalDate#now()}. Keys also carry the
+ * current date so a value computed just before midnight is never served for the next day.
+ * Evictions issued inside a database transaction are deferred until it commits.
+ * Hit, miss and eviction counters are published as {@code cache.*} metrics through the actuator.
+ **/
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Reward responses of single customers, keyed by {@link #customerKey(Integer)}.
+     */
+    public static final String CUSTOMER_REWARDS = "customerRewards";
+
+    /**
+     * The all-customer reward report, keyed by {@link #allCustomersKey()}.
+     */
+    public static final String ALL_CUSTOMERS_REWARDS = "allCustomersRewards";
+
+    /**
+     * Encoded single-customer response bodies, keyed by {@link #customerKey(Integer)} like {@link #CUSTOMER_REWARDS}.
+     */
+    public static final String CUSTOMER_REWARD_BODIES = "customerRewardBodies";
+
+    @Bean
+    CacheManager cacheManager(RewardProperties rewardProperties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CUSTOMER_REWARDS, CUSTOMER_REWARD_BODIES);
+        cacheManager.setCaffeine(caffeine(rewardProperties.getCache().getMaximumSize()));
+        cacheManager.setAllowNullValues(false);
+        // One entry is the whole report, so it is bounded separately from the per-customer entries
+        cacheManager.registerCustomCache(ALL_CUSTOMERS_REWARDS,
+                caffeine(rewardProperties.getCache().getAllCustomersMaximumSize()).build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private static Caffeine<Object, Object> caffeine(long maximumSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilMidnightExpiry(Clock.systemDefaultZone()))
+                .recordStats();
+    }
+
+    /**
+     * Cache key of a customer's rewards for the current day.
+     */
+    public static String customerKey(Integer customerId) {
+        return LocalDate.now() + ":" + customerId;
+    }
+
+    /**
+     * Cache key of the all-customer report for the current day.
+     */
+    public static String allCustomersKey() {
+        return LocalDate.now().toString();
+    }
+
+    /**
+     * Expires every entry at the first midnight after it was written, regardless of later reads.
+     */
+    static class UntilMidnightExpiry implements Expiry<Object, Object> {
+
+        private final Clock clock;
+
+        UntilMidnightExpiry(Clock clock) {
+            this.clock = clock;
+        }
+
+        long nanosUntilMidnight() {
+            ZonedDateTime now = ZonedDateTime.now(clock);
+            ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(now.getZone());
+            return Duration.between(now, midnight).toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return nanosUntilMidnight();
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return nanosUntilMidnight();
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
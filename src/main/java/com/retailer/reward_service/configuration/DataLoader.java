@@ -3,9 +3,11 @@ package com.retailer.reward_service.configuration;
 import com.retailer.reward_service.entity.Customer;
 import com.retailer.reward_service.entity.Transaction;
 import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.service.RewardLedgerService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -14,15 +16,23 @@ import java.util.List;
 /**
  * Initializes and loads sample customer and transaction data at application startup.
  * This data is used to demonstrate reward calculation logic.
+ * A database that already has customers is left untouched, so restarts against a persistent
+ * database neither duplicate the sample data nor rebuild the whole ledger.
+ * With the {@code generate} profile, {@link SyntheticDataLoader} creates synthetic data instead.
  * customerRepository Repository for saving customer data along with associated transactions
+ * rewardLedgerService Service rebuilding the monthly reward ledger from the saved transactions
  * CommandLineRunner that performs the data loading logic
  **/
 @Configuration
+@Profile("!generate")
 public class DataLoader {
 
     @Bean
-    CommandLineRunner loadData(CustomerRepository customerRepository) {
+    CommandLineRunner loadData(CustomerRepository customerRepository, RewardLedgerService rewardLedgerService) {
         return args -> {
+            if (customerRepository.count() > 0) {
+                return;
+            }
             Customer alice = Customer.builder()
                     .name("Alice")
                     .build();
@@ -57,6 +67,7 @@ public class DataLoader {
             jon.setTransactions(List.of(t5,t6));
             jack.setTransactions(List.of(t7,t8,t9));
             customerRepository.saveAll(List.of(alice,bob,jon,jack));
+            rewardLedgerService.rebuild();
         };
     }
 }
@@ -0,0 +1,93 @@
+package com.retailer.reward_service.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured datasource with a {@link ReadWriteRoutingDataSource} when read replicas are configured
+ * under {@code reward.replicas.datasources}. The primary is still configured by {@code spring.datasource.*},
+ * including {@code spring.datasource.hikari.*}; every replica gets its own read-only Hikari pool.
+ * Replicas are checked every {@code reward.replicas.health-check-interval} and reported by the {@code replicas}
+ * health indicator.
+ **/
+@Configuration
+@ConditionalOnProperty(prefix = "reward.replicas", name = "datasources[0].url")
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    ReadWriteRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, RewardProperties rewardProperties, Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (!StringUtils.hasText(primary.getPoolName())) {
+            primary.setPoolName("primary");
+        }
+
+        RewardProperties.Replicas settings = rewardProperties.getReplicas();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<RewardProperties.Replicas.Datasource> datasources = settings.getDatasources();
+        for (int i = 0; i < datasources.size(); i++) {
+            RewardProperties.Replicas.Datasource datasource = datasources.get(i);
+            HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(datasource.getUrl())
+                    .username(datasource.getUsername())
+                    .password(datasource.getPassword())
+                    .driverClassName(datasource.getDriverClassName())
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(settings.getConnectionTimeout().toMillis());
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, settings.getConnectionTimeout());
+    }
+
+    @Bean
+    ReplicaHealthCheck replicasHealthIndicator(ReadWriteRoutingDataSource dataSource) {
+        return new ReplicaHealthCheck(dataSource);
+    }
+
+    /**
+     * Checks the replicas on a fixed delay and reports their availability as the {@code replicas} health component.
+     * Stays up while replicas are down, because reads then fail over to the primary.
+     */
+    static class ReplicaHealthCheck implements HealthIndicator {
+
+        private final ReadWriteRoutingDataSource dataSource;
+
+        ReplicaHealthCheck(ReadWriteRoutingDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Scheduled(fixedDelayString = "${reward.replicas.health-check-interval:5s}")
+        void checkReplicas() {
+            dataSource.checkReplicas();
+        }
+
+        @Override
+        public Health health() {
+            Map<String, Boolean> availability = dataSource.getReplicaAvailability();
+            return Health.up()
+                    .withDetail("available", availability)
+                    .withDetail("readsFromPrimary", !availability.containsValue(true))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.retailer.reward_service.configuration;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Tells the {@link ReadWriteRoutingDataSource} which database the current thread's next connection comes from.
+ * <p>
+ * Connections come from the primary unless they are opened for reads marked with {@link #replicaRead(Supplier)}.
+ * Work that must see the latest writes, such as a request with the {@value #READ_YOUR_WRITES_HEADER} header or a
+ * snapshot build, is run with the primary required, which overrides the marking. Both are thread-bound, so work
+ * handed to other threads has to carry {@link #isPrimaryRequired()} over with {@link #requirePrimary(boolean)}.
+ */
+public final class DataSourceRoute {
+
+    /**
+     * Request header asking for reads from the primary, so a client sees the transactions it just recorded.
+     */
+    public static final String READ_YOUR_WRITES_HEADER = "X-Read-Your-Writes";
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = ThreadLocal.withInitial(() -> false);
+
+    private DataSourceRoute() {
+    }
+
+    /**
+     * Runs reads that may use a replica. They should open their own read-only transaction: inside a transaction
+     * that is already active they keep the route of its connection, because that transaction may write.
+     * @param reads the reads
+     * @return the result of the reads
+     */
+    public static <T> T replicaRead(Supplier<T> reads) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return reads.get();
+        }
+        boolean previous = REPLICA_READ.get();
+        REPLICA_READ.set(true);
+        try {
+            return reads.get();
+        } finally {
+            REPLICA_READ.set(previous);
+        }
+    }
+
+    /**
+     * Runs work whose reads must all come from the primary.
+     * @param work the work
+     * @return the result of the work
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean previous = requirePrimary(true);
+        try {
+            return work.get();
+        } finally {
+            requirePrimary(previous);
+        }
+    }
+
+    /**
+     * Sets whether the current thread must read from the primary, for callers that cannot pass a {@link Supplier}.
+     * @param required whether the primary is required
+     * @return the previous setting, to be restored when the work ends
+     */
+    public static boolean requirePrimary(boolean required) {
+        boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(required);
+        return previous;
+    }
+
+    /**
+     * Returns whether the current thread must read from the primary.
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get();
+    }
+
+    /**
+     * Returns whether a connection opened now may come from a replica.
+     */
+    public static boolean isReplicaRead() {
+        return REPLICA_READ.get() && !PRIMARY_REQUIRED.get();
+    }
+}
@@ -0,0 +1,168 @@
+package com.retailer.reward_service.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections to the primary database, or to a read replica for reads marked with
+ * {@link DataSourceRoute#replicaRead}.
+ * <p>
+ * Replicas are used round-robin while they are available. A replica that fails to hand out a connection is
+ * taken out of rotation at once and the read fails over to the next replica or the primary; {@link #checkReplicas()}
+ * puts it back once it answers again. A replica that dies while holding pooled connections is only noticed when
+ * those connections fail or the next check runs, so reads in between fail. With no replica available every
+ * connection comes from the primary.
+ * {@link #unwrap} reaches the primary's pool, so pool metrics and sizes refer to the primary.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final Duration checkTimeout;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * @param primary the primary database, which takes all writes
+     * @param replicas the replica databases by name
+     * @param checkTimeout how long a replica may take to answer a check
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration checkTimeout) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>();
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.checkTimeout = checkTimeout;
+    }
+
+    // A replica database and whether reads are sent to it
+    private static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile boolean available = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (DataSourceRoute.isReplicaRead()) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+                if (!replica.available) {
+                    continue;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException ex) {
+                    markUnavailable(replica, ex);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Always connects to the primary.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Checks every replica and updates whether reads are sent to it. The pooled connections of a replica that
+     * fails the check are evicted, so it is used again with fresh connections.
+     */
+    public void checkReplicas() {
+        int timeoutSeconds = (int) Math.max(1, checkTimeout.toSeconds());
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(timeoutSeconds)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                if (!replica.available) {
+                    replica.available = true;
+                    log.info("Read replica {} is available again", replica.name);
+                }
+            } catch (SQLException ex) {
+                markUnavailable(replica, ex);
+                evictConnections(replica);
+            }
+        }
+    }
+
+    private static void evictConnections(Replica replica) {
+        try {
+            if (replica.dataSource.isWrapperFor(HikariDataSource.class)) {
+                replica.dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().softEvictConnections();
+            }
+        } catch (SQLException | RuntimeException ex) {
+            log.debug("Could not evict the connections of read replica {}", replica.name, ex);
+        }
+    }
+
+    private void markUnavailable(Replica replica, SQLException ex) {
+        if (replica.available) {
+            replica.available = false;
+            log.warn("Read replica {} is unavailable, reading from {}: {}", replica.name,
+                    replicas.stream().anyMatch(other -> other.available) ? "the other replicas" : "the primary", ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether each replica is currently read from, by name.
+     */
+    public Map<String, Boolean> getReplicaAvailability() {
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            availability.put(replica.name, replica.available);
+        }
+        return availability;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * Closes the pools of the primary and the replicas.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
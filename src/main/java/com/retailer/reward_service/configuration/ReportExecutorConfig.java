@@ -0,0 +1,40 @@
+package com.retailer.reward_service.configuration;
+
+import com.retailer.reward_service.service.RepositoryBulkhead;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the bounded pool that computes the all-customer report in parallel, and the
+ * bounded executor that runs asynchronous exports. Both are separate from the common pool
+ * and the servlet threads so a large report cannot starve other work.
+ **/
+@Configuration
+public class ReportExecutorConfig {
+
+    /**
+     * Runs at most as many ranges at a time as the bulkhead has permits, so report workers wait for
+     * each other rather than for permits they can never get.
+     */
+    @Bean(destroyMethod = "shutdown")
+    ForkJoinPool rewardReportPool(RewardProperties rewardProperties, RepositoryBulkhead repositoryBulkhead) {
+        return new ForkJoinPool(Math.min(rewardProperties.getReport().getEffectiveParallelism(), repositoryBulkhead.getMaxReportWorkers()));
+    }
+
+    /**
+     * Runs {@code reward.export.max-concurrent-exports} exports at a time with a bounded queue;
+     * submissions beyond the queue are rejected.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    ThreadPoolExecutor rewardExportExecutor(RewardProperties rewardProperties) {
+        RewardProperties.Export export = rewardProperties.getExport();
+        return new ThreadPoolExecutor(export.getMaxConcurrentExports(), export.getMaxConcurrentExports(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(export.getMaxQueuedExports()), new CustomizableThreadFactory("reward-export-"));
+    }
+}
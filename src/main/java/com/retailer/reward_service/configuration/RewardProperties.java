@@ -0,0 +1,484 @@
+package com.retailer.reward_service.configuration;
+
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tunable settings of the reward service, bound from the {@code reward.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "reward")
+public class RewardProperties {
+
+    private final Window window = new Window();
+
+    private final Paging paging = new Paging();
+
+    private final Batch batch = new Batch();
+
+    private final Ledger ledger = new Ledger();
+
+    private final Ingest ingest = new Ingest();
+
+    private final Cache cache = new Cache();
+
+    private final Report report = new Report();
+
+    private final Bulkhead bulkhead = new Bulkhead();
+
+    private final Snapshot snapshot = new Snapshot();
+
+    private final Store store = new Store();
+
+    private final Export export = new Export();
+
+    private final Generator generator = new Generator();
+
+    private final Replicas replicas = new Replicas();
+
+    private final Sharding sharding = new Sharding();
+
+    private final CustomerFilter customerFilter = new CustomerFilter();
+
+    private final Archive archive = new Archive();
+
+    /**
+     * Reward rules used until a rule set is activated through the API; rule sets activated before take precedence.
+     */
+    private RewardRulesDefinition rules = RewardRulesDefinition.defaults();
+
+    /**
+     * Settings for the reward window.
+     */
+    @Data
+    public static class Window {
+
+        /**
+         * Number of months up to today used when a request does not specify a window.
+         */
+        private int defaultMonths = 3;
+
+        /**
+         * Longest window a request may ask for, in months.
+         */
+        private int maxMonths = 24;
+    }
+
+    /**
+     * Settings for batch reward lookups.
+     */
+    @Data
+    public static class Batch {
+
+        /**
+         * Most distinct customer IDs accepted in one batch lookup; each lookup is a fixed number of IN-list queries.
+         */
+        private int maxIds = 1000;
+    }
+
+    /**
+     * Settings for paginated and streamed customer reward listings.
+     */
+    @Data
+    public static class Paging {
+
+        /**
+         * Page size used when a client does not request one.
+         */
+        private int defaultPageSize = 100;
+
+        /**
+         * Upper bound for client-requested page sizes.
+         */
+        private int maxPageSize = 1000;
+
+        /**
+         * Number of customers loaded per round-trip while streaming NDJSON.
+         */
+        private int streamBatchSize = 500;
+    }
+
+    /**
+     * Settings for the monthly reward ledger.
+     */
+    @Data
+    public static class Ledger {
+
+        /**
+         * Number of customers rebuilt per database transaction.
+         */
+        private int rebuildBatchSize = 1000;
+    }
+
+    /**
+     * Settings for bulk transaction ingestion.
+     */
+    @Data
+    public static class Ingest {
+
+        /**
+         * Number of transactions validated and committed per database transaction.
+         */
+        private int batchSize = 5000;
+
+        /**
+         * Maximum number of rejected lines reported in detail per batch.
+         */
+        private int maxErrorsPerBatch = 100;
+    }
+
+    /**
+     * Settings for the reward caches.
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * Maximum number of entries per customer cache before the least valuable ones are evicted.
+         */
+        private long maximumSize = 100_000;
+
+        /**
+         * Maximum number of all-customer reports cached; each holds the rewards of every customer, and only the
+         * report of the current day is read, so the previous day's is all that needs room around midnight.
+         */
+        private long allCustomersMaximumSize = 2;
+
+        /**
+         * Smallest encoded response body, in bytes, that is also cached gzip-compressed.
+         */
+        private int gzipMinResponseSize = 2048;
+    }
+
+    /**
+     * Settings for the parallel all-customer report.
+     */
+    @Data
+    public static class Report {
+
+        /**
+         * Number of worker threads computing customer ID ranges, 0 for one per available processor.
+         */
+        private int parallelism = 0;
+
+        /**
+         * Smallest customer ID span worth computing as a separate range.
+         */
+        private int minRangeSize = 10_000;
+
+        /**
+         * Number of ranges per worker, so that uneven ranges still keep all workers busy.
+         */
+        private int rangesPerWorker = 4;
+
+        public int getEffectiveParallelism() {
+            return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Settings for the bulkhead that bounds concurrent database work on the reward read path.
+     */
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * Whether reads are limited by the bulkhead; enabled by the {@code virtual} profile.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Concurrent database calls allowed; 0 uses the maximum size of the Hikari connection pool.
+         */
+        private int maxConcurrentCalls = 0;
+
+        /**
+         * How long a call may wait for a permit before it is rejected with 503.
+         */
+        private Duration acquireTimeout = Duration.ZERO;
+
+        /**
+         * How long a call of report work (all-customer report ranges, snapshot builds) may wait for a permit.
+         */
+        private Duration reportAcquireTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Settings for the precomputed reward snapshot of the default window.
+     */
+    @Data
+    public static class Snapshot {
+
+        /**
+         * Whether single-customer and all-customer lookups of the default window are served from the snapshot.
+         */
+        private boolean enabled = true;
+
+        /**
+         * When the snapshot is rebuilt; the default window moves at midnight.
+         */
+        private String cron = "0 0 0 * * *";
+
+        /**
+         * How often the customers the snapshot cannot answer for, those written while it was built and those
+         * created since, are calculated and caught up into it. Until then the leaderboard leaves them out.
+         */
+        private Duration catchUpInterval = Duration.ofSeconds(30);
+
+        /**
+         * File the snapshot is written to after every build and mapped from at startup, so a restart
+         * only catches up on newer transactions instead of recalculating everything; unset to disable.
+         */
+        private Path file;
+    }
+
+    /**
+     * Settings for the storage backend of reward calculations.
+     */
+    @Data
+    public static class Store {
+
+        /**
+         * Where rewards are calculated from.
+         */
+        public enum Backend {
+            /** Monthly ledger and transaction queries through JPA. */
+            JPA,
+            /** All transactions held in memory in primitive columns, loaded at startup. */
+            COLUMNAR
+        }
+
+        private Backend backend = Backend.JPA;
+
+        /**
+         * Number of transactions appended since the last load before they are merged into the columns.
+         */
+        private int compactThreshold = 100_000;
+    }
+
+    /**
+     * Settings for asynchronous reward exports.
+     */
+    @Data
+    public static class Export {
+
+        /**
+         * Directory the export files are written to.
+         */
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "reward-exports");
+
+        /**
+         * Exports computed at the same time, so exports cannot take over the database from the online API.
+         */
+        private int maxConcurrentExports = 2;
+
+        /**
+         * Exports waiting for a free slot; further submissions are rejected with 503.
+         */
+        private int maxQueuedExports = 10;
+
+        /**
+         * Number of customers calculated and written per chunk.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * How long finished exports and their files are kept.
+         */
+        private Duration retention = Duration.ofHours(24);
+    }
+
+    /**
+     * Settings for the synthetic data of the {@code generate} profile.
+     */
+    @Data
+    public static class Generator {
+
+        /**
+         * Number of customers created.
+         */
+        private int customers = 100_000;
+
+        /**
+         * Number of transactions spread over the customers.
+         */
+        private long transactions = 1_000_000;
+
+        /**
+         * Skew of transactions per customer: the customer of popularity rank {@code k} gets a share proportional
+         * to {@code 1 / k^zipfExponent}. 0 spreads transactions evenly; around 1 a few customers are whales.
+         */
+        private double zipfExponent = 1.0;
+
+        /**
+         * Number of days before today over which transaction dates are spread.
+         */
+        private int days = 365;
+
+        /**
+         * Rows inserted per JDBC batch and database transaction.
+         */
+        private int batchSize = 10_000;
+
+        /**
+         * Seed of the generator; the same seed and sizes produce the same data.
+         */
+        private long seed = 42;
+    }
+
+    /**
+     * Settings for the read replicas that reward calculations are read from.
+     */
+    @Data
+    public static class Replicas {
+
+        /**
+         * Replica databases; when empty, everything is read from the {@code spring.datasource} primary.
+         */
+        private List<Datasource> datasources = new ArrayList<>();
+
+        /**
+         * How often every replica is checked; failed replicas are used again once a check succeeds.
+         */
+        private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+        /**
+         * How long a replica may take to hand out a connection or to answer a check before reads fail over to the primary.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Longest expected replication lag. Cached rewards of a customer are evicted again this long after a write,
+         * in case a replica read that had not seen the write cached them meanwhile.
+         */
+        private Duration maxLag = Duration.ofSeconds(1);
+
+        /**
+         * Connection settings of one replica.
+         */
+        @Data
+        public static class Datasource {
+
+            private String url;
+
+            private String username;
+
+            private String password;
+
+            /**
+             * Detected from the URL when unset.
+             */
+            private String driverClassName;
+        }
+    }
+
+    /**
+     * Settings for the sharded deployment, in which customers are partitioned across several nodes sharing one database.
+     */
+    @Data
+    public static class Sharding {
+
+        /**
+         * Whether customers are partitioned across {@link #nodes}; otherwise this node serves every customer.
+         */
+        private boolean enabled = false;
+
+        /**
+         * ID of this node, one of the {@link #nodes}.
+         */
+        private String nodeId;
+
+        /**
+         * Every node of the deployment, including this one, in the same order on every node.
+         */
+        private List<Node> nodes = new ArrayList<>();
+
+        /**
+         * Points per node on the consistent-hash ring; more points spread customers more evenly.
+         */
+        private int virtualNodes = 128;
+
+        /**
+         * How long a request forwarded to another node, or a partition gathered from it, may take.
+         */
+        private Duration forwardTimeout = Duration.ofSeconds(5);
+
+        /**
+         * One node of the deployment.
+         */
+        @Data
+        public static class Node {
+
+            private String id;
+
+            /**
+             * Base URL other nodes reach it at, e.g. {@code http://reward-2:8080}.
+             */
+            private String url;
+        }
+    }
+
+    /**
+     * Settings for the in-memory filter rejecting unknown customer IDs before any database access.
+     */
+    @Data
+    public static class CustomerFilter {
+
+        /**
+         * Whether unknown customer IDs are rejected in memory; otherwise every lookup goes to the database.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Minimum time between reads of the customers inserted without JPA, e.g. by bulk loads or other nodes,
+         * triggered by lookups of IDs above the highest known one.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(1);
+    }
+
+    /**
+     * Settings for moving old transactions out of the transaction table.
+     */
+    @Data
+    public static class Archive {
+
+        /**
+         * Whether transactions older than the horizon are moved to the archive table on schedule. Off by default,
+         * since the job deletes rows from the transaction table.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of months, before the current one, whose transactions stay in the transaction table. Windows
+         * starting before them also read the archive; with archiving enabled, startup fails when it is below
+         * {@code reward.window.default-months}.
+         */
+        private int retainMonths = 12;
+
+        /**
+         * When transactions that fell behind the horizon are archived.
+         */
+        private String cron = "0 30 0 * * *";
+
+        /**
+         * Number of customers whose transactions are moved per database transaction.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * The first day of the oldest retained month: transactions dated before it are archived.
+         * @param today the current date
+         */
+        public LocalDate horizon(LocalDate today) {
+            return YearMonth.from(today).minusMonths(retainMonths).atDay(1);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.retailer.reward_service.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled jobs such as the nightly reward snapshot build.
+ * Jobs run on the auto-configured task scheduler ({@code spring.task.scheduling.*}).
+ **/
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,164 @@
+package com.retailer.reward_service.configuration;
+
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.service.RewardLedgerService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Fills an empty database with synthetic customers and transactions at startup when the {@code generate}
+ * profile is active, in place of the {@link DataLoader} fixture. Sizes are set under {@code reward.generator}.
+ * <p>
+ * Transactions per customer follow a Zipf distribution, so a few customers hold a large share of all
+ * transactions while most have only a few or none; popularity ranks are shuffled across customer IDs.
+ * Amounts are log-normal around $60, so every reward tier occurs, and dates are uniform over the configured
+ * number of days. The same seed and sizes always produce the same data.
+ * <p>
+ * Customers are inserted with JDBC batches, since their IDENTITY keys keep Hibernate from batching them, and
+ * transactions are persisted in batches of {@code reward.generator.batch-size}, each in its own database
+ * transaction with a cleared persistence context. The monthly ledger is rebuilt once at the end.
+ */
+@Slf4j
+@Component
+@Profile("generate")
+@RequiredArgsConstructor
+public class SyntheticDataLoader implements CommandLineRunner {
+
+    private static final double MEDIAN_AMOUNT = 60.0;
+
+    private static final double AMOUNT_SIGMA = 0.9;
+
+    private static final long PROGRESS_INTERVAL = 1_000_000;
+
+    private final CustomerRepository customerRepository;
+
+    private final RewardLedgerService rewardLedgerService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final RewardProperties rewardProperties;
+
+    @Override
+    public void run(String... args) {
+        if (customerRepository.count() > 0) {
+            log.info("Database already has customers, skipping synthetic data generation");
+            return;
+        }
+        RewardProperties.Generator generator = rewardProperties.getGenerator();
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(generator.getSeed());
+        int[] transactionCounts = transactionsPerCustomer(generator.getCustomers(), generator.getTransactions(),
+                generator.getZipfExponent(), random);
+        LocalDate today = LocalDate.now();
+
+        List<TransactionRequest> pending = new ArrayList<>(generator.getBatchSize());
+        long generated = 0;
+        Integer cursor = Integer.MIN_VALUE;
+        for (int offset = 0; offset < generator.getCustomers(); offset += generator.getBatchSize()) {
+            int chunkSize = Math.min(generator.getBatchSize(), generator.getCustomers() - offset);
+            List<Integer> customerIds = insertCustomers(offset, chunkSize, cursor);
+            cursor = customerIds.get(customerIds.size() - 1);
+            for (int i = 0; i < customerIds.size(); i++) {
+                for (int t = 0; t < transactionCounts[offset + i]; t++) {
+                    pending.add(new TransactionRequest(customerIds.get(i), amount(random),
+                            today.minusDays(random.nextInt(Math.max(1, generator.getDays())))));
+                    if (pending.size() == generator.getBatchSize()) {
+                        long before = generated;
+                        generated += insertTransactions(pending);
+                        if (generated / PROGRESS_INTERVAL > before / PROGRESS_INTERVAL) {
+                            log.info("Generated {} transactions", generated);
+                        }
+                    }
+                }
+            }
+        }
+        generated += insertTransactions(pending);
+
+        rewardLedgerService.rebuild();
+        log.info("Generated {} customers and {} transactions in {} s", generator.getCustomers(), generated,
+                (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    /**
+     * Splits the transactions over the customers by a Zipf law of the given exponent. Popularity ranks are
+     * shuffled, so the heaviest customers are spread across the customer IDs. Fractional shares are rounded
+     * up or down at random, so the counts add up to the requested total only approximately.
+     * @return the number of transactions of every customer, by creation order
+     */
+    static int[] transactionsPerCustomer(int customers, long transactions, double zipfExponent, SplittableRandom random) {
+        double[] weights = new double[customers];
+        double weightSum = 0;
+        for (int rank = 0; rank < customers; rank++) {
+            weights[rank] = Math.pow(rank + 1, -zipfExponent);
+            weightSum += weights[rank];
+        }
+        int[] ranks = new int[customers];
+        for (int i = 0; i < customers; i++) {
+            int j = random.nextInt(i + 1);
+            ranks[i] = ranks[j];
+            ranks[j] = i;
+        }
+        int[] counts = new int[customers];
+        for (int i = 0; i < customers; i++) {
+            double share = transactions * weights[ranks[i]] / weightSum;
+            counts[i] = (int) Math.min(Integer.MAX_VALUE, (long) share + (random.nextDouble() < share % 1 ? 1 : 0));
+        }
+        return counts;
+    }
+
+    // Log-normal amount in cents, at least one cent
+    private static double amount(SplittableRandom random) {
+        double amount = MEDIAN_AMOUNT * Math.exp(AMOUNT_SIGMA * random.nextGaussian());
+        return Math.max(1, Math.round(amount * 100)) / 100.0;
+    }
+
+    // Inserts one JDBC batch of customers and returns their generated IDs in order
+    private List<Integer> insertCustomers(int offset, int count, Integer afterCustomerId) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            names.add("Customer " + (i + 1));
+        }
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate("INSERT INTO customer (name) VALUES (?)", names, names.size(),
+                    (statement, name) -> statement.setString(1, name));
+            return customerRepository.findCustomerIdsAfter(afterCustomerId, Limit.of(count));
+        });
+    }
+
+    // Persists the pending transactions in one database transaction and clears the list
+    private int insertTransactions(List<TransactionRequest> pending) {
+        int count = pending.size();
+        if (count == 0) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (TransactionRequest request : pending) {
+                entityManager.persist(new Transaction(entityManager.getReference(Customer.class, request.getCustomerId()),
+                        request.getAmount(), request.getTransactionDate()));
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        pending.clear();
+        return count;
+    }
+}
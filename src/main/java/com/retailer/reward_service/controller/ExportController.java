@@ -0,0 +1,108 @@
+package com.retailer.reward_service.controller;
+
+import com.retailer.reward_service.dto.ExportJobResponse;
+import com.retailer.reward_service.exceptions.InvalidExportRequestException;
+import com.retailer.reward_service.service.ExportJob;
+import com.retailer.reward_service.service.RewardExportService;
+import com.retailer.reward_service.service.RewardWindowResolver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * REST controller for asynchronous exports of the rewards of all customers.
+ */
+@RestController
+@RequestMapping("/api/rewards/exports")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final RewardExportService rewardExportService;
+
+    private final RewardWindowResolver rewardWindowResolver;
+
+    /**
+     * Starts an export of the rewards of all customers. The export runs in the background; its progress is
+     * polled at the returned {@code Location}, and its file is downloaded from {@code Location/file} once completed.
+     *
+     * @param format (optional) {@code csv} or {@code ndjson}, {@code csv} by default.
+     * @param gzip (optional) whether the file is gzip-compressed.
+     * @param from (optional) the first day of the reward window, {@code yyyy-MM-dd}.
+     * @param to (optional) the last day of the reward window, {@code yyyy-MM-dd}.
+     * @param months (optional) the length of the reward window in months.
+     * @return a {@link ResponseEntity} with status 202 containing the queued {@link ExportJobResponse}.
+     */
+    @PostMapping
+    public ResponseEntity<ExportJobResponse> startExport(@RequestParam(value = "format", defaultValue = "csv") String format,
+                                                         @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                                                         @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                         @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                         @RequestParam(value = "months", required = false) Integer months) {
+        ExportJob job = rewardExportService.submit(parseFormat(format), gzip, rewardWindowResolver.resolve(from, to, months));
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().replaceQuery(null).path("/{id}").build(job.getId()))
+                .body(job.toResponse());
+    }
+
+    /**
+     * Retrieves the status and progress of an export.
+     *
+     * @param id the ID of the export.
+     * @return a {@link ResponseEntity} containing the {@link ExportJobResponse}.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobResponse> getExport(@PathVariable("id") String id) {
+        return ResponseEntity.ok(rewardExportService.getJob(id).toResponse());
+    }
+
+    /**
+     * Downloads the file of a completed export.
+     *
+     * @param id the ID of the export.
+     * @return a {@link ResponseEntity} containing the export file as an attachment.
+     */
+    @GetMapping("/{id}/file")
+    public ResponseEntity<Resource> downloadExport(@PathVariable("id") String id) {
+        ExportJob job = rewardExportService.getCompletedJob(id);
+        String contentType = job.isGzip() ? "application/gzip" : job.getFormat().getContentType();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(job.getFileName()).build().toString())
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    /**
+     * Cancels a queued or running export, or deletes a finished export and its file.
+     *
+     * @param id the ID of the export.
+     * @return a {@link ResponseEntity} containing the {@link ExportJobResponse} after the request.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ExportJobResponse> cancelExport(@PathVariable("id") String id) {
+        return ResponseEntity.ok(rewardExportService.cancelOrDelete(id).toResponse());
+    }
+
+    private static RewardExportService.Format parseFormat(String format) {
+        try {
+            return RewardExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidExportRequestException("Unsupported export format: " + format);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.retailer.reward_service.controller;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.LeaderboardEntry;
+import com.retailer.reward_service.service.RewardLeaderboardService;
+import com.retailer.reward_service.service.RewardMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for the points leaderboard of the default reward window.
+ */
+@RestController
+@RequestMapping("/api/rewards/leaderboard")
+@RequiredArgsConstructor
+public class LeaderboardController {
+
+    private final RewardLeaderboardService rewardLeaderboardService;
+
+    private final RewardProperties rewardProperties;
+
+    private final RewardMetrics rewardMetrics;
+
+    /**
+     * Retrieves one page of customers ordered by total points, highest first.
+     * <p>
+     * The rank of the last entry is sent in the {@value RewardController#NEXT_CURSOR_HEADER} header when
+     * more customers may follow; passing it as {@code after} returns the next page.
+     *
+     * @param after (optional) the last rank of the previous page.
+     * @param limit (optional) the maximum number of customers in the page.
+     * @return a {@link ResponseEntity} containing the {@link LeaderboardEntry} objects of the page.
+     */
+    @GetMapping
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(@RequestParam(value = "after", required = false) Integer after,
+                                                                 @RequestParam(value = "limit", required = false) Integer limit) {
+        return rewardMetrics.time(RewardMetrics.REQUESTS, RewardMetrics.MODE_LEADERBOARD, () -> {
+            RewardProperties.Paging paging = rewardProperties.getPaging();
+            int pageSize = Math.max(1, Math.min(limit == null ? paging.getDefaultPageSize() : limit, paging.getMaxPageSize()));
+            List<LeaderboardEntry> page = rewardLeaderboardService.getLeaderboardPage(after == null ? 0 : Math.max(0, after), pageSize);
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.size() == pageSize) {
+                response.header(RewardController.NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getRank()));
+            }
+            return response.body(page);
+        });
+    }
+
+    /**
+     * Retrieves the leaderboard position of a single customer.
+     *
+     * @param customerId the ID of the customer.
+     * @return a {@link ResponseEntity} containing the customer's {@link LeaderboardEntry}.
+     */
+    @GetMapping(params = "id")
+    public ResponseEntity<LeaderboardEntry> getCustomerRank(@RequestParam("id") Integer customerId) {
+        return rewardMetrics.time(RewardMetrics.REQUESTS, RewardMetrics.MODE_LEADERBOARD,
+                () -> ResponseEntity.ok(rewardLeaderboardService.getCustomerRank(customerId)));
+    }
+}
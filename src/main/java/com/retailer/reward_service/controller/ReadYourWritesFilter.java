@@ -0,0 +1,35 @@
+package com.retailer.reward_service.controller;
+
+import com.retailer.reward_service.configuration.DataSourceRoute;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Serves requests with {@code X-Read-Your-Writes: true} from the primary database, bypassing the read replicas
+ * and the reward caches, so a client that just recorded a transaction sees it in its rewards.
+ * Without read replicas every read comes from the primary anyway and only the caches are bypassed.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!Boolean.parseBoolean(request.getHeader(DataSourceRoute.READ_YOUR_WRITES_HEADER))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean previous = DataSourceRoute.requirePrimary(true);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            DataSourceRoute.requirePrimary(previous);
+        }
+    }
+}
@@ -1,13 +1,36 @@
 package com.retailer.reward_service.controller;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.configuration.DataSourceRoute;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.BatchRewardRequest;
+import com.retailer.reward_service.dto.BatchRewardResponse;
 import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.service.CustomerIdFilter;
+import com.retailer.reward_service.service.RewardMetrics;
 import com.retailer.reward_service.service.RewardServiceImpl;
+import com.retailer.reward_service.service.RewardWindowResolver;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * REST controller for handling customer reward-related operations.
@@ -15,33 +38,297 @@ import java.util.List;
  * Uses constructor injection for {@link RewardServiceImpl}, automatically
  * generated by Lombok {@code @RequiredArgsConstructor} annotation.
  * This ensures that all final fields are injected via the constructor.
+ * <p>
+ * In a sharded deployment, single-customer lookups for customers of another node are forwarded to it, and
+ * reports, pages and streams gather the partitions of all nodes (see {@link RewardPartitionClient}).
  */
 @RestController
 @RequestMapping("/api/rewards/customers")
 @RequiredArgsConstructor
 public class RewardController {
 
+    /**
+     * Response header carrying the cursor for the next page, absent on the last page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final RewardServiceImpl rewardServiceImpl;
 
+    private final RewardWindowResolver rewardWindowResolver;
+
+    private final RewardProperties rewardProperties;
+
+    private final RewardMetrics rewardMetrics;
+
+    private final ObjectMapper objectMapper;
+
+    private final RewardResponseBodyCache rewardResponseBodyCache;
+
+    private final RewardPartitionClient rewardPartitionClient;
+
+    private final CustomerIdFilter customerIdFilter;
+
     /**
-     * Retrieves reward details for customers.
+     * Retrieves reward details for all customers, or for one page of customers ordered by ID.
      * <p>
-     * If a customer ID is provided as a request parameter, the method returns the reward details
-     * for that specific customer. If no ID is provided, it returns the reward details for all customers.
+     * When {@code after} or {@code limit} is provided, a single page of customers is returned
+     * and the cursor for the following page is sent in the {@value #NEXT_CURSOR_HEADER} header.
+     * The reward window defaults to the configured number of months up to today and can be set with
+     * {@code from} and {@code to}, or with {@code months} counted back from {@code to}.
+     * On a sharded node, the partitions of all nodes are gathered and merged in customer ID order.
      *
-     * @param customerId (optional) the ID of the customer to fetch reward details for.
+     * @param after (optional) the last customer ID of the previous page.
+     * @param limit (optional) the maximum number of customers in the page.
+     * @param from (optional) the first day of the reward window, {@code yyyy-MM-dd}.
+     * @param to (optional) the last day of the reward window, {@code yyyy-MM-dd}.
+     * @param months (optional) the length of the reward window in months.
+     * @param request the current request.
      * @return a {@link ResponseEntity} containing a list of {@link RewardResponse} objects.
-     * The list will contain either one item (for a specific customer) or multiple items (for all customers).
      */
 
     @GetMapping
-    public ResponseEntity<List<RewardResponse>> getCustomersRewards(@RequestParam(value = "id", required = false) Integer CustomerId) {
-        if (CustomerId == null) {
-            return ResponseEntity.ok(rewardServiceImpl.calculateAllCustomersRewards());
-        } else {
-            return ResponseEntity.ok(List.of(rewardServiceImpl.calculateCustomerRewardsById(CustomerId)));
+    public ResponseEntity<List<RewardResponse>> getCustomersRewards(@RequestParam(value = "after", required = false) Integer after,
+                                                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                                                    @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                    @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                    @RequestParam(value = "months", required = false) Integer months,
+                                                                    HttpServletRequest request) {
+        String mode = after == null && limit == null ? RewardMetrics.MODE_ALL : RewardMetrics.MODE_PAGE;
+        boolean scattered = rewardPartitionClient.isScattered(request);
+        return rewardMetrics.time(RewardMetrics.REQUESTS, mode, () -> {
+            RewardWindow window = rewardWindowResolver.resolve(from, to, months);
+            if (after == null && limit == null) {
+                if (!scattered) {
+                    return ResponseEntity.ok(rewardServiceImpl.calculateAllCustomersRewards(window));
+                }
+                CompletableFuture<List<List<RewardResponse>>> partitions =
+                        rewardPartitionClient.scatter(partitionQuery(request.getRequestURI(), null, null, window), rewardListType());
+                List<RewardResponse> rewards = rewardServiceImpl.calculateAllCustomersRewards(window);
+                return ResponseEntity.ok(mergeByCustomerId(rewards, RewardPartitionClient.gather(partitions), Integer.MAX_VALUE));
+            }
+
+            RewardProperties.Paging paging = rewardProperties.getPaging();
+            int pageSize = Math.max(1, Math.min(limit == null ? paging.getDefaultPageSize() : limit, paging.getMaxPageSize()));
+            List<RewardResponse> page = scattered ? gatherPage(request.getRequestURI(), after, pageSize, window)
+                    : rewardServiceImpl.calculateCustomersRewardsPage(after, pageSize, window);
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.size() == pageSize) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getCustomerId()));
+            }
+            return response.body(page);
+        });
+    }
+
+    // Every node's page holds its first pageSize customers after the cursor, so the first pageSize customers
+    // of the merged pages are the page of all partitions
+    private List<RewardResponse> gatherPage(String path, Integer after, int pageSize, RewardWindow window) {
+        CompletableFuture<List<List<RewardResponse>>> partitions =
+                rewardPartitionClient.scatter(partitionQuery(path, after, pageSize, window), rewardListType());
+        List<RewardResponse> page = rewardServiceImpl.calculateCustomersRewardsPage(after, pageSize, window);
+        return mergeByCustomerId(page, RewardPartitionClient.gather(partitions), pageSize);
+    }
+
+    // The window is sent resolved, so every node calculates the same one even across midnight
+    private static String partitionQuery(String path, Integer after, Integer limit, RewardWindow window) {
+        UriComponentsBuilder query = UriComponentsBuilder.fromPath(path)
+                .queryParam("from", window.getFromDate())
+                .queryParam("to", window.getToDate());
+        if (limit != null) {
+            query.queryParam("limit", limit);
         }
+        if (after != null) {
+            query.queryParam("after", after);
+        }
+        return query.build().toUriString();
+    }
+
+    private JavaType rewardListType() {
+        return objectMapper.getTypeFactory().constructCollectionType(List.class, RewardResponse.class);
+    }
+
+    /**
+     * Merges lists of rewards ordered by customer ID into one, keeping the order.
+     * @param local the rewards of this node
+     * @param remote the rewards of the other nodes
+     * @param limit the maximum number of rewards in the result
+     * @return the first {@code limit} rewards of all lists, ordered by customer ID
+     */
+    static List<RewardResponse> mergeByCustomerId(List<RewardResponse> local, List<List<RewardResponse>> remote, int limit) {
+        List<List<RewardResponse>> lists = new ArrayList<>(remote.size() + 1);
+        lists.add(local);
+        lists.addAll(remote);
+        int size = 0;
+        // Heads of the lists as {list, position}, smallest customer ID first
+        PriorityQueue<int[]> heads = new PriorityQueue<>(lists.size(),
+                (first, second) -> Integer.compare(lists.get(first[0]).get(first[1]).getCustomerId(), lists.get(second[0]).get(second[1]).getCustomerId()));
+        for (int i = 0; i < lists.size(); i++) {
+            size += lists.get(i).size();
+            if (!lists.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        List<RewardResponse> merged = new ArrayList<>(Math.min(size, limit));
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<RewardResponse> list = lists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (++head[1] < list.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Retrieves reward details for a single customer as a JSON array with one {@link RewardResponse}.
+     * <p>
+     * The encoded body is written directly to the response (see {@link RewardResponseBodyCache}); for the
+     * default window it is cached until the customer's next transaction. The response carries an ETag, and a
+     * request whose {@code If-None-Match} header names it gets 304 without a body. Clients sending
+     * {@code Accept-Encoding: gzip} get large bodies pre-compressed. Requests with the
+     * {@value DataSourceRoute#READ_YOUR_WRITES_HEADER} header bypass the cache and read from the primary.
+     * On a sharded node, lookups for customers of another node are forwarded to it. IDs the {@link CustomerIdFilter}
+     * rules out get 404 before any of this.
+     *
+     * @param customerId the ID of the customer to fetch reward details for.
+     * @param from (optional) the first day of the reward window, {@code yyyy-MM-dd}.
+     * @param to (optional) the last day of the reward window, {@code yyyy-MM-dd}.
+     * @param months (optional) the length of the reward window in months.
+     * @param request the current request.
+     * @param response the response the body is written to.
+     */
+    @GetMapping(params = "id")
+    public void getCustomerRewards(@RequestParam("id") Integer customerId,
+                                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                   @RequestParam(value = "months", required = false) Integer months,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Timer.Sample sample = rewardMetrics.start();
+        Throwable failure = null;
+        try {
+            customerIdFilter.requireMightExist(customerId);
+            if (!rewardPartitionClient.isLocal(customerId, request)) {
+                rewardPartitionClient.forward(customerId, null, request, response);
+                return;
+            }
+            RewardWindow window = rewardWindowResolver.resolve(from, to, months);
+            Supplier<List<RewardResponse>> body = () -> List.of(rewardServiceImpl.calculateCustomerRewardsById(customerId, window));
+            RewardResponseBodyCache.EncodedBody encoded = window.equals(rewardWindowResolver.defaultWindow()) && !DataSourceRoute.isPrimaryRequired()
+                    ? rewardResponseBodyCache.get(customerId, body)
+                    : rewardResponseBodyCache.encode(body.get());
+            rewardResponseBodyCache.write(encoded, request, response);
+        } catch (IOException | RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            rewardMetrics.stop(sample, RewardMetrics.REQUESTS, RewardMetrics.MODE_SINGLE, failure);
+        }
+    }
+
+    /**
+     * Retrieves reward details for a batch of customers given as repeated {@code id} parameters.
+     * <p>
+     * All customers are resolved with a fixed number of queries; IDs without a customer are reported
+     * in the {@code errors} map of the response instead of failing the request.
+     *
+     * @param customerIds the IDs of the customers, e.g. {@code ?id=1&id=2}.
+     * @param from (optional) the first day of the reward window, {@code yyyy-MM-dd}.
+     * @param to (optional) the last day of the reward window, {@code yyyy-MM-dd}.
+     * @param months (optional) the length of the reward window in months.
+     * @return a {@link ResponseEntity} containing the rewards and errors keyed by customer ID.
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<BatchRewardResponse> getCustomersRewardsBatch(@RequestParam("id") List<Integer> customerIds,
+                                                                        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                        @RequestParam(value = "months", required = false) Integer months) {
+        return calculateBatch(customerIds, from, to, months);
     }
-}
 
+    /**
+     * Retrieves reward details for a batch of customers listed in the request body.
+     * Behaves like {@link #getCustomersRewardsBatch} for ID lists too long for a URL.
+     *
+     * @param request the customer IDs to look up.
+     * @param from (optional) the first day of the reward window, {@code yyyy-MM-dd}.
+     * @param to (optional) the last day of the reward window, {@code yyyy-MM-dd}.
+     * @param months (optional) the length of the reward window in months.
+     * @return a {@link ResponseEntity} containing the rewards and errors keyed by customer ID.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchRewardResponse> postCustomersRewardsBatch(@Valid @RequestBody BatchRewardRequest request,
+                                                                         @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                         @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                         @RequestParam(value = "months", required = false) Integer months) {
+        return calculateBatch(request.getCustomerIds(), from, to, months);
+    }
+
+    private ResponseEntity<BatchRewardResponse> calculateBatch(List<Integer> customerIds, LocalDate from, LocalDate to, Integer months) {
+        return rewardMetrics.time(RewardMetrics.REQUESTS, RewardMetrics.MODE_BATCH, () -> {
+            RewardWindow window = rewardWindowResolver.resolve(from, to, months);
+            return ResponseEntity.ok(rewardServiceImpl.calculateCustomersRewardsByIds(customerIds, window));
+        });
+    }
+
+    /**
+     * Streams reward details for all customers as newline-delimited JSON.
+     * <p>
+     * Customers are read in keyset-paged batches and each {@link RewardResponse} is written as soon as
+     * its batch is computed, so memory use does not depend on the number of customers.
+     * A client can resume an interrupted stream by passing the last customer ID it received as {@code after}.
+     * On a sharded node, every batch is gathered from the partitions of all nodes.
+     *
+     * @param after (optional) the customer ID to resume after.
+     * @param from (optional) the first day of the reward window, {@code yyyy-MM-dd}.
+     * @param to (optional) the last day of the reward window, {@code yyyy-MM-dd}.
+     * @param months (optional) the length of the reward window in months.
+     * @param request the current request.
+     * @return a streaming body with one JSON document per line.
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCustomersRewards(@RequestParam(value = "after", required = false) Integer after,
+                                                                        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                        @RequestParam(value = "months", required = false) Integer months,
+                                                                        HttpServletRequest request) {
+        // Resolved up front so the whole stream uses one window and an invalid one fails before streaming starts
+        RewardWindow window = rewardWindowResolver.resolve(from, to, months);
+        int batchSize = rewardProperties.getPaging().getStreamBatchSize();
+        // The request is recycled once the handler returns, so the body only keeps what it needs of it
+        String path = rewardPartitionClient.isScattered(request) ? request.getRequestURI() : null;
+        // The body is written on another thread, which has to take over the request's route
+        boolean primaryRequired = DataSourceRoute.isPrimaryRequired();
+        StreamingResponseBody body = outputStream -> {
+            Timer.Sample sample = rewardMetrics.start();
+            Throwable failure = null;
+            boolean previousRoute = DataSourceRoute.requirePrimary(primaryRequired);
+            try {
+                Integer cursor = after;
+                List<RewardResponse> batch;
+                do {
+                    batch = path != null ? gatherPage(path, cursor, batchSize, window)
+                            : rewardServiceImpl.calculateCustomersRewardsPage(cursor, batchSize, window);
+                    for (RewardResponse reward : batch) {
+                        outputStream.write(objectMapper.writeValueAsBytes(reward));
+                        outputStream.write('\n');
+                    }
+                    outputStream.flush();
+                    if (!batch.isEmpty()) {
+                        cursor = batch.get(batch.size() - 1).getCustomerId();
+                    }
+                } while (batch.size() == batchSize);
+            } catch (IOException | RuntimeException ex) {
+                failure = ex;
+                throw ex;
+            } finally {
+                DataSourceRoute.requirePrimary(previousRoute);
+                rewardMetrics.stop(sample, RewardMetrics.REQUESTS, RewardMetrics.MODE_STREAM, failure);
+            }
+        };
+        return ResponseEntity.ok().body(body);
+    }
+}
 
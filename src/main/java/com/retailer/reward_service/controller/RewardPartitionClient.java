@@ -0,0 +1,187 @@
+package com.retailer.reward_service.controller;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.configuration.DataSourceRoute;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.exceptions.PartitionUnavailableException;
+import com.retailer.reward_service.service.RewardPartition;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends requests to the other nodes of a sharded deployment.
+ * <p>
+ * Requests for a customer owned by another node are forwarded to it and its response is copied back unchanged,
+ * including the status, the ETag and a gzip-compressed body. Reports are scattered to every other node at once
+ * and gathered while this node calculates its own partition. Every request carries the
+ * {@value RewardPartition#FORWARDED_HEADER} header, so the receiving node answers from its own partition
+ * and never forwards it again, and the {@value DataSourceRoute#READ_YOUR_WRITES_HEADER} header when the
+ * current request requires the primary.
+ */
+@Component
+public class RewardPartitionClient {
+
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING,
+            HttpHeaders.IF_NONE_MATCH, HttpHeaders.CONTENT_TYPE);
+
+    private static final List<String> COPIED_RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.ETAG, HttpHeaders.VARY, HttpHeaders.RETRY_AFTER, RewardController.NEXT_CURSOR_HEADER);
+
+    private final RewardPartition rewardPartition;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration timeout;
+
+    private final HttpClient httpClient;
+
+    public RewardPartitionClient(RewardPartition rewardPartition, ObjectMapper objectMapper, RewardProperties rewardProperties) {
+        this.rewardPartition = rewardPartition;
+        this.objectMapper = objectMapper;
+        this.timeout = rewardProperties.getSharding().getForwardTimeout();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    /**
+     * Returns whether the request must be answered by this node: it is not sharded, the request came from
+     * another node, or this node owns the customer.
+     * @param customerId the customer the request is for
+     * @param request the current request
+     */
+    public boolean isLocal(int customerId, HttpServletRequest request) {
+        return !rewardPartition.isSharded() || isForwarded(request) || rewardPartition.owns(customerId);
+    }
+
+    /**
+     * Returns whether the request must be scattered to the other nodes: this node is sharded and the request
+     * did not come from another node.
+     * @param request the current request
+     */
+    public boolean isScattered(HttpServletRequest request) {
+        return rewardPartition.isSharded() && !isForwarded(request);
+    }
+
+    private static boolean isForwarded(HttpServletRequest request) {
+        return request.getHeader(RewardPartition.FORWARDED_HEADER) != null;
+    }
+
+    /**
+     * Sends the request to the node owning the customer and writes its response to the current one.
+     * @param customerId the customer the request is for
+     * @param body the request body, {@code null} for a GET
+     * @param request the current request, whose method, path, query and content headers are sent
+     * @param response the response the owner's status, headers and body are written to
+     * @throws IOException if the response cannot be written
+     * @throws PartitionUnavailableException if the owner does not answer
+     */
+    public void forward(int customerId, byte[] body, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        RewardProperties.Sharding.Node owner = rewardPartition.ownerOf(customerId);
+        String pathAndQuery = request.getQueryString() == null ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+        HttpRequest.Builder forwarded = newRequest(owner, pathAndQuery)
+                .method(request.getMethod(), body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String header : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(header);
+            if (value != null) {
+                forwarded.header(header, value);
+            }
+        }
+
+        HttpResponse<byte[]> ownerResponse;
+        try {
+            ownerResponse = httpClient.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException ex) {
+            throw unavailable(owner, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw unavailable(owner, ex);
+        }
+        response.setStatus(ownerResponse.statusCode());
+        for (String header : COPIED_RESPONSE_HEADERS) {
+            ownerResponse.headers().firstValue(header).ifPresent(value -> response.setHeader(header, value));
+        }
+        if (ownerResponse.body().length > 0) {
+            response.getOutputStream().write(ownerResponse.body());
+        }
+    }
+
+    /**
+     * Sends a GET to every other node without waiting for the answers, so the caller can calculate its own
+     * partition meanwhile.
+     * @param pathAndQuery the path and query of the request
+     * @param type the type of the response bodies
+     * @return the response bodies of the other nodes, in the order of {@link RewardPartition#getRemoteNodes()}
+     */
+    public <T> CompletableFuture<List<T>> scatter(String pathAndQuery, JavaType type) {
+        List<CompletableFuture<T>> responses = new ArrayList<>();
+        for (RewardProperties.Sharding.Node node : rewardPartition.getRemoteNodes()) {
+            HttpRequest request = newRequest(node, pathAndQuery).header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE).GET().build();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).handle((response, failure) -> {
+                if (failure != null) {
+                    throw unavailable(node, failure instanceof CompletionException ? failure.getCause() : failure);
+                }
+                if (response.statusCode() != HttpServletResponse.SC_OK) {
+                    throw unavailable(node, new IOException("HTTP " + response.statusCode() + ": " + new String(response.body(), StandardCharsets.UTF_8)));
+                }
+                try {
+                    return objectMapper.readValue(response.body(), type);
+                } catch (IOException ex) {
+                    throw unavailable(node, new UncheckedIOException(ex));
+                }
+            }));
+        }
+        return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .thenApply(done -> responses.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Waits for the responses of {@link #scatter}.
+     * @param responses the scattered requests
+     * @return the response bodies
+     * @throws PartitionUnavailableException if a node did not answer
+     */
+    public static <T> List<T> gather(CompletableFuture<List<T>> responses) {
+        try {
+            return responses.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof PartitionUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw ex;
+        }
+    }
+
+    private HttpRequest.Builder newRequest(RewardProperties.Sharding.Node node, String pathAndQuery) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node.getUrl() + pathAndQuery))
+                .timeout(timeout)
+                .header(RewardPartition.FORWARDED_HEADER, rewardPartition.getLocalNodeId());
+        if (DataSourceRoute.isPrimaryRequired()) {
+            request.header(DataSourceRoute.READ_YOUR_WRITES_HEADER, "true");
+        }
+        return request;
+    }
+
+    private static PartitionUnavailableException unavailable(RewardProperties.Sharding.Node node, Throwable cause) {
+        return new PartitionUnavailableException("Node " + node.getId() + " did not answer: " + cause.getMessage(), cause);
+    }
+}
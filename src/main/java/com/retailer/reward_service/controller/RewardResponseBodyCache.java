@@ -0,0 +1,151 @@
+package com.retailer.reward_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoded response bodies of single-customer reward lookups.
+ * <p>
+ * Hot customers are requested far more often than their rewards change, so their JSON is serialized once,
+ * gzip-compressed when it is at least {@code reward.cache.gzip-min-response-size} bytes, and the bytes are
+ * written straight to the servlet output stream. Every body carries a strong ETag so clients holding the
+ * current version get 304 without a body. Bodies of the default window are kept in the
+ * {@link CacheConfig#CUSTOMER_REWARD_BODIES} cache and evicted with the customer's other cached rewards
+ * when a transaction for the customer is committed. A body is encoded inside the cache's atomic load of its key,
+ * so an eviction of that key waits for a load in progress and then removes what it loaded: a body computed
+ * before the commit is never kept after the eviction.
+ */
+@Component
+@RequiredArgsConstructor
+public class RewardResponseBodyCache {
+
+    private static final String GZIP = "gzip";
+
+    private final CacheManager cacheManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final RewardProperties rewardProperties;
+
+    /**
+     * A response body encoded as JSON, optionally with its gzip-compressed variant.
+     */
+    @Value
+    public static class EncodedBody {
+
+        byte[] json;
+
+        /**
+         * The compressed JSON, {@code null} when the body is too small to be worth compressing.
+         */
+        byte[] gzip;
+
+        String etag;
+
+        /**
+         * The ETag of the compressed variant, which must differ from the one of the JSON.
+         */
+        public String getGzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+    }
+
+    /**
+     * Returns the cached body of a customer's default-window rewards, encoding and caching it on a miss.
+     * @param customerId the customer the body belongs to
+     * @param body computes the response body on a miss; its exceptions propagate unchanged
+     * @return the encoded body
+     * @throws IOException if the body cannot be serialized
+     */
+    public EncodedBody get(Integer customerId, Supplier<?> body) throws IOException {
+        Cache cache = cacheManager.getCache(CacheConfig.CUSTOMER_REWARD_BODIES);
+        try {
+            return cache.get(CacheConfig.customerKey(customerId), () -> encode(body.get()));
+        } catch (Cache.ValueRetrievalException ex) {
+            if (ex.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Serializes a response body without caching it.
+     * @param body the response body
+     * @return the encoded body
+     * @throws IOException if the body cannot be serialized
+     */
+    public EncodedBody encode(Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        byte[] gzip = null;
+        if (json.length >= rewardProperties.getCache().getGzipMinResponseSize()) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 2);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(json);
+            }
+            gzip = compressed.toByteArray();
+        }
+        return new EncodedBody(json, gzip, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+    }
+
+    /**
+     * Writes the body as the JSON response, or only the status 304 if the request's
+     * {@code If-None-Match} header names the ETag of the variant the client would get.
+     * The gzip variant is sent to clients that accept it.
+     * @param body the encoded body
+     * @param request the current request
+     * @param response the current response, not yet committed
+     * @throws IOException if writing the response fails
+     */
+    public void write(EncodedBody body, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean gzip = body.getGzip() != null && acceptsGzip(request);
+        if (body.getGzip() != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(gzip ? body.getGzipEtag() : body.getEtag())) {
+            return;
+        }
+        byte[] bytes = body.getJson();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            bytes = body.getGzip();
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    // True if an Accept-Encoding header lists gzip without disabling it with q=0
+    static boolean acceptsGzip(HttpServletRequest request) {
+        for (String header : Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING))) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                    return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+}
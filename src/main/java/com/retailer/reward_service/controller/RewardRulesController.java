@@ -0,0 +1,47 @@
+package com.retailer.reward_service.controller;
+
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.service.RewardRulesHolder;
+import com.retailer.reward_service.service.RewardRulesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for reading and replacing the reward rules.
+ */
+@RestController
+@RequestMapping("/api/rewards/rules")
+@RequiredArgsConstructor
+public class RewardRulesController {
+
+    private final RewardRulesService rewardRulesService;
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    /**
+     * Retrieves the active reward rules.
+     *
+     * @return a {@link ResponseEntity} containing the {@link RewardRulesDefinition}.
+     */
+    @GetMapping
+    public ResponseEntity<RewardRulesDefinition> getRules() {
+        return ResponseEntity.ok(rewardRulesHolder.current().getDefinition());
+    }
+
+    /**
+     * Activates a new version of the reward rules. New calculations use them immediately; the ledger and the
+     * snapshot are recalculated in the background.
+     *
+     * @param definition the rules, with a version that was not activated before.
+     * @return a {@link ResponseEntity} with status 202 containing the activated {@link RewardRulesDefinition}.
+     */
+    @PutMapping
+    public ResponseEntity<RewardRulesDefinition> activateRules(@RequestBody RewardRulesDefinition definition) {
+        return ResponseEntity.accepted().body(rewardRulesService.activate(definition).getDefinition());
+    }
+}
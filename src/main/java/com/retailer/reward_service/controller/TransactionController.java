@@ -0,0 +1,119 @@
+package com.retailer.reward_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.dto.IngestionSummary;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.dto.TransactionResponse;
+import com.retailer.reward_service.service.ColumnarTransactionStore;
+import com.retailer.reward_service.service.CustomerIdFilter;
+import com.retailer.reward_service.service.RewardLedgerService;
+import com.retailer.reward_service.service.RewardSnapshotService;
+import com.retailer.reward_service.service.TransactionIngestionService;
+import com.retailer.reward_service.service.TransactionServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * REST controller for recording customer transactions and maintaining the reward ledger.
+ */
+@RestController
+@RequestMapping("/api/transactions")
+@RequiredArgsConstructor
+public class TransactionController {
+
+    private final TransactionServiceImpl transactionServiceImpl;
+
+    private final RewardLedgerService rewardLedgerService;
+
+    private final TransactionIngestionService transactionIngestionService;
+
+    private final ObjectProvider<RewardSnapshotService> rewardSnapshotService;
+
+    private final ColumnarTransactionStore columnarTransactionStore;
+
+    private final RewardPartitionClient rewardPartitionClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final CustomerIdFilter customerIdFilter;
+
+    /**
+     * Records a single transaction for an existing customer.
+     * On a sharded node, transactions of customers of another node are forwarded to it, so the owner's
+     * snapshot and caches see them.
+     *
+     * @param request the transaction to record.
+     * @param httpRequest the current request.
+     * @param httpResponse the response a forwarded transaction's response is written to.
+     * @return a {@link ResponseEntity} with status 201 containing the saved transaction and its points,
+     * or {@code null} when the owner's response has already been written.
+     */
+    @PostMapping
+    public ResponseEntity<TransactionResponse> saveTransaction(@Valid @RequestBody TransactionRequest request,
+                                                               HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
+        customerIdFilter.requireMightExist(request.getCustomerId());
+        if (!rewardPartitionClient.isLocal(request.getCustomerId(), httpRequest)) {
+            rewardPartitionClient.forward(request.getCustomerId(), objectMapper.writeValueAsBytes(request), httpRequest, httpResponse);
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(transactionServiceImpl.saveTransaction(request));
+    }
+
+    /**
+     * Ingests transactions streamed as newline-delimited JSON, one {@link TransactionRequest} per line.
+     * On a sharded node, lines of customers of another node are rejected and must be sent to their owner.
+     *
+     * @param body the request body.
+     * @return a {@link ResponseEntity} containing the accepted/rejected summary per batch.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<IngestionSummary> ingestNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(transactionIngestionService.ingest(
+                new InputStreamReader(body, StandardCharsets.UTF_8), TransactionIngestionService.Format.NDJSON));
+    }
+
+    /**
+     * Ingests transactions streamed as CSV lines of {@code customerId,amount,transactionDate}.
+     * On a sharded node, lines of customers of another node are rejected and must be sent to their owner.
+     *
+     * @param body the request body.
+     * @return a {@link ResponseEntity} containing the accepted/rejected summary per batch.
+     */
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<IngestionSummary> ingestCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(transactionIngestionService.ingest(
+                new InputStreamReader(body, StandardCharsets.UTF_8), TransactionIngestionService.Format.CSV));
+    }
+
+    /**
+     * Rebuilds the monthly reward ledger from all stored transactions, followed by the columnar store
+     * (when it is the configured backend) and the reward snapshot, and adds backfilled customers to the
+     * customer ID filter.
+     * Used after backfills that wrote transactions without going through this service.
+     *
+     * @return a {@link ResponseEntity} containing the number of customers processed.
+     */
+    @PostMapping("/ledger/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildLedger() {
+        int customersProcessed = rewardLedgerService.rebuild();
+        customerIdFilter.refresh();
+        if (columnarTransactionStore.isEnabled()) {
+            columnarTransactionStore.reload();
+        }
+        rewardSnapshotService.ifAvailable(RewardSnapshotService::rebuild);
+        return ResponseEntity.ok(Map.of("customersProcessed", customersProcessed));
+    }
+}
@@ -0,0 +1,21 @@
+package com.retailer.reward_service.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO listing the customers to look up in one batch reward request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRewardRequest {
+
+    @NotEmpty
+    private List<@NotNull Integer> customerIds;
+}
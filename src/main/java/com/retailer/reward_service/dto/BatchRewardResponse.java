@@ -0,0 +1,29 @@
+package com.retailer.reward_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DTO representing the result of a batch reward lookup.
+ * <p>
+ * Every requested customer ID appears exactly once, either in {@code rewards} or in {@code errors}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRewardResponse {
+
+    /**
+     * Rewards of the customers that were found, keyed by customer ID in ascending order.
+     */
+    private Map<Integer, RewardResponse> rewards = new LinkedHashMap<>();
+
+    /**
+     * Reason each remaining customer ID could not be resolved, keyed by customer ID.
+     */
+    private Map<Integer, String> errors = new LinkedHashMap<>();
+}
@@ -0,0 +1,11 @@
+package com.retailer.reward_service.dto;
+
+/**
+ * Projection of the lowest and highest customer IDs, both {@code null} when there are no customers.
+ */
+public interface CustomerIdRange {
+
+    Integer getMinCustomerId();
+
+    Integer getMaxCustomerId();
+}
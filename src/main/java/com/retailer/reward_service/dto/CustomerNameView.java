@@ -0,0 +1,11 @@
+package com.retailer.reward_service.dto;
+
+/**
+ * Projection of a customer's ID and name.
+ */
+public interface CustomerNameView {
+
+    Integer getCustomerId();
+
+    String getCustomerName();
+}
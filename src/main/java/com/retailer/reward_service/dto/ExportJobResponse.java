@@ -0,0 +1,42 @@
+package com.retailer.reward_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * DTO representing the status and progress of an asynchronous reward export.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportJobResponse {
+
+    private String id;
+    private ExportStatus status;
+    /**
+     * {@code csv} or {@code ndjson}.
+     */
+    private String format;
+    private boolean gzip;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private long processedCustomers;
+    /**
+     * Number of customers when the export started; customers created while it runs are exported too.
+     */
+    private Long totalCustomers;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    /**
+     * Size of the finished file in bytes.
+     */
+    private Long fileSize;
+    private String error;
+}
@@ -0,0 +1,17 @@
+package com.retailer.reward_service.dto;
+
+/**
+ * Lifecycle of an asynchronous reward export.
+ */
+public enum ExportStatus {
+    /** Waiting for a free export slot. */
+    QUEUED,
+    /** Calculating and writing customers. */
+    RUNNING,
+    /** The file is ready for download. */
+    COMPLETED,
+    /** Stopped by an error; see the error message. */
+    FAILED,
+    /** Cancelled on request; no file is kept. */
+    CANCELLED
+}
@@ -0,0 +1,58 @@
+package com.retailer.reward_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO summarizing a bulk transaction ingestion, with accepted/rejected counts per batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionSummary {
+
+    private long accepted;
+    private long rejected;
+    private List<BatchSummary> batches = new ArrayList<>();
+
+    /**
+     * Adds the result of one committed batch to the totals.
+     */
+    public void addBatch(BatchSummary batch) {
+        batches.add(batch);
+        accepted += batch.getAccepted();
+        rejected += batch.getRejected();
+    }
+
+    /**
+     * Result of one batch of input lines.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchSummary {
+
+        private int batch;
+        private long firstLine;
+        private long lastLine;
+        private int accepted;
+        private int rejected;
+        private List<RejectedLine> errors = new ArrayList<>();
+    }
+
+    /**
+     * A rejected input line and the reason it was rejected.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RejectedLine {
+
+        private long line;
+        private String reason;
+    }
+}
@@ -0,0 +1,22 @@
+package com.retailer.reward_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO representing a customer's position on the points leaderboard of the default reward window.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+
+    /**
+     * 1-based position; customers with equal points are ranked by ascending customer ID.
+     */
+    private Integer rank;
+    private Integer customerId;
+    private String customerName;
+    private Integer totalPoints;
+}
@@ -0,0 +1,32 @@
+package com.retailer.reward_service.dto;
+
+/**
+ * Projection of the reward points a customer earned in a single calendar month,
+ * aggregated by the database.
+ * <p>
+ * Customers without any points in the requested window may be returned with
+ * a {@code null} period and zero points so they still appear in reports.
+ */
+public interface MonthlyPointsView {
+
+    Integer getCustomerId();
+
+    String getCustomerName();
+
+    /**
+     * Calendar month encoded as {@code yyyyMM} (e.g. 202506), or {@code null} when the customer has no points in the window.
+     */
+    Integer getPeriod();
+
+    Long getPoints();
+
+    /**
+     * Number of transactions in the group with a missing, zero or negative amount.
+     */
+    Long getInvalidCount();
+
+    /**
+     * Number of raw transactions aggregated into the row, 0 for rows read from the monthly ledger.
+     */
+    Long getTransactionCount();
+}
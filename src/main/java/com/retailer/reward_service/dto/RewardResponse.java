@@ -1,9 +1,11 @@
 package com.retailer.reward_service.dto;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+import java.time.YearMonth;
 import java.util.Map;
 
 /**
@@ -11,12 +13,31 @@ import java.util.Map;
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class RewardResponse {
 
     private Integer customerId;
     private String customerName;
-    private Map<String, Integer> monthlyPoints;
+    /**
+     * Points per month of the reward window in chronological order, serialized with {@code yyyy-MM} keys.
+     */
+    private Map<YearMonth, Integer> monthlyPoints;
     private Integer totalPoints;
-}
+    /**
+     * When the snapshot this response was served from was built; later transactions are already included.
+     * Absent when the rewards were calculated from the database for this request.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Instant snapshotTime;
+    /**
+     * Version of the reward rules the points were calculated with.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String ruleVersion;
 
+    public RewardResponse(Integer customerId, String customerName, Map<YearMonth, Integer> monthlyPoints, Integer totalPoints) {
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.monthlyPoints = monthlyPoints;
+        this.totalPoints = totalPoints;
+    }
+}
@@ -0,0 +1,75 @@
+package com.retailer.reward_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Definition of the reward rules, as configured under {@code reward.rules} or activated through the API.
+ * <p>
+ * A transaction earns {@code pointsPerDollar} for every dollar above the threshold of each tier it exceeds, up to
+ * the next threshold; points are rounded down once per transaction. Transactions dated within a promotion have
+ * their points multiplied by its multiplier, again rounded down. Amounts and multipliers have at most two decimals.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RewardRulesDefinition {
+
+    /**
+     * Name of this rule set, reported with every reward response; must be unique among activated rule sets.
+     */
+    private String version;
+
+    private List<Tier> tiers = new ArrayList<>();
+
+    private List<Promotion> promotions = new ArrayList<>();
+
+    /**
+     * The built-in rules: 1 point per dollar between 50 and 100 and 2 points per dollar over 100.
+     */
+    public static RewardRulesDefinition defaults() {
+        return new RewardRulesDefinition("default",
+                new ArrayList<>(List.of(new Tier(new BigDecimal("50"), BigDecimal.ONE), new Tier(new BigDecimal("100"), new BigDecimal("2")))),
+                new ArrayList<>());
+    }
+
+    /**
+     * Points earned per dollar above a threshold.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tier {
+
+        /**
+         * Amount in dollars above which the tier applies.
+         */
+        private BigDecimal threshold;
+
+        private BigDecimal pointsPerDollar;
+    }
+
+    /**
+     * Multiplier applied to the points of transactions dated between two days, both inclusive.
+     * Promotions of one rule set must not overlap.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Promotion {
+
+        private String name;
+
+        private LocalDate from;
+
+        private LocalDate to;
+
+        private BigDecimal multiplier;
+    }
+}
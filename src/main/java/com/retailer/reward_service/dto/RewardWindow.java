@@ -0,0 +1,39 @@
+package com.retailer.reward_service.dto;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Inclusive date range whose transactions count towards a reward calculation.
+ */
+@Value
+public class RewardWindow {
+
+    LocalDate fromDate;
+    LocalDate toDate;
+
+    /**
+     * Window of the given number of months ending on (and including) the given day.
+     */
+    public static RewardWindow lastMonths(LocalDate toDate, int months) {
+        return new RewardWindow(toDate.minusMonths(months), toDate);
+    }
+
+    public YearMonth getFirstMonth() {
+        return YearMonth.from(fromDate);
+    }
+
+    public YearMonth getLastMonth() {
+        return YearMonth.from(toDate);
+    }
+
+    /**
+     * Number of calendar months touched by the window, including partially covered ones.
+     */
+    public int getMonthCount() {
+        return (int) ChronoUnit.MONTHS.between(getFirstMonth(), getLastMonth()) + 1;
+    }
+}
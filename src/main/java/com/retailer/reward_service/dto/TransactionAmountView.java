@@ -0,0 +1,15 @@
+package com.retailer.reward_service.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of the columns of a transaction that reward calculations need.
+ */
+public interface TransactionAmountView {
+
+    Integer getCustomerId();
+
+    LocalDate getTransactionDate();
+
+    Double getAmount();
+}
@@ -0,0 +1,28 @@
+package com.retailer.reward_service.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO representing a transaction to record for a customer.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRequest {
+
+    @NotNull
+    private Integer customerId;
+
+    @NotNull
+    @Positive
+    private Double amount;
+
+    @NotNull
+    private LocalDate transactionDate;
+}
@@ -0,0 +1,22 @@
+package com.retailer.reward_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO representing a recorded transaction.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionResponse {
+
+    private Long id;
+    private Integer customerId;
+    private Double amount;
+    private LocalDate transactionDate;
+    private Integer points;
+}
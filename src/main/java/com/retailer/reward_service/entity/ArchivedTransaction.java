@@ -0,0 +1,49 @@
+package com.retailer.reward_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A transaction moved out of the {@link Transaction} table by the archival job because it is older than the
+ * archive horizon.
+ * <p>
+ * Rows keep the ID of the original transaction and reference the customer by ID only, like {@link MonthlyReward};
+ * they are never loaded with the customer. The composite {@code (customer_id, transaction_date)} index serves
+ * the same range reads as the one on {@link Transaction}.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_archived_transaction_customer_date", columnList = "customer_id, transaction_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedTransaction {
+
+    /**
+     * The ID the transaction had in the {@link Transaction} table.
+     */
+    @Id
+    private Long id;
+
+    /**
+     * The customer of the transaction.
+     */
+    @Column(name = "customer_id", nullable = false)
+    private Integer customerId;
+
+    /**
+     * The amount spent in the transaction, copied unchecked like the rest of the row.
+     */
+    private Double amount;
+
+    /**
+     * The date when the transaction occurred.
+     */
+    @Column(nullable = false)
+    private LocalDate transactionDate;
+}
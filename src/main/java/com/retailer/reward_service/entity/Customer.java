@@ -13,6 +13,7 @@ import java.util.List;
  */
 
 @Entity
+@EntityListeners(CustomerListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,7 +33,7 @@ public class Customer {
     private String name;
 
     /**
-     * List of transactions made by the customer.
+     * List of transactions made by the customer within the archive horizon; older ones are {@link ArchivedTransaction}s.
      */
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transaction> transactions;
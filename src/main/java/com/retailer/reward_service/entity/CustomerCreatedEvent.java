@@ -0,0 +1,15 @@
+package com.retailer.reward_service.entity;
+
+import lombok.Value;
+
+/**
+ * Published by {@link CustomerListener} when a customer has been inserted through JPA.
+ */
+@Value
+public class CustomerCreatedEvent {
+
+    /**
+     * The ID the database assigned to the customer.
+     */
+    Integer customerId;
+}
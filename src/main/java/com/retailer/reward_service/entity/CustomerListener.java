@@ -0,0 +1,22 @@
+package com.retailer.reward_service.entity;
+
+import jakarta.persistence.PostPersist;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes a {@link CustomerCreatedEvent} for every customer persisted through JPA, including those of the sample
+ * data loader. Instantiated by Hibernate through Spring; the event is handled synchronously on the inserting thread.
+ */
+public class CustomerListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    void customerCreated(Customer customer) {
+        eventPublisher.publishEvent(new CustomerCreatedEvent(customer.getCustomerId()));
+    }
+}
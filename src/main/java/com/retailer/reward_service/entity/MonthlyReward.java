@@ -0,0 +1,69 @@
+package com.retailer.reward_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Materialized reward points of a customer for one calendar month.
+ * <p>
+ * Rows are maintained incrementally whenever a transaction is recorded through the
+ * service and can be rebuilt from the raw transactions for backfills.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"customer_id", "period"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MonthlyReward {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "monthly_reward_seq")
+    @SequenceGenerator(name = "monthly_reward_seq", sequenceName = "monthly_reward_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The customer the points belong to.
+     */
+    @Column(name = "customer_id", nullable = false)
+    private Integer customerId;
+
+    /**
+     * Calendar month encoded as {@code yyyyMM}.
+     */
+    @Column(nullable = false)
+    private Integer period;
+
+    /**
+     * Sum of the reward points of all transactions in the month.
+     */
+    @Column(nullable = false)
+    private Long points;
+
+    /**
+     * Encodes the month of a date as {@code yyyyMM}.
+     */
+    public static int periodOf(LocalDate date) {
+        return periodOf(YearMonth.from(date));
+    }
+
+    /**
+     * Encodes a month as {@code yyyyMM}.
+     */
+    public static int periodOf(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    /**
+     * Decodes a {@code yyyyMM} period.
+     */
+    public static YearMonth toYearMonth(int period) {
+        return YearMonth.of(period / 100, period % 100);
+    }
+}
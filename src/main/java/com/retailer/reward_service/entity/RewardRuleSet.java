@@ -0,0 +1,45 @@
+package com.retailer.reward_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A version of the reward rules activated through the API. The latest row is the active rule set,
+ * also after a restart; without rows the rules configured under {@code reward.rules} apply.
+ * Until the ledger has been rebuilt with a version, calculations with it bypass the ledger.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RewardRuleSet {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reward_rule_set_seq")
+    @SequenceGenerator(name = "reward_rule_set_seq", sequenceName = "reward_rule_set_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String version;
+
+    /**
+     * The {@code RewardRulesDefinition} as JSON.
+     */
+    @Lob
+    @Column(nullable = false)
+    private String definition;
+
+    @Column(nullable = false)
+    private Instant activatedAt;
+
+    /**
+     * When a rebuild of the monthly reward ledger with these rules last finished, {@code null} before the first.
+     */
+    private Instant ledgerRebuiltAt;
+}
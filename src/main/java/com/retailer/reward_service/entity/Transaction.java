@@ -8,8 +8,12 @@ import java.time.LocalDate;
 
 /**
  * Represents a transaction entity.
+ * <p>
+ * Reward reads select one customer ID range and date window at a time, which the composite
+ * {@code (customer_id, transaction_date)} index serves without touching other customers' rows.
  */
 @Entity
+@Table(indexes = @Index(name = "idx_transaction_customer_date", columnList = "customer_id, transaction_date"))
 @Data
 @NoArgsConstructor
 @RequiredArgsConstructor
@@ -17,8 +21,12 @@ import java.time.LocalDate;
 @Builder
 public class Transaction {
 
+    /**
+     * Pooled sequence IDs let Hibernate batch inserts, which IDENTITY columns prevent.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
     /**
      * The customer associated with this transaction.
@@ -1,7 +1,12 @@
 package com.retailer.reward_service.exceptions;
 
+/**
+ * Thrown when there is no customer with the requested ID.
+ * <p>
+ * Unknown IDs are requested by clients enumerating IDs far more often than by mistake, so no stack trace is captured.
+ */
 public class CustomerNotFoundException extends RuntimeException {
     public CustomerNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,7 @@
+package com.retailer.reward_service.exceptions;
+
+public class ExportJobNotFoundException extends RuntimeException {
+    public ExportJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.retailer.reward_service.exceptions;
+
+/**
+ * Thrown when the file of an export is requested before the export has completed.
+ */
+public class ExportNotReadyException extends RuntimeException {
+    public ExportNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,15 @@
 package com.retailer.reward_service.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
+import java.util.stream.Collectors;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler  {
@@ -34,5 +37,88 @@ public class GlobalExceptionHandler  {
         return new ResponseEntity<>(errorDetails,HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidRewardWindowException.class)
+    public ResponseEntity<ErrorDetails> handleInvalidRewardWindow(InvalidRewardWindowException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails,HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidBatchRequestException.class)
+    public ResponseEntity<ErrorDetails> handleInvalidBatchRequest(InvalidBatchRequestException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails,HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidExportRequestException.class)
+    public ResponseEntity<ErrorDetails> handleInvalidExportRequest(InvalidExportRequestException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
 
+        return new ResponseEntity<>(errorDetails,HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidRewardRulesException.class)
+    public ResponseEntity<ErrorDetails> handleInvalidRewardRules(InvalidRewardRulesException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails,HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ExportJobNotFoundException.class)
+    public ResponseEntity<ErrorDetails> handleExportJobNotFound(ExportJobNotFoundException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails,HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(ExportNotReadyException.class)
+    public ResponseEntity<ErrorDetails> handleExportNotReady(ExportNotReadyException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails,HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorDetails> handleServiceBusy(ServiceBusyException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorDetails);
+    }
+
+    @ExceptionHandler(PartitionUnavailableException.class)
+    public ResponseEntity<ErrorDetails> handlePartitionUnavailable(PartitionUnavailableException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails,HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(ShardingNotSupportedException.class)
+    public ResponseEntity<ErrorDetails> handleShardingNotSupported(ShardingNotSupportedException ex, WebRequest request) {
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails,HttpStatus.NOT_IMPLEMENTED);
+    }
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ErrorDetails> handleValidationFailure(MethodArgumentNotValidException ex, WebRequest request) {
+        String message = ex.getBindingResult().getFieldErrors().stream()
+                .map(error -> error.getField() + " " + error.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+        ErrorDetails errorDetails=new ErrorDetails(LocalDateTime.now(),
+                message, request.getDescription(false));
+
+        return new ResponseEntity<>(errorDetails,HttpStatus.BAD_REQUEST);
+    }
 }
@@ -0,0 +1,7 @@
+package com.retailer.reward_service.exceptions;
+
+public class InvalidBatchRequestException extends RuntimeException {
+    public InvalidBatchRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.retailer.reward_service.exceptions;
+
+public class InvalidExportRequestException extends RuntimeException {
+    public InvalidExportRequestException(String message) {
+        super(message);
+    }
+}
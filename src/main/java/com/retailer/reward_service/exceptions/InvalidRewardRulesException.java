@@ -0,0 +1,7 @@
+package com.retailer.reward_service.exceptions;
+
+public class InvalidRewardRulesException extends RuntimeException {
+    public InvalidRewardRulesException(String message) {
+        super(message);
+    }
+}
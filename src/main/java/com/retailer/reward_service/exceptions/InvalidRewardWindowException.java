@@ -0,0 +1,7 @@
+package com.retailer.reward_service.exceptions;
+
+public class InvalidRewardWindowException extends RuntimeException {
+    public InvalidRewardWindowException(String message) {
+        super(message);
+    }
+}
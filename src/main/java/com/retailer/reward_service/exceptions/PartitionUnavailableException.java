@@ -0,0 +1,10 @@
+package com.retailer.reward_service.exceptions;
+
+/**
+ * Thrown when another node of a sharded deployment does not answer a forwarded request or a partition query.
+ */
+public class PartitionUnavailableException extends RuntimeException {
+    public PartitionUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
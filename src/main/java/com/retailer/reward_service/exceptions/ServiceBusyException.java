@@ -0,0 +1,12 @@
+package com.retailer.reward_service.exceptions;
+
+/**
+ * Thrown when a request is shed because the database bulkhead is full.
+ * <p>
+ * Rejections are expected under overload, so no stack trace is captured.
+ */
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,10 @@
+package com.retailer.reward_service.exceptions;
+
+/**
+ * Thrown when an operation that cannot cover the customers of other nodes yet is requested in a sharded deployment.
+ */
+public class ShardingNotSupportedException extends RuntimeException {
+    public ShardingNotSupportedException(String message) {
+        super(message);
+    }
+}
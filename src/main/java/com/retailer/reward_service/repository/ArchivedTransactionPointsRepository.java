@@ -0,0 +1,8 @@
+package com.retailer.reward_service.repository;
+
+/**
+ * The aggregations of {@link TransactionPointsRepository} over the archived transactions.
+ * Rows are ordered by customer ID and month like those of the live table, so both can be merged in one pass.
+ */
+public interface ArchivedTransactionPointsRepository extends TransactionPointsRepository {
+}
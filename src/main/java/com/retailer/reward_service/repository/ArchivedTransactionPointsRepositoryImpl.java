@@ -0,0 +1,14 @@
+package com.retailer.reward_service.repository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs the monthly points aggregations of {@link ArchivedTransactionPointsRepository} over the
+ * {@code ArchivedTransaction} table.
+ */
+public class ArchivedTransactionPointsRepositoryImpl extends TransactionPointsQueries implements ArchivedTransactionPointsRepository {
+
+    public ArchivedTransactionPointsRepositoryImpl(EntityManager entityManager) {
+        super(entityManager, "ArchivedTransaction t JOIN Customer c ON c.customerId = t.customerId", "t.customerId");
+    }
+}
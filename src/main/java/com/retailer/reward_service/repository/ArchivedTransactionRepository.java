@@ -0,0 +1,39 @@
+package com.retailer.reward_service.repository;
+
+import com.retailer.reward_service.entity.ArchivedTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long>, ArchivedTransactionPointsRepository {
+
+    /**
+     * Copies the customers' transactions dated before the given day into the archive, keeping their IDs.
+     * Must run in the same transaction that deletes them with
+     * {@link TransactionRepository#deleteTransactionsBefore(Collection, LocalDate)}.
+     *
+     * @param customerIds the customers whose transactions are copied
+     * @param beforeDate  the first transaction date (exclusive) that is not copied
+     * @return the number of copied transactions
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO ArchivedTransaction (id, customerId, amount, transactionDate)
+            SELECT t.id, t.customer.customerId, t.amount, t.transactionDate
+            FROM Transaction t
+            WHERE t.customer.customerId IN :customerIds AND t.transactionDate < :beforeDate
+            """)
+    int copyTransactionsBefore(@Param("customerIds") Collection<Integer> customerIds, @Param("beforeDate") LocalDate beforeDate);
+
+    /**
+     * Returns the date of the newest archived transaction, {@code null} when the archive is empty.
+     */
+    @Query("SELECT MAX(a.transactionDate) FROM ArchivedTransaction a")
+    LocalDate findMaxTransactionDate();
+}
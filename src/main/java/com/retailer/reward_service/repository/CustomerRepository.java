@@ -1,9 +1,80 @@
 package com.retailer.reward_service.repository;
 
+import com.retailer.reward_service.dto.CustomerIdRange;
+import com.retailer.reward_service.dto.CustomerNameView;
 import com.retailer.reward_service.entity.Customer;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+
+    /**
+     * Rows fetched per round-trip by the streaming queries.
+     */
+    int STREAM_FETCH_SIZE = 10_000;
+
+    /**
+     * Rows fetched per round-trip by the reward calculation queries, which return one row per customer and month.
+     */
+    int LIST_FETCH_SIZE = 1_000;
+
+    /**
+     * Returns the next page of customer IDs after the given cursor (keyset pagination).
+     *
+     * @param afterCustomerId the last customer ID already seen (exclusive)
+     * @param limit           the maximum number of IDs to return
+     * @return customer IDs in ascending order
+     */
+    @Query("SELECT c.customerId FROM Customer c WHERE c.customerId > :afterCustomerId ORDER BY c.customerId")
+    List<Integer> findCustomerIdsAfter(@Param("afterCustomerId") Integer afterCustomerId, Limit limit);
+
+    /**
+     * Returns which of the given customer IDs exist, using a single IN-list query.
+     *
+     * @param customerIds the customer IDs to check
+     * @return the subset of IDs that belong to existing customers
+     */
+    @Query("SELECT c.customerId FROM Customer c WHERE c.customerId IN :customerIds")
+    Set<Integer> findExistingCustomerIds(@Param("customerIds") Collection<Integer> customerIds);
+
+    /**
+     * Loads the customers and locks their rows until the end of the current transaction. Writers lock the
+     * customers whose ledger rows they change before inserting anything, so concurrent first writes of a month
+     * cannot both insert its ledger row; rows are locked in customer ID order, so writers of several customers
+     * cannot deadlock.
+     *
+     * @param customerIds the customer IDs to lock
+     * @return the existing customers in ascending ID order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Customer c WHERE c.customerId IN :customerIds ORDER BY c.customerId")
+    List<Customer> lockCustomers(@Param("customerIds") Collection<Integer> customerIds);
+
+    /**
+     * Returns the lowest and highest customer IDs, used to split reports into ID ranges.
+     */
+    @Query("SELECT MIN(c.customerId) AS minCustomerId, MAX(c.customerId) AS maxCustomerId FROM Customer c")
+    CustomerIdRange findCustomerIdRange();
+
+    /**
+     * Streams the ID and name of every customer in ascending ID order.
+     * Must be consumed inside a transaction.
+     */
+    @Query("SELECT c.customerId AS customerId, c.name AS customerName FROM Customer c ORDER BY c.customerId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    Stream<CustomerNameView> streamCustomerNames();
 }
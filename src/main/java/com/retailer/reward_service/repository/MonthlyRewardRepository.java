@@ -0,0 +1,93 @@
+package com.retailer.reward_service.repository;
+
+import com.retailer.reward_service.dto.MonthlyPointsView;
+import com.retailer.reward_service.entity.MonthlyReward;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MonthlyRewardRepository extends JpaRepository<MonthlyReward, Long> {
+
+    /**
+     * Select clause shared by the ledger reads; customers without ledger rows in the requested
+     * months are kept through the outer join.
+     */
+    String LEDGER_POINTS_SELECT = """
+            SELECT c.customerId AS customerId,
+                   c.name AS customerName,
+                   m.period AS period,
+                   COALESCE(m.points, 0) AS points,
+                   0L AS invalidCount,
+                   0L AS transactionCount
+            FROM Customer c
+            LEFT JOIN MonthlyReward m ON m.customerId = c.customerId AND m.period BETWEEN :fromPeriod AND :toPeriod
+            """;
+
+    /**
+     * Returns the ledger rows of a range of months for every customer in the ID range.
+     * Customers without ledger rows in the range are returned once with a {@code null} period,
+     * which also happens for every customer when {@code fromPeriod} is after {@code toPeriod}.
+     *
+     * @param fromPeriod     the first month (inclusive, {@code yyyyMM})
+     * @param toPeriod       the last month (inclusive, {@code yyyyMM})
+     * @param fromCustomerId the lowest customer ID (inclusive)
+     * @param toCustomerId   the highest customer ID (inclusive)
+     * @return rows ordered by customer ID and period
+     */
+    @Query(LEDGER_POINTS_SELECT + """
+            WHERE c.customerId BETWEEN :fromCustomerId AND :toCustomerId
+            ORDER BY c.customerId, m.period
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + CustomerRepository.LIST_FETCH_SIZE))
+    List<MonthlyPointsView> findMonthlyPointsBetween(@Param("fromPeriod") Integer fromPeriod,
+                                                     @Param("toPeriod") Integer toPeriod,
+                                                     @Param("fromCustomerId") Integer fromCustomerId,
+                                                     @Param("toCustomerId") Integer toCustomerId);
+
+    /**
+     * Same as {@link #findMonthlyPointsBetween(Integer, Integer, Integer, Integer)} for a list of customer IDs.
+     * IDs without a customer are simply absent from the result.
+     *
+     * @param fromPeriod  the first month (inclusive, {@code yyyyMM})
+     * @param toPeriod    the last month (inclusive, {@code yyyyMM})
+     * @param customerIds the customer IDs to read
+     * @return rows ordered by customer ID and period
+     */
+    @Query(LEDGER_POINTS_SELECT + """
+            WHERE c.customerId IN :customerIds
+            ORDER BY c.customerId, m.period
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + CustomerRepository.LIST_FETCH_SIZE))
+    List<MonthlyPointsView> findMonthlyPointsBetweenForCustomerIds(@Param("fromPeriod") Integer fromPeriod,
+                                                                   @Param("toPeriod") Integer toPeriod,
+                                                                   @Param("customerIds") Collection<Integer> customerIds);
+
+    /**
+     * Atomically adds points to an existing ledger row.
+     *
+     * @return the number of updated rows, 0 when the row does not exist yet
+     */
+    @Modifying
+    @Query("""
+            UPDATE MonthlyReward m
+            SET m.points = m.points + :points
+            WHERE m.customerId = :customerId AND m.period = :period
+            """)
+    int addPoints(@Param("customerId") Integer customerId, @Param("period") Integer period, @Param("points") long points);
+
+    /**
+     * Removes all ledger rows for a customer ID range before it is rebuilt.
+     */
+    @Modifying
+    @Query("DELETE FROM MonthlyReward m WHERE m.customerId BETWEEN :fromCustomerId AND :toCustomerId")
+    int deleteByCustomerIdRange(@Param("fromCustomerId") Integer fromCustomerId, @Param("toCustomerId") Integer toCustomerId);
+}
@@ -0,0 +1,33 @@
+package com.retailer.reward_service.repository;
+
+import com.retailer.reward_service.entity.RewardRuleSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface RewardRuleSetRepository extends JpaRepository<RewardRuleSet, Long> {
+
+    /**
+     * Returns the most recently activated rule set.
+     */
+    Optional<RewardRuleSet> findFirstByOrderByIdDesc();
+
+    boolean existsByVersion(String version);
+
+    /**
+     * Records that the monthly reward ledger was rebuilt with a version of the rules.
+     *
+     * @param version   the version of the rules
+     * @param rebuiltAt when the rebuild finished
+     * @return the number of updated rows, 0 for rules that were never activated through the API
+     */
+    @Modifying
+    @Query("UPDATE RewardRuleSet r SET r.ledgerRebuiltAt = :rebuiltAt WHERE r.version = :version")
+    int markLedgerRebuilt(@Param("version") String version, @Param("rebuiltAt") Instant rebuiltAt);
+}
@@ -0,0 +1,118 @@
+package com.retailer.reward_service.repository;
+
+import com.retailer.reward_service.dto.MonthlyPointsView;
+import com.retailer.reward_service.service.RewardRules;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.Value;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Renders the monthly points aggregations of {@link TransactionPointsRepository} from the rules' JPQL expression
+ * over one table of transactions, aliased {@code t} and joined to its customer {@code c}.
+ * Hibernate caches the plan of every distinct query string, so each rule version is parsed once per table.
+ */
+abstract class TransactionPointsQueries implements TransactionPointsRepository {
+
+    private static final String GROUP_BY = """
+            GROUP BY c.customerId, c.name, YEAR(t.transactionDate) * 100 + MONTH(t.transactionDate)
+            ORDER BY c.customerId, YEAR(t.transactionDate) * 100 + MONTH(t.transactionDate)
+            """;
+
+    private final EntityManager entityManager;
+
+    private final String from;
+
+    private final String customerIdPath;
+
+    /**
+     * @param entityManager  the entity manager the queries run on
+     * @param from           the FROM clause selecting the transactions as {@code t} and their customers as {@code c}
+     * @param customerIdPath the path of the transaction's customer ID column, so the ID bounds are on the
+     *                       indexed column rather than on the joined customer
+     */
+    TransactionPointsQueries(EntityManager entityManager, String from, String customerIdPath) {
+        this.entityManager = entityManager;
+        this.from = from;
+        this.customerIdPath = customerIdPath;
+    }
+
+    @Override
+    public List<MonthlyPointsView> findMonthlyPointsBetween(RewardRules rules, LocalDate fromDate, LocalDate toDate,
+                                                            Integer fromCustomerId, Integer toCustomerId) {
+        return rows(query(rules, """
+                WHERE %s BETWEEN :fromCustomerId AND :toCustomerId
+                  AND t.transactionDate BETWEEN :fromDate AND :toDate
+                """.formatted(customerIdPath))
+                .setParameter("fromDate", fromDate)
+                .setParameter("toDate", toDate)
+                .setParameter("fromCustomerId", fromCustomerId)
+                .setParameter("toCustomerId", toCustomerId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, CustomerRepository.LIST_FETCH_SIZE));
+    }
+
+    @Override
+    public List<MonthlyPointsView> findMonthlyPointsBetweenForCustomerIds(RewardRules rules, LocalDate fromDate, LocalDate toDate,
+                                                                          Collection<Integer> customerIds) {
+        return rows(query(rules, """
+                WHERE %s IN :customerIds
+                  AND t.transactionDate BETWEEN :fromDate AND :toDate
+                """.formatted(customerIdPath))
+                .setParameter("fromDate", fromDate)
+                .setParameter("toDate", toDate)
+                .setParameter("customerIds", customerIds)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, CustomerRepository.LIST_FETCH_SIZE));
+    }
+
+    @Override
+    public List<MonthlyPointsView> findMonthlyPointsForCustomers(RewardRules rules, Integer fromCustomerId, Integer toCustomerId) {
+        return rows(query(rules, "WHERE c.customerId BETWEEN :fromCustomerId AND :toCustomerId\n")
+                .setParameter("fromCustomerId", fromCustomerId)
+                .setParameter("toCustomerId", toCustomerId));
+    }
+
+    private TypedQuery<Tuple> query(RewardRules rules, String where) {
+        return entityManager.createQuery("""
+                SELECT c.customerId AS customerId,
+                       c.name AS customerName,
+                       YEAR(t.transactionDate) * 100 + MONTH(t.transactionDate) AS period,
+                       CAST(SUM(%s) AS Long) AS points,
+                       SUM(CASE WHEN t.amount IS NULL OR t.amount <= 0 THEN 1 ELSE 0 END) AS invalidCount,
+                       COUNT(t) AS transactionCount
+                FROM %s
+                """.formatted(rules.toJpql("t.amount", "t.transactionDate"), from) + where + GROUP_BY, Tuple.class);
+    }
+
+    private static List<MonthlyPointsView> rows(TypedQuery<Tuple> query) {
+        List<Tuple> tuples = query.getResultList();
+        List<MonthlyPointsView> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(new MonthlyPointsRow(tuple.get("customerId", Integer.class), tuple.get("customerName", String.class),
+                    ((Number) tuple.get("period")).intValue(), tuple.get("points", Long.class),
+                    ((Number) tuple.get("invalidCount")).longValue(), tuple.get("transactionCount", Long.class)));
+        }
+        return rows;
+    }
+
+    @Value
+    private static class MonthlyPointsRow implements MonthlyPointsView {
+
+        Integer customerId;
+
+        String customerName;
+
+        Integer period;
+
+        Long points;
+
+        Long invalidCount;
+
+        Long transactionCount;
+    }
+}
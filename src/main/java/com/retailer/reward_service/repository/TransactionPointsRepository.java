@@ -0,0 +1,55 @@
+package com.retailer.reward_service.repository;
+
+import com.retailer.reward_service.dto.MonthlyPointsView;
+import com.retailer.reward_service.service.RewardRules;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Aggregations of reward points per customer and month over the raw transactions.
+ * <p>
+ * The tier rules are evaluated per row in the database. They are data, so the queries are rendered from the
+ * given {@link RewardRules} rather than declared with {@code @Query}; rows are ordered by customer ID and month
+ * so callers can build responses in a single pass.
+ */
+public interface TransactionPointsRepository {
+
+    /**
+     * Aggregates reward points per customer and month for transactions within a date range.
+     * Both bounds are on the foreign key column so the {@code (customer_id, transaction_date)}
+     * index turns the lookup into a range scan.
+     *
+     * @param rules          the rules the points are calculated with
+     * @param fromDate       the first transaction date (inclusive) to include
+     * @param toDate         the last transaction date (inclusive) to include
+     * @param fromCustomerId the lowest customer ID (inclusive)
+     * @param toCustomerId   the highest customer ID (inclusive)
+     * @return one row per customer and month with at least one transaction
+     */
+    List<MonthlyPointsView> findMonthlyPointsBetween(RewardRules rules, LocalDate fromDate, LocalDate toDate,
+                                                     Integer fromCustomerId, Integer toCustomerId);
+
+    /**
+     * Same as {@link #findMonthlyPointsBetween(RewardRules, LocalDate, LocalDate, Integer, Integer)} for a list of customer IDs.
+     *
+     * @param rules       the rules the points are calculated with
+     * @param fromDate    the first transaction date (inclusive) to include
+     * @param toDate      the last transaction date (inclusive) to include
+     * @param customerIds the customer IDs to aggregate
+     * @return one row per customer and month with at least one transaction
+     */
+    List<MonthlyPointsView> findMonthlyPointsBetweenForCustomerIds(RewardRules rules, LocalDate fromDate, LocalDate toDate,
+                                                                   Collection<Integer> customerIds);
+
+    /**
+     * Aggregates reward points per customer and month over the full transaction history of a customer ID range.
+     *
+     * @param rules          the rules the points are calculated with
+     * @param fromCustomerId the lowest customer ID (inclusive)
+     * @param toCustomerId   the highest customer ID (inclusive)
+     * @return one row per customer and month with at least one transaction
+     */
+    List<MonthlyPointsView> findMonthlyPointsForCustomers(RewardRules rules, Integer fromCustomerId, Integer toCustomerId);
+}
@@ -0,0 +1,13 @@
+package com.retailer.reward_service.repository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs the monthly points aggregations of {@link TransactionPointsRepository} over the {@code Transaction} table.
+ */
+public class TransactionPointsRepositoryImpl extends TransactionPointsQueries {
+
+    public TransactionPointsRepositoryImpl(EntityManager entityManager) {
+        super(entityManager, "Transaction t JOIN t.customer c", "t.customer.customerId");
+    }
+}
@@ -1,9 +1,71 @@
 package com.retailer.reward_service.repository;
 
+import com.retailer.reward_service.dto.TransactionAmountView;
 import com.retailer.reward_service.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.stream.Stream;
+
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionPointsRepository {
+
+    /**
+     * Streams the customer, date and amount of every transaction ordered by customer ID and date.
+     * Must be consumed inside a transaction.
+     */
+    @Query("""
+            SELECT t.customer.customerId AS customerId, t.transactionDate AS transactionDate, t.amount AS amount
+            FROM Transaction t
+            ORDER BY t.customer.customerId, t.transactionDate
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + CustomerRepository.STREAM_FETCH_SIZE))
+    Stream<TransactionAmountView> streamAllOrderByCustomerAndDate();
+
+    /**
+     * Returns the highest transaction ID, 0 when there are no transactions.
+     * IDs come from a sequence, so transactions recorded later have higher IDs.
+     */
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM Transaction t")
+    long findMaxTransactionId();
+
+    /**
+     * Streams the customer, date and amount of the transactions recorded after the given one, within a date range.
+     * Must be consumed inside a transaction.
+     *
+     * @param afterId  the highest transaction ID already seen (exclusive)
+     * @param fromDate the first transaction date (inclusive) to include
+     * @param toDate   the last transaction date (inclusive) to include
+     * @return the transactions ordered by ID
+     */
+    @Query("""
+            SELECT t.customer.customerId AS customerId, t.transactionDate AS transactionDate, t.amount AS amount
+            FROM Transaction t
+            WHERE t.id > :afterId AND t.transactionDate BETWEEN :fromDate AND :toDate
+            ORDER BY t.id
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + CustomerRepository.STREAM_FETCH_SIZE))
+    Stream<TransactionAmountView> streamTransactionsAfter(@Param("afterId") long afterId,
+                                                          @Param("fromDate") LocalDate fromDate,
+                                                          @Param("toDate") LocalDate toDate);
+
+    /**
+     * Deletes the customers' transactions dated before the given day once they have been copied with
+     * {@link ArchivedTransactionRepository#copyTransactionsBefore(Collection, LocalDate)}.
+     *
+     * @param customerIds the customers whose transactions are deleted
+     * @param beforeDate  the first transaction date (exclusive) that is kept
+     * @return the number of deleted transactions
+     */
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.customer.customerId IN :customerIds AND t.transactionDate < :beforeDate")
+    int deleteTransactionsBefore(@Param("customerIds") Collection<Integer> customerIds, @Param("beforeDate") LocalDate beforeDate);
 }
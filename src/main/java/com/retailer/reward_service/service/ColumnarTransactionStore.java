@@ -0,0 +1,476 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.CustomerNameView;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.dto.TransactionAmountView;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.entity.MonthlyReward;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * In-memory copy of all transactions in primitive columns, used in place of the database when
+ * {@code reward.store.backend} is {@code columnar}.
+ * <p>
+ * Transactions are held sorted by customer ID and date: an {@code int} epoch day and a {@code double} amount
+ * per transaction (12 bytes), and per customer its ID, name and offset into those columns. A customer is
+ * found by binary search on the IDs and the start of the window by binary search on the customer's dates, so a
+ * calculation only reads the transactions inside the window. Amounts are kept as stored and evaluated in
+ * {@code double} like the database aggregations and the ledger, so every backend earns the same points for
+ * amounts with more than two decimals.
+ * <p>
+ * The columns are loaded once the application is ready. Transactions saved afterwards are appended per customer
+ * when their database transaction commits and merged into the columns once {@code reward.store.compact-threshold}
+ * have accumulated. Customers written while the columns were loading may or may not be included in them, so they
+ * are calculated from the database until the next reload, as are customers created after the load.
+ * Archived transactions are not loaded, so windows reaching into the archive are calculated from the database.
+ */
+@RequiredArgsConstructor
+@Component
+public class ColumnarTransactionStore {
+
+    private final CustomerRepository customerRepository;
+
+    private final TransactionRepository transactionRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final RewardProperties rewardProperties;
+
+    private final RewardMetrics rewardMetrics;
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    private final TransactionArchiveService transactionArchiveService;
+
+    private volatile Columns columns;
+
+    // Customers written since the running load started, null when no load is running; guarded by this
+    private Set<Integer> writtenDuringLoad;
+
+    // Transactions appended to the current columns since they were built; guarded by this
+    private int appendedCount;
+
+    /**
+     * Whether the columnar backend is configured; when it is not, nothing is loaded and every lookup returns {@code null}.
+     */
+    public boolean isEnabled() {
+        return rewardProperties.getStore().getBackend() == RewardProperties.Store.Backend.COLUMNAR;
+    }
+
+    /**
+     * Number of transactions held, including appended ones, or -1 before the first load.
+     */
+    public synchronized long size() {
+        Columns current = columns;
+        return current == null ? -1 : current.epochDays.length + appendedCount;
+    }
+
+    /**
+     * Loads the columns while the application is ready but before it reports readiness for traffic.
+     * Until then rewards are calculated from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void loadOnStartup() {
+        if (isEnabled()) {
+            reload();
+        }
+    }
+
+    /**
+     * Reads all customers and transactions from the database into new columns and swaps them in.
+     * Lookups keep using the previous columns until the swap.
+     */
+    public void reload() {
+        synchronized (this) {
+            writtenDuringLoad = new HashSet<>();
+        }
+        try {
+            TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+            readOnlyTransaction.setReadOnly(true);
+            Columns loaded = readOnlyTransaction.execute(status -> load());
+            synchronized (this) {
+                columns = new Columns(loaded, writtenDuringLoad);
+                appendedCount = 0;
+                writtenDuringLoad = null;
+            }
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                writtenDuringLoad = null;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Appends saved transactions to the columns once the surrounding database transaction commits.
+     * Must be called before the transaction's cache evictions are registered.
+     * @param customerId the customer of the transactions
+     * @param transactionDate the date of the transaction
+     * @param amount the transaction amount
+     */
+    public void applyTransaction(Integer customerId, LocalDate transactionDate, double amount) {
+        if (isEnabled()) {
+            afterCommit(() -> append(List.of(new double[]{customerId, transactionDate.toEpochDay(), amount})));
+        }
+    }
+
+    /**
+     * Appends a batch of saved transactions to the columns once the surrounding database transaction commits.
+     * @param requests the saved transactions
+     */
+    public void applyTransactions(List<TransactionRequest> requests) {
+        if (!isEnabled()) {
+            return;
+        }
+        List<double[]> rows = new ArrayList<>(requests.size());
+        for (TransactionRequest request : requests) {
+            rows.add(new double[]{request.getCustomerId(), request.getTransactionDate().toEpochDay(), request.getAmount()});
+        }
+        afterCommit(() -> append(rows));
+    }
+
+    /**
+     * Calculates the rewards of every customer in the ID range.
+     * @param fromCustomerId the lowest customer ID (inclusive)
+     * @param toCustomerId the highest customer ID (inclusive)
+     * @param window the reward window
+     * @return rewards ordered by customer ID, or {@code null} if the store cannot answer for every customer in the range
+     *         or the window starts before the newest archived transaction
+     */
+    public List<RewardResponse> calculateRewards(int fromCustomerId, int toCustomerId, RewardWindow window) {
+        Columns current = columns;
+        if (current == null || toCustomerId > current.lastCustomerId || transactionArchiveService.isArchived(window.getFromDate())
+                || !current.staleCustomerIds.subSet(fromCustomerId, true, toCustomerId, true).isEmpty()) {
+            return null;
+        }
+        int from = current.lowerBound(fromCustomerId);
+        int to = current.lowerBound(toCustomerId + 1L);
+        Calculation calculation = new Calculation(window, rewardRulesHolder.current());
+        List<RewardResponse> rewards = new ArrayList<>(to - from);
+        for (int index = from; index < to; index++) {
+            rewards.add(calculation.calculate(current, index));
+        }
+        rewardMetrics.recordTransactionsScanned(calculation.transactionsScanned);
+        return rewards;
+    }
+
+    /**
+     * Calculates the rewards of the given customers; IDs without a customer are left out.
+     * @param customerIds the customer IDs
+     * @param window the reward window
+     * @return rewards ordered by customer ID, or {@code null} if the store cannot answer for every customer
+     *         or the window starts before the newest archived transaction
+     */
+    public List<RewardResponse> calculateRewards(SortedSet<Integer> customerIds, RewardWindow window) {
+        Columns current = columns;
+        if (current == null || customerIds.isEmpty()) {
+            return current == null ? null : List.of();
+        }
+        if (customerIds.last() > current.lastCustomerId || transactionArchiveService.isArchived(window.getFromDate())
+                || customerIds.stream().anyMatch(current.staleCustomerIds::contains)) {
+            return null;
+        }
+        Calculation calculation = new Calculation(window, rewardRulesHolder.current());
+        List<RewardResponse> rewards = new ArrayList<>(customerIds.size());
+        for (Integer customerId : customerIds) {
+            int index = Arrays.binarySearch(current.customerIds, customerId);
+            if (index >= 0) {
+                rewards.add(calculation.calculate(current, index));
+            }
+        }
+        rewardMetrics.recordTransactionsScanned(calculation.transactionsScanned);
+        return rewards;
+    }
+
+    private Columns load() {
+        int customerCount = Math.toIntExact(customerRepository.count());
+        int[] customerIds = new int[customerCount];
+        String[] names = new String[customerCount];
+        int customers = 0;
+        try (Stream<CustomerNameView> rows = customerRepository.streamCustomerNames()) {
+            for (Iterator<CustomerNameView> it = rows.iterator(); it.hasNext(); customers++) {
+                CustomerNameView row = it.next();
+                if (customers == customerIds.length) {
+                    customerIds = Arrays.copyOf(customerIds, grow(customers));
+                    names = Arrays.copyOf(names, customerIds.length);
+                }
+                customerIds[customers] = row.getCustomerId();
+                names[customers] = row.getCustomerName();
+            }
+        }
+        customerIds = Arrays.copyOf(customerIds, customers);
+        names = Arrays.copyOf(names, customers);
+
+        // Rows arrive ordered by customer, so offsets are filled while walking both lists in step
+        int[] offsets = new int[customers + 1];
+        int[] epochDays = new int[Math.toIntExact(transactionRepository.count())];
+        double[] amounts = new double[epochDays.length];
+        int size = 0;
+        int customer = 0;
+        try (Stream<TransactionAmountView> rows = transactionRepository.streamAllOrderByCustomerAndDate()) {
+            for (Iterator<TransactionAmountView> it = rows.iterator(); it.hasNext(); ) {
+                TransactionAmountView row = it.next();
+                while (customer < customers && customerIds[customer] < row.getCustomerId()) {
+                    offsets[++customer] = size;
+                }
+                if (customer == customers || customerIds[customer] != row.getCustomerId()) {
+                    // Customer created after the customer list was read; calculated from the database
+                    continue;
+                }
+                if (size == epochDays.length) {
+                    epochDays = Arrays.copyOf(epochDays, grow(size));
+                    amounts = Arrays.copyOf(amounts, epochDays.length);
+                }
+                epochDays[size] = Math.toIntExact(row.getTransactionDate().toEpochDay());
+                amounts[size] = row.getAmount() == null ? 0 : row.getAmount();
+                size++;
+            }
+        }
+        while (customer < customers) {
+            offsets[++customer] = size;
+        }
+        return new Columns(customerIds, names, offsets, Arrays.copyOf(epochDays, size), Arrays.copyOf(amounts, size),
+                new HashMap<>(), Set.of());
+    }
+
+    private synchronized void append(List<double[]> rows) {
+        if (writtenDuringLoad != null) {
+            rows.forEach(row -> writtenDuringLoad.add((int) row[0]));
+        }
+        Columns current = columns;
+        if (current == null) {
+            return;
+        }
+        for (double[] row : rows) {
+            int customerId = (int) row[0];
+            if (Arrays.binarySearch(current.customerIds, customerId) < 0) {
+                // Unknown customers are calculated from the database
+                continue;
+            }
+            // Copied on write so readers never see a half-appended transaction
+            current.appended.compute(customerId, (id, appended) -> {
+                double[] updated = appended == null ? new double[2] : Arrays.copyOf(appended, appended.length + 2);
+                updated[updated.length - 2] = row[1];
+                updated[updated.length - 1] = row[2];
+                return updated;
+            });
+            appendedCount++;
+        }
+        if (appendedCount >= rewardProperties.getStore().getCompactThreshold()) {
+            columns = current.compact();
+            appendedCount = 0;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int grow(int length) {
+        return Math.max(16, length + (length >> 1));
+    }
+
+    /**
+     * One generation of columns. The arrays never change; appended transactions are kept per customer
+     * as {@code [epochDay, amount, ...]} pairs until they are compacted into a new generation.
+     */
+    private static final class Columns {
+
+        final int[] customerIds;
+
+        final String[] names;
+
+        /**
+         * Transactions of the customer at index {@code i} are at {@code [offsets[i], offsets[i + 1])}.
+         */
+        final int[] offsets;
+
+        final int[] epochDays;
+
+        final double[] amounts;
+
+        final Map<Integer, double[]> appended;
+
+        final NavigableSet<Integer> staleCustomerIds;
+
+        final int lastCustomerId;
+
+        Columns(int[] customerIds, String[] names, int[] offsets, int[] epochDays, double[] amounts,
+                Map<Integer, double[]> appended, Set<Integer> staleCustomerIds) {
+            this.customerIds = customerIds;
+            this.names = names;
+            this.offsets = offsets;
+            this.epochDays = epochDays;
+            this.amounts = amounts;
+            this.appended = new ConcurrentHashMap<>(appended);
+            this.staleCustomerIds = Collections.unmodifiableNavigableSet(new TreeSet<>(staleCustomerIds));
+            this.lastCustomerId = customerIds.length == 0 ? Integer.MIN_VALUE : customerIds[customerIds.length - 1];
+        }
+
+        Columns(Columns loaded, Set<Integer> staleCustomerIds) {
+            this(loaded.customerIds, loaded.names, loaded.offsets, loaded.epochDays, loaded.amounts, loaded.appended,
+                    staleCustomerIds);
+        }
+
+        // Index of the first customer with an ID of at least the given one
+        int lowerBound(long customerId) {
+            int low = 0;
+            int high = customerIds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (customerIds[mid] < customerId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Index of the customer's first transaction on or after the given day
+        int firstTransactionOnOrAfter(int customer, int epochDay) {
+            int low = offsets[customer];
+            int high = offsets[customer + 1];
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochDays[mid] < epochDay) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Merges the appended transactions into a new generation of columns
+        Columns compact() {
+            int appendedTotal = 0;
+            for (double[] pairs : appended.values()) {
+                appendedTotal += pairs.length / 2;
+            }
+            int[] newOffsets = new int[offsets.length];
+            int[] newEpochDays = new int[epochDays.length + appendedTotal];
+            double[] newAmounts = new double[newEpochDays.length];
+            int size = 0;
+            for (int customer = 0; customer < customerIds.length; customer++) {
+                newOffsets[customer] = size;
+                double[] pairs = appended.get(customerIds[customer]);
+                int[] order = pairs == null ? new int[0] : sortedPairOrder(pairs);
+                int next = 0;
+                for (int i = offsets[customer]; i < offsets[customer + 1]; i++) {
+                    for (; next < order.length && pairs[order[next] * 2] < epochDays[i]; next++, size++) {
+                        newEpochDays[size] = (int) pairs[order[next] * 2];
+                        newAmounts[size] = pairs[order[next] * 2 + 1];
+                    }
+                    newEpochDays[size] = epochDays[i];
+                    newAmounts[size] = amounts[i];
+                    size++;
+                }
+                for (; next < order.length; next++, size++) {
+                    newEpochDays[size] = (int) pairs[order[next] * 2];
+                    newAmounts[size] = pairs[order[next] * 2 + 1];
+                }
+            }
+            newOffsets[customerIds.length] = size;
+            return new Columns(customerIds, names, newOffsets, newEpochDays, newAmounts, Map.of(), staleCustomerIds);
+        }
+
+        // Indexes of the [epochDay, amount] pairs in ascending day order
+        private static int[] sortedPairOrder(double[] pairs) {
+            return IntStream.range(0, pairs.length / 2).boxed()
+                    .sorted(Comparator.comparingDouble(i -> pairs[i * 2]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    /**
+     * Per-lookup calculation state: the rules, the window's month boundaries as epoch days and a reusable accumulator.
+     */
+    private static final class Calculation {
+
+        private final RewardWindow window;
+
+        private final RewardRules rules;
+
+        private final RewardPointsCalculator.MonthlyAccumulator accumulator;
+
+        /**
+         * {@code monthStarts[i]} is the first day of month {@code i} inside the window; the last entry is the day after the window.
+         */
+        private final int[] monthStarts;
+
+        private final int[] periods;
+
+        private long transactionsScanned;
+
+        Calculation(RewardWindow window, RewardRules rules) {
+            this.window = window;
+            this.rules = rules;
+            int monthCount = window.getMonthCount();
+            this.accumulator = new RewardPointsCalculator.MonthlyAccumulator(window.getFirstMonth(), monthCount);
+            this.monthStarts = new int[monthCount + 1];
+            this.periods = new int[monthCount];
+            YearMonth month = window.getFirstMonth();
+            monthStarts[0] = (int) window.getFromDate().toEpochDay();
+            for (int i = 0; i < monthCount; i++, month = month.plusMonths(1)) {
+                periods[i] = MonthlyReward.periodOf(month);
+                monthStarts[i + 1] = (int) (i + 1 < monthCount ? month.plusMonths(1).atDay(1) : window.getToDate().plusDays(1)).toEpochDay();
+            }
+        }
+
+        RewardResponse calculate(Columns columns, int customer) {
+            accumulator.reset();
+            int end = columns.offsets[customer + 1];
+            int month = 0;
+            for (int i = columns.firstTransactionOnOrAfter(customer, monthStarts[0]); i < end && columns.epochDays[i] < monthStarts[monthStarts.length - 1]; i++) {
+                while (columns.epochDays[i] >= monthStarts[month + 1]) {
+                    month++;
+                }
+                accumulator.add(periods[month], rules.calculatePoints(columns.amounts[i], columns.epochDays[i]));
+                transactionsScanned++;
+            }
+            double[] pairs = columns.appended.get(columns.customerIds[customer]);
+            if (pairs != null) {
+                for (int i = 0; i < pairs.length; i += 2) {
+                    LocalDate date = LocalDate.ofEpochDay((long) pairs[i]);
+                    if (!date.isBefore(window.getFromDate()) && !date.isAfter(window.getToDate())) {
+                        accumulator.add(MonthlyReward.periodOf(date), rules.calculatePoints(pairs[i + 1], date.toEpochDay()));
+                        transactionsScanned++;
+                    }
+                }
+            }
+            RewardResponse reward = new RewardResponse(columns.customerIds[customer], columns.names[customer],
+                    accumulator.toMonthlyPoints(), accumulator.getTotalPoints());
+            reward.setRuleVersion(rules.getVersion());
+            return reward;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.retailer.reward_service.service;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Assigns customer IDs to nodes through a consistent-hash ring.
+ * <p>
+ * Every node is placed on a ring of 64-bit hashes at {@code virtualNodes} points; a customer belongs to the node
+ * of the first point at or after the hash of its ID, wrapping around at the end. Adding or removing a node
+ * therefore only moves the customers of the ring segments it takes over or gives up, about {@code 1/n} of
+ * them, and the assignment depends only on the node IDs, so every node computes the same ring. The points are
+ * kept in sorted parallel arrays, so a lookup is one binary search without allocation. Immutable.
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+
+    private final String[] owners;
+
+    /**
+     * @param nodeIds the IDs of the nodes, distinct
+     * @param virtualNodes the number of points per node
+     * @throws IllegalArgumentException if there is no node, a node ID repeats or {@code virtualNodes} is not positive
+     */
+    public ConsistentHashRing(List<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("At least one node and one virtual node per node are required");
+        }
+        Set<String> distinct = new HashSet<>(nodeIds);
+        if (distinct.size() != nodeIds.size() || distinct.contains(null)) {
+            throw new IllegalArgumentException("Node IDs must be distinct: " + nodeIds);
+        }
+
+        long[][] entries = new long[nodeIds.size() * virtualNodes][];
+        for (int node = 0; node < nodeIds.size(); node++) {
+            long seed = (long) nodeIds.get(node).hashCode() << 32;
+            for (int i = 0; i < virtualNodes; i++) {
+                entries[node * virtualNodes + i] = new long[]{mix(seed | i), node};
+            }
+        }
+        // Ties on a point are broken by node ID, not by the order of the list, so every node builds the same ring
+        Arrays.sort(entries, (first, second) -> first[0] != second[0] ? Long.compare(first[0], second[0])
+                : nodeIds.get((int) first[1]).compareTo(nodeIds.get((int) second[1])));
+        points = new long[entries.length];
+        owners = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = nodeIds.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * Returns the ID of the node owning the customer.
+     * @param customerId the ID of the customer
+     * @return the node ID
+     */
+    public String ownerOf(int customerId) {
+        int index = Arrays.binarySearch(points, mix(customerId));
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            // Several nodes may share the point; the first of them owns it
+            while (index > 0 && points[index - 1] == points[index]) {
+                index--;
+            }
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    // The 64-bit finalizer of MurmurHash3: consecutive IDs land on unrelated points of the ring
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
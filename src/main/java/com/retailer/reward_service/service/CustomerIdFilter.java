@@ -0,0 +1,183 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.entity.CustomerCreatedEvent;
+import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import com.retailer.reward_service.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Answers whether a customer ID may exist without a database round-trip, so lookups of unknown IDs,
+ * such as those of clients enumerating IDs, are rejected in memory.
+ * <p>
+ * Customer IDs are assigned by the database in ascending order, so they are held as a bitmap of one bit per ID
+ * up to the highest one, about 12 MB per 100 million IDs. It is loaded once the application is ready and follows
+ * customers persisted through JPA as they are created ({@link CustomerCreatedEvent}s). Customers inserted otherwise, e.g. by
+ * bulk loads or other nodes, have IDs above the highest one read so far; a lookup of such an ID reads the IDs
+ * inserted since, at most once per {@code reward.customer-filter.refresh-interval}, so enumerating IDs beyond
+ * the last customer costs at most one query per interval. IDs are never removed: customers are not deleted,
+ * and a customer whose insert rolled back only costs a database lookup. Until the bitmap is loaded, or when
+ * {@code reward.customer-filter.enabled} is off, every ID may exist.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CustomerIdFilter {
+
+    /**
+     * Customer IDs read per query while loading.
+     */
+    static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final CustomerRepository customerRepository;
+
+    private final RewardProperties rewardProperties;
+
+    private final TaskScheduler taskScheduler;
+
+    // Replaced by a larger copy when an ID beyond the end is added; guarded by this for writes
+    private volatile AtomicLongArray words = new AtomicLongArray(0);
+
+    private volatile boolean loaded;
+
+    // The highest ID read from the database, where the next refresh continues; written with the lock held
+    private volatile int scannedUpTo = Integer.MIN_VALUE;
+
+    private final AtomicLong lastRefresh = new AtomicLong(System.nanoTime());
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadOnStartup() {
+        if (rewardProperties.getCustomerFilter().isEnabled()) {
+            taskScheduler.schedule(this::load, Instant.now());
+        }
+    }
+
+    /**
+     * Reads every customer ID and starts rejecting unknown ones. Every ID may exist while it reads.
+     */
+    public synchronized void load() {
+        loaded = false;
+        words = new AtomicLongArray(0);
+        scannedUpTo = Integer.MIN_VALUE;
+        int count = scan();
+        loaded = true;
+        log.info("Customer ID filter loaded with {} customers", count);
+    }
+
+    /**
+     * Reads the customer IDs inserted since the last scan, including those not inserted through JPA.
+     */
+    public synchronized void refresh() {
+        if (loaded) {
+            scan();
+        }
+    }
+
+    // Lets one caller per interval refresh; the others answer from the bitmap as it is
+    private void refreshIfDue() {
+        long now = System.nanoTime();
+        long last = lastRefresh.get();
+        if (now - last >= rewardProperties.getCustomerFilter().getRefreshInterval().toNanos() && lastRefresh.compareAndSet(last, now)) {
+            refresh();
+        }
+    }
+
+    // Adds the IDs above the last scanned one, in keyset pages
+    private int scan() {
+        int count = 0;
+        List<Integer> customerIds;
+        do {
+            customerIds = customerRepository.findCustomerIdsAfter(scannedUpTo, Limit.of(LOAD_BATCH_SIZE));
+            if (!customerIds.isEmpty()) {
+                int last = customerIds.get(customerIds.size() - 1);
+                AtomicLongArray target = capacityFor(last);
+                for (int customerId : customerIds) {
+                    setBit(target, customerId);
+                }
+                scannedUpTo = last;
+                count += customerIds.size();
+            }
+        } while (customerIds.size() == LOAD_BATCH_SIZE);
+        return count;
+    }
+
+    /**
+     * Records a new customer.
+     * @param customerId the ID of the customer
+     */
+    public synchronized void add(int customerId) {
+        if (customerId >= 0) {
+            setBit(capacityFor(customerId), customerId);
+        }
+    }
+
+    @EventListener
+    void customerCreated(CustomerCreatedEvent event) {
+        add(event.getCustomerId());
+    }
+
+    /**
+     * Returns whether a customer with the ID may exist. {@code false} is definite; {@code true} has to be
+     * confirmed by the database.
+     * @param customerId the ID of the customer
+     */
+    public boolean mightExist(int customerId) {
+        if (!loaded || contains(customerId)) {
+            return true;
+        }
+        if (customerId <= scannedUpTo) {
+            return false;
+        }
+        refreshIfDue();
+        return contains(customerId);
+    }
+
+    private boolean contains(int customerId) {
+        AtomicLongArray current = words;
+        int word = customerId >> 6;
+        return customerId >= 0 && word < current.length() && (current.get(word) & (1L << customerId)) != 0;
+    }
+
+    /**
+     * Rejects an ID no customer can have.
+     * @param customerId the ID of the customer
+     * @throws CustomerNotFoundException if no customer has the ID
+     */
+    public void requireMightExist(int customerId) {
+        if (!mightExist(customerId)) {
+            throw new CustomerNotFoundException("Customer not found with id: " + customerId);
+        }
+    }
+
+    // Returns the bitmap, grown to hold the ID; called with the lock held
+    private AtomicLongArray capacityFor(int customerId) {
+        AtomicLongArray current = words;
+        int required = (customerId >> 6) + 1;
+        if (required <= current.length()) {
+            return current;
+        }
+        // Grows geometrically, so IDs created one by one do not copy the bitmap every time
+        AtomicLongArray grown = new AtomicLongArray((int) Math.min((Integer.MAX_VALUE >> 6) + 1, Math.max(required, current.length() * 3L / 2)));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        words = grown;
+        return grown;
+    }
+
+    private static void setBit(AtomicLongArray target, int customerId) {
+        int word = customerId >> 6;
+        target.set(word, target.get(word) | 1L << customerId);
+    }
+}
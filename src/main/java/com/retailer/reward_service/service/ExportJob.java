@@ -0,0 +1,141 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.ExportJobResponse;
+import com.retailer.reward_service.dto.ExportStatus;
+import com.retailer.reward_service.dto.RewardWindow;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one asynchronous reward export. Status transitions are synchronized; progress is read without locking.
+ */
+@Getter
+public class ExportJob {
+
+    private final String id;
+
+    private final RewardExportService.Format format;
+
+    private final boolean gzip;
+
+    private final RewardWindow window;
+
+    private final Path file;
+
+    private final Instant createdAt = Instant.now();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong processedCustomers = new AtomicLong();
+
+    private volatile ExportStatus status = ExportStatus.QUEUED;
+
+    private volatile Long totalCustomers;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    private volatile Long fileSize;
+
+    private volatile String error;
+
+    private volatile boolean cancelRequested;
+
+    // Set right after submission; guarded by this
+    @Getter(AccessLevel.NONE)
+    private Future<?> future;
+
+    ExportJob(String id, RewardExportService.Format format, boolean gzip, RewardWindow window, Path file) {
+        this.id = id;
+        this.format = format;
+        this.gzip = gzip;
+        this.window = window;
+        this.file = file;
+    }
+
+    public long getProcessedCustomers() {
+        return processedCustomers.get();
+    }
+
+    /**
+     * The file name offered for download.
+     */
+    public String getFileName() {
+        return file.getFileName().toString();
+    }
+
+    public boolean isFinished() {
+        return status == ExportStatus.COMPLETED || status == ExportStatus.FAILED || status == ExportStatus.CANCELLED;
+    }
+
+    public ExportJobResponse toResponse() {
+        return new ExportJobResponse(id, status, format.name().toLowerCase(), gzip, window.getFromDate(), window.getToDate(),
+                getProcessedCustomers(), totalCustomers, createdAt, startedAt, finishedAt, fileSize, error);
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+        if (status == ExportStatus.CANCELLED) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Moves a queued job to running.
+     * @return false if the job was cancelled while queued
+     */
+    synchronized boolean start() {
+        if (status != ExportStatus.QUEUED) {
+            return false;
+        }
+        status = ExportStatus.RUNNING;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    /**
+     * Cancels a queued job right away and asks a running one to stop after its current chunk.
+     */
+    synchronized void cancel() {
+        if (status == ExportStatus.QUEUED) {
+            finish(ExportStatus.CANCELLED);
+            if (future != null) {
+                future.cancel(false);
+            }
+        } else if (status == ExportStatus.RUNNING) {
+            cancelRequested = true;
+        }
+    }
+
+    void setTotalCustomers(long totalCustomers) {
+        this.totalCustomers = totalCustomers;
+    }
+
+    void addProcessedCustomers(int count) {
+        processedCustomers.addAndGet(count);
+    }
+
+    synchronized void complete(long fileSize) {
+        this.fileSize = fileSize;
+        finish(ExportStatus.COMPLETED);
+    }
+
+    synchronized void fail(String error) {
+        this.error = error;
+        finish(ExportStatus.FAILED);
+    }
+
+    synchronized void cancelled() {
+        finish(ExportStatus.CANCELLED);
+    }
+
+    private void finish(ExportStatus finalStatus) {
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+}
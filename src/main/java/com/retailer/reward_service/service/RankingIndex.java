@@ -0,0 +1,187 @@
+package com.retailer.reward_service.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Customers ordered by points, highest first, ties by ascending customer ID.
+ * <p>
+ * An order-statistic treap: every node also stores the size of its subtree, so updates, the rank of a
+ * customer and the customer at a rank all take expected O(log n). A page of {@code k} customers from any
+ * rank costs O(log n + k). Not thread-safe.
+ */
+final class RankingIndex {
+
+    private final Map<Integer, Node> nodes = new HashMap<>();
+
+    private final SplittableRandom random = new SplittableRandom(0x5EED);
+
+    private Node root;
+
+    private static final class Node {
+
+        final int customerId;
+
+        final int points;
+
+        final int priority;
+
+        int size = 1;
+
+        Node left;
+
+        Node right;
+
+        Node(int customerId, int points, int priority) {
+            this.customerId = customerId;
+            this.points = points;
+            this.priority = priority;
+        }
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Adds a customer or moves it to its new points.
+     */
+    void put(int customerId, int points) {
+        Node existing = nodes.get(customerId);
+        if (existing != null) {
+            if (existing.points == points) {
+                return;
+            }
+            root = remove(root, existing.points, customerId);
+        }
+        Node node = new Node(customerId, points, random.nextInt());
+        nodes.put(customerId, node);
+        Node[] parts = split(root, points, customerId);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    void remove(int customerId) {
+        Node existing = nodes.remove(customerId);
+        if (existing != null) {
+            root = remove(root, existing.points, customerId);
+        }
+    }
+
+    /**
+     * Returns the 0-based rank of a customer, or -1 if it is not in the index.
+     */
+    int rankOf(int customerId) {
+        Node node = nodes.get(customerId);
+        return node == null ? -1 : countBefore(node.points, customerId);
+    }
+
+    /**
+     * Returns the number of customers ranked ahead of the given points and customer ID,
+     * which is the rank a customer with them would have.
+     */
+    int countBefore(int points, int customerId) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (compare(node.points, node.customerId, points, customerId) < 0) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the IDs of the customers ranked {@code from} to {@code from + count - 1}, fewer at the end of the index.
+     */
+    int[] customerIdsAt(int from, int count) {
+        int to = Math.min(from + Math.max(count, 0), size());
+        int[] customerIds = new int[Math.max(to - from, 0)];
+        collect(root, 0, from, to, customerIds);
+        return customerIds;
+    }
+
+    // Fills the ranks [from, to) found in the subtree whose first rank is offset; skips subtrees outside the range
+    private static void collect(Node node, int offset, int from, int to, int[] customerIds) {
+        if (node == null || offset >= to || offset + node.size <= from) {
+            return;
+        }
+        int rank = offset + size(node.left);
+        collect(node.left, offset, from, to, customerIds);
+        if (rank >= from && rank < to) {
+            customerIds[rank - from] = node.customerId;
+        }
+        collect(node.right, rank + 1, from, to, customerIds);
+    }
+
+    // Splits into the nodes ranked ahead of the key and the others
+    private static Node[] split(Node node, int points, int customerId) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(node.points, node.customerId, points, customerId) < 0) {
+            Node[] parts = split(node.right, points, customerId);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node[] parts = split(node.left, points, customerId);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    // Joins two treaps where every node of the first is ranked ahead of every node of the second
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            update(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        update(second);
+        return second;
+    }
+
+    private static Node remove(Node node, int points, int customerId) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(points, customerId, node.points, node.customerId);
+        if (comparison == 0) {
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            node.left = remove(node.left, points, customerId);
+        } else {
+            node.right = remove(node.right, points, customerId);
+        }
+        update(node);
+        return node;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // Negative if the first key is ranked ahead of the second
+    static int compare(int points, int customerId, int otherPoints, int otherCustomerId) {
+        int byPoints = Integer.compare(otherPoints, points);
+        return byPoints != 0 ? byPoints : Integer.compare(customerId, otherCustomerId);
+    }
+}
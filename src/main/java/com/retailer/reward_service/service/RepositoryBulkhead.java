@@ -0,0 +1,150 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.exceptions.ServiceBusyException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of reward reads that use the database at the same time.
+ * <p>
+ * On virtual threads request concurrency is no longer limited by the Tomcat worker pool, so
+ * without a bound every request would queue inside Hikari until its connection timeout. The
+ * bulkhead has as many permits as the pool has connections and rejects calls that cannot get
+ * one within the configured timeout, which the API reports as 503 with {@code Retry-After}.
+ * <p>
+ * Only online calls fail fast. Report work, such as the ranges of the all-customer report and snapshot builds,
+ * is run with {@link #reportWork(Supplier)}: its calls wait up to {@code reward.bulkhead.report-acquire-timeout}
+ * for a permit, and the report pool never runs more ranges at a time than there are permits.
+ */
+@Component
+public class RepositoryBulkhead {
+
+    public static final String AVAILABLE_PERMITS = "reward.bulkhead.available.permits";
+
+    public static final String REJECTED = "reward.bulkhead.rejected";
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private static final ThreadLocal<Boolean> REPORT_WORK = ThreadLocal.withInitial(() -> false);
+
+    private final boolean enabled;
+
+    private final int maxConcurrentCalls;
+
+    private final Semaphore permits;
+
+    private final long acquireTimeoutNanos;
+
+    private final long reportAcquireTimeoutNanos;
+
+    private final Counter rejected;
+
+    @Autowired
+    public RepositoryBulkhead(RewardProperties rewardProperties, DataSource dataSource, MeterRegistry meterRegistry) {
+        this(rewardProperties.getBulkhead().isEnabled(),
+                rewardProperties.getBulkhead().getMaxConcurrentCalls() > 0
+                        ? rewardProperties.getBulkhead().getMaxConcurrentCalls() : connectionPoolSize(dataSource),
+                rewardProperties.getBulkhead().getAcquireTimeout(), rewardProperties.getBulkhead().getReportAcquireTimeout(), meterRegistry);
+    }
+
+    RepositoryBulkhead(boolean enabled, int maxConcurrentCalls, Duration acquireTimeout, Duration reportAcquireTimeout, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.reportAcquireTimeoutNanos = reportAcquireTimeout.toNanos();
+        this.rejected = Counter.builder(REJECTED)
+                .description("Reward reads rejected because the bulkhead was full")
+                .register(meterRegistry);
+        Gauge.builder(AVAILABLE_PERMITS, permits, Semaphore::availablePermits)
+                .description("Free bulkhead permits for reward reads")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call while holding a permit, or runs it directly when the bulkhead is disabled.
+     * @param call the database work
+     * @return the result of the call
+     * @throws ServiceBusyException if no permit became free within the acquire timeout, or within the report
+     *         acquire timeout for report work
+     */
+    public <T> T call(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        if (!tryAcquire()) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many concurrent reward requests, retry later");
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs report work on the current thread: its calls wait for a permit with the report acquire timeout instead
+     * of failing fast. Thread-bound like {@link com.retailer.reward_service.configuration.DataSourceRoute}, so every
+     * report worker has to enter it.
+     * @param work the report work
+     * @return the result of the work
+     */
+    public <T> T reportWork(Supplier<T> work) {
+        boolean previous = REPORT_WORK.get();
+        REPORT_WORK.set(true);
+        try {
+            return work.get();
+        } finally {
+            REPORT_WORK.set(previous);
+        }
+    }
+
+    /**
+     * Returns how many report workers may use the database at the same time, unbounded when the bulkhead is disabled.
+     */
+    public int getMaxReportWorkers() {
+        return enabled ? Math.max(1, maxConcurrentCalls) : Integer.MAX_VALUE;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    private boolean tryAcquire() {
+        long timeoutNanos = REPORT_WORK.get() ? reportAcquireTimeoutNanos : acquireTimeoutNanos;
+        if (timeoutNanos <= 0) {
+            return permits.tryAcquire();
+        }
+        try {
+            return permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Reads the pool size through the wrapper API so proxied data sources are supported
+    static int connectionPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException ex) {
+            // fall through to the Hikari default
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,306 @@
+package com.retailer.reward_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.ExportStatus;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.exceptions.ExportJobNotFoundException;
+import com.retailer.reward_service.exceptions.ExportNotReadyException;
+import com.retailer.reward_service.exceptions.ServiceBusyException;
+import com.retailer.reward_service.repository.CustomerRepository;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the rewards of all customers to a file in the background.
+ * <p>
+ * A job walks the customers in keyset-paged chunks of {@code reward.export.chunk-size}, exactly like the NDJSON
+ * stream, and writes each chunk to a partial file that is moved into place once complete. Progress is updated
+ * after every chunk, and cancellation takes effect between chunks. Jobs run on the bounded export executor, so
+ * at most {@code reward.export.max-concurrent-exports} compete with the online API for the database. Jobs are
+ * kept in memory; finished jobs and their files are removed after {@code reward.export.retention}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class RewardExportService {
+
+    /**
+     * Output formats of an export.
+     */
+    public enum Format {
+        /** One header line, then {@code customerId,customerName,<one column per month>,totalPoints}. */
+        CSV("csv", "text/csv"),
+        /** One {@link RewardResponse} JSON document per line. */
+        NDJSON("ndjson", "application/x-ndjson");
+
+        private final String extension;
+
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        /**
+         * The media type of an uncompressed export file.
+         */
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final RewardServiceImpl rewardServiceImpl;
+
+    private final CustomerRepository customerRepository;
+
+    private final ThreadPoolExecutor rewardExportExecutor;
+
+    private final RewardProperties rewardProperties;
+
+    private final RewardMetrics rewardMetrics;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Queues an export of all customers.
+     * @param format the output format
+     * @param gzip whether the file is gzip-compressed
+     * @param window the reward window
+     * @return the queued job
+     * @throws ServiceBusyException if the export queue is full
+     */
+    public ExportJob submit(Format format, boolean gzip, RewardWindow window) {
+        String id = UUID.randomUUID().toString();
+        Path file = rewardProperties.getExport().getDirectory()
+                .resolve("rewards-" + id + "." + format.extension + (gzip ? ".gz" : ""));
+        ExportJob job = new ExportJob(id, format, gzip, window, file);
+        jobs.put(id, job);
+        try {
+            job.setFuture(rewardExportExecutor.submit(() -> run(job)));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(id);
+            throw new ServiceBusyException("Too many exports are running or queued, try again later");
+        }
+        return job;
+    }
+
+    /**
+     * @param id the ID of the export
+     * @return the export
+     * @throws ExportJobNotFoundException if there is no export with the ID
+     */
+    public ExportJob getJob(String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ExportJobNotFoundException("Export not found with id: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * @param id the ID of the export
+     * @return the export, whose file is ready for download
+     * @throws ExportJobNotFoundException if there is no export with the ID
+     * @throws ExportNotReadyException if the export has not completed
+     */
+    public ExportJob getCompletedJob(String id) {
+        ExportJob job = getJob(id);
+        if (job.getStatus() != ExportStatus.COMPLETED) {
+            throw new ExportNotReadyException("Export " + id + " is " + job.getStatus());
+        }
+        return job;
+    }
+
+    /**
+     * Cancels a queued or running export, or removes a finished one together with its file.
+     * @param id the ID of the export
+     * @return the export after the request
+     * @throws ExportJobNotFoundException if there is no export with the ID
+     */
+    public ExportJob cancelOrDelete(String id) {
+        ExportJob job = getJob(id);
+        if (job.isFinished()) {
+            remove(job);
+        } else {
+            job.cancel();
+        }
+        return job;
+    }
+
+    /**
+     * Removes finished exports older than the retention, and files left behind by a previous run.
+     */
+    @Scheduled(fixedDelayString = "${reward.export.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(rewardProperties.getExport().getRetention());
+        for (ExportJob job : List.copyOf(jobs.values())) {
+            if (job.isFinished() && job.getFinishedAt().isBefore(cutoff)) {
+                remove(job);
+            }
+        }
+        Path directory = rewardProperties.getExport().getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Collection<Path> knownFiles = jobs.values().stream().map(ExportJob::getFile).toList();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!knownFiles.contains(file) && !file.getFileName().toString().endsWith(PARTIAL_SUFFIX)
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not purge expired exports in {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    // Runs on the export executor
+    private void run(ExportJob job) {
+        if (!job.start()) {
+            return;
+        }
+        Timer.Sample sample = rewardMetrics.start();
+        Throwable failure = null;
+        Path partial = job.getFile().resolveSibling(job.getFileName() + PARTIAL_SUFFIX);
+        try {
+            Files.createDirectories(partial.getParent());
+            job.setTotalCustomers(customerRepository.count());
+            boolean finished;
+            try (Writer writer = openWriter(partial, job.isGzip())) {
+                finished = writeRewards(job, writer);
+            }
+            if (finished) {
+                Files.move(partial, job.getFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                job.complete(Files.size(job.getFile()));
+            } else {
+                job.cancelled();
+            }
+        } catch (IOException | RuntimeException ex) {
+            failure = ex;
+            log.warn("Export {} failed", job.getId(), ex);
+            job.fail(ex.getMessage());
+        } finally {
+            deleteQuietly(partial);
+            rewardMetrics.stop(sample, RewardMetrics.EXPORTS, job.getFormat().extension, failure);
+        }
+    }
+
+    // Writes all customers chunk by chunk; false if the export was cancelled in between
+    private boolean writeRewards(ExportJob job, Writer writer) throws IOException {
+        RewardWindow window = job.getWindow();
+        int chunkSize = rewardProperties.getExport().getChunkSize();
+        if (job.getFormat() == Format.CSV) {
+            writeCsvHeader(writer, window);
+        }
+        Integer cursor = null;
+        List<RewardResponse> chunk;
+        do {
+            if (job.isCancelRequested()) {
+                return false;
+            }
+            chunk = rewardServiceImpl.calculateCustomersRewardsPage(cursor, chunkSize, window);
+            for (RewardResponse reward : chunk) {
+                if (job.getFormat() == Format.CSV) {
+                    writeCsvLine(writer, reward, window);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(reward));
+                    writer.write('\n');
+                }
+            }
+            job.addProcessedCustomers(chunk.size());
+            if (!chunk.isEmpty()) {
+                cursor = chunk.get(chunk.size() - 1).getCustomerId();
+            }
+        } while (chunk.size() == chunkSize);
+        return true;
+    }
+
+    private static void writeCsvHeader(Writer writer, RewardWindow window) throws IOException {
+        writer.write("customerId,customerName");
+        for (YearMonth month = window.getFirstMonth(); !month.isAfter(window.getLastMonth()); month = month.plusMonths(1)) {
+            writer.write(',');
+            writer.write(month.toString());
+        }
+        writer.write(",totalPoints\n");
+    }
+
+    // Months without transactions are left empty
+    private static void writeCsvLine(Writer writer, RewardResponse reward, RewardWindow window) throws IOException {
+        writer.write(String.valueOf(reward.getCustomerId()));
+        writer.write(',');
+        writer.write(csvField(reward.getCustomerName()));
+        for (YearMonth month = window.getFirstMonth(); !month.isAfter(window.getLastMonth()); month = month.plusMonths(1)) {
+            writer.write(',');
+            Integer points = reward.getMonthlyPoints().get(month);
+            if (points != null) {
+                writer.write(String.valueOf(points));
+            }
+        }
+        writer.write(',');
+        writer.write(String.valueOf(reward.getTotalPoints()));
+        writer.write('\n');
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static Writer openWriter(Path file, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (gzip) {
+            out = new GZIPOutputStream(out, 64 * 1024);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private void remove(ExportJob job) {
+        jobs.remove(job.getId());
+        deleteQuietly(job.getFile());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete {}: {}", file, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.LeaderboardEntry;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import com.retailer.reward_service.exceptions.ShardingNotSupportedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ranks customers by their total points in the default reward window.
+ * <p>
+ * Rankings are read from the {@link RankingIndex} of the current {@link RewardSnapshot}, which follows every
+ * committed transaction and is rebuilt with the snapshot when days roll out of the window. Customers the snapshot
+ * could not answer for when it was built (written meanwhile or created after it) are caught up into it shortly
+ * after (see {@link RewardSnapshotService}), so a page or the rank of a customer costs O(log n) without reading
+ * the database. A customer not caught up yet is left out of pages; its own rank is calculated for it alone.
+ * Without a snapshot, all customers are calculated and sorted. A node of a sharded deployment only ranks its own
+ * customers, so the leaderboard is rejected there.
+ */
+@RequiredArgsConstructor
+@Service
+public class RewardLeaderboardService {
+
+    private static final Comparator<RewardResponse> BY_RANK = (first, second) -> RankingIndex.compare(
+            first.getTotalPoints(), first.getCustomerId(), second.getTotalPoints(), second.getCustomerId());
+
+    private final RewardServiceImpl rewardServiceImpl;
+
+    private final RewardSnapshotHolder rewardSnapshotHolder;
+
+    private final RewardWindowResolver rewardWindowResolver;
+
+    private final RewardMetrics rewardMetrics;
+
+    private final CustomerIdFilter customerIdFilter;
+
+    private final RewardPartition rewardPartition;
+
+    /**
+     * Returns a page of the leaderboard.
+     * @param afterRank the last rank of the previous page, 0 for the first page
+     * @param limit the maximum number of customers in the page
+     * @return the entries ranked {@code afterRank + 1} to {@code afterRank + limit}
+     * @throws ShardingNotSupportedException if customers are sharded across nodes
+     */
+    public List<LeaderboardEntry> getLeaderboardPage(int afterRank, int limit) {
+        rewardPartition.requireUnsharded("The leaderboard");
+        return rewardMetrics.time(RewardMetrics.CALCULATIONS, RewardMetrics.MODE_LEADERBOARD, () -> {
+            RewardWindow window = rewardWindowResolver.defaultWindow();
+            RewardSnapshot snapshot = rewardSnapshotHolder.current(window);
+            List<LeaderboardEntry> entries = new ArrayList<>();
+            if (snapshot == null) {
+                List<RewardResponse> ranked = rankAll(window);
+                for (int position = afterRank; position < Math.min(afterRank + limit, ranked.size()); position++) {
+                    entries.add(toEntry(position, ranked.get(position)));
+                }
+                return entries;
+            }
+            // Read under the ranking's lock, so the points match the positions
+            return snapshot.queryRanking(index -> {
+                int[] customerIds = index.customerIdsAt(afterRank, limit);
+                for (int i = 0; i < customerIds.length; i++) {
+                    entries.add(toEntry(afterRank + i, snapshot.find(customerIds[i])));
+                }
+                return entries;
+            });
+        });
+    }
+
+    /**
+     * Returns the leaderboard position of a customer.
+     * @param customerId the ID of the customer
+     * @return the customer's entry
+     * @throws CustomerNotFoundException if there is no customer with the ID
+     * @throws ShardingNotSupportedException if customers are sharded across nodes
+     */
+    public LeaderboardEntry getCustomerRank(Integer customerId) {
+        rewardPartition.requireUnsharded("The leaderboard");
+        return rewardMetrics.time(RewardMetrics.CALCULATIONS, RewardMetrics.MODE_LEADERBOARD, () -> {
+            customerIdFilter.requireMightExist(customerId);
+            RewardWindow window = rewardWindowResolver.defaultWindow();
+            RewardSnapshot snapshot = rewardSnapshotHolder.current(window);
+            if (snapshot == null) {
+                List<RewardResponse> ranked = rankAll(window);
+                for (int position = 0; position < ranked.size(); position++) {
+                    if (ranked.get(position).getCustomerId().equals(customerId)) {
+                        return toEntry(position, ranked.get(position));
+                    }
+                }
+                throw new CustomerNotFoundException("Customer not found with id: " + customerId);
+            }
+
+            LeaderboardEntry entry = snapshot.queryRanking(index -> {
+                int rank = index.rankOf(customerId);
+                return rank < 0 ? null : toEntry(rank, snapshot.find(customerId));
+            });
+            if (entry != null) {
+                return entry;
+            }
+            // Not caught up into the snapshot yet: the position it would take among the ranked customers
+            RewardResponse reward = rewardServiceImpl.calculateCustomerRewardsById(customerId, window);
+            return toEntry(snapshot.queryRanking(index -> index.countBefore(reward.getTotalPoints(), customerId)), reward);
+        });
+    }
+
+    // All customers in leaderboard order, calculated without a ranking
+    private List<RewardResponse> rankAll(RewardWindow window) {
+        List<RewardResponse> rewards = new ArrayList<>(rewardServiceImpl.calculateAllCustomersRewards(window));
+        rewards.sort(BY_RANK);
+        return rewards;
+    }
+
+    private static LeaderboardEntry toEntry(int position, RewardResponse reward) {
+        return new LeaderboardEntry(position + 1, reward.getCustomerId(), reward.getCustomerName(), reward.getTotalPoints());
+    }
+}
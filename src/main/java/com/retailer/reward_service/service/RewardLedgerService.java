@@ -0,0 +1,156 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.MonthlyPointsView;
+import com.retailer.reward_service.entity.MonthlyReward;
+import com.retailer.reward_service.exceptions.InvalidTransactionAmountException;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.RewardRuleSetRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the per-customer, per-month reward ledger ({@link MonthlyReward}).
+ */
+@RequiredArgsConstructor
+@Service
+public class RewardLedgerService {
+
+    private final MonthlyRewardRepository monthlyRewardRepository;
+
+    private final CustomerRepository customerRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RewardProperties rewardProperties;
+
+    private final CacheManager cacheManager;
+
+    private final RewardSnapshotHolder rewardSnapshotHolder;
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    private final TransactionArchiveService transactionArchiveService;
+
+    private final RewardRuleSetRepository rewardRuleSetRepository;
+
+    /**
+     * Adds the points of a newly saved transaction to the ledger.
+     * Must run in the same database transaction that saves the {@code Transaction}.
+     * @param customerId the customer of the transaction
+     * @param transactionDate the date of the transaction
+     * @param points the reward points earned by the transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyTransaction(Integer customerId, LocalDate transactionDate, int points) {
+        rewardSnapshotHolder.applyTransaction(customerId, transactionDate, points);
+        applyPoints(customerId, MonthlyReward.periodOf(transactionDate), points);
+    }
+
+    /**
+     * Adds points for one customer and month to the ledger, creating the row if needed.
+     * Bulk writers use this to apply the pre-aggregated points of a whole batch at once,
+     * after reporting the individual transactions to the {@link RewardSnapshotHolder}.
+     * Must run in the same database transaction that saves the underlying transactions, after locking the customer
+     * with {@link CustomerRepository#lockCustomers}; otherwise the row lock may be taken after the inserts and
+     * deadlock with a concurrent writer on databases that lock the referenced customer on insert.
+     * The customer's cached rewards are evicted when that transaction commits. With read replicas they are
+     * evicted again {@code reward.replicas.max-lag} later, dropping results a lagging replica served meanwhile.
+     * @param customerId the customer the points belong to
+     * @param period the month encoded as {@code yyyyMM}
+     * @param points the reward points to add
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyPoints(Integer customerId, int period, long points) {
+        if (monthlyRewardRepository.addPoints(customerId, period, points) == 0) {
+            // The month's first write for the customer: a concurrent first write waits for the lock until this
+            // transaction commits, and then finds the row inserted here. Callers normally hold the lock already.
+            customerRepository.lockCustomers(List.of(customerId));
+            if (monthlyRewardRepository.addPoints(customerId, period, points) == 0) {
+                monthlyRewardRepository.save(new MonthlyReward(null, customerId, period, points));
+            }
+        }
+        evictCachedRewards(customerId);
+        if (!rewardProperties.getReplicas().getDatasources().isEmpty()) {
+            Duration maxLag = rewardProperties.getReplicas().getMaxLag();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    CompletableFuture.runAsync(() -> evictCachedRewards(customerId),
+                            CompletableFuture.delayedExecutor(maxLag.toMillis(), TimeUnit.MILLISECONDS));
+                }
+            });
+        }
+    }
+
+    // Inside a transaction the evictions are deferred until it commits
+    private void evictCachedRewards(Integer customerId) {
+        cacheManager.getCache(CacheConfig.CUSTOMER_REWARDS).evict(CacheConfig.customerKey(customerId));
+        cacheManager.getCache(CacheConfig.CUSTOMER_REWARD_BODIES).evict(CacheConfig.customerKey(customerId));
+        cacheManager.getCache(CacheConfig.ALL_CUSTOMERS_REWARDS).clear();
+    }
+
+    /**
+     * Rebuilds the whole ledger from the raw transactions, archived ones included, e.g. after a backfill that bypassed the service
+     * or after new reward rules were activated. Customers are processed in keyset-paged batches, each in its
+     * own database transaction, all with the rules active when the rebuild starts. Once every batch is written,
+     * the rebuild is recorded on the stored rule set and calculations with those rules read the ledger again
+     * (see {@link RewardRulesHolder#isLedgerBuiltWith}).
+     * @return the number of customers processed
+     */
+    public int rebuild() {
+        int batchSize = rewardProperties.getLedger().getRebuildBatchSize();
+        RewardRules rules = rewardRulesHolder.current();
+        int processed = 0;
+        Integer cursor = Integer.MIN_VALUE;
+        List<Integer> customerIds;
+        do {
+            customerIds = customerRepository.findCustomerIdsAfter(cursor, Limit.of(batchSize));
+            if (customerIds.isEmpty()) {
+                break;
+            }
+            Integer fromCustomerId = customerIds.get(0);
+            Integer toCustomerId = customerIds.get(customerIds.size() - 1);
+            transactionTemplate.executeWithoutResult(status -> rebuildRange(rules, fromCustomerId, toCustomerId));
+            processed += customerIds.size();
+            cursor = toCustomerId;
+        } while (customerIds.size() == batchSize);
+        transactionTemplate.executeWithoutResult(status -> rewardRuleSetRepository.markLedgerRebuilt(rules.getVersion(), Instant.now()));
+        rewardRulesHolder.ledgerRebuilt(rules);
+        cacheManager.getCache(CacheConfig.CUSTOMER_REWARDS).clear();
+        cacheManager.getCache(CacheConfig.CUSTOMER_REWARD_BODIES).clear();
+        cacheManager.getCache(CacheConfig.ALL_CUSTOMERS_REWARDS).clear();
+        return processed;
+    }
+
+    private void rebuildRange(RewardRules rules, Integer fromCustomerId, Integer toCustomerId) {
+        monthlyRewardRepository.deleteByCustomerIdRange(fromCustomerId, toCustomerId);
+        List<MonthlyReward> rows = new ArrayList<>();
+        List<MonthlyPointsView> transactionRows = transactionArchiveService.findMonthlyPoints(LocalDate.MIN,
+                repository -> repository.findMonthlyPointsForCustomers(rules, fromCustomerId, toCustomerId));
+        for (MonthlyPointsView row : transactionRows) {
+            if (row.getInvalidCount() > 0) {
+                throw new InvalidTransactionAmountException("Transaction amount must be greater than 0");
+            }
+            rows.add(new MonthlyReward(null, row.getCustomerId(), row.getPeriod(), row.getPoints()));
+        }
+        monthlyRewardRepository.saveAll(rows);
+    }
+}
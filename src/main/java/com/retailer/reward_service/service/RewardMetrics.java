@@ -0,0 +1,158 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import com.retailer.reward_service.exceptions.InvalidRewardWindowException;
+import com.retailer.reward_service.exceptions.InvalidTransactionAmountException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the reward read path.
+ * <p>
+ * Request and calculation latencies are recorded as percentile histograms tagged with the
+ * lookup mode and outcome, so they can be aggregated across instances by Prometheus.
+ */
+@Component
+public class RewardMetrics {
+
+    /**
+     * Latency of reward API requests, including cache hits.
+     */
+    public static final String REQUESTS = "reward.requests";
+
+    /**
+     * Latency of reward calculations that missed the cache.
+     */
+    public static final String CALCULATIONS = "reward.calculations";
+
+    /**
+     * Raw transactions aggregated for partially covered months.
+     */
+    public static final String TRANSACTIONS_SCANNED = "reward.transactions.scanned";
+
+    /**
+     * Monthly ledger rows read in place of raw transactions.
+     */
+    public static final String LEDGER_ROWS_READ = "reward.ledger.rows.read";
+
+    /**
+     * Duration of reward snapshot builds.
+     */
+    public static final String SNAPSHOT_BUILDS = "reward.snapshot.builds";
+
+    /**
+     * Duration of reward snapshot loads from the snapshot file, including the catch-up.
+     */
+    public static final String SNAPSHOT_LOADS = "reward.snapshot.loads";
+
+    /**
+     * Duration of reward exports, tagged with the file format as the mode.
+     */
+    public static final String EXPORTS = "reward.exports";
+
+    /**
+     * Duration of archival runs.
+     */
+    public static final String ARCHIVE_RUNS = "reward.archive.runs";
+
+    /**
+     * Transactions moved to the archive table.
+     */
+    public static final String TRANSACTIONS_ARCHIVED = "reward.transactions.archived";
+
+    public static final String MODE_SINGLE = "single";
+    public static final String MODE_ALL = "all";
+    public static final String MODE_PAGE = "page";
+    public static final String MODE_BATCH = "batch";
+    public static final String MODE_STREAM = "stream";
+    public static final String MODE_LEADERBOARD = "leaderboard";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter transactionsScanned;
+
+    private final Counter ledgerRowsRead;
+
+    private final Counter transactionsArchived;
+
+    public RewardMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.transactionsScanned = Counter.builder(TRANSACTIONS_SCANNED)
+                .description("Raw transactions aggregated by reward calculations")
+                .register(meterRegistry);
+        this.ledgerRowsRead = Counter.builder(LEDGER_ROWS_READ)
+                .description("Monthly ledger rows read by reward calculations")
+                .register(meterRegistry);
+        this.transactionsArchived = Counter.builder(TRANSACTIONS_ARCHIVED)
+                .description("Transactions moved from the transaction table to the archive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call and records its latency under the given timer, tagged with the mode and the outcome.
+     * @param name the timer name
+     * @param mode the lookup mode
+     * @param call the timed call
+     * @return the result of the call
+     */
+    public <T> T time(String name, String mode, Supplier<T> call) {
+        Timer.Sample sample = start();
+        RuntimeException failure = null;
+        try {
+            return call.get();
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            stop(sample, name, mode, failure);
+        }
+    }
+
+    /**
+     * Starts timing work that cannot be wrapped in {@link #time}, such as a streamed response body.
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Records a sample started with {@link #start()}.
+     * @param failure the exception the work ended with, or {@code null} on success
+     */
+    public void stop(Timer.Sample sample, String name, String mode, Throwable failure) {
+        sample.stop(Timer.builder(name)
+                .tag("mode", mode)
+                .tag("outcome", outcomeOf(failure))
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    public void recordTransactionsScanned(long count) {
+        transactionsScanned.increment(count);
+    }
+
+    public void recordLedgerRowsRead(long count) {
+        ledgerRowsRead.increment(count);
+    }
+
+    public void recordTransactionsArchived(long count) {
+        transactionsArchived.increment(count);
+    }
+
+    private static String outcomeOf(Throwable ex) {
+        if (ex == null) {
+            return "success";
+        }
+        if (ex instanceof CustomerNotFoundException) {
+            return "not_found";
+        }
+        if (ex instanceof InvalidTransactionAmountException || ex instanceof InvalidRewardWindowException) {
+            return "invalid";
+        }
+        return "error";
+    }
+}
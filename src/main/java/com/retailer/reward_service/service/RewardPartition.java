@@ -0,0 +1,115 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.exceptions.ShardingNotSupportedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The customers this node calculates rewards for.
+ * <p>
+ * With {@code reward.sharding.enabled}, customers are assigned to the configured nodes by a
+ * {@link ConsistentHashRing} on the customer ID, and every node calculates reports, pages and snapshots for its
+ * own customers only. All nodes share the database, so any node can still calculate any single customer.
+ * Operations that would only see or change this node's part, such as the leaderboard and rule activation, are
+ * rejected. Otherwise this node owns every customer.
+ */
+@Component
+public class RewardPartition {
+
+    /**
+     * Request header marking a request sent by another node, carrying its ID. Such a request is answered
+     * from this node's partition and never forwarded again.
+     */
+    public static final String FORWARDED_HEADER = "X-Reward-Forwarded";
+
+    private final String localNodeId;
+
+    private final Map<String, RewardProperties.Sharding.Node> nodes = new LinkedHashMap<>();
+
+    private final ConsistentHashRing ring;
+
+    /**
+     * @param rewardProperties the settings, read once
+     * @throws IllegalStateException if sharding is enabled and this node is not one of the configured nodes
+     */
+    public RewardPartition(RewardProperties rewardProperties) {
+        RewardProperties.Sharding sharding = rewardProperties.getSharding();
+        if (!sharding.isEnabled()) {
+            localNodeId = null;
+            ring = null;
+            return;
+        }
+        for (RewardProperties.Sharding.Node node : sharding.getNodes()) {
+            nodes.put(node.getId(), node);
+        }
+        if (!nodes.containsKey(sharding.getNodeId())) {
+            throw new IllegalStateException("reward.sharding.node-id " + sharding.getNodeId()
+                    + " is not one of the configured nodes " + nodes.keySet());
+        }
+        localNodeId = sharding.getNodeId();
+        ring = new ConsistentHashRing(new ArrayList<>(nodes.keySet()), sharding.getVirtualNodes());
+    }
+
+    /**
+     * Returns whether customers are partitioned across several nodes.
+     */
+    public boolean isSharded() {
+        return ring != null;
+    }
+
+    /**
+     * Rejects an operation that is not partitioned yet, whose answer or effect would be limited to this node.
+     * @param operation the operation, named in the error
+     * @throws ShardingNotSupportedException if customers are partitioned across several nodes
+     */
+    public void requireUnsharded(String operation) {
+        if (isSharded()) {
+            throw new ShardingNotSupportedException(operation + " is not supported while customers are sharded across nodes");
+        }
+    }
+
+    /**
+     * Returns whether this node calculates the customer's rewards in reports and pages.
+     * @param customerId the ID of the customer
+     */
+    public boolean owns(int customerId) {
+        return ring == null || ring.ownerOf(customerId).equals(localNodeId);
+    }
+
+    /**
+     * Returns the node owning the customer.
+     * @param customerId the ID of the customer
+     * @return the node, {@code null} when not sharded
+     */
+    public RewardProperties.Sharding.Node ownerOf(int customerId) {
+        return ring == null ? null : nodes.get(ring.ownerOf(customerId));
+    }
+
+    /**
+     * Returns the number of nodes customers are partitioned across, 1 when not sharded.
+     */
+    public int getNodeCount() {
+        return ring == null ? 1 : nodes.size();
+    }
+
+    /**
+     * Returns the ID of this node, {@code null} when not sharded.
+     */
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    /**
+     * Returns every node except this one, empty when not sharded.
+     */
+    public List<RewardProperties.Sharding.Node> getRemoteNodes() {
+        List<RewardProperties.Sharding.Node> remoteNodes = new ArrayList<>(nodes.values());
+        remoteNodes.removeIf(node -> node.getId().equals(localNodeId));
+        return remoteNodes;
+    }
+}
@@ -0,0 +1,90 @@
+package com.retailer.reward_service.service;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Allocation-free core of the reward calculation.
+ * <p>
+ * Points, computed on primitive amounts by the {@link RewardRules}, are accumulated per month into
+ * a fixed array indexed by the month's offset in the reward window; the {@code monthlyPoints} map
+ * of a response is only built once at the end.
+ */
+public final class RewardPointsCalculator {
+
+    private RewardPointsCalculator() {
+    }
+
+    /**
+     * Accumulates points per month of a reward window for one customer. Reusable through {@link #reset()}.
+     */
+    public static final class MonthlyAccumulator {
+
+        private final YearMonth firstMonth;
+
+        private final int firstMonthIndex;
+
+        private final int[] points;
+
+        private final boolean[] monthsPresent;
+
+        private int totalPoints;
+
+        /**
+         * @param firstMonth the first month of the window
+         * @param monthCount the number of months in the window
+         */
+        public MonthlyAccumulator(YearMonth firstMonth, int monthCount) {
+            this.firstMonth = firstMonth;
+            this.firstMonthIndex = monthIndex(firstMonth.getYear(), firstMonth.getMonthValue());
+            this.points = new int[monthCount];
+            this.monthsPresent = new boolean[monthCount];
+        }
+
+        /**
+         * Adds points to a month of the window.
+         * @param period the month as {@code yyyyMM}
+         * @param monthPoints the points to add
+         * @throws IllegalArgumentException if the month is outside the window
+         */
+        public void add(int period, int monthPoints) {
+            int offset = monthIndex(period / 100, period % 100) - firstMonthIndex;
+            if (offset < 0 || offset >= points.length) {
+                throw new IllegalArgumentException("Period " + period + " is outside the reward window");
+            }
+            points[offset] += monthPoints;
+            monthsPresent[offset] = true;
+            totalPoints += monthPoints;
+        }
+
+        public int getTotalPoints() {
+            return totalPoints;
+        }
+
+        /**
+         * Builds the month to points map in chronological order.
+         * Months that received no row are left out; months whose rows added up to zero are kept.
+         */
+        public Map<YearMonth, Integer> toMonthlyPoints() {
+            Map<YearMonth, Integer> monthlyPoints = new LinkedHashMap<>();
+            for (int offset = 0; offset < points.length; offset++) {
+                if (monthsPresent[offset]) {
+                    monthlyPoints.put(firstMonth.plusMonths(offset), points[offset]);
+                }
+            }
+            return monthlyPoints;
+        }
+
+        public void reset() {
+            Arrays.fill(points, 0);
+            Arrays.fill(monthsPresent, false);
+            totalPoints = 0;
+        }
+
+        private static int monthIndex(int year, int monthValue) {
+            return year * 12 + monthValue - 1;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.exceptions.InvalidRewardRulesException;
+import com.retailer.reward_service.exceptions.InvalidTransactionAmountException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable evaluator compiled from a {@link RewardRulesDefinition}.
+ * <p>
+ * Tiers are held as sorted threshold arrays with the points already earned below each threshold, so a transaction
+ * costs one binary search over the thresholds and one multiply-add, however many tiers there are. The search
+ * always runs the same number of steps for a given tier count and its comparison compiles to a conditional move.
+ * A sentinel tier at zero earning nothing gives every positive amount a tier. Promotions are held the same way,
+ * sorted by their first day behind a sentinel promotion that ends before any date.
+ * <p>
+ * Amounts are evaluated in {@code double} like the database does. The same rules are rendered as a JPQL
+ * expression for the aggregations in the database.
+ */
+public final class RewardRules {
+
+    /**
+     * The compiled {@link RewardRulesDefinition#defaults() built-in rules}.
+     */
+    public static final RewardRules DEFAULT = compile(RewardRulesDefinition.defaults());
+
+    static final int MAX_TIERS = 100;
+
+    static final int MAX_PROMOTIONS = 100;
+
+    static final int MAX_VERSION_LENGTH = 100;
+
+    /**
+     * Scaled points per scaled cent: a points per dollar value times 100.
+     */
+    private static final long SCALE = 10_000;
+
+    private static final int NO_PROMOTION_PERCENT = 100;
+
+    private final RewardRulesDefinition definition;
+
+    private final String version;
+
+    private final double[] thresholds;
+
+    private final double[] basePoints;
+
+    private final double[] pointsPerDollar;
+
+    private final long[] thresholdCents;
+
+    private final long[] basePointsScaled;
+
+    private final long[] pointsPerCentScaled;
+
+    private final long[] promotionStarts;
+
+    private final long[] promotionEnds;
+
+    private final int[] promotionPercents;
+
+    private final long fingerprint;
+
+    private RewardRules(RewardRulesDefinition definition, long[] thresholdCents, long[] pointsPerCentScaled,
+                        long[] promotionStarts, long[] promotionEnds, int[] promotionPercents) {
+        this.definition = definition;
+        this.version = definition.getVersion();
+        this.thresholdCents = thresholdCents;
+        this.pointsPerCentScaled = pointsPerCentScaled;
+        this.promotionStarts = promotionStarts;
+        this.promotionEnds = promotionEnds;
+        this.promotionPercents = promotionPercents;
+
+        int tierCount = thresholdCents.length;
+        this.basePointsScaled = new long[tierCount];
+        this.thresholds = new double[tierCount];
+        this.basePoints = new double[tierCount];
+        this.pointsPerDollar = new double[tierCount];
+        for (int i = 0; i < tierCount; i++) {
+            if (i > 0) {
+                basePointsScaled[i] = basePointsScaled[i - 1] + (thresholdCents[i] - thresholdCents[i - 1]) * pointsPerCentScaled[i - 1];
+            }
+            thresholds[i] = thresholdCents[i] / 100.0;
+            basePoints[i] = (double) basePointsScaled[i] / SCALE;
+            pointsPerDollar[i] = pointsPerCentScaled[i] / 100.0;
+        }
+
+        long hash = version.hashCode();
+        for (long[] column : List.of(thresholdCents, pointsPerCentScaled, promotionStarts, promotionEnds)) {
+            for (long value : column) {
+                hash = hash * 0x100000001B3L ^ value;
+            }
+        }
+        for (int percent : promotionPercents) {
+            hash = hash * 0x100000001B3L ^ percent;
+        }
+        this.fingerprint = hash;
+    }
+
+    /**
+     * Validates and compiles a rule definition.
+     * @param definition the definition, not modified
+     * @return the evaluator
+     * @throws InvalidRewardRulesException if the definition is incomplete, has more than {@value #MAX_TIERS} tiers
+     * or {@value #MAX_PROMOTIONS} promotions, negative or non-cent values, duplicate thresholds or overlapping promotions
+     */
+    public static RewardRules compile(RewardRulesDefinition definition) {
+        String version = definition == null ? null : definition.getVersion();
+        if (version == null || version.isBlank() || version.length() > MAX_VERSION_LENGTH) {
+            throw new InvalidRewardRulesException("A rule version of at most " + MAX_VERSION_LENGTH + " characters is required");
+        }
+        List<RewardRulesDefinition.Tier> tiers = definition.getTiers() == null ? List.of() : definition.getTiers();
+        List<RewardRulesDefinition.Promotion> promotions = definition.getPromotions() == null ? List.of() : definition.getPromotions();
+        if (tiers.isEmpty() || tiers.size() > MAX_TIERS) {
+            throw new InvalidRewardRulesException("Between 1 and " + MAX_TIERS + " tiers are required");
+        }
+        if (promotions.size() > MAX_PROMOTIONS) {
+            throw new InvalidRewardRulesException("At most " + MAX_PROMOTIONS + " promotions are allowed");
+        }
+
+        long[][] sortedTiers = new long[tiers.size()][];
+        for (int i = 0; i < tiers.size(); i++) {
+            RewardRulesDefinition.Tier tier = tiers.get(i);
+            if (tier == null || tier.getThreshold() == null || tier.getPointsPerDollar() == null) {
+                throw new InvalidRewardRulesException("Every tier needs a threshold and points per dollar");
+            }
+            sortedTiers[i] = new long[]{hundredths(tier.getThreshold(), "Tier threshold"),
+                    hundredths(tier.getPointsPerDollar(), "Points per dollar")};
+        }
+        Arrays.sort(sortedTiers, Comparator.comparingLong(tier -> tier[0]));
+        // The sentinel tier is only needed when no tier starts at zero
+        int offset = sortedTiers[0][0] == 0 ? 0 : 1;
+        long[] thresholdCents = new long[sortedTiers.length + offset];
+        long[] pointsPerCentScaled = new long[sortedTiers.length + offset];
+        for (int i = 0; i < sortedTiers.length; i++) {
+            if (i > 0 && sortedTiers[i][0] == sortedTiers[i - 1][0]) {
+                throw new InvalidRewardRulesException("Tier thresholds must be distinct");
+            }
+            thresholdCents[i + offset] = sortedTiers[i][0];
+            pointsPerCentScaled[i + offset] = sortedTiers[i][1];
+        }
+
+        List<RewardRulesDefinition.Promotion> sortedPromotions = new ArrayList<>(promotions.size());
+        for (RewardRulesDefinition.Promotion promotion : promotions) {
+            if (promotion == null || promotion.getFrom() == null || promotion.getTo() == null || promotion.getMultiplier() == null) {
+                throw new InvalidRewardRulesException("Every promotion needs a from date, a to date and a multiplier");
+            }
+            if (promotion.getFrom().isAfter(promotion.getTo()) || promotion.getMultiplier().signum() <= 0) {
+                throw new InvalidRewardRulesException("Promotion " + promotion.getName()
+                        + " must not end before it starts and needs a positive multiplier");
+            }
+            sortedPromotions.add(promotion);
+        }
+        sortedPromotions.sort(Comparator.comparing(RewardRulesDefinition.Promotion::getFrom));
+        long[] promotionStarts = new long[sortedPromotions.size() + 1];
+        long[] promotionEnds = new long[sortedPromotions.size() + 1];
+        int[] promotionPercents = new int[sortedPromotions.size() + 1];
+        promotionStarts[0] = Long.MIN_VALUE;
+        promotionEnds[0] = Long.MIN_VALUE;
+        promotionPercents[0] = NO_PROMOTION_PERCENT;
+        for (int i = 0; i < sortedPromotions.size(); i++) {
+            RewardRulesDefinition.Promotion promotion = sortedPromotions.get(i);
+            if (i > 0 && !promotion.getFrom().isAfter(sortedPromotions.get(i - 1).getTo())) {
+                throw new InvalidRewardRulesException("Promotions " + sortedPromotions.get(i - 1).getName() + " and "
+                        + promotion.getName() + " overlap");
+            }
+            promotionStarts[i + 1] = promotion.getFrom().toEpochDay();
+            promotionEnds[i + 1] = promotion.getTo().toEpochDay();
+            promotionPercents[i + 1] = Math.toIntExact(hundredths(promotion.getMultiplier(), "Promotion multiplier"));
+        }
+
+        RewardRulesDefinition copy = new RewardRulesDefinition(version, List.copyOf(tiers), List.copyOf(promotions));
+        return new RewardRules(copy, thresholdCents, pointsPerCentScaled, promotionStarts, promotionEnds, promotionPercents);
+    }
+
+    // Converts a non-negative value of at most two decimals to hundredths
+    private static long hundredths(BigDecimal value, String name) {
+        if (value.signum() < 0) {
+            throw new InvalidRewardRulesException(name + " must not be negative");
+        }
+        try {
+            return value.movePointRight(2).longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new InvalidRewardRulesException(name + " must have at most two decimals");
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * The definition these rules were compiled from.
+     */
+    public RewardRulesDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Hash of the version and the compiled tiers and promotions, stored with persisted results to recognize their rules.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Number of tiers, including the sentinel tier at zero.
+     */
+    public int getTierCount() {
+        return thresholdCents.length;
+    }
+
+    /**
+     * Calculates the points of a transaction.
+     * @param amount the transaction amount in dollars, must be greater than 0
+     * @param date the transaction date, selects the promotion
+     * @return reward points
+     * @throws InvalidTransactionAmountException if the amount is missing, zero or negative
+     */
+    public int calculatePoints(Double amount, LocalDate date) {
+        if (amount == null) {
+            throw new InvalidTransactionAmountException("Transaction amount must be greater than 0");
+        }
+        return calculatePoints(amount.doubleValue(), date.toEpochDay());
+    }
+
+    /**
+     * Same as {@link #calculatePoints(Double, LocalDate)} on primitives.
+     * @param amount the transaction amount in dollars, must be greater than 0
+     * @param epochDay the transaction date as an epoch day
+     * @return reward points
+     */
+    public int calculatePoints(double amount, long epochDay) {
+        if (!(amount > 0)) {
+            throw new InvalidTransactionAmountException("Transaction amount must be greater than 0");
+        }
+        double[] tierThresholds = thresholds;
+        int tier = 0;
+        for (int length = tierThresholds.length; length > 1; length -= length >>> 1) {
+            int half = length >>> 1;
+            tier = tierThresholds[tier + half] < amount ? tier + half : tier;
+        }
+        int points = (int) (basePoints[tier] + (amount - tierThresholds[tier]) * pointsPerDollar[tier]);
+        return applyPromotion(points, epochDay);
+    }
+
+    // Multiplies by the promotion running on the day, if any, rounding down
+    private int applyPromotion(int points, long epochDay) {
+        long[] starts = promotionStarts;
+        int promotion = 0;
+        for (int length = starts.length; length > 1; length -= length >>> 1) {
+            int half = length >>> 1;
+            promotion = starts[promotion + half] <= epochDay ? promotion + half : promotion;
+        }
+        int percent = epochDay <= promotionEnds[promotion] ? promotionPercents[promotion] : NO_PROMOTION_PERCENT;
+        return (int) ((long) points * percent / 100);
+    }
+
+    /**
+     * Renders the points of one transaction as a JPQL expression, evaluated like {@link #calculatePoints(double, long)}:
+     * in {@code double}, rounded down per tier and again after the promotion multiplier. Missing, zero and negative
+     * amounts earn 0.
+     * @param amount the path of the amount, e.g. {@code t.amount}
+     * @param date the path of the transaction date
+     * @return the expression
+     */
+    public String toJpql(String amount, String date) {
+        StringBuilder points = new StringBuilder("CASE");
+        for (int tier = thresholdCents.length - 1; tier >= 0; tier--) {
+            if (basePointsScaled[tier] == 0 && pointsPerCentScaled[tier] == 0) {
+                continue;
+            }
+            points.append(" WHEN ").append(amount).append(" > ").append(decimal(thresholdCents[tier], 2))
+                    .append(" THEN FLOOR(").append(decimal(basePointsScaled[tier], 4))
+                    .append(" + (").append(amount).append(" - ").append(decimal(thresholdCents[tier], 2))
+                    .append(") * ").append(decimal(pointsPerCentScaled[tier], 2)).append(')');
+        }
+        points.append(" ELSE 0 END");
+        if (promotionStarts.length == 1) {
+            return points.toString();
+        }
+        StringBuilder percent = new StringBuilder("CASE");
+        for (int promotion = 1; promotion < promotionStarts.length; promotion++) {
+            percent.append(" WHEN ").append(date).append(" BETWEEN ").append(dateLiteral(promotionStarts[promotion]))
+                    .append(" AND ").append(dateLiteral(promotionEnds[promotion]))
+                    .append(" THEN ").append(promotionPercents[promotion]);
+        }
+        percent.append(" ELSE ").append(NO_PROMOTION_PERCENT).append(" END");
+        return "FLOOR((" + points + ") * (" + percent + ") / 100.0)";
+    }
+
+    private static String decimal(long unscaled, int scale) {
+        return BigDecimal.valueOf(unscaled, scale).stripTrailingZeros().toPlainString();
+    }
+
+    private static String dateLiteral(long epochDay) {
+        return "{d '" + LocalDate.ofEpochDay(epochDay) + "'}";
+    }
+
+    /**
+     * Rules are equal when they have the same version and compile to the same tiers and promotions.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof RewardRules rules
+                && fingerprint == rules.fingerprint
+                && version.equals(rules.version)
+                && Arrays.equals(thresholdCents, rules.thresholdCents)
+                && Arrays.equals(pointsPerCentScaled, rules.pointsPerCentScaled)
+                && Arrays.equals(promotionStarts, rules.promotionStarts)
+                && Arrays.equals(promotionEnds, rules.promotionEnds)
+                && Arrays.equals(promotionPercents, rules.promotionPercents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(fingerprint);
+    }
+
+    @Override
+    public String toString() {
+        return "RewardRules[" + version + ", " + thresholdCents.length + " tiers, " + (promotionStarts.length - 1) + " promotions]";
+    }
+}
@@ -0,0 +1,61 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the active {@link RewardRules}. Starts with the rules configured under {@code reward.rules};
+ * {@link RewardRulesService} swaps in newer versions at runtime.
+ * <p>
+ * A calculation reads the rules once and uses them throughout, so every result is computed and labelled
+ * with exactly one rule version even while a swap happens.
+ * <p>
+ * The holder also tracks the rules the monthly reward ledger was last rebuilt with. After a swap they differ
+ * until {@link RewardLedgerService#rebuild()} finishes, and calculations must not read the ledger meanwhile.
+ */
+@Component
+public class RewardRulesHolder {
+
+    private final AtomicReference<RewardRules> current;
+
+    private volatile RewardRules ledgerRules;
+
+    public RewardRulesHolder(RewardProperties rewardProperties) {
+        this.current = new AtomicReference<>(RewardRules.compile(rewardProperties.getRules()));
+        this.ledgerRules = current.get();
+    }
+
+    /**
+     * Returns the active rules.
+     */
+    public RewardRules current() {
+        return current.get();
+    }
+
+    /**
+     * Makes new rules the active ones for all calculations that start from now on.
+     * @param rules the compiled rules
+     * @return the previously active rules
+     */
+    RewardRules swap(RewardRules rules) {
+        return current.getAndSet(rules);
+    }
+
+    /**
+     * Returns whether the monthly reward ledger holds the points of the given rules.
+     * @param rules the rules of a calculation
+     */
+    public boolean isLedgerBuiltWith(RewardRules rules) {
+        return ledgerRules == rules;
+    }
+
+    /**
+     * Records the rules the monthly reward ledger was rebuilt with.
+     * @param rules the rules read when the rebuild started
+     */
+    void ledgerRebuilt(RewardRules rules) {
+        ledgerRules = rules;
+    }
+}
@@ -0,0 +1,121 @@
+package com.retailer.reward_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.entity.RewardRuleSet;
+import com.retailer.reward_service.exceptions.InvalidRewardRulesException;
+import com.retailer.reward_service.exceptions.ShardingNotSupportedException;
+import com.retailer.reward_service.repository.RewardRuleSetRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+/**
+ * Loads and activates versions of the reward rules.
+ * <p>
+ * The most recently activated {@link RewardRuleSet} replaces the configured rules at startup. Activating a new
+ * version compiles it, stores it and swaps it into the {@link RewardRulesHolder} atomically, without a restart:
+ * calculations that start afterwards use the new rules, cached results are dropped and the snapshot of the old
+ * rules is no longer served. The ledger and the snapshot are then recalculated in the background; until the
+ * ledger rebuild finishes, calculations aggregate fully covered months from the transactions as well. The
+ * finished rebuild is recorded on the {@link RewardRuleSet}; when it is missing at startup, the ledger stays
+ * bypassed and the recalculation starts again.
+ * Activation is rejected in a sharded deployment, since the other nodes would keep calculating with their rules.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class RewardRulesService {
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    private final RewardRuleSetRepository rewardRuleSetRepository;
+
+    private final RewardLedgerService rewardLedgerService;
+
+    private final ObjectProvider<RewardSnapshotService> rewardSnapshotService;
+
+    private final CacheManager cacheManager;
+
+    private final TaskScheduler taskScheduler;
+
+    private final ObjectMapper objectMapper;
+
+    private final RewardPartition rewardPartition;
+
+    @PostConstruct
+    void loadActivatedRules() {
+        rewardRuleSetRepository.findFirstByOrderByIdDesc().ifPresent(ruleSet -> {
+            RewardRules rules;
+            try {
+                rules = RewardRules.compile(objectMapper.readValue(ruleSet.getDefinition(), RewardRulesDefinition.class));
+            } catch (JsonProcessingException ex) {
+                throw new UncheckedIOException("Cannot read reward rules " + ruleSet.getVersion(), ex);
+            }
+            rewardRulesHolder.swap(rules);
+            if (ruleSet.getLedgerRebuiltAt() != null) {
+                rewardRulesHolder.ledgerRebuilt(rules);
+            }
+            log.info("Using reward rules {} activated at {}", ruleSet.getVersion(), ruleSet.getActivatedAt());
+        });
+    }
+
+    // Restarts the recalculation that was interrupted by a restart before the ledger rebuild finished
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeRecalculation() {
+        RewardRules rules = rewardRulesHolder.current();
+        if (!rewardRulesHolder.isLedgerBuiltWith(rules)) {
+            log.info("The reward ledger was not rebuilt with reward rules {}, recalculating", rules.getVersion());
+            taskScheduler.schedule(() -> recalculate(rules), Instant.now());
+        }
+    }
+
+    /**
+     * Validates, stores and activates a new version of the reward rules, then recalculates the ledger and the
+     * snapshot in the background.
+     * @param definition the new rules
+     * @return the compiled rules, now active
+     * @throws InvalidRewardRulesException if the rules are invalid or their version was activated before
+     * @throws ShardingNotSupportedException if customers are sharded across nodes
+     */
+    public synchronized RewardRules activate(RewardRulesDefinition definition) {
+        rewardPartition.requireUnsharded("Reward rule activation");
+        RewardRules rules = RewardRules.compile(definition);
+        if (rules.getVersion().equals(rewardRulesHolder.current().getVersion())
+                || rewardRuleSetRepository.existsByVersion(rules.getVersion())) {
+            throw new InvalidRewardRulesException("Reward rules " + rules.getVersion() + " were already activated");
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(rules.getDefinition());
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        rewardRuleSetRepository.save(new RewardRuleSet(null, rules.getVersion(), json, Instant.now(), null));
+        RewardRules previous = rewardRulesHolder.swap(rules);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        log.info("Activated reward rules {} replacing {}", rules.getVersion(), previous.getVersion());
+        taskScheduler.schedule(() -> recalculate(rules), Instant.now());
+        return rules;
+    }
+
+    // Rebuilds what was derived from the previous rules, unless even newer rules were activated meanwhile
+    void recalculate(RewardRules rules) {
+        if (rewardRulesHolder.current() != rules) {
+            return;
+        }
+        int customers = rewardLedgerService.rebuild();
+        log.info("Recalculated the reward ledger of {} customers with reward rules {}", customers, rules.getVersion());
+        rewardSnapshotService.ifAvailable(RewardSnapshotService::rebuild);
+    }
+}
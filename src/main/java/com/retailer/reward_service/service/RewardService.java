@@ -1,16 +1,29 @@
 package com.retailer.reward_service.service;
+import com.retailer.reward_service.dto.BatchRewardResponse;
 import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import java.util.Collection;
 import java.util.List;
 
 public interface RewardService {
 
     /**
-     * Calculates reward summary for all customers.
+     * Calculates reward summary for all customers within the reward window.
      */
-    List<RewardResponse> calculateAllCustomersRewards();
+    List<RewardResponse> calculateAllCustomersRewards(RewardWindow window);
+
+    /**
+     * Calculates reward summaries for the next page of customers, ordered by customer ID.
+     */
+    List<RewardResponse> calculateCustomersRewardsPage(Integer afterCustomerId, int limit, RewardWindow window);
 
     /**
      * Calculates rewards for a single customer.
      */
-    RewardResponse calculateCustomerRewardsById(Integer customerId);
+    RewardResponse calculateCustomerRewardsById(Integer customerId, RewardWindow window);
+
+    /**
+     * Calculates rewards for a batch of customers, reporting unknown IDs per item.
+     */
+    BatchRewardResponse calculateCustomersRewardsByIds(Collection<Integer> customerIds, RewardWindow window);
 }
@@ -1,19 +1,55 @@
 package com.retailer.reward_service.service;
 
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.DataSourceRoute;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.BatchRewardResponse;
+import com.retailer.reward_service.dto.CustomerIdRange;
+import com.retailer.reward_service.dto.MonthlyPointsView;
 import com.retailer.reward_service.dto.RewardResponse;
-import com.retailer.reward_service.entity.Customer;
-import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.entity.MonthlyReward;
 import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import com.retailer.reward_service.exceptions.InvalidBatchRequestException;
 import com.retailer.reward_service.exceptions.InvalidTransactionAmountException;
 import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDate;
-import java.time.format.TextStyle;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 /**
  * Service to calculate reward points.
+ * <p>
+ * Months fully covered by the reward window are read from the monthly reward ledger; only the
+ * partially covered first and last months are aggregated from the raw transactions. The cost of
+ * a lookup therefore depends on the number of months in the window, not on the customer's history.
+ * After new rules are activated, fully covered months are aggregated from the transactions until the
+ * ledger has been rebuilt with them.
+ * Partial months before the archive horizon are also read from the archived transactions
+ * (see {@link TransactionArchiveService}).
+ * All reads are scalar projections run in read-only transactions, so no entity is loaded or dirty-checked.
+ * When read replicas are configured, those transactions are served by a replica unless the caller requires the
+ * primary (see {@link DataSourceRoute}); such callers also bypass the caches.
+ * Transactions are evaluated with the active {@link RewardRules}, read once per calculation, whose version
+ * labels the responses.
+ * With the columnar backend, customers held by the {@link ColumnarTransactionStore} are calculated
+ * in memory instead.
+ * Single-customer and all-customer results for the default window are served from the nightly
+ * {@link RewardSnapshot} when one is available, and cached until the next write for the customer
+ * or midnight, whichever comes first (see {@link CacheConfig}).
+ * In a sharded deployment, reports, pages and the snapshot cover the customers of this node's
+ * {@link RewardPartition} only; single-customer and batch lookups calculate any customer.
  */
 
 @RequiredArgsConstructor
@@ -22,70 +58,426 @@ public class RewardServiceImpl implements RewardService {
 
     private final CustomerRepository customerRepository;
 
+    private final MonthlyRewardRepository monthlyRewardRepository;
+
+    private final ForkJoinPool rewardReportPool;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final RewardProperties rewardProperties;
+
+    private final RewardMetrics rewardMetrics;
+
+    private final RepositoryBulkhead repositoryBulkhead;
+
+    private final RewardSnapshotHolder rewardSnapshotHolder;
+
+    private final ColumnarTransactionStore columnarTransactionStore;
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    private final RewardPartition rewardPartition;
+
+    private final CustomerIdFilter customerIdFilter;
+
+    private final TransactionArchiveService transactionArchiveService;
+
     /**
-     * Calculates reward summary for all customers.
-     * @return list of reward responses
+     * Only results for the default window are cached; cache keys are per day, so they identify it.
+     * Callers requiring the primary skip the cache, which may hold a result read from a lagging replica.
+     */
+    private static final String DEFAULT_WINDOW_CONDITION = "#window.equals(@rewardWindowResolver.defaultWindow())"
+            + " and !T(com.retailer.reward_service.configuration.DataSourceRoute).isPrimaryRequired()";
+
+    /**
+     * Calculates reward summary for all customers of this node's partition.
+     * <p>
+     * When a snapshot of the window exists, only the customers it cannot answer for are calculated.
+     * Otherwise the customer ID space is split into ranges that are computed in parallel on the
+     * dedicated report pool and merged in customer ID order.
+     * @param window the reward window
+     * @return list of reward responses ordered by customer ID
      */
     @Override
-    public List<RewardResponse> calculateAllCustomersRewards() {
-        List<Customer> customers = customerRepository.findAll();
+    @Cacheable(cacheNames = CacheConfig.ALL_CUSTOMERS_REWARDS, key = "T(com.retailer.reward_service.configuration.CacheConfig).allCustomersKey()",
+            condition = DEFAULT_WINDOW_CONDITION)
+    public List<RewardResponse> calculateAllCustomersRewards(RewardWindow window) {
+        return rewardMetrics.time(RewardMetrics.CALCULATIONS, RewardMetrics.MODE_ALL, () -> {
+            RewardSnapshot snapshot = rewardSnapshotHolder.current(window);
+            return snapshot != null ? calculateRewardsFromSnapshot(snapshot, window) : calculateRewardsInParallel(window);
+        });
+    }
+
+    /**
+     * Calculates the rewards of all customers of this node's partition from the database, bypassing the snapshot and the cache.
+     * Used to build the snapshot.
+     * @param window the reward window
+     * @return list of reward responses ordered by customer ID
+     */
+    public List<RewardResponse> calculateAllCustomersRewardsFromDatabase(RewardWindow window) {
+        return calculateRewardsInParallel(window);
+    }
+
+    // Merges the snapshot with the customers it cannot answer for
+    private List<RewardResponse> calculateRewardsFromSnapshot(RewardSnapshot snapshot, RewardWindow window) {
+        List<RewardResponse> rewards = snapshot.findAll();
+        rewards.addAll(calculateRewardsNotInSnapshot(snapshot, window));
+        rewards.sort(Comparator.comparing(RewardResponse::getCustomerId));
+        return rewards;
+    }
+
+    /**
+     * Calculates the rewards of the customers a snapshot cannot answer for from the database:
+     * those written while it was built and those created after it, unless they were caught up since.
+     * @param snapshot the snapshot
+     * @param window the window of the snapshot
+     * @return list of reward responses, stale customers first, each part ordered by customer ID
+     */
+    public List<RewardResponse> calculateRewardsNotInSnapshot(RewardSnapshot snapshot, RewardWindow window) {
         List<RewardResponse> rewards = new ArrayList<>();
+        SortedSet<Integer> staleCustomerIds = new TreeSet<>();
+        int caughtUpThrough = snapshot.getCaughtUpThrough();
+        for (Integer customerId : snapshot.getUnansweredCustomerIds()) {
+            // Customers above the covered IDs are calculated with the range below, only once
+            if (customerId <= caughtUpThrough && rewardPartition.owns(customerId)) {
+                staleCustomerIds.add(customerId);
+            }
+        }
+        if (!staleCustomerIds.isEmpty()) {
+            rewards.addAll(calculateRewardsForCustomerIds(staleCustomerIds, window));
+        }
+        CustomerIdRange idRange = repositoryBulkhead.call(() -> readOnly(customerRepository::findCustomerIdRange));
+        if (idRange != null && idRange.getMaxCustomerId() != null && idRange.getMaxCustomerId() > caughtUpThrough) {
+            rewards.addAll(calculateOwnedRewards(caughtUpThrough + 1, idRange.getMaxCustomerId(), window));
+        }
+        return rewards;
+    }
+
+    // Computes the customer ID ranges on the report pool and joins them in order
+    private List<RewardResponse> calculateRewardsInParallel(RewardWindow window) {
+        CustomerIdRange idRange = readOnly(customerRepository::findCustomerIdRange);
+        if (idRange == null || idRange.getMinCustomerId() == null) {
+            return List.of();
+        }
 
-        for (Customer customer : customers) {
-            rewards.add(calculateCustomerRewards(customer));
+        // The route is thread-bound, so the pool workers take over the caller's. Each range is report work and
+        // waits for a bulkhead permit rather than failing the whole report.
+        boolean primaryRequired = DataSourceRoute.isPrimaryRequired();
+        List<ForkJoinTask<List<RewardResponse>>> tasks = new ArrayList<>();
+        for (int[] range : splitCustomerIdRange(idRange.getMinCustomerId(), idRange.getMaxCustomerId())) {
+            tasks.add(rewardReportPool.submit(() -> {
+                boolean previous = DataSourceRoute.requirePrimary(primaryRequired);
+                try {
+                    return repositoryBulkhead.reportWork(() -> calculateOwnedRewards(range[0], range[1], window));
+                } finally {
+                    DataSourceRoute.requirePrimary(previous);
+                }
+            }));
+        }
+
+        // Ranges are ascending, so joining in submission order keeps the result ordered by customer ID
+        List<RewardResponse> rewards = new ArrayList<>();
+        for (ForkJoinTask<List<RewardResponse>> task : tasks) {
+            rewards.addAll(task.join());
         }
         return rewards;
     }
 
-    // Add this private method to calculate rewards directly from a Customer object
-    private RewardResponse calculateCustomerRewards(Customer customer) {
-        Map<String, Integer> monthlyPoints = new HashMap<>();
-        int totalPoints = 0;
+    /**
+     * Splits the inclusive customer ID span into contiguous ascending ranges, enough to keep every
+     * report worker busy but none smaller than the configured minimum range size.
+     * @param minCustomerId the lowest customer ID
+     * @param maxCustomerId the highest customer ID
+     * @return the {@code [from, to]} pairs covering the span
+     */
+    List<int[]> splitCustomerIdRange(int minCustomerId, int maxCustomerId) {
+        RewardProperties.Report report = rewardProperties.getReport();
+        long span = (long) maxCustomerId - minCustomerId + 1;
+        long maxRanges = (span + report.getMinRangeSize() - 1) / report.getMinRangeSize();
+        long rangeCount = Math.max(1, Math.min((long) report.getEffectiveParallelism() * report.getRangesPerWorker(), maxRanges));
+        long rangeSize = (span + rangeCount - 1) / rangeCount;
 
-        LocalDate now = LocalDate.now();
-        LocalDate threeMonthsAgo = now.minusMonths(3);
+        List<int[]> ranges = new ArrayList<>();
+        for (long from = minCustomerId; from <= maxCustomerId; from += rangeSize) {
+            ranges.add(new int[]{(int) from, (int) Math.min(from + rangeSize - 1, maxCustomerId)});
+        }
+        return ranges;
+    }
 
-        for (Transaction transaction : customer.getTransactions()) {
-            if (!transaction.getTransactionDate().isBefore(threeMonthsAgo)) {  // inclusive 3 months
-                int points = calculatePoints(transaction.getAmount());
-                String month = transaction.getTransactionDate().getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
-                monthlyPoints.put(month, monthlyPoints.getOrDefault(month, 0) + points);
-                totalPoints += points;
+    /**
+     * Calculates reward summaries for the next page of customers of this node's partition after the given cursor.
+     * @param afterCustomerId the last customer ID already returned, or {@code null} to start from the beginning
+     * @param limit the maximum number of customers in the page
+     * @param window the reward window
+     * @return list of reward responses ordered by customer ID
+     */
+    @Override
+    public List<RewardResponse> calculateCustomersRewardsPage(Integer afterCustomerId, int limit, RewardWindow window) {
+        return rewardMetrics.time(RewardMetrics.CALCULATIONS, RewardMetrics.MODE_PAGE, () -> {
+            if (rewardPartition.isSharded()) {
+                return calculateOwnedRewardsPage(afterCustomerId == null ? Integer.MIN_VALUE : afterCustomerId, limit, window);
             }
-        }
+            List<Integer> customerIds = repositoryBulkhead.call(() -> readOnly(() -> customerRepository.findCustomerIdsAfter(
+                    afterCustomerId == null ? Integer.MIN_VALUE : afterCustomerId, Limit.of(limit))));
+            if (customerIds.isEmpty()) {
+                return List.of();
+            }
+            return calculateRewards(customerIds.get(0), customerIds.get(customerIds.size() - 1), window);
+        });
+    }
 
-        return new RewardResponse(customer.getCustomerId(), customer.getName(), monthlyPoints, totalPoints);
+    // Collects the next owned customer IDs with keyset pages sized so that one page usually holds enough of them
+    private List<RewardResponse> calculateOwnedRewardsPage(int afterCustomerId, int limit, RewardWindow window) {
+        int scanSize = limit * rewardPartition.getNodeCount();
+        SortedSet<Integer> owned = new TreeSet<>();
+        int cursor = afterCustomerId;
+        while (owned.size() < limit) {
+            int after = cursor;
+            List<Integer> customerIds = repositoryBulkhead.call(() -> readOnly(() ->
+                    customerRepository.findCustomerIdsAfter(after, Limit.of(scanSize))));
+            for (int i = 0; i < customerIds.size() && owned.size() < limit; i++) {
+                if (rewardPartition.owns(customerIds.get(i))) {
+                    owned.add(customerIds.get(i));
+                }
+            }
+            if (customerIds.size() < scanSize) {
+                break;
+            }
+            cursor = customerIds.get(customerIds.size() - 1);
+        }
+        return owned.isEmpty() ? List.of() : calculateRewardsForCustomerIds(owned, window);
     }
 
     /**
-     * Calculates rewards for a single customer.
+     * Calculates rewards for a single customer. IDs the {@link CustomerIdFilter} rules out are rejected without
+     * a database query.
      * @param customerId the ID of the customer
+     * @param window the reward window
      * @return reward response for the customer
+     * @throws CustomerNotFoundException if there is no customer with the ID
      */
     @Override
-    public RewardResponse calculateCustomerRewardsById(Integer customerId) {
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with id: " + customerId));
-        return calculateCustomerRewards(customer);
+    @Cacheable(cacheNames = CacheConfig.CUSTOMER_REWARDS, key = "T(com.retailer.reward_service.configuration.CacheConfig).customerKey(#customerId)",
+            condition = DEFAULT_WINDOW_CONDITION, sync = true)
+    public RewardResponse calculateCustomerRewardsById(Integer customerId, RewardWindow window) {
+        return rewardMetrics.time(RewardMetrics.CALCULATIONS, RewardMetrics.MODE_SINGLE, () -> {
+            customerIdFilter.requireMightExist(customerId);
+            RewardSnapshot snapshot = rewardSnapshotHolder.current(window);
+            RewardResponse reward = snapshot == null ? null : snapshot.find(customerId);
+            if (reward != null) {
+                return reward;
+            }
+            List<RewardResponse> rewards = calculateRewards(customerId, customerId, window);
+            if (rewards.isEmpty()) {
+                throw new CustomerNotFoundException("Customer not found with id: " + customerId);
+            }
+            return rewards.get(0);
+        });
     }
 
     /**
-     * Calculates points based on amount spent.
-     * @param amount the transaction amount
-     * @return reward points
+     * Calculates rewards for a batch of customers with a fixed number of IN-list queries.
+     * IDs the {@link CustomerIdFilter} rules out are not queried.
+     * @param customerIds the IDs of the customers, duplicates are ignored
+     * @param window the reward window
+     * @return rewards of the known customers and a not-found error for every other ID
+     * @throws InvalidBatchRequestException if the batch is empty, contains a null ID or has too many distinct IDs
      */
-    private int calculatePoints(Double amount) {
+    @Override
+    public BatchRewardResponse calculateCustomersRewardsByIds(Collection<Integer> customerIds, RewardWindow window) {
+        return rewardMetrics.time(RewardMetrics.CALCULATIONS, RewardMetrics.MODE_BATCH, () -> {
+            int maxIds = rewardProperties.getBatch().getMaxIds();
+            if (customerIds.stream().anyMatch(Objects::isNull)) {
+                throw new InvalidBatchRequestException("Customer IDs must not be empty");
+            }
+            SortedSet<Integer> ids = new TreeSet<>(customerIds);
+            if (ids.isEmpty() || ids.size() > maxIds) {
+                throw new InvalidBatchRequestException("Between 1 and " + maxIds + " distinct customer IDs are required");
+            }
 
-        if (amount == null || amount <= 0) {
-            throw new InvalidTransactionAmountException("Transaction amount must be greater than 0");
+            SortedSet<Integer> candidateIds = new TreeSet<>();
+            for (Integer customerId : ids) {
+                if (customerIdFilter.mightExist(customerId)) {
+                    candidateIds.add(customerId);
+                }
+            }
+            List<RewardResponse> rewards = candidateIds.isEmpty() ? List.of() : calculateRewardsForCustomerIds(candidateIds, window);
+
+            BatchRewardResponse response = new BatchRewardResponse();
+            for (RewardResponse reward : rewards) {
+                response.getRewards().put(reward.getCustomerId(), reward);
+            }
+            for (Integer customerId : ids) {
+                if (!response.getRewards().containsKey(customerId)) {
+                    response.getErrors().put(customerId, "Customer not found with id: " + customerId);
+                }
+            }
+            return response;
+        });
+    }
+
+    // Calculates rewards for the given customers with IN-list queries, ordered by customer ID
+    private List<RewardResponse> calculateRewardsForCustomerIds(SortedSet<Integer> customerIds, RewardWindow window) {
+        List<RewardResponse> rewards = columnarTransactionStore.calculateRewards(customerIds, window);
+        if (rewards != null) {
+            return rewards;
+        }
+        RewardRules rules = rewardRulesHolder.current();
+        return calculateRewards(rules, window,
+                (fromPeriod, toPeriod) -> monthlyRewardRepository.findMonthlyPointsBetweenForCustomerIds(fromPeriod, toPeriod, customerIds),
+                (fromDate, toDate) -> transactionArchiveService.findMonthlyPoints(fromDate,
+                        repository -> repository.findMonthlyPointsBetweenForCustomerIds(rules, fromDate, toDate, customerIds)));
+    }
+
+    // Calculates rewards for the customers of this node's partition in the ID range, ordered by customer ID.
+    // When sharded, the IDs of the range are read with keyset pages and the owned ones calculated with IN-list
+    // queries, so every node reads only the ledger rows and transactions of its own customers.
+    private List<RewardResponse> calculateOwnedRewards(int fromCustomerId, int toCustomerId, RewardWindow window) {
+        if (!rewardPartition.isSharded()) {
+            return calculateRewards(fromCustomerId, toCustomerId, window);
+        }
+        int maxIds = rewardProperties.getBatch().getMaxIds();
+        List<RewardResponse> rewards = new ArrayList<>();
+        int cursor = fromCustomerId - 1;
+        while (cursor < toCustomerId) {
+            int after = cursor;
+            List<Integer> customerIds = repositoryBulkhead.call(() -> readOnly(() -> customerRepository.findCustomerIdsAfter(after, Limit.of(maxIds))));
+            if (customerIds.isEmpty()) {
+                break;
+            }
+            SortedSet<Integer> owned = new TreeSet<>();
+            for (Integer customerId : customerIds) {
+                if (customerId <= toCustomerId && rewardPartition.owns(customerId)) {
+                    owned.add(customerId);
+                }
+            }
+            if (!owned.isEmpty()) {
+                rewards.addAll(calculateRewardsForCustomerIds(owned, window));
+            }
+            cursor = customerIds.get(customerIds.size() - 1);
+        }
+        return rewards;
+    }
+
+    // Calculates rewards for every customer in the ID range, ordered by customer ID
+    private List<RewardResponse> calculateRewards(Integer fromCustomerId, Integer toCustomerId, RewardWindow window) {
+        List<RewardResponse> rewards = columnarTransactionStore.calculateRewards(fromCustomerId, toCustomerId, window);
+        if (rewards != null) {
+            return rewards;
         }
-        int points = 0;
-        if (amount > 100) {
-            points += (int) ((amount - 100) * 2) + 50;
+        RewardRules rules = rewardRulesHolder.current();
+        return calculateRewards(rules, window,
+                (fromPeriod, toPeriod) -> monthlyRewardRepository.findMonthlyPointsBetween(fromPeriod, toPeriod, fromCustomerId, toCustomerId),
+                (fromDate, toDate) -> transactionArchiveService.findMonthlyPoints(fromDate,
+                        repository -> repository.findMonthlyPointsBetween(rules, fromDate, toDate, fromCustomerId, toCustomerId)));
+    }
+
+    // Calculates rewards for the customers selected by the two queries, ordered by customer ID.
+    // The ledger query takes a yyyyMM period range, the transaction query a date range; both return rows ordered by customer ID.
+    // The transaction query calculates with the given rules, which label the responses. Until the ledger has been
+    // rebuilt with them, fully covered months are aggregated from the transactions too.
+    private List<RewardResponse> calculateRewards(RewardRules rules, RewardWindow window,
+                                                  BiFunction<Integer, Integer, List<MonthlyPointsView>> ledgerQuery,
+                                                  BiFunction<LocalDate, LocalDate, List<MonthlyPointsView>> transactionQuery) {
+        LocalDate fromDate = window.getFromDate();
+        LocalDate toDate = window.getToDate();
+        YearMonth firstMonth = window.getFirstMonth();
+        YearMonth lastMonth = window.getLastMonth();
+        YearMonth firstFullMonth = fromDate.getDayOfMonth() == 1 ? firstMonth : firstMonth.plusMonths(1);
+        YearMonth lastFullMonth = toDate.equals(lastMonth.atEndOfMonth()) ? lastMonth : lastMonth.minusMonths(1);
+        boolean ledgerCurrent = rewardRulesHolder.isLedgerBuiltWith(rules);
+
+        // The queries run under one bulkhead permit and in one read-only transaction; the merge below needs no connection.
+        // The first list holds the ledger rows, which include every selected customer (with a null period
+        // when no month is fully covered). Partially covered months cannot use the ledger and follow as
+        // separate lists; a window within one month is a single partial month. While the ledger holds points of
+        // other rules, the ledger query selects no month and the fully covered months follow as one more list.
+        List<List<MonthlyPointsView>> rowLists = repositoryBulkhead.call(() -> readOnly(() -> {
+            List<List<MonthlyPointsView>> lists = new ArrayList<>(4);
+            if (ledgerCurrent) {
+                lists.add(ledgerQuery.apply(MonthlyReward.periodOf(firstFullMonth), MonthlyReward.periodOf(lastFullMonth)));
+            } else {
+                lists.add(ledgerQuery.apply(MonthlyReward.periodOf(firstFullMonth), MonthlyReward.periodOf(firstFullMonth.minusMonths(1))));
+                if (!firstFullMonth.isAfter(lastFullMonth)) {
+                    lists.add(transactionQuery.apply(firstFullMonth.atDay(1), lastFullMonth.atEndOfMonth()));
+                }
+            }
+            if (firstFullMonth.isAfter(firstMonth)) {
+                LocalDate partialEnd = toDate.isBefore(firstMonth.atEndOfMonth()) ? toDate : firstMonth.atEndOfMonth();
+                lists.add(transactionQuery.apply(fromDate, partialEnd));
+            }
+            if (lastFullMonth.isBefore(lastMonth) && (lastMonth.isAfter(firstMonth) || !firstFullMonth.isAfter(firstMonth))) {
+                lists.add(transactionQuery.apply(lastMonth.atDay(1), toDate));
+            }
+            return lists;
+        }));
+        List<MonthlyPointsView> ledgerRows = rowLists.get(0);
+        List<List<MonthlyPointsView>> partialMonthRows = rowLists.subList(1, rowLists.size());
+
+        recordRowsRead(ledgerRows, partialMonthRows);
+
+        // All row lists are ordered by customer ID, so they are merged in a single pass
+        List<RewardResponse> rewards = new ArrayList<>();
+        RewardPointsCalculator.MonthlyAccumulator accumulator = new RewardPointsCalculator.MonthlyAccumulator(firstMonth, window.getMonthCount());
+        int[] partialIndexes = new int[partialMonthRows.size()];
+        int ledgerIndex = 0;
+        while (ledgerIndex < ledgerRows.size()) {
+            MonthlyPointsView customerRow = ledgerRows.get(ledgerIndex);
+            int customerId = customerRow.getCustomerId();
+            accumulator.reset();
+            for (; ledgerIndex < ledgerRows.size() && ledgerRows.get(ledgerIndex).getCustomerId() == customerId; ledgerIndex++) {
+                addPoints(accumulator, ledgerRows.get(ledgerIndex));
+            }
+            for (int i = 0; i < partialIndexes.length; i++) {
+                List<MonthlyPointsView> rows = partialMonthRows.get(i);
+                for (; partialIndexes[i] < rows.size() && rows.get(partialIndexes[i]).getCustomerId() <= customerId; partialIndexes[i]++) {
+                    if (rows.get(partialIndexes[i]).getCustomerId() == customerId) {
+                        addPoints(accumulator, rows.get(partialIndexes[i]));
+                    }
+                }
+            }
+            RewardResponse reward = new RewardResponse(customerId, customerRow.getCustomerName(),
+                    accumulator.toMonthlyPoints(), accumulator.getTotalPoints());
+            reward.setRuleVersion(rules.getVersion());
+            rewards.add(reward);
+        }
+        return rewards;
+    }
+
+    // Runs reads in a read-only transaction, joining the caller's if there is one: Hibernate neither flushes nor
+    // dirty-checks at commit, and the JDBC connection is flagged read-only. The reads return projections, never entities.
+    // A transaction of its own may be served by a read replica.
+    private <T> T readOnly(Supplier<T> reads) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return DataSourceRoute.replicaRead(() -> readOnlyTransaction.execute(status -> reads.get()));
+    }
+
+    // Counts the ledger rows and raw transactions behind one calculation
+    private void recordRowsRead(List<MonthlyPointsView> ledgerRows, List<List<MonthlyPointsView>> partialMonthRows) {
+        long ledgerRowCount = 0;
+        for (MonthlyPointsView row : ledgerRows) {
+            if (row.getPeriod() != null) {
+                ledgerRowCount++;
+            }
+        }
+        long transactionCount = 0;
+        for (List<MonthlyPointsView> rows : partialMonthRows) {
+            for (MonthlyPointsView row : rows) {
+                transactionCount += row.getTransactionCount();
+            }
+        }
+        rewardMetrics.recordLedgerRowsRead(ledgerRowCount);
+        rewardMetrics.recordTransactionsScanned(transactionCount);
+    }
+
+    // Adds the points of one aggregated month to the customer's accumulator
+    private void addPoints(RewardPointsCalculator.MonthlyAccumulator accumulator, MonthlyPointsView row) {
+        if (row.getInvalidCount() != null && row.getInvalidCount() > 0) {
+            throw new InvalidTransactionAmountException("Transaction amount must be greater than 0");
         }
-        else if (amount > 50) {
-            points += (int) (amount - 50);
+        if (row.getPeriod() != null) {
+            accumulator.add(row.getPeriod(), row.getPoints().intValue());
         }
-        return points;
     }
 }
@@ -0,0 +1,433 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Precomputed rewards of every customer for one reward window.
+ * <p>
+ * The base results are held in flat buffers indexed by {@code customerId - firstCustomerId}: the offset of
+ * the customer's name in the UTF-8 name data, and one row of {@code monthCount} monthly points. Customer IDs
+ * are assigned by an identity column, so the index space is dense and a lookup is a single buffer access.
+ * The buffers are either on the heap or mapped from a {@link RewardSnapshotFile}. The base never changes
+ * after construction; transactions recorded later are added as per-customer monthly deltas, and customers
+ * whose changes could not be captured as deltas are marked stale and served from the database instead.
+ * Stale customers and customers created after the build can be caught up later from a database calculation;
+ * the snapshot then answers for them too.
+ * <p>
+ * All points, including the deltas, are calculated with the {@link RewardRules} the snapshot was built with.
+ * <p>
+ * The customers the snapshot answers for are also ranked by total points in a {@link RankingIndex}, built on
+ * first use and updated with every delta.
+ */
+public final class RewardSnapshot {
+
+    private static final int NO_POINTS = Integer.MIN_VALUE;
+
+    // Name offset of an ID without a customer
+    private static final int NO_CUSTOMER = -1;
+
+    // Length prefix of a customer without a name
+    private static final int NO_NAME = -1;
+
+    private final RewardWindow window;
+
+    private final Instant builtAt;
+
+    private final long watermark;
+
+    private final RewardRules rules;
+
+    private final YearMonth firstMonth;
+
+    private final int monthCount;
+
+    private final int firstCustomerId;
+
+    private final int customerCount;
+
+    private final IntBuffer nameOffsets;
+
+    private final IntBuffer monthlyPoints;
+
+    // Per customer: an int length (or NO_NAME) followed by the UTF-8 bytes of the name
+    private final ByteBuffer nameData;
+
+    private final Map<Integer, int[]> deltas = new ConcurrentHashMap<>();
+
+    private final Set<Integer> staleCustomerIds = ConcurrentHashMap.newKeySet();
+
+    // Customers answered outside the base: stale ones and those created after the build
+    private final Map<Integer, CaughtUp> caughtUp = new ConcurrentHashMap<>();
+
+    // The highest caught-up customer ID, if above the base; written with the holder's lock held
+    private volatile int caughtUpThrough = Integer.MIN_VALUE;
+
+    private final Object rankingLock = new Object();
+
+    // Built on first use; guarded by rankingLock
+    private RankingIndex ranking;
+
+    /**
+     * @param window the window the rewards were calculated for
+     * @param builtAt when the calculation started
+     * @param watermark the highest transaction ID when the calculation started
+     * @param rules the rules active when the calculation started
+     * @param rewards the rewards of every customer, ordered by customer ID
+     */
+    public RewardSnapshot(RewardWindow window, Instant builtAt, long watermark, RewardRules rules, List<RewardResponse> rewards) {
+        this.window = window;
+        this.builtAt = builtAt;
+        this.watermark = watermark;
+        this.rules = rules;
+        this.firstMonth = window.getFirstMonth();
+        this.monthCount = window.getMonthCount();
+        this.firstCustomerId = rewards.isEmpty() ? 0 : rewards.get(0).getCustomerId();
+        this.customerCount = rewards.isEmpty() ? 0 : rewards.get(rewards.size() - 1).getCustomerId() - firstCustomerId + 1;
+
+        int[] offsets = new int[customerCount];
+        Arrays.fill(offsets, NO_CUSTOMER);
+        int[] points = new int[customerCount * monthCount];
+        Arrays.fill(points, NO_POINTS);
+        byte[][] names = new byte[rewards.size()][];
+        int nameDataLength = 0;
+        for (int i = 0; i < rewards.size(); i++) {
+            String name = rewards.get(i).getCustomerName();
+            names[i] = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+            nameDataLength += Integer.BYTES + (name == null ? 0 : names[i].length);
+        }
+        ByteBuffer data = ByteBuffer.allocate(nameDataLength);
+        for (int i = 0; i < rewards.size(); i++) {
+            RewardResponse reward = rewards.get(i);
+            int index = reward.getCustomerId() - firstCustomerId;
+            offsets[index] = data.position();
+            if (names[i] == null) {
+                data.putInt(NO_NAME);
+            } else {
+                data.putInt(names[i].length).put(names[i]);
+            }
+            reward.getMonthlyPoints().forEach((month, monthPoints) ->
+                    points[index * monthCount + monthOffset(month)] = monthPoints);
+        }
+        this.nameOffsets = IntBuffer.wrap(offsets);
+        this.monthlyPoints = IntBuffer.wrap(points);
+        this.nameData = data.flip();
+    }
+
+    /**
+     * Wraps buffers in the layout written by {@link RewardSnapshotFile}; they are only read with absolute gets.
+     */
+    RewardSnapshot(RewardWindow window, Instant builtAt, long watermark, RewardRules rules, int firstCustomerId,
+                   IntBuffer nameOffsets, IntBuffer monthlyPoints, ByteBuffer nameData, Collection<Integer> staleCustomerIds) {
+        this.window = window;
+        this.builtAt = builtAt;
+        this.watermark = watermark;
+        this.rules = rules;
+        this.firstMonth = window.getFirstMonth();
+        this.monthCount = window.getMonthCount();
+        this.firstCustomerId = firstCustomerId;
+        this.customerCount = nameOffsets.limit();
+        if (monthlyPoints.limit() != customerCount * monthCount) {
+            throw new IllegalArgumentException("Expected " + monthCount + " months for each of " + customerCount + " customers");
+        }
+        this.nameOffsets = nameOffsets;
+        this.monthlyPoints = monthlyPoints;
+        this.nameData = nameData;
+        this.staleCustomerIds.addAll(staleCustomerIds);
+    }
+
+    public RewardWindow getWindow() {
+        return window;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * The highest transaction ID when the snapshot was built. Later transactions are only included
+     * as deltas of the running instance, so a snapshot read back from a file catches up from here.
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * The rules the snapshot was built with; deltas must be calculated with the same rules.
+     */
+    public RewardRules getRules() {
+        return rules;
+    }
+
+    /**
+     * The highest customer ID known to the snapshot; later customers are not covered.
+     */
+    public int getLastCustomerId() {
+        return firstCustomerId + customerCount - 1;
+    }
+
+    /**
+     * The highest customer ID the snapshot covers, including customers caught up after the build; later
+     * customers are not covered.
+     */
+    public int getCaughtUpThrough() {
+        return Math.max(getLastCustomerId(), caughtUpThrough);
+    }
+
+    /**
+     * Customers whose base results cannot be used; fixed before the snapshot is published, except for customers
+     * a catch-up had to skip.
+     */
+    public Set<Integer> getStaleCustomerIds() {
+        return Collections.unmodifiableSet(staleCustomerIds);
+    }
+
+    /**
+     * Stale customers that have not been caught up and must be calculated from the database.
+     */
+    public Set<Integer> getUnansweredCustomerIds() {
+        Set<Integer> unanswered = new TreeSet<>(staleCustomerIds);
+        unanswered.removeAll(caughtUp.keySet());
+        return unanswered;
+    }
+
+    /**
+     * Returns the current rewards of a customer, or {@code null} when the snapshot cannot answer
+     * (unknown or stale customer) and the caller has to calculate them.
+     */
+    public RewardResponse find(int customerId) {
+        return answers(customerId) ? toResponse(customerId) : null;
+    }
+
+    /**
+     * Returns the current rewards of every customer the snapshot can answer for, ordered by customer ID.
+     * Stale customers that were not caught up are left out.
+     */
+    public List<RewardResponse> findAll() {
+        List<RewardResponse> rewards = new ArrayList<>();
+        for (int customerId : answeredCustomerIds()) {
+            rewards.add(toResponse(customerId));
+        }
+        return rewards;
+    }
+
+    /**
+     * Adds the points of a committed transaction if it falls inside the window.
+     * Transactions of customers the snapshot does not know are ignored; those customers are calculated on demand.
+     */
+    public void applyTransaction(int customerId, LocalDate transactionDate, int points) {
+        if (transactionDate.isBefore(window.getFromDate()) || transactionDate.isAfter(window.getToDate())) {
+            return;
+        }
+        int offset = monthOffset(YearMonth.from(transactionDate));
+        deltas.compute(customerId, (id, monthDeltas) -> {
+            // Copied on write so readers never see a half-applied transaction
+            int[] updated = monthDeltas == null ? new int[monthCount * 2] : monthDeltas.clone();
+            updated[offset] += points;
+            updated[monthCount + offset] = 1;  // the month has at least one transaction
+            return updated;
+        });
+        synchronized (rankingLock) {
+            // Recalculated from the current deltas, so concurrent transactions cannot be applied out of order
+            if (ranking != null && answers(customerId)) {
+                ranking.put(customerId, totalPoints(customerId));
+            }
+        }
+    }
+
+    /**
+     * Starts answering for a customer the snapshot could not answer for, from its rewards calculated from the
+     * database. The deltas applied so far are already included in the calculation and are subtracted from it.
+     * The caller must ensure that no delta of the customer was pending while it was calculated and that none is
+     * applied until this returns (see {@link RewardSnapshotHolder#catchUp}).
+     * @param reward the customer's rewards for the snapshot's window
+     */
+    void catchUp(RewardResponse reward) {
+        int customerId = reward.getCustomerId();
+        int[] monthDeltas = deltas.get(customerId);
+        int[] points = new int[monthCount];
+        Arrays.fill(points, NO_POINTS);
+        reward.getMonthlyPoints().forEach((month, monthPoints) -> {
+            int offset = monthOffset(month);
+            points[offset] = monthPoints - (monthDeltas == null ? 0 : monthDeltas[offset]);
+        });
+        caughtUp.put(customerId, new CaughtUp(reward.getCustomerName(), points));
+        if (customerId > caughtUpThrough) {
+            caughtUpThrough = customerId;
+        }
+        synchronized (rankingLock) {
+            if (ranking != null) {
+                ranking.put(customerId, totalPoints(customerId));
+            }
+        }
+    }
+
+    /**
+     * Runs a query against the ranking of the customers the snapshot answers for, building it on first use.
+     * Queries and delta updates are serialized, so a query sees one consistent ranking.
+     */
+    <T> T queryRanking(Function<RankingIndex, T> query) {
+        synchronized (rankingLock) {
+            if (ranking == null) {
+                ranking = new RankingIndex();
+                for (int customerId : answeredCustomerIds()) {
+                    ranking.put(customerId, totalPoints(customerId));
+                }
+            }
+            return query.apply(ranking);
+        }
+    }
+
+    /**
+     * Stops serving a customer from the snapshot because it changed while the snapshot was built.
+     */
+    void markStale(int customerId) {
+        staleCustomerIds.add(customerId);
+        caughtUp.remove(customerId);
+        synchronized (rankingLock) {
+            if (ranking != null) {
+                ranking.remove(customerId);
+            }
+        }
+    }
+
+    int getFirstCustomerId() {
+        return firstCustomerId;
+    }
+
+    /**
+     * The name offsets of the base, one per customer ID from the first to the last.
+     */
+    IntBuffer nameOffsets() {
+        return nameOffsets.duplicate().clear();
+    }
+
+    /**
+     * The monthly points of the base, {@code monthCount} per customer ID.
+     */
+    IntBuffer monthlyPoints() {
+        return monthlyPoints.duplicate().clear();
+    }
+
+    /**
+     * The length-prefixed UTF-8 names the name offsets point into.
+     */
+    ByteBuffer nameData() {
+        return nameData.duplicate().clear();
+    }
+
+    private boolean answers(int customerId) {
+        return caughtUp.containsKey(customerId) || isAnswered(customerId - firstCustomerId);
+    }
+
+    private boolean isAnswered(int index) {
+        return index >= 0 && index < customerCount && nameOffsets.get(index) != NO_CUSTOMER
+                && !staleCustomerIds.contains(firstCustomerId + index);
+    }
+
+    // The customers answered from the base or caught up, in ascending order
+    private List<Integer> answeredCustomerIds() {
+        List<Integer> customerIds = new ArrayList<>();
+        for (int index = 0; index < customerCount; index++) {
+            if (isAnswered(index) || caughtUp.containsKey(firstCustomerId + index)) {
+                customerIds.add(firstCustomerId + index);
+            }
+        }
+        List<Integer> outsideBase = caughtUp.keySet().stream()
+                .filter(customerId -> customerId < firstCustomerId || customerId > getLastCustomerId())
+                .sorted()
+                .toList();
+        if (!outsideBase.isEmpty()) {
+            customerIds.addAll(outsideBase);
+            customerIds.sort(null);
+        }
+        return customerIds;
+    }
+
+    // The base points of a month, from the caught-up results if the customer has them
+    private int basePoints(CaughtUp caught, int customerId, int offset) {
+        return caught != null ? caught.monthlyPoints[offset] : monthlyPoints.get((customerId - firstCustomerId) * monthCount + offset);
+    }
+
+    private int totalPoints(int customerId) {
+        CaughtUp caught = caughtUp.get(customerId);
+        int[] monthDeltas = deltas.get(customerId);
+        int totalPoints = 0;
+        for (int offset = 0; offset < monthCount; offset++) {
+            int base = basePoints(caught, customerId, offset);
+            totalPoints += (base == NO_POINTS ? 0 : base) + (monthDeltas == null ? 0 : monthDeltas[offset]);
+        }
+        return totalPoints;
+    }
+
+    private RewardResponse toResponse(int customerId) {
+        CaughtUp caught = caughtUp.get(customerId);
+        int[] monthDeltas = deltas.get(customerId);
+        Map<YearMonth, Integer> points = new LinkedHashMap<>();
+        int totalPoints = 0;
+        for (int offset = 0; offset < monthCount; offset++) {
+            int base = basePoints(caught, customerId, offset);
+            boolean present = base != NO_POINTS;
+            int monthPoints = present ? base : 0;
+            if (monthDeltas != null) {
+                present |= monthDeltas[monthCount + offset] != 0;
+                monthPoints += monthDeltas[offset];
+            }
+            if (present) {
+                points.put(firstMonth.plusMonths(offset), monthPoints);
+                totalPoints += monthPoints;
+            }
+        }
+        String name = caught != null ? caught.name : customerName(nameOffsets.get(customerId - firstCustomerId));
+        RewardResponse response = new RewardResponse(customerId, name, points, totalPoints);
+        response.setSnapshotTime(builtAt);
+        response.setRuleVersion(rules.getVersion());
+        return response;
+    }
+
+    private String customerName(int offset) {
+        int length = nameData.getInt(offset);
+        if (length == NO_NAME) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        nameData.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int monthOffset(YearMonth month) {
+        return (int) firstMonth.until(month, ChronoUnit.MONTHS);
+    }
+
+    private static final class CaughtUp {
+
+        final String name;
+
+        // Points per month of the window without the deltas, NO_POINTS for months without transactions
+        final int[] monthlyPoints;
+
+        CaughtUp(String name, int[] monthlyPoints) {
+            this.name = name;
+            this.monthlyPoints = monthlyPoints;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.RewardWindow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary file format of a {@link RewardSnapshot}, read back through a memory mapping.
+ * <p>
+ * A fixed header (magic, format version, CRC32C checksum of everything after the checksum, window, build time,
+ * transaction watermark, section sizes and the {@link RewardRules#getFingerprint() fingerprint} of the rules) is followed by the stale customer IDs, the name offsets, the monthly
+ * points and the name data, all in big-endian order. The snapshot read from a file serves its buffers straight
+ * from the mapping, so loading it costs one checksum pass over the file regardless of the transaction history.
+ * Files are written to a temporary sibling and atomically moved into place, so readers never see a partial file.
+ */
+public final class RewardSnapshotFile {
+
+    /**
+     * "RWDS"
+     */
+    static final int MAGIC = 0x52574453;
+
+    /**
+     * Incremented on every incompatible layout change; files of other versions are ignored.
+     */
+    static final int VERSION = 2;
+
+    static final int CHECKSUM_OFFSET = 8;
+
+    private static final int CHECKED_FROM = CHECKSUM_OFFSET + Long.BYTES;
+
+    private static final int HEADER_SIZE = 80;
+
+    private RewardSnapshotFile() {
+    }
+
+    /**
+     * Writes a snapshot, replacing the file if it exists. Deltas applied after the build are not written;
+     * they are above the watermark and caught up from the database when the file is read. Transactions below it
+     * that commit after the swap belong to customers written at the time, which the stale IDs include.
+     * @param snapshot the snapshot
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(RewardSnapshot snapshot, Path path) throws IOException {
+        List<Integer> staleCustomerIds = new ArrayList<>(snapshot.getStaleCustomerIds());
+        IntBuffer nameOffsets = snapshot.nameOffsets();
+        IntBuffer monthlyPoints = snapshot.monthlyPoints();
+        ByteBuffer nameData = snapshot.nameData();
+        long size = HEADER_SIZE + (long) Integer.BYTES * (staleCustomerIds.size() + nameOffsets.remaining() + monthlyPoints.remaining())
+                + nameData.remaining();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Reward snapshot of " + size + " bytes is too large to be mapped");
+        }
+
+        Path absolutePath = path.toAbsolutePath();
+        Files.createDirectories(absolutePath.getParent());
+        Path temporary = absolutePath.resolveSibling(absolutePath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            RewardWindow window = snapshot.getWindow();
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(0)  // checksum, set once the rest is written
+                    .putLong(window.getFromDate().toEpochDay())
+                    .putLong(window.getToDate().toEpochDay())
+                    .putLong(snapshot.getBuiltAt().getEpochSecond())
+                    .putLong(snapshot.getWatermark())
+                    .putInt(snapshot.getBuiltAt().getNano())
+                    .putInt(snapshot.getFirstCustomerId())
+                    .putInt(nameOffsets.remaining())
+                    .putInt(window.getMonthCount())
+                    .putInt(staleCustomerIds.size())
+                    .putInt(nameData.remaining())
+                    .putLong(snapshot.getRules().getFingerprint());
+            for (Integer customerId : staleCustomerIds) {
+                buffer.putInt(customerId);
+            }
+            putInts(buffer, nameOffsets);
+            putInts(buffer, monthlyPoints);
+            buffer.put(nameData);
+            buffer.putLong(CHECKSUM_OFFSET, checksum(buffer));
+            buffer.force();
+        }
+        Files.move(temporary, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file and verifies its format version, checksum and rules.
+     * @param path the file to read
+     * @param rules the rules the snapshot must have been built with
+     * @return the snapshot, backed by the mapping
+     * @throws IOException if the file cannot be read, has another format version, is corrupt or was built with other rules
+     */
+    public static RewardSnapshot read(Path path, RewardRules rules) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not a reward snapshot file");
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a reward snapshot file");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException(path + " has format version " + version + ", expected " + VERSION);
+        }
+
+        RewardWindow window = new RewardWindow(LocalDate.ofEpochDay(buffer.getLong(16)), LocalDate.ofEpochDay(buffer.getLong(24)));
+        Instant builtAt = Instant.ofEpochSecond(buffer.getLong(32), buffer.getInt(48));
+        long watermark = buffer.getLong(40);
+        int firstCustomerId = buffer.getInt(52);
+        int customerCount = buffer.getInt(56);
+        int monthCount = buffer.getInt(60);
+        int staleCount = buffer.getInt(64);
+        int nameDataLength = buffer.getInt(68);
+        long expectedSize = HEADER_SIZE + (long) Integer.BYTES * (staleCount + customerCount + (long) customerCount * monthCount)
+                + nameDataLength;
+        if (customerCount < 0 || staleCount < 0 || nameDataLength < 0 || monthCount != window.getMonthCount()
+                || expectedSize != buffer.capacity()) {
+            throw new IOException(path + " is truncated or corrupt");
+        }
+        if (checksum(buffer) != buffer.getLong(CHECKSUM_OFFSET)) {
+            throw new IOException(path + " does not match its checksum");
+        }
+        if (buffer.getLong(72) != rules.getFingerprint()) {
+            throw new IOException(path + " was built with other reward rules than " + rules.getVersion());
+        }
+
+        int position = HEADER_SIZE;
+        List<Integer> staleCustomerIds = new ArrayList<>(staleCount);
+        for (int i = 0; i < staleCount; i++, position += Integer.BYTES) {
+            staleCustomerIds.add(buffer.getInt(position));
+        }
+        IntBuffer nameOffsets = buffer.slice(position, customerCount * Integer.BYTES).asIntBuffer();
+        position += customerCount * Integer.BYTES;
+        IntBuffer monthlyPoints = buffer.slice(position, customerCount * monthCount * Integer.BYTES).asIntBuffer();
+        position += customerCount * monthCount * Integer.BYTES;
+        ByteBuffer nameData = buffer.slice(position, nameDataLength);
+        return new RewardSnapshot(window, builtAt, watermark, rules, firstCustomerId, nameOffsets, monthlyPoints, nameData,
+                staleCustomerIds);
+    }
+
+    // Copies the ints at the buffer's position and advances it past them
+    private static void putInts(ByteBuffer buffer, IntBuffer values) {
+        int count = values.remaining();
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(CHECKED_FROM, buffer.capacity() - CHECKED_FROM));
+        return crc.getValue();
+    }
+}
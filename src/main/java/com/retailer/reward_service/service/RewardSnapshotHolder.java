@@ -0,0 +1,201 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.dto.TransactionRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Holds the current {@link RewardSnapshot} and keeps it exact between rebuilds.
+ * <p>
+ * Writers report their transactions here; the points are added to the snapshot as deltas once the database
+ * transaction commits. Customers written while a new snapshot is being built may or may not be included in it,
+ * so they are recorded and marked stale when the new snapshot is swapped in. So are the customers of writes still
+ * uncommitted at the swap: their transaction IDs may be below the snapshot's watermark, so a snapshot file would
+ * neither hold their points nor catch up on them after a restart.
+ * <p>
+ * Stale customers and customers created after a snapshot are later caught up into it from a database calculation
+ * ({@link #catchUp}), so the snapshot and its ranking answer for them without further database reads.
+ */
+@RequiredArgsConstructor
+@Component
+public class RewardSnapshotHolder {
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    private final AtomicReference<RewardSnapshot> current = new AtomicReference<>();
+
+    // Customers written since the running build started, null when no build is running; guarded by this
+    private Set<Integer> writtenDuringBuild;
+
+    // Number of uncommitted writes per customer, from before their transactions get IDs until they complete; guarded by this
+    private final Map<Integer, Integer> writesInFlight = new HashMap<>();
+
+    // Customers whose writes began since the running catch-up started, null when none is running; guarded by this
+    private Set<Integer> writtenDuringCatchUp;
+
+    /**
+     * Returns the current snapshot if it was built for the given window with the active reward rules.
+     * A snapshot of earlier rules is not served once new rules are activated; rewards are calculated
+     * from the database until a snapshot of the new rules is swapped in.
+     * @param window the requested reward window
+     * @return the snapshot, or {@code null} if there is none for the window and rules
+     */
+    public RewardSnapshot current(RewardWindow window) {
+        RewardSnapshot snapshot = current.get();
+        return snapshot != null && snapshot.getWindow().equals(window) && snapshot.getRules().equals(rewardRulesHolder.current())
+                ? snapshot : null;
+    }
+
+    /**
+     * Adds the points of a transaction to the snapshot once the surrounding database transaction commits.
+     * Must be called before the transaction's cache evictions are registered, so that a reader repopulating
+     * the cache after the eviction already sees the delta.
+     * @param customerId the customer of the transaction
+     * @param transactionDate the date of the transaction
+     * @param points the reward points earned by the transaction
+     */
+    public void applyTransaction(Integer customerId, LocalDate transactionDate, int points) {
+        afterCommit(() -> apply(customerId, transactionDate, points));
+    }
+
+    /**
+     * Adds the points of a batch of transactions to the snapshot once the surrounding database transaction commits.
+     * @param rules the rules the batch's ledger points were calculated with
+     * @param requests the saved transactions
+     */
+    public void applyTransactions(RewardRules rules, List<TransactionRequest> requests) {
+        afterCommit(() -> {
+            for (TransactionRequest request : requests) {
+                apply(request.getCustomerId(), request.getTransactionDate(),
+                        rules.calculatePoints(request.getAmount(), request.getTransactionDate()));
+            }
+        });
+    }
+
+    /**
+     * Records writes of the customers as in flight until the surrounding database transaction completes.
+     * Must be called before their transactions are saved, so that no transaction gets an ID while its write is unknown here.
+     * @param customerIds the customers about to be written
+     */
+    public void beginWrite(Collection<Integer> customerIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<Integer> written = List.copyOf(customerIds);
+        synchronized (this) {
+            written.forEach(customerId -> writesInFlight.merge(customerId, 1, Integer::sum));
+            if (writtenDuringCatchUp != null) {
+                writtenDuringCatchUp.addAll(written);
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                endWrite(written);
+            }
+        });
+    }
+
+    /**
+     * Starts recording the customers written until {@link #swap} installs the snapshot being built.
+     */
+    synchronized void beginBuild() {
+        writtenDuringBuild = new HashSet<>();
+    }
+
+    /**
+     * Installs a newly built snapshot; customers written during the build or with writes still in flight are
+     * served from the database.
+     * @param snapshot the new snapshot
+     */
+    synchronized void swap(RewardSnapshot snapshot) {
+        if (writtenDuringBuild != null) {
+            writtenDuringBuild.forEach(snapshot::markStale);
+        }
+        writesInFlight.keySet().forEach(snapshot::markStale);
+        writtenDuringBuild = null;
+        current.set(snapshot);
+    }
+
+    /**
+     * Lets a snapshot answer for the customers it could not, from their rewards calculated from the database.
+     * A customer with a write in flight when the calculation starts, or beginning one before it is applied, may
+     * or may not be included in it, so it is marked stale instead and left to the next catch-up. Every other
+     * customer has all its committed transactions either in the snapshot's deltas or in neither, so the
+     * calculation minus the deltas is its exact base.
+     * @param snapshot the snapshot to catch up
+     * @param calculation calculates the customers the snapshot cannot answer for
+     */
+    void catchUp(RewardSnapshot snapshot, Supplier<List<RewardResponse>> calculation) {
+        Set<Integer> inFlight;
+        synchronized (this) {
+            inFlight = new HashSet<>(writesInFlight.keySet());
+            writtenDuringCatchUp = new HashSet<>();
+        }
+        try {
+            List<RewardResponse> rewards = calculation.get();
+            // Deltas are applied with the lock held, so none changes while the calculation is subtracted
+            synchronized (this) {
+                for (RewardResponse reward : rewards) {
+                    if (inFlight.contains(reward.getCustomerId()) || writtenDuringCatchUp.contains(reward.getCustomerId())) {
+                        snapshot.markStale(reward.getCustomerId());
+                    } else {
+                        snapshot.catchUp(reward);
+                    }
+                }
+            }
+        } finally {
+            synchronized (this) {
+                writtenDuringCatchUp = null;
+            }
+        }
+    }
+
+    /**
+     * Stops recording after a failed build; the previous snapshot stays in place.
+     */
+    synchronized void abortBuild() {
+        writtenDuringBuild = null;
+    }
+
+    private synchronized void endWrite(List<Integer> customerIds) {
+        customerIds.forEach(customerId -> writesInFlight.computeIfPresent(customerId, (id, count) -> count == 1 ? null : count - 1));
+    }
+
+    private synchronized void apply(Integer customerId, LocalDate transactionDate, int points) {
+        if (writtenDuringBuild != null) {
+            writtenDuringBuild.add(customerId);
+        }
+        RewardSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            snapshot.applyTransaction(customerId, transactionDate, points);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,210 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.DataSourceRoute;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.CustomerIdRange;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.dto.TransactionAmountView;
+import com.retailer.reward_service.exceptions.InvalidTransactionAmountException;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Builds the {@link RewardSnapshot} of the default window: in the background once the application is ready,
+ * and again on the {@code reward.snapshot.cron} schedule (by default at midnight, when the default window moves).
+ * Until the first build completes, and whenever the default window has moved past the current snapshot,
+ * rewards are calculated from the database.
+ * <p>
+ * When {@code reward.snapshot.file} is set, every build is also written to that file. At startup a file of the
+ * current default window is mapped instead of building, and only the transactions recorded after its watermark
+ * are read from the database, so the time until the snapshot is served does not grow with the history.
+ * <p>
+ * After every build or load, and every {@code reward.snapshot.catch-up-interval}, the customers the snapshot
+ * cannot answer for are calculated once and caught up into it, so the leaderboard is served from its ranking alone.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@ConditionalOnProperty(prefix = "reward.snapshot", name = "enabled", matchIfMissing = true)
+public class RewardSnapshotService {
+
+    private final RewardServiceImpl rewardServiceImpl;
+
+    private final RewardSnapshotHolder rewardSnapshotHolder;
+
+    private final RewardWindowResolver rewardWindowResolver;
+
+    private final RewardMetrics rewardMetrics;
+
+    private final TaskScheduler taskScheduler;
+
+    private final CustomerRepository customerRepository;
+
+    private final TransactionRepository transactionRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final RewardProperties rewardProperties;
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void buildOnStartup() {
+        taskScheduler.schedule(() -> {
+            if (loadFromFile() == null) {
+                rebuild();
+            }
+        }, Instant.now());
+    }
+
+    /**
+     * Calculates the rewards of every customer for the current default window and swaps the result in.
+     * Builds are serialized; readers keep using the previous snapshot until the swap. Builds read from the
+     * primary, because transactions committed after the build began are only tracked against the primary.
+     * @return the new snapshot
+     */
+    @Scheduled(cron = "${reward.snapshot.cron:0 0 0 * * *}")
+    public synchronized RewardSnapshot rebuild() {
+        RewardWindow window = rewardWindowResolver.defaultWindow();
+        Instant builtAt = Instant.now();
+        RewardRules rules = rewardRulesHolder.current();
+        rewardSnapshotHolder.beginBuild();
+        RewardSnapshot snapshot;
+        try {
+            // Read after the build began: transactions above it are either captured as deltas or mark their customer stale.
+            // IDs are taken before commit, so those below it that are still uncommitted at the swap mark their customer stale too.
+            long watermark = transactionRepository.findMaxTransactionId();
+            List<RewardResponse> rewards = rewardMetrics.time(RewardMetrics.SNAPSHOT_BUILDS, RewardMetrics.MODE_ALL,
+                    () -> DataSourceRoute.onPrimary(() -> rewardServiceImpl.calculateAllCustomersRewardsFromDatabase(window)));
+            snapshot = new RewardSnapshot(window, builtAt, watermark, rules, rewards);
+            rewardSnapshotHolder.swap(snapshot);
+        } catch (RuntimeException ex) {
+            rewardSnapshotHolder.abortBuild();
+            throw ex;
+        }
+        warmUpRanking(snapshot);
+        writeFile(snapshot);
+        catchUp(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Maps the snapshot file and swaps it in after catching up on the transactions recorded since it was written.
+     * The file is ignored when it is missing, unreadable, of another window, of other reward rules or of another database.
+     * @return the loaded snapshot, or {@code null} if a build is needed
+     */
+    public synchronized RewardSnapshot loadFromFile() {
+        Path file = rewardProperties.getSnapshot().getFile();
+        if (file == null || !Files.exists(file)) {
+            return null;
+        }
+        return rewardMetrics.time(RewardMetrics.SNAPSHOT_LOADS, RewardMetrics.MODE_ALL, () -> {
+            RewardWindow window = rewardWindowResolver.defaultWindow();
+            rewardSnapshotHolder.beginBuild();
+            try {
+                RewardSnapshot snapshot = RewardSnapshotFile.read(file, rewardRulesHolder.current());
+                if (!snapshot.getWindow().equals(window) || !catchUpFromWatermark(snapshot)) {
+                    rewardSnapshotHolder.abortBuild();
+                    return null;
+                }
+                rewardSnapshotHolder.swap(snapshot);
+                warmUpRanking(snapshot);
+                catchUp(snapshot);
+                return snapshot;
+            } catch (IOException ex) {
+                log.warn("Ignoring reward snapshot file: {}", ex.getMessage());
+                rewardSnapshotHolder.abortBuild();
+                return null;
+            } catch (RuntimeException ex) {
+                rewardSnapshotHolder.abortBuild();
+                throw ex;
+            }
+        });
+    }
+
+    /**
+     * Catches the current snapshot up on the customers it cannot answer for: those written while it was built,
+     * and those created since.
+     */
+    @Scheduled(fixedDelayString = "${reward.snapshot.catch-up-interval:30s}")
+    public synchronized void catchUpCurrent() {
+        RewardSnapshot snapshot = rewardSnapshotHolder.current(rewardWindowResolver.defaultWindow());
+        if (snapshot != null) {
+            catchUp(snapshot);
+        }
+    }
+
+    // A failed catch-up leaves the customers to the database calculation until the next one
+    private void catchUp(RewardSnapshot snapshot) {
+        try {
+            rewardSnapshotHolder.catchUp(snapshot, () -> DataSourceRoute.onPrimary(
+                    () -> rewardServiceImpl.calculateRewardsNotInSnapshot(snapshot, snapshot.getWindow())));
+        } catch (RuntimeException ex) {
+            log.warn("Could not catch up the reward snapshot: {}", ex.getMessage());
+        }
+    }
+
+    // Adds the transactions above the watermark as deltas; false if the file does not belong to this database
+    private boolean catchUpFromWatermark(RewardSnapshot snapshot) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return Boolean.TRUE.equals(readOnlyTransaction.execute(status -> {
+            CustomerIdRange idRange = customerRepository.findCustomerIdRange();
+            int maxCustomerId = idRange == null || idRange.getMaxCustomerId() == null ? 0 : idRange.getMaxCustomerId();
+            if (snapshot.getWatermark() > transactionRepository.findMaxTransactionId() || snapshot.getLastCustomerId() > maxCustomerId) {
+                log.warn("Ignoring reward snapshot file of another database");
+                return false;
+            }
+            RewardWindow window = snapshot.getWindow();
+            try (Stream<TransactionAmountView> transactions = transactionRepository.streamTransactionsAfter(
+                    snapshot.getWatermark(), window.getFromDate(), window.getToDate())) {
+                transactions.forEach(transaction -> {
+                    try {
+                        snapshot.applyTransaction(transaction.getCustomerId(), transaction.getTransactionDate(),
+                                snapshot.getRules().calculatePoints(transaction.getAmount(), transaction.getTransactionDate()));
+                    } catch (InvalidTransactionAmountException ex) {
+                        // Left to the database calculation, which reports the invalid amount
+                        snapshot.markStale(transaction.getCustomerId());
+                    }
+                });
+            }
+            return true;
+        }));
+    }
+
+    // Builds the leaderboard ranking here rather than in the first leaderboard request
+    private void warmUpRanking(RewardSnapshot snapshot) {
+        snapshot.queryRanking(RankingIndex::size);
+    }
+
+    // A failed write keeps the previous file, which the next startup still catches up from
+    private void writeFile(RewardSnapshot snapshot) {
+        Path file = rewardProperties.getSnapshot().getFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            RewardSnapshotFile.write(snapshot, file);
+        } catch (IOException ex) {
+            log.warn("Could not write reward snapshot file {}: {}", file, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.exceptions.InvalidRewardWindowException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Turns the optional window parameters of a request into a {@link RewardWindow}.
+ */
+@RequiredArgsConstructor
+@Component(RewardWindowResolver.BEAN_NAME)
+public class RewardWindowResolver {
+
+    /**
+     * Fixed bean name, referenced from cache conditions.
+     */
+    public static final String BEAN_NAME = "rewardWindowResolver";
+
+    private final RewardProperties rewardProperties;
+
+    /**
+     * The window used when a request does not specify one: the configured number of months up to today.
+     */
+    public RewardWindow defaultWindow() {
+        return RewardWindow.lastMonths(LocalDate.now(), rewardProperties.getWindow().getDefaultMonths());
+    }
+
+    /**
+     * Resolves a window from request parameters.
+     * <p>
+     * {@code toDate} defaults to today. The start is {@code fromDate} when given, otherwise
+     * {@code months} (or the configured default) before {@code toDate}.
+     * @param fromDate (optional) the first day of the window
+     * @param toDate (optional) the last day of the window
+     * @param months (optional) the length of the window in months, ignored when {@code fromDate} is given
+     * @return the resolved window
+     * @throws InvalidRewardWindowException if the window is empty or longer than allowed
+     */
+    public RewardWindow resolve(LocalDate fromDate, LocalDate toDate, Integer months) {
+        if (fromDate == null && toDate == null && months == null) {
+            return defaultWindow();
+        }
+        RewardProperties.Window settings = rewardProperties.getWindow();
+        if (months != null && (months < 1 || months > settings.getMaxMonths())) {
+            throw new InvalidRewardWindowException("months must be between 1 and " + settings.getMaxMonths());
+        }
+        LocalDate end = toDate == null ? LocalDate.now() : toDate;
+        LocalDate start = fromDate != null ? fromDate : end.minusMonths(months == null ? settings.getDefaultMonths() : months);
+        if (start.isAfter(end)) {
+            throw new InvalidRewardWindowException("from must not be after to");
+        }
+        if (start.isBefore(end.minusMonths(settings.getMaxMonths()))) {
+            throw new InvalidRewardWindowException("Reward window must not be longer than " + settings.getMaxMonths() + " months");
+        }
+        return new RewardWindow(start, end);
+    }
+}
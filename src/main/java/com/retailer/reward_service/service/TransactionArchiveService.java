@@ -0,0 +1,206 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.MonthlyPointsView;
+import com.retailer.reward_service.entity.ArchivedTransaction;
+import com.retailer.reward_service.entity.MonthlyReward;
+import com.retailer.reward_service.repository.ArchivedTransactionRepository;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.TransactionPointsRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keeps the transaction table small by moving transactions dated before the archive horizon
+ * ({@code reward.archive.retain-months} before the current month) to the {@link ArchivedTransaction} table,
+ * and reads them back for the date ranges reaching before it.
+ * <p>
+ * Whole months are archived, and their per-customer, per-month summary stays behind in the monthly reward ledger
+ * ({@link MonthlyReward}), so only the partially covered first month of a window older than the horizon is read
+ * from the archive. Reads of ranges after the newest archived date query the transaction table alone; its size,
+ * and with it the cost of the default window, depends on the horizon rather than on the years of history kept.
+ * In a sharded deployment every node archives the customers of its own {@link RewardPartition}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class TransactionArchiveService {
+
+    private final CustomerRepository customerRepository;
+
+    private final TransactionRepository transactionRepository;
+
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RewardProperties rewardProperties;
+
+    private final RewardPartition rewardPartition;
+
+    private final RewardMetrics rewardMetrics;
+
+    // The newest date the archive may hold. Unknown until the application is ready, so every read includes the
+    // archive until then; raised before transactions are moved, so no read misses them while they are.
+    private volatile LocalDate archivedThrough = LocalDate.MAX;
+
+    /**
+     * Fails startup when archiving is enabled with a horizon inside the default window, which would send every
+     * default lookup to the archive.
+     * @throws IllegalStateException if {@code reward.archive.retain-months} is below {@code reward.window.default-months}
+     */
+    @PostConstruct
+    void requireDefaultWindowRetained() {
+        RewardProperties.Archive settings = rewardProperties.getArchive();
+        int defaultMonths = rewardProperties.getWindow().getDefaultMonths();
+        if (settings.isEnabled() && settings.getRetainMonths() < defaultMonths) {
+            throw new IllegalStateException("reward.archive.retain-months " + settings.getRetainMonths()
+                    + " must be at least reward.window.default-months " + defaultMonths);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    synchronized void readArchivedThrough() {
+        LocalDate newest = archivedTransactionRepository.findMaxTransactionDate();
+        archivedThrough = newest == null ? LocalDate.MIN : newest;
+    }
+
+    /**
+     * Returns whether reads of transactions dated on or after the given day must include the archive.
+     * @param fromDate the first transaction date read
+     */
+    public boolean isArchived(LocalDate fromDate) {
+        return !fromDate.isAfter(archivedThrough);
+    }
+
+    /**
+     * Runs a monthly points aggregation over the transaction table and, when the range starts on or before the
+     * newest archived date, over the archive too.
+     * @param fromDate the first transaction date the query reads
+     * @param query the aggregation, run against the repository of each table
+     * @return the rows of both tables ordered by customer ID and month, a month held in both tables summed
+     */
+    public List<MonthlyPointsView> findMonthlyPoints(LocalDate fromDate, Function<TransactionPointsRepository, List<MonthlyPointsView>> query) {
+        List<MonthlyPointsView> rows = query.apply(transactionRepository);
+        return isArchived(fromDate) ? merge(rows, query.apply(archivedTransactionRepository)) : rows;
+    }
+
+    /**
+     * Moves the transactions dated before the horizon to the archive. Customers are processed in keyset-paged
+     * batches, each copied and deleted in its own database transaction.
+     * @return the number of archived transactions
+     */
+    @Scheduled(cron = "${reward.archive.cron:0 30 0 * * *}")
+    public long archive() {
+        RewardProperties.Archive settings = rewardProperties.getArchive();
+        if (!settings.isEnabled()) {
+            return 0;
+        }
+        return rewardMetrics.time(RewardMetrics.ARCHIVE_RUNS, RewardMetrics.MODE_ALL, () -> archiveBefore(settings.horizon(LocalDate.now())));
+    }
+
+    /**
+     * Moves the transactions dated before the given day to the archive.
+     * @param horizon the first transaction date (exclusive) that is not archived
+     * @return the number of archived transactions
+     */
+    synchronized long archiveBefore(LocalDate horizon) {
+        if (archivedThrough.isBefore(horizon.minusDays(1))) {
+            archivedThrough = horizon.minusDays(1);
+        }
+        int batchSize = rewardProperties.getArchive().getBatchSize();
+        long archived = 0;
+        Integer cursor = Integer.MIN_VALUE;
+        List<Integer> customerIds;
+        do {
+            customerIds = customerRepository.findCustomerIdsAfter(cursor, Limit.of(batchSize));
+            if (customerIds.isEmpty()) {
+                break;
+            }
+            List<Integer> owned = customerIds.stream().filter(rewardPartition::owns).toList();
+            if (!owned.isEmpty()) {
+                int moved = transactionTemplate.execute(status -> move(owned, horizon));
+                rewardMetrics.recordTransactionsArchived(moved);
+                archived += moved;
+            }
+            cursor = customerIds.get(customerIds.size() - 1);
+        } while (customerIds.size() == batchSize);
+        log.info("Archived {} transactions dated before {}", archived, horizon);
+        return archived;
+    }
+
+    private int move(List<Integer> customerIds, LocalDate horizon) {
+        int copied = archivedTransactionRepository.copyTransactionsBefore(customerIds, horizon);
+        int deleted = transactionRepository.deleteTransactionsBefore(customerIds, horizon);
+        if (copied != deleted) {
+            throw new IllegalStateException("Copied " + copied + " transactions to the archive but deleted " + deleted);
+        }
+        return deleted;
+    }
+
+    // Merges two row lists ordered by customer ID and month in a single pass
+    private static List<MonthlyPointsView> merge(List<MonthlyPointsView> rows, List<MonthlyPointsView> archivedRows) {
+        if (archivedRows.isEmpty()) {
+            return rows;
+        }
+        List<MonthlyPointsView> merged = new ArrayList<>(rows.size() + archivedRows.size());
+        int i = 0;
+        int j = 0;
+        while (i < rows.size() || j < archivedRows.size()) {
+            int order = i == rows.size() ? 1 : j == archivedRows.size() ? -1 : compare(rows.get(i), archivedRows.get(j));
+            if (order < 0) {
+                merged.add(rows.get(i++));
+            } else if (order > 0) {
+                merged.add(archivedRows.get(j++));
+            } else {
+                // Transactions recorded for the month after it was archived, until the next run moves them
+                merged.add(new SummedRow(rows.get(i++), archivedRows.get(j++)));
+            }
+        }
+        return merged;
+    }
+
+    private static int compare(MonthlyPointsView row, MonthlyPointsView other) {
+        int order = Integer.compare(row.getCustomerId(), other.getCustomerId());
+        return order != 0 ? order : Integer.compare(row.getPeriod(), other.getPeriod());
+    }
+
+    @Value
+    private static class SummedRow implements MonthlyPointsView {
+
+        Integer customerId;
+
+        String customerName;
+
+        Integer period;
+
+        Long points;
+
+        Long invalidCount;
+
+        Long transactionCount;
+
+        SummedRow(MonthlyPointsView row, MonthlyPointsView other) {
+            customerId = row.getCustomerId();
+            customerName = row.getCustomerName();
+            period = row.getPeriod();
+            points = row.getPoints() + other.getPoints();
+            invalidCount = row.getInvalidCount() + other.getInvalidCount();
+            transactionCount = row.getTransactionCount() + other.getTransactionCount();
+        }
+    }
+}
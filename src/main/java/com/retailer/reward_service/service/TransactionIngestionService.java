@@ -0,0 +1,197 @@
+package com.retailer.reward_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.IngestionSummary;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.entity.MonthlyReward;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Service to ingest large transaction batches streamed as NDJSON or CSV.
+ * <p>
+ * Input is read line by line and committed in batches of {@code reward.ingest.batch-size} lines,
+ * each in its own database transaction. Inserts are grouped into JDBC batches by Hibernate and the
+ * points of a batch are aggregated per customer and month before the ledger is updated.
+ * On a sharded node, lines of customers owned by another node are rejected, since only the owner keeps
+ * their snapshot and caches current.
+ */
+@RequiredArgsConstructor
+@Service
+public class TransactionIngestionService {
+
+    /**
+     * Supported input formats.
+     */
+    public enum Format {
+        /** One {@link TransactionRequest} JSON object per line. */
+        NDJSON,
+        /** {@code customerId,amount,transactionDate} per line, with an optional header line. */
+        CSV
+    }
+
+    private final CustomerRepository customerRepository;
+
+    private final TransactionRepository transactionRepository;
+
+    private final RewardLedgerService rewardLedgerService;
+
+    private final RewardSnapshotHolder rewardSnapshotHolder;
+
+    private final ColumnarTransactionStore columnarTransactionStore;
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    private final RewardPartition rewardPartition;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RewardProperties rewardProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Reads transactions from the reader until end of input and stores the valid ones.
+     * @param reader the request body
+     * @param format the format of the input
+     * @return accepted/rejected counts per batch
+     * @throws IOException if the input cannot be read
+     */
+    public IngestionSummary ingest(Reader reader, Format format) throws IOException {
+        int batchSize = rewardProperties.getIngest().getBatchSize();
+        IngestionSummary summary = new IngestionSummary();
+        BufferedReader lines = new BufferedReader(reader);
+        List<String> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        long firstLine = 1;
+        String line;
+
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (format == Format.CSV && lineNumber == 1 && line.startsWith("customerId")) {
+                firstLine = 2;
+                continue;
+            }
+            batch.add(line);
+            if (batch.size() == batchSize) {
+                summary.addBatch(processBatch(summary.getBatches().size() + 1, firstLine, batch, format));
+                batch.clear();
+                firstLine = lineNumber + 1;
+            }
+        }
+        if (!batch.isEmpty()) {
+            summary.addBatch(processBatch(summary.getBatches().size() + 1, firstLine, batch, format));
+        }
+        return summary;
+    }
+
+    private IngestionSummary.BatchSummary processBatch(int batchNumber, long firstLine, List<String> lines, Format format) {
+        IngestionSummary.BatchSummary result = new IngestionSummary.BatchSummary();
+        result.setBatch(batchNumber);
+        result.setFirstLine(firstLine);
+        result.setLastLine(firstLine + lines.size() - 1);
+
+        List<TransactionRequest> requests = new ArrayList<>(lines.size());
+        List<Long> lineNumbers = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            long lineNumber = firstLine + i;
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+            try {
+                TransactionRequest request = parse(lines.get(i), format);
+                if (request.getCustomerId() == null || request.getTransactionDate() == null) {
+                    throw new IllegalArgumentException("customerId and transactionDate are required");
+                }
+                if (!rewardPartition.owns(request.getCustomerId())) {
+                    throw new IllegalArgumentException("Customer " + request.getCustomerId() + " is owned by node "
+                            + rewardPartition.ownerOf(request.getCustomerId()).getId());
+                }
+                rewardRulesHolder.current().calculatePoints(request.getAmount(), request.getTransactionDate());
+                requests.add(request);
+                lineNumbers.add(lineNumber);
+            } catch (RuntimeException | IOException ex) {
+                reject(result, lineNumber, ex.getMessage());
+            }
+        }
+
+        Set<Integer> customerIds = new HashSet<>();
+        requests.forEach(request -> customerIds.add(request.getCustomerId()));
+        Set<Integer> existingCustomerIds = customerIds.isEmpty() ? Set.of() : customerRepository.findExistingCustomerIds(customerIds);
+        List<TransactionRequest> accepted = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (existingCustomerIds.contains(requests.get(i).getCustomerId())) {
+                accepted.add(requests.get(i));
+            } else {
+                reject(result, lineNumbers.get(i), "Customer not found with id: " + requests.get(i).getCustomerId());
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> save(accepted));
+            result.setAccepted(accepted.size());
+        } catch (DataAccessException ex) {
+            result.setRejected(result.getRejected() + accepted.size());
+            result.getErrors().add(new IngestionSummary.RejectedLine(0, "Batch failed: " + ex.getMostSpecificCause().getMessage()));
+        }
+        return result;
+    }
+
+    // Inserts the transactions and applies their points to the ledger once per customer and month
+    private void save(List<TransactionRequest> requests) {
+        RewardRules rules = rewardRulesHolder.current();
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        Map<Integer, Map<Integer, Long>> pointsByCustomerAndPeriod = new HashMap<>();
+        for (TransactionRequest request : requests) {
+            transactions.add(new Transaction(customerRepository.getReferenceById(request.getCustomerId()),
+                    request.getAmount(), request.getTransactionDate()));
+            pointsByCustomerAndPeriod.computeIfAbsent(request.getCustomerId(), id -> new HashMap<>())
+                    .merge(MonthlyReward.periodOf(request.getTransactionDate()),
+                            (long) rules.calculatePoints(request.getAmount(), request.getTransactionDate()), Long::sum);
+        }
+        // Locked in ID order before the inserts, so concurrent batches and single writes cannot deadlock on the ledger
+        customerRepository.lockCustomers(pointsByCustomerAndPeriod.keySet());
+        rewardSnapshotHolder.beginWrite(pointsByCustomerAndPeriod.keySet());
+        transactionRepository.saveAllAndFlush(transactions);
+        // Detach the inserted rows so the flush before each ledger update does not dirty-check the whole batch
+        entityManager.clear();
+        rewardSnapshotHolder.applyTransactions(rules, requests);
+        columnarTransactionStore.applyTransactions(requests);
+        pointsByCustomerAndPeriod.forEach((customerId, pointsByPeriod) ->
+                pointsByPeriod.forEach((period, points) -> rewardLedgerService.applyPoints(customerId, period, points)));
+    }
+
+    private TransactionRequest parse(String line, Format format) throws IOException {
+        if (format == Format.NDJSON) {
+            return objectMapper.readValue(line, TransactionRequest.class);
+        }
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Expected 3 fields: customerId,amount,transactionDate");
+        }
+        return new TransactionRequest(Integer.valueOf(fields[0].trim()), Double.valueOf(fields[1].trim()),
+                LocalDate.parse(fields[2].trim()));
+    }
+
+    private void reject(IngestionSummary.BatchSummary result, long lineNumber, String reason) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < rewardProperties.getIngest().getMaxErrorsPerBatch()) {
+            result.getErrors().add(new IngestionSummary.RejectedLine(lineNumber, reason));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.retailer.reward_service.service;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.dto.TransactionResponse;
+
+public interface TransactionService {
+
+    /**
+     * Records a transaction for an existing customer and updates the reward ledger.
+     */
+    TransactionResponse saveTransaction(TransactionRequest request);
+}
@@ -0,0 +1,60 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.dto.TransactionResponse;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Service to record customer transactions.
+ */
+@RequiredArgsConstructor
+@Service
+public class TransactionServiceImpl implements TransactionService {
+
+    private final CustomerRepository customerRepository;
+
+    private final TransactionRepository transactionRepository;
+
+    private final RewardLedgerService rewardLedgerService;
+
+    private final RewardSnapshotHolder rewardSnapshotHolder;
+
+    private final ColumnarTransactionStore columnarTransactionStore;
+
+    private final RewardRulesHolder rewardRulesHolder;
+
+    private final CustomerIdFilter customerIdFilter;
+
+    /**
+     * Records a transaction and adds its points to the monthly reward ledger in the same database transaction.
+     * @param request the transaction to record
+     * @return the saved transaction with the points it earned
+     */
+    @Override
+    @Transactional
+    public TransactionResponse saveTransaction(TransactionRequest request) {
+        int points = rewardRulesHolder.current().calculatePoints(request.getAmount(), request.getTransactionDate());
+        customerIdFilter.requireMightExist(request.getCustomerId());
+        // Locked before the insert, so concurrent writes for the customer apply their points to the ledger one at a time
+        Customer customer = customerRepository.lockCustomers(List.of(request.getCustomerId())).stream().findFirst()
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with id: " + request.getCustomerId()));
+        rewardSnapshotHolder.beginWrite(List.of(customer.getCustomerId()));
+
+        Transaction transaction = transactionRepository.save(
+                new Transaction(customer, request.getAmount(), request.getTransactionDate()));
+        columnarTransactionStore.applyTransaction(customer.getCustomerId(), transaction.getTransactionDate(), transaction.getAmount());
+        rewardLedgerService.applyTransaction(customer.getCustomerId(), transaction.getTransactionDate(), points);
+
+        return new TransactionResponse(transaction.getId(), customer.getCustomerId(),
+                transaction.getAmount(), transaction.getTransactionDate(), points);
+    }
+}
@@ -0,0 +1,66 @@
+package com.retailer.reward_service.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CacheConfig}.
+ */
+class CacheConfigTest {
+
+    /**
+     * Tests that entries expire at the next midnight and reads do not extend their lifetime.
+     */
+    @Test
+    void testUntilMidnightExpiry() {
+        Clock clock = Clock.fixed(Instant.parse("2025-06-01T22:30:00Z"), ZoneOffset.UTC);
+        CacheConfig.UntilMidnightExpiry expiry = new CacheConfig.UntilMidnightExpiry(clock);
+
+        assertEquals(Duration.ofMinutes(90).toNanos(), expiry.expireAfterCreate("key", "value", 0));
+        assertEquals(Duration.ofMinutes(90).toNanos(), expiry.expireAfterUpdate("key", "value", 0, 5));
+        assertEquals(5, expiry.expireAfterRead("key", "value", 0, 5));
+    }
+
+    /**
+     * Tests that customer entries are bounded, stored per day and evicted outside of a transaction immediately.
+     */
+    @Test
+    void testCacheManager_EvictsCustomerEntry() {
+        CacheManager cacheManager = new CacheConfig().cacheManager(new RewardProperties());
+        Cache cache = cacheManager.getCache(CacheConfig.CUSTOMER_REWARDS);
+
+        cache.put(CacheConfig.customerKey(1), "rewards");
+        assertNotNull(cache.get(CacheConfig.customerKey(1)));
+        assertNull(cache.get(CacheConfig.customerKey(2)));
+
+        cache.evict(CacheConfig.customerKey(1));
+        assertNull(cache.get(CacheConfig.customerKey(1)));
+    }
+
+    /**
+     * Tests that the all-customer report cache is bounded by its own size, not by the per-customer one.
+     */
+    @Test
+    void testCacheManager_BoundsAllCustomersReportSeparately() {
+        RewardProperties rewardProperties = new RewardProperties();
+        rewardProperties.getCache().setAllCustomersMaximumSize(1);
+        CacheManager cacheManager = new CacheConfig().cacheManager(rewardProperties);
+        Cache reports = cacheManager.getCache(CacheConfig.ALL_CUSTOMERS_REWARDS);
+
+        assertEquals(1, maximumSize(reports));
+        assertEquals(100_000, maximumSize(cacheManager.getCache(CacheConfig.CUSTOMER_REWARDS)));
+        assertThrows(IllegalArgumentException.class, () -> reports.put(CacheConfig.allCustomersKey(), null));
+    }
+
+    private static long maximumSize(Cache cache) {
+        return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache()).policy().eviction().orElseThrow().getMaximum();
+    }
+}
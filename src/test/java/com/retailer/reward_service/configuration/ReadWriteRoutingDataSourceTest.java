@@ -0,0 +1,80 @@
+package com.retailer.reward_service.configuration;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ReadWriteRoutingDataSource} with in-memory H2 databases standing in for the primary and the replicas.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static DataSource h2(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        return dataSource;
+    }
+
+    private static ReadWriteRoutingDataSource routing(String... replicaUrls) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            replicas.put("replica-" + (i + 1), h2(replicaUrls[i]));
+        }
+        return new ReadWriteRoutingDataSource(h2("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1"), replicas, Duration.ofSeconds(1));
+    }
+
+    // Name of the database the next connection of the current thread comes from
+    private static String database(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            String url = connection.getMetaData().getURL();
+            return url.substring("jdbc:h2:mem:routing-".length(), url.indexOf(';') < 0 ? url.length() : url.indexOf(';'));
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Tests that only marked reads go to the replicas, round-robin, and that requiring the primary overrides the marking.
+     */
+    @Test
+    void testRouting() {
+        ReadWriteRoutingDataSource dataSource = routing("jdbc:h2:mem:routing-replica-a;DB_CLOSE_DELAY=-1", "jdbc:h2:mem:routing-replica-b;DB_CLOSE_DELAY=-1");
+
+        assertEquals("primary", database(dataSource));
+        assertEquals("replica-a", DataSourceRoute.replicaRead(() -> database(dataSource)));
+        assertEquals("replica-b", DataSourceRoute.replicaRead(() -> database(dataSource)));
+        assertEquals("primary", DataSourceRoute.onPrimary(() -> DataSourceRoute.replicaRead(() -> database(dataSource))));
+        assertEquals("replica-a", DataSourceRoute.replicaRead(() -> database(dataSource)));
+        assertFalse(DataSourceRoute.isPrimaryRequired());
+        assertFalse(DataSourceRoute.isReplicaRead());
+    }
+
+    /**
+     * Tests that a replica that cannot connect is skipped at once and used again after a successful check.
+     */
+    @Test
+    void testFailover() throws SQLException {
+        // IFEXISTS refuses to connect until the database has been created
+        ReadWriteRoutingDataSource dataSource = routing("jdbc:h2:mem:routing-replica-late;IFEXISTS=TRUE");
+
+        assertEquals("primary", DataSourceRoute.replicaRead(() -> database(dataSource)));
+        assertEquals(Map.of("replica-1", false), dataSource.getReplicaAvailability());
+
+        dataSource.checkReplicas();
+        assertEquals(Map.of("replica-1", false), dataSource.getReplicaAvailability());
+
+        try (Connection created = h2("jdbc:h2:mem:routing-replica-late;DB_CLOSE_DELAY=-1").getConnection()) {
+            dataSource.checkReplicas();
+            assertEquals(Map.of("replica-1", true), dataSource.getReplicaAvailability());
+            assertEquals("replica-late", DataSourceRoute.replicaRead(() -> database(dataSource)));
+        }
+    }
+}
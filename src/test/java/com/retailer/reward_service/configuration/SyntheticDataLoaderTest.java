@@ -0,0 +1,55 @@
+package com.retailer.reward_service.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the transaction distribution of {@link SyntheticDataLoader}.
+ */
+class SyntheticDataLoaderTest {
+
+    /**
+     * Tests that a Zipf exponent of 1 gives a few whales, a long tail, and about the requested total.
+     */
+    @Test
+    void testTransactionsPerCustomer_IsSkewed() {
+        int[] counts = SyntheticDataLoader.transactionsPerCustomer(10_000, 1_000_000, 1.0, new SplittableRandom(42));
+
+        long total = Arrays.stream(counts).asLongStream().sum();
+        assertEquals(1_000_000, total, 1_000);
+        int[] sorted = counts.clone();
+        Arrays.sort(sorted);
+        // The top customer holds 1 / H(10000) of all transactions, about 10%
+        assertEquals(1_000_000 / 9.79, sorted[sorted.length - 1], 1_000);
+        long topHundred = Arrays.stream(sorted, sorted.length - 100, sorted.length).asLongStream().sum();
+        assertTrue(topHundred > total / 2, "top 1% of customers should hold over half of the transactions");
+        assertTrue(sorted[sorted.length / 2] < 25, "median customer should have far fewer than the mean of 100");
+    }
+
+    /**
+     * Tests that the whales are not all at the first customer IDs.
+     */
+    @Test
+    void testTransactionsPerCustomer_ShufflesRanks() {
+        int[] counts = SyntheticDataLoader.transactionsPerCustomer(10_000, 1_000_000, 1.0, new SplittableRandom(42));
+
+        assertTrue(counts[0] < 50_000);
+        assertTrue(Arrays.stream(counts, 5_000, 10_000).max().orElse(0) > 1_000);
+    }
+
+    /**
+     * Tests that the same seed gives the same data and an exponent of 0 spreads transactions evenly.
+     */
+    @Test
+    void testTransactionsPerCustomer_IsRepeatable() {
+        assertArrayEquals(SyntheticDataLoader.transactionsPerCustomer(1_000, 50_000, 1.2, new SplittableRandom(7)),
+                SyntheticDataLoader.transactionsPerCustomer(1_000, 50_000, 1.2, new SplittableRandom(7)));
+
+        int[] even = SyntheticDataLoader.transactionsPerCustomer(1_000, 50_000, 0, new SplittableRandom(7));
+        assertTrue(Arrays.stream(even).allMatch(count -> count == 50));
+    }
+}
@@ -1,35 +1,103 @@
 package com.retailer.reward_service.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.DataSourceRoute;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.BatchRewardResponse;
 import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
 import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import com.retailer.reward_service.exceptions.ServiceBusyException;
+import com.retailer.reward_service.service.CustomerIdFilter;
+import com.retailer.reward_service.service.RewardMetrics;
+import com.retailer.reward_service.service.RewardPartition;
 import com.retailer.reward_service.service.RewardServiceImpl;
+import com.retailer.reward_service.service.RewardWindowResolver;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(RewardController.class)
+@EnableConfigurationProperties(RewardProperties.class)
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
+@Import({RewardWindowResolver.class, RewardMetrics.class, RewardResponseBodyCache.class, RewardPartition.class, RewardPartitionClient.class})
+@TestPropertySource(properties = {"reward.paging.stream-batch-size=2", "reward.cache.gzip-min-response-size=200"})
 class RewardControllerIntegrationTest {
 
+    /**
+     * A plain cache manager for the body cache; without {@code @EnableCaching} the mocked service is not proxied.
+     */
+    @TestConfiguration
+    static class BodyCacheConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(CacheConfig.CUSTOMER_REWARD_BODIES);
+        }
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
     private RewardServiceImpl rewardServiceImpl;
 
+    @MockBean
+    private CustomerIdFilter customerIdFilter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearBodyCache() {
+        cacheManager.getCache(CacheConfig.CUSTOMER_REWARD_BODIES).clear();
+    }
+
     /**
      * Tests retrieving reward responses for all customers.
      * Expects HTTP 200 OK with a JSON array of reward responses.
@@ -38,17 +106,18 @@ class RewardControllerIntegrationTest {
     @Test
     void getCustomersRewards_AllCustomers() throws Exception {
         List<RewardResponse> mockList = List.of(
-                new RewardResponse(1, "Alice", Map.of("June", 120), 120),
-                new RewardResponse(2, "Bob", Map.of("June", 90), 90)
+                new RewardResponse(1, "Alice", Map.of(YearMonth.of(2025, 6), 120), 120),
+                new RewardResponse(2, "Bob", Map.of(YearMonth.of(2025, 6), 90), 90)
         );
-        Mockito.when(rewardServiceImpl.calculateAllCustomersRewards()).thenReturn(mockList);
+        Mockito.when(rewardServiceImpl.calculateAllCustomersRewards(any())).thenReturn(mockList);
 
         mockMvc.perform(get("/api/rewards/customers"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].customerId").value(1))
-                .andExpect(jsonPath("$[1].customerName").value("Bob"));
+                .andExpect(jsonPath("$[1].customerName").value("Bob"))
+                .andExpect(jsonPath("$[0].monthlyPoints['2025-06']").value(120));
     }
 
     /**
@@ -57,8 +126,8 @@ class RewardControllerIntegrationTest {
      */
     @Test
     void getCustomersRewards_SingleCustomer() throws Exception {
-        RewardResponse mockResponse = new RewardResponse(1, "Alice", Map.of("June", 120), 120);
-        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(anyInt())).thenReturn(mockResponse);
+        RewardResponse mockResponse = new RewardResponse(1, "Alice", Map.of(YearMonth.of(2025, 6), 120), 120);
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(anyInt(), any())).thenReturn(mockResponse);
 
         mockMvc.perform(get("/api/rewards/customers?id=1"))
                 .andExpect(status().isOk())
@@ -75,7 +144,7 @@ class RewardControllerIntegrationTest {
      */
     @Test
     void getCustomersRewards_EmptyCustomerList() throws Exception {
-        Mockito.when(rewardServiceImpl.calculateAllCustomersRewards()).thenReturn(Collections.emptyList());
+        Mockito.when(rewardServiceImpl.calculateAllCustomersRewards(any())).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/rewards/customers"))
                 .andExpect(status().isOk())
@@ -91,7 +160,7 @@ class RewardControllerIntegrationTest {
     @Test
     void getCustomersRewards_SingleCustomerNoTransactions() throws Exception {
         RewardResponse mockResponse = new RewardResponse(1, "Alice", Collections.emptyMap(), 0);
-        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(anyInt())).thenReturn(mockResponse);
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(anyInt(), any())).thenReturn(mockResponse);
 
         mockMvc.perform(get("/api/rewards/customers?id=1"))
                 .andExpect(status().isOk())
@@ -100,4 +169,257 @@ class RewardControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].customerId").value(1))
                 .andExpect(jsonPath("$[0].totalPoints").value(0));
     }
+
+    /**
+     * Tests retrieving a page of reward responses with a cursor.
+     * Expects the next cursor header when the page is full.
+     */
+    @Test
+    void getCustomersRewards_Page() throws Exception {
+        List<RewardResponse> mockPage = List.of(
+                new RewardResponse(3, "Jon", Map.of(YearMonth.of(2025, 6), 90), 90),
+                new RewardResponse(4, "Jack", Map.of(YearMonth.of(2025, 6), 25), 25)
+        );
+        Mockito.when(rewardServiceImpl.calculateCustomersRewardsPage(eq(2), eq(2), any())).thenReturn(mockPage);
+
+        mockMvc.perform(get("/api/rewards/customers?after=2&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RewardController.NEXT_CURSOR_HEADER, "4"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].customerId").value(3));
+    }
+
+    /**
+     * Tests that the last page carries no next cursor header.
+     */
+    @Test
+    void getCustomersRewards_LastPage() throws Exception {
+        Mockito.when(rewardServiceImpl.calculateCustomersRewardsPage(eq(4), eq(2), any()))
+                .thenReturn(List.of(new RewardResponse(5, "Eve", Collections.emptyMap(), 0)));
+
+        mockMvc.perform(get("/api/rewards/customers?after=4&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(RewardController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    /**
+     * Tests streaming all reward responses as NDJSON across several batches.
+     */
+    @Test
+    void streamCustomersRewards_Ndjson() throws Exception {
+        Mockito.when(rewardServiceImpl.calculateCustomersRewardsPage(isNull(), eq(2), any())).thenReturn(List.of(
+                new RewardResponse(1, "Alice", Map.of(YearMonth.of(2025, 6), 120), 120),
+                new RewardResponse(2, "Bob", Map.of(YearMonth.of(2025, 6), 90), 90)));
+        Mockito.when(rewardServiceImpl.calculateCustomersRewardsPage(eq(2), eq(2), any())).thenReturn(List.of(
+                new RewardResponse(3, "Jon", Collections.emptyMap(), 0)));
+
+        MvcResult result = mockMvc.perform(get("/api/rewards/customers").accept(RewardController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals(3, objectMapper.readValue(lines[2], RewardResponse.class).getCustomerId());
+    }
+
+    /**
+     * Tests that an explicit window is passed to the service.
+     */
+    @Test
+    void getCustomersRewards_ExplicitWindow() throws Exception {
+        RewardWindow window = new RewardWindow(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(eq(1), eq(window)))
+                .thenReturn(new RewardResponse(1, "Alice", Map.of(YearMonth.of(2024, 3), 40), 40));
+
+        mockMvc.perform(get("/api/rewards/customers?id=1&from=2024-01-01&to=2024-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].totalPoints").value(40));
+    }
+
+    /**
+     * Tests that a window ending before it starts is rejected.
+     * Expects HTTP 400 Bad Request.
+     */
+    @Test
+    void getCustomersRewards_InvalidWindow() throws Exception {
+        mockMvc.perform(get("/api/rewards/customers?from=2024-06-01&to=2024-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/rewards/customers?months=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests a batch lookup with repeated id parameters.
+     * Expects HTTP 200 OK with rewards and errors keyed by customer ID.
+     */
+    @Test
+    void getCustomersRewardsBatch_RepeatedIds() throws Exception {
+        BatchRewardResponse mockResponse = new BatchRewardResponse(
+                Map.of(1, new RewardResponse(1, "Alice", Map.of(YearMonth.of(2025, 6), 120), 120)),
+                Map.of(99, "Customer not found with id: 99"));
+        Mockito.when(rewardServiceImpl.calculateCustomersRewardsByIds(eq(List.of(1, 99)), any())).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/rewards/customers/batch?id=1&id=99"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rewards['1'].customerName").value("Alice"))
+                .andExpect(jsonPath("$.errors['99']").value("Customer not found with id: 99"));
+    }
+
+    /**
+     * Tests a batch lookup with the IDs in the request body, and that an empty list is rejected.
+     */
+    @Test
+    void postCustomersRewardsBatch() throws Exception {
+        Mockito.when(rewardServiceImpl.calculateCustomersRewardsByIds(eq(List.of(2, 3)), any()))
+                .thenReturn(new BatchRewardResponse(Map.of(2, new RewardResponse(2, "Bob", Collections.emptyMap(), 0)), Map.of()));
+
+        mockMvc.perform(post("/api/rewards/customers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerIds\": [2, 3]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rewards['2'].customerId").value(2));
+
+        mockMvc.perform(post("/api/rewards/customers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerIds\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that a full bulkhead is reported as HTTP 503 with a retry hint.
+     */
+    @Test
+    void getCustomersRewards_BulkheadFull() throws Exception {
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(eq(7), any()))
+                .thenThrow(new ServiceBusyException("Too many concurrent reward requests, retry later"));
+
+        mockMvc.perform(get("/api/rewards/customers?id=7"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    /**
+     * Tests that request latency is recorded per mode and outcome.
+     */
+    @Test
+    void getCustomersRewards_RecordsRequestTimer() throws Exception {
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(eq(1), any()))
+                .thenReturn(new RewardResponse(1, "Alice", Collections.emptyMap(), 0));
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(eq(2), any()))
+                .thenThrow(new CustomerNotFoundException("Customer not found with id: 2"));
+
+        long successBefore = requestCount("success");
+        long notFoundBefore = requestCount("not_found");
+
+        mockMvc.perform(get("/api/rewards/customers?id=1")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/rewards/customers?id=2")).andExpect(status().isNotFound());
+
+        assertEquals(successBefore + 1, requestCount("success"));
+        assertEquals(notFoundBefore + 1, requestCount("not_found"));
+    }
+
+    /**
+     * Tests that an ID rejected by the customer ID filter is answered with 404 without calculating rewards.
+     */
+    @Test
+    void getCustomersRewards_FilteredCustomerNotFound() throws Exception {
+        Mockito.doThrow(new CustomerNotFoundException("Customer not found with id: 99"))
+                .when(customerIdFilter).requireMightExist(99);
+        long notFoundBefore = requestCount("not_found");
+
+        mockMvc.perform(get("/api/rewards/customers?id=99"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.description").value("Customer not found with id: 99"));
+
+        Mockito.verify(rewardServiceImpl, Mockito.never()).calculateCustomerRewardsById(anyInt(), any());
+        assertEquals(notFoundBefore + 1, requestCount("not_found"));
+    }
+
+    // The registry is shared by the cached test context, so timers are compared before and after
+    private long requestCount(String outcome) {
+        Timer timer = meterRegistry.find(RewardMetrics.REQUESTS)
+                .tags("mode", RewardMetrics.MODE_SINGLE, "outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    /**
+     * Tests that a single-customer body is encoded once, carries an ETag and is answered with 304
+     * when the client already holds it.
+     */
+    @Test
+    void getCustomersRewards_SingleCustomerCachedWithEtag() throws Exception {
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(eq(5), any()))
+                .thenReturn(new RewardResponse(5, "Eve", Map.of(YearMonth.of(2025, 6), 120), 120));
+
+        MvcResult first = mockMvc.perform(get("/api/rewards/customers?id=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.VARY))
+                .andExpect(jsonPath("$[0].customerName").value("Eve"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/rewards/customers?id=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(first.getResponse().getContentAsByteArray()));
+        mockMvc.perform(get("/api/rewards/customers?id=5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        Mockito.verify(rewardServiceImpl, Mockito.times(1)).calculateCustomerRewardsById(eq(5), any());
+    }
+
+    /**
+     * Tests that a read-your-writes request bypasses the body cache and is calculated with the primary required.
+     */
+    @Test
+    void getCustomersRewards_ReadYourWrites() throws Exception {
+        List<Boolean> primaryRequired = new ArrayList<>();
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(eq(7), any())).thenAnswer(invocation -> {
+            primaryRequired.add(DataSourceRoute.isPrimaryRequired());
+            return new RewardResponse(7, "Grace", Map.of(YearMonth.of(2025, 6), 120), 120);
+        });
+
+        mockMvc.perform(get("/api/rewards/customers?id=7")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/rewards/customers?id=7").header(DataSourceRoute.READ_YOUR_WRITES_HEADER, "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].customerName").value("Grace"));
+
+        assertEquals(List.of(false, true), primaryRequired);
+        assertFalse(DataSourceRoute.isPrimaryRequired());
+    }
+
+    /**
+     * Tests that large bodies are sent pre-compressed to clients accepting gzip, with a separate ETag.
+     */
+    @Test
+    void getCustomersRewards_SingleCustomerGzip() throws Exception {
+        Map<YearMonth, Integer> monthlyPoints = new LinkedHashMap<>();
+        for (int month = 1; month <= 12; month++) {
+            monthlyPoints.put(YearMonth.of(2025, month), month * 10);
+        }
+        Mockito.when(rewardServiceImpl.calculateCustomerRewardsById(eq(6), any()))
+                .thenReturn(new RewardResponse(6, "Frank", monthlyPoints, 780));
+
+        MvcResult plain = mockMvc.perform(get("/api/rewards/customers?id=6"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        MvcResult gzip = mockMvc.perform(get("/api/rewards/customers?id=6").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        byte[] decompressed = new GZIPInputStream(new ByteArrayInputStream(gzip.getResponse().getContentAsByteArray())).readAllBytes();
+        assertArrayEquals(plain.getResponse().getContentAsByteArray(), decompressed);
+        assertNotEquals(plain.getResponse().getHeader(HttpHeaders.ETAG), gzip.getResponse().getHeader(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/rewards/customers?id=6").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
 }
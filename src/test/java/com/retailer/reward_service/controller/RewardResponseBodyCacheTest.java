@@ -0,0 +1,83 @@
+package com.retailer.reward_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RewardResponseBodyCache}.
+ */
+class RewardResponseBodyCacheTest {
+
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.CUSTOMER_REWARD_BODIES);
+
+    private final RewardResponseBodyCache bodyCache = new RewardResponseBodyCache(cacheManager, new ObjectMapper(), new RewardProperties());
+
+    private final Cache cache = cacheManager.getCache(CacheConfig.CUSTOMER_REWARD_BODIES);
+
+    /**
+     * Tests that an eviction issued while a body is being loaded removes the body loaded from the earlier state,
+     * so the next lookup loads the current one.
+     */
+    @Test
+    void testGet_EvictionDuringLoadDropsLoadedBody() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<RewardResponseBodyCache.EncodedBody> load = CompletableFuture.supplyAsync(() -> {
+            try {
+                return bodyCache.get(1, () -> {
+                    loading.countDown();
+                    await(release);
+                    return List.of("before commit");
+                });
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        Thread eviction = new Thread(() -> cache.evict(CacheConfig.customerKey(1)));
+        eviction.start();
+        while (eviction.getState() != Thread.State.BLOCKED && eviction.getState() != Thread.State.WAITING
+                && eviction.getState() != Thread.State.TERMINATED) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        eviction.join(10_000);
+
+        assertEquals("[\"before commit\"]", new String(load.get(10, TimeUnit.SECONDS).getJson(), StandardCharsets.UTF_8));
+        assertNull(cache.get(CacheConfig.customerKey(1)));
+        assertEquals("[\"after commit\"]", new String(bodyCache.get(1, () -> List.of("after commit")).getJson(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that an exception of the body supplier propagates unchanged and nothing is cached.
+     */
+    @Test
+    void testGet_SupplierExceptionPropagates() {
+        assertThrows(CustomerNotFoundException.class, () -> bodyCache.get(2, () -> {
+            throw new CustomerNotFoundException("Customer not found with id: 2");
+        }));
+        assertNull(cache.get(CacheConfig.customerKey(2)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.retailer.reward_service.controller;
+
+import com.retailer.reward_service.RewardServiceApplication;
+import com.retailer.reward_service.dto.IngestionSummary;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.service.RewardMetrics;
+import com.retailer.reward_service.service.RewardPartition;
+import com.retailer.reward_service.service.RewardRulesHolder;
+import com.retailer.reward_service.service.RewardServiceImpl;
+import com.retailer.reward_service.service.RewardWindowResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.TestSocketUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs three sharded nodes as separate application contexts in one JVM, sharing one in-memory H2 database,
+ * and calls them over HTTP like clients and the other nodes do.
+ */
+class RewardShardingIntegrationTest {
+
+    private static final int NODES = 3;
+
+    private static final int CUSTOMERS = 40;
+
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    private static final List<RestClient> clients = new ArrayList<>();
+
+    private static final List<Integer> customerIds = new ArrayList<>();
+
+    @BeforeAll
+    static void startNodes() {
+        int[] ports = new int[NODES];
+        List<String> nodeArgs = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ports[i] = TestSocketUtils.findAvailableTcpPort();
+            nodeArgs.add("--reward.sharding.nodes[" + i + "].id=node-" + (i + 1));
+            nodeArgs.add("--reward.sharding.nodes[" + i + "].url=http://localhost:" + ports[i]);
+        }
+        for (int i = 0; i < NODES; i++) {
+            // Passed as command-line arguments, which take precedence over application.yaml as in a real deployment
+            List<String> args = new ArrayList<>(nodeArgs);
+            args.add("--server.port=" + ports[i]);
+            args.add("--spring.datasource.url=jdbc:h2:mem:sharding-test;DB_CLOSE_DELAY=-1");
+            args.add("--reward.sharding.enabled=true");
+            args.add("--reward.sharding.node-id=node-" + (i + 1));
+            contexts.add(new SpringApplicationBuilder(RewardServiceApplication.class).run(args.toArray(String[]::new)));
+            clients.add(RestClient.create("http://localhost:" + ports[i]));
+        }
+
+        // The first node loaded the sample customers; every transaction is sent to the first node
+        CustomerRepository customerRepository = contexts.get(0).getBean(CustomerRepository.class);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerRepository.save(Customer.builder().name("Customer " + i).build());
+        }
+        customerRepository.findAll().forEach(customer -> customerIds.add(customer.getCustomerId()));
+        customerIds.sort(null);
+        for (int i = 0; i < customerIds.size(); i++) {
+            clients.get(0).post().uri("/api/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new TransactionRequest(customerIds.get(i), 60.0 + i, LocalDate.now()))
+                    .retrieve()
+                    .toBodilessEntity();
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    private static <T> T bean(int node, Class<T> type) {
+        return contexts.get(node).getBean(type);
+    }
+
+    // The rewards of all customers calculated by one node, which can calculate any customer
+    private static List<RewardResponse> expectedRewards() {
+        RewardServiceImpl rewardServiceImpl = bean(0, RewardServiceImpl.class);
+        return new ArrayList<>(rewardServiceImpl.calculateCustomersRewardsByIds(customerIds,
+                bean(0, RewardWindowResolver.class).defaultWindow()).getRewards().values());
+    }
+
+    private static List<Integer> ids(List<RewardResponse> rewards) {
+        return rewards.stream().map(RewardResponse::getCustomerId).toList();
+    }
+
+    private static List<Integer> points(List<RewardResponse> rewards) {
+        return rewards.stream().map(RewardResponse::getTotalPoints).toList();
+    }
+
+    /**
+     * Tests that the customers are split between the nodes and every node calculates only its own.
+     */
+    @Test
+    void testNodesCalculateTheirPartitions() {
+        Set<Integer> calculated = new HashSet<>();
+        int total = 0;
+        for (int node = 0; node < NODES; node++) {
+            RewardPartition rewardPartition = bean(node, RewardPartition.class);
+            List<RewardResponse> partition = bean(node, RewardServiceImpl.class)
+                    .calculateAllCustomersRewards(bean(node, RewardWindowResolver.class).defaultWindow());
+            assertFalse(partition.isEmpty());
+            partition.forEach(reward -> assertTrue(rewardPartition.owns(reward.getCustomerId())));
+            calculated.addAll(ids(partition));
+            total += partition.size();
+        }
+        assertEquals(customerIds.size(), total);
+        assertEquals(new HashSet<>(customerIds), calculated);
+    }
+
+    /**
+     * Tests that every node answers the all-customer report with the merged partitions of all nodes.
+     */
+    @Test
+    void testGetCustomersRewards_GathersAllPartitions() {
+        List<RewardResponse> expected = expectedRewards();
+        for (RestClient client : clients) {
+            List<RewardResponse> rewards = Arrays.asList(client.get().uri("/api/rewards/customers")
+                    .retrieve().body(RewardResponse[].class));
+
+            assertEquals(customerIds, ids(rewards));
+            assertEquals(points(expected), points(rewards));
+        }
+    }
+
+    /**
+     * Tests that paging through one node returns every customer once, in customer ID order.
+     */
+    @Test
+    void testGetCustomersRewardsPage_GathersAllPartitions() {
+        List<RewardResponse> rewards = new ArrayList<>();
+        String cursor = null;
+        do {
+            String after = cursor;
+            ResponseEntity<RewardResponse[]> page = clients.get(1).get()
+                    .uri(uri -> uri.path("/api/rewards/customers").queryParam("limit", 7).queryParamIfPresent("after",
+                            Optional.ofNullable(after)).build())
+                    .retrieve().toEntity(RewardResponse[].class);
+            assertTrue(page.getBody().length <= 7);
+            rewards.addAll(Arrays.asList(page.getBody()));
+            cursor = page.getHeaders().getFirst(RewardController.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        assertEquals(customerIds, ids(rewards));
+    }
+
+    /**
+     * Tests that a lookup sent to a node that does not own the customer is answered by the owner.
+     */
+    @Test
+    void testGetCustomerRewards_ForwardsToOwner() {
+        Integer customerId = customerIds.get(0);
+        int owner = Integer.parseInt(bean(0, RewardPartition.class).ownerOf(customerId).getId().substring("node-".length())) - 1;
+        int other = (owner + 1) % NODES;
+        MeterRegistry ownerRegistry = bean(owner, MeterRegistry.class);
+        Timer ownerLookups = ownerRegistry.timer(RewardMetrics.REQUESTS, "mode", RewardMetrics.MODE_SINGLE, "outcome", "success");
+        long lookupsBefore = ownerLookups.count();
+
+        RewardResponse[] rewards = clients.get(other).get().uri("/api/rewards/customers?id={id}", customerId)
+                .retrieve().body(RewardResponse[].class);
+
+        assertEquals(customerId, rewards[0].getCustomerId());
+        assertEquals(lookupsBefore + 1, ownerLookups.count());
+    }
+
+    /**
+     * Tests that bulk lines of customers owned by another node are rejected with the owning node.
+     */
+    @Test
+    void testIngest_RejectsCustomersOfOtherNodes() {
+        RewardPartition rewardPartition = bean(0, RewardPartition.class);
+        Integer foreignCustomerId = customerIds.stream().filter(id -> !rewardPartition.owns(id)).findFirst().orElseThrow();
+
+        IngestionSummary summary = clients.get(0).post().uri("/api/transactions/bulk")
+                .contentType(MediaType.valueOf("text/csv"))
+                .body(foreignCustomerId + ",10," + LocalDate.now())
+                .retrieve().body(IngestionSummary.class);
+
+        assertEquals(0, summary.getAccepted());
+        assertEquals("Customer " + foreignCustomerId + " is owned by node " + rewardPartition.ownerOf(foreignCustomerId).getId(),
+                summary.getBatches().get(0).getErrors().get(0).getReason());
+    }
+
+    /**
+     * Tests that the leaderboard and rule activation, which would only cover the receiving node, are rejected
+     * instead of answering for part of the customers.
+     */
+    @Test
+    void testLeaderboardAndRuleActivation_RejectedWhenSharded() {
+        RestClient client = clients.get(0);
+
+        assertThrows(HttpServerErrorException.NotImplemented.class,
+                () -> client.get().uri("/api/rewards/leaderboard").retrieve().toBodilessEntity());
+        assertThrows(HttpServerErrorException.NotImplemented.class,
+                () -> client.get().uri("/api/rewards/leaderboard?id=" + customerIds.get(0)).retrieve().toBodilessEntity());
+        assertThrows(HttpServerErrorException.NotImplemented.class, () -> client.put().uri("/api/rewards/rules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"version\":\"sharded\",\"tiers\":[{\"threshold\":50,\"pointsPerDollar\":1}]}")
+                .retrieve().toBodilessEntity());
+        assertEquals("default", bean(0, RewardRulesHolder.class).current().getVersion());
+    }
+}
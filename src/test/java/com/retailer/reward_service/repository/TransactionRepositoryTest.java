@@ -0,0 +1,153 @@
+package com.retailer.reward_service.repository;
+
+import com.retailer.reward_service.dto.MonthlyPointsView;
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.MonthlyReward;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.service.RewardRules;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the aggregation queries of {@link TransactionRepository} and {@link MonthlyRewardRepository}
+ * against an embedded H2 database.
+ */
+@DataJpaTest
+class TransactionRepositoryTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    /**
+     * Tests that the database applies the same tier rules as the Java calculation
+     * and only aggregates transactions within the date range.
+     */
+    @Test
+    void testFindMonthlyPointsBetween_AppliesTiersAndDateRange() {
+        Customer alice = customerRepository.save(Customer.builder().name("Alice").build());
+        transactionRepository.saveAll(List.of(
+                new Transaction(alice, 120.0, LocalDate.of(2025, 3, 5)),   // 90
+                new Transaction(alice, 75.5, LocalDate.of(2025, 3, 20)),   // 25
+                new Transaction(alice, 40.0, LocalDate.of(2025, 4, 2)),    // 0
+                new Transaction(alice, -5.0, LocalDate.of(2025, 4, 3)),    // invalid
+                new Transaction(alice, 200.0, LocalDate.of(2025, 2, 28))   // before range
+        ));
+
+        List<MonthlyPointsView> rows = transactionRepository.findMonthlyPointsBetween(RewardRules.DEFAULT,
+                LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 30), Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        assertEquals(2, rows.size());
+        assertEquals(alice.getCustomerId(), rows.get(0).getCustomerId());
+        assertEquals(202503, rows.get(0).getPeriod());
+        assertEquals(115L, rows.get(0).getPoints());
+        assertEquals(0L, rows.get(0).getInvalidCount());
+        assertEquals(202504, rows.get(1).getPeriod());
+        assertEquals(0L, rows.get(1).getPoints());
+        assertEquals(1L, rows.get(1).getInvalidCount());
+    }
+
+    /**
+     * Tests that the query rendered from tiers and promotions gives the same points as the compiled rules,
+     * at the tier boundaries and on the first and last day of a promotion.
+     */
+    @Test
+    void testFindMonthlyPointsBetween_MatchesCompiledRules() {
+        List<RewardRulesDefinition.Tier> tiers = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            tiers.add(new RewardRulesDefinition.Tier(new BigDecimal(25 * i + 10), new BigDecimal("0.25").multiply(new BigDecimal(i + 1))));
+        }
+        RewardRules rules = RewardRules.compile(new RewardRulesDefinition("campaign", tiers, List.of(
+                new RewardRulesDefinition.Promotion("spring", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 12), new BigDecimal("1.5")),
+                new RewardRulesDefinition.Promotion("summer", LocalDate.of(2025, 3, 20), LocalDate.of(2025, 3, 20), new BigDecimal("0.29")))));
+        double[] amounts = {0.01, 10.0, 10.01, 35.0, 35.37, 99.99, 260.0, 260.01, 333.33, 1234.56};
+        LocalDate[] dates = {LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 12),
+                LocalDate.of(2025, 3, 13), LocalDate.of(2025, 3, 20)};
+        List<Customer> customers = new ArrayList<>();
+        long[] expected = new long[dates.length];
+        for (int d = 0; d < dates.length; d++) {
+            Customer customer = customerRepository.save(Customer.builder().name("Customer " + d).build());
+            customers.add(customer);
+            for (double amount : amounts) {
+                transactionRepository.save(new Transaction(customer, amount, dates[d]));
+                expected[d] += rules.calculatePoints(amount, dates[d]);
+            }
+        }
+
+        List<MonthlyPointsView> rows = transactionRepository.findMonthlyPointsBetween(rules,
+                LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        assertEquals(dates.length, rows.size());
+        for (int d = 0; d < dates.length; d++) {
+            assertEquals(customers.get(d).getCustomerId(), rows.get(d).getCustomerId());
+            assertEquals(expected[d], rows.get(d).getPoints(), "points on " + dates[d]);
+        }
+    }
+
+    /**
+     * Tests that the ledger query returns in-window months and keeps customers without ledger rows.
+     */
+    @Test
+    void testFindLedgerMonthlyPoints_IncludesCustomersWithoutPoints() {
+        Customer alice = customerRepository.save(Customer.builder().name("Alice").build());
+        Customer bob = customerRepository.save(Customer.builder().name("Bob").build());
+        monthlyRewardRepository.saveAll(List.of(
+                new MonthlyReward(null, alice.getCustomerId(), 202502, 500L),
+                new MonthlyReward(null, alice.getCustomerId(), 202504, 40L),
+                new MonthlyReward(null, alice.getCustomerId(), 202503, 10L)));
+
+        List<MonthlyPointsView> rows = monthlyRewardRepository.findMonthlyPointsBetween(202503, 202504, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        assertEquals(3, rows.size());
+        assertEquals(202503, rows.get(0).getPeriod());
+        assertEquals(10L, rows.get(0).getPoints());
+        assertEquals(202504, rows.get(1).getPeriod());
+        assertEquals(bob.getCustomerId(), rows.get(2).getCustomerId());
+        assertNull(rows.get(2).getPeriod());
+        assertEquals(0L, rows.get(2).getPoints());
+    }
+
+    /**
+     * Tests that the IN-list variants only return the listed customers, ordered by customer ID.
+     */
+    @Test
+    void testFindMonthlyPointsBetweenForCustomerIds() {
+        Customer alice = customerRepository.save(Customer.builder().name("Alice").build());
+        Customer bob = customerRepository.save(Customer.builder().name("Bob").build());
+        Customer carol = customerRepository.save(Customer.builder().name("Carol").build());
+        transactionRepository.saveAll(List.of(
+                new Transaction(alice, 120.0, LocalDate.of(2025, 3, 5)),
+                new Transaction(bob, 120.0, LocalDate.of(2025, 3, 5)),
+                new Transaction(carol, 75.0, LocalDate.of(2025, 3, 6)),
+                new Transaction(carol, 60.0, LocalDate.of(2025, 3, 7))));
+        monthlyRewardRepository.save(new MonthlyReward(null, alice.getCustomerId(), 202502, 500L));
+        List<Integer> customerIds = List.of(carol.getCustomerId(), alice.getCustomerId(), -1);
+
+        List<MonthlyPointsView> transactionRows = transactionRepository.findMonthlyPointsBetweenForCustomerIds(RewardRules.DEFAULT,
+                LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), customerIds);
+        List<MonthlyPointsView> ledgerRows = monthlyRewardRepository.findMonthlyPointsBetweenForCustomerIds(202502, 202502, customerIds);
+
+        assertEquals(List.of(alice.getCustomerId(), carol.getCustomerId()),
+                transactionRows.stream().map(MonthlyPointsView::getCustomerId).toList());
+        assertEquals(2L, transactionRows.get(1).getTransactionCount());
+        assertEquals(35L, transactionRows.get(1).getPoints());
+        assertEquals(List.of(alice.getCustomerId(), carol.getCustomerId()),
+                ledgerRows.stream().map(MonthlyPointsView::getCustomerId).toList());
+        assertEquals(500L, ledgerRows.get(0).getPoints());
+        assertNull(ledgerRows.get(1).getPeriod());
+    }
+}
@@ -0,0 +1,175 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.ReportExecutorConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the columnar backend against the JPA calculation on an embedded H2 database.
+ * Runs without a test transaction so that writes commit and reach the store.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({TransactionAutoConfiguration.class, MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({CacheConfig.class, ReportExecutorConfig.class, RewardLedgerService.class, RewardSnapshotHolder.class, RewardRulesHolder.class, TransactionServiceImpl.class,
+        RewardServiceImpl.class, RewardWindowResolver.class, RewardMetrics.class, RepositoryBulkhead.class, ColumnarTransactionStore.class, RewardPartition.class,
+        CustomerIdFilter.class, TransactionArchiveService.class})
+@TestPropertySource(properties = {"reward.store.backend=columnar", "reward.store.compact-threshold=3"})
+class ColumnarTransactionStoreTest {
+
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private TransactionServiceImpl transactionServiceImpl;
+
+    @Autowired
+    private RewardServiceImpl rewardServiceImpl;
+
+    @Autowired
+    private ColumnarTransactionStore columnarTransactionStore;
+
+    private final LocalDate now = LocalDate.now();
+
+    /**
+     * Longer than the default window, so results are not cached.
+     */
+    private final RewardWindow window = RewardWindow.lastMonths(now, 4);
+
+    @AfterEach
+    void deleteAll() {
+        transactionRepository.deleteAll();
+        monthlyRewardRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private Customer seedCustomer(String name, double... amountsAndDaysAgo) {
+        Customer customer = customerRepository.save(Customer.builder().name(name).build());
+        for (int i = 0; i < amountsAndDaysAgo.length; i += 2) {
+            transactionRepository.save(new Transaction(customer, amountsAndDaysAgo[i], now.minusDays((long) amountsAndDaysAgo[i + 1])));
+        }
+        return customer;
+    }
+
+    /**
+     * Tests that the store calculates exactly what the database calculates, including window boundaries,
+     * customers without transactions and gaps in the customer IDs.
+     */
+    @Test
+    void testCalculateRewards_MatchesDatabase() {
+        Customer alice = seedCustomer("Alice", 120.0, 0, 75.5, 20, 200.99, 45, 51.0, 200);
+        seedCustomer("Bob");
+        Customer gap = seedCustomer("Gap", 130.0, 3);
+        seedCustomer("Jon", 100.0, 70, 60.01, 4 * 31 + 5, 300.0, 95);
+        customerRepository.delete(customerRepository.findById(gap.getCustomerId()).orElseThrow());
+        rewardLedgerService.rebuild();
+        List<RewardResponse> expected = rewardServiceImpl.calculateAllCustomersRewardsFromDatabase(window);
+
+        columnarTransactionStore.reload();
+
+        assertEquals(7, columnarTransactionStore.size());
+        assertEquals(expected, rewardServiceImpl.calculateAllCustomersRewards(window));
+        assertEquals(expected.get(0), rewardServiceImpl.calculateCustomerRewardsById(alice.getCustomerId(), window));
+        assertEquals(3, expected.size());
+    }
+
+    /**
+     * Tests that amounts with more than two decimals earn the same points in the store, both loaded and appended,
+     * as in the database, which does not round them to cents.
+     */
+    @Test
+    void testCalculateRewards_SubCentAmountsMatchDatabase() {
+        Customer alice = seedCustomer("Alice", 75.996, 1, 100.499, 2, 120.005, 3);
+        columnarTransactionStore.reload();
+        transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 50.999, now));
+        transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 150.995, now));
+        rewardLedgerService.rebuild();
+
+        List<RewardResponse> expected = rewardServiceImpl.calculateAllCustomersRewardsFromDatabase(window);
+
+        assertEquals(25 + 50 + 90 + 0 + 151, expected.get(0).getTotalPoints());
+        assertEquals(expected, columnarTransactionStore.calculateRewards(alice.getCustomerId(), alice.getCustomerId(), window));
+        transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 60.0, now));
+        assertEquals(expected.get(0).getTotalPoints() + 10,
+                columnarTransactionStore.calculateRewards(alice.getCustomerId(), alice.getCustomerId(), window).get(0).getTotalPoints());
+    }
+
+    /**
+     * Tests that saved transactions are appended on commit and compacted into the columns.
+     */
+    @Test
+    void testSaveTransaction_AppendsAndCompacts() {
+        Customer alice = seedCustomer("Alice", 120.0, 10);
+        columnarTransactionStore.reload();
+
+        transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 60.0, now));
+        transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 200.0, now.minusYears(1)));
+        assertEquals(3, columnarTransactionStore.size());
+        assertEquals(100, columnarTransactionStore.calculateRewards(alice.getCustomerId(), alice.getCustomerId(), window).get(0).getTotalPoints());
+
+        // The third appended transaction reaches the compaction threshold
+        transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 110.0, now.minusDays(11)));
+        transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 110.0, now.minusDays(9)));
+
+        assertEquals(5, columnarTransactionStore.size());
+        List<RewardResponse> compacted = columnarTransactionStore.calculateRewards(new TreeSet<>(List.of(alice.getCustomerId())), window);
+        assertEquals(240, compacted.get(0).getTotalPoints());
+        columnarTransactionStore.reload();
+        assertEquals(compacted, columnarTransactionStore.calculateRewards(new TreeSet<>(List.of(alice.getCustomerId())), window));
+    }
+
+    /**
+     * Tests that customers created after the load are left to the database.
+     */
+    @Test
+    void testCalculateRewards_CustomerCreatedAfterLoad() {
+        seedCustomer("Alice", 120.0, 10);
+        columnarTransactionStore.reload();
+        Customer bob = seedCustomer("Bob", 200.0, 1);
+
+        assertNull(columnarTransactionStore.calculateRewards(bob.getCustomerId(), bob.getCustomerId(), window));
+        assertEquals(250, rewardServiceImpl.calculateCustomerRewardsById(bob.getCustomerId(), window).getTotalPoints());
+    }
+}
@@ -0,0 +1,79 @@
+package com.retailer.reward_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ConsistentHashRing}.
+ */
+class ConsistentHashRingTest {
+
+    private static final int CUSTOMERS = 30_000;
+
+    private static Map<String, Integer> countByNode(ConsistentHashRing ring) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int customerId = 1; customerId <= CUSTOMERS; customerId++) {
+            counts.merge(ring.ownerOf(customerId), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Tests that consecutive customer IDs are spread evenly over the nodes.
+     */
+    @Test
+    void testOwnerOf_SpreadsCustomersEvenly() {
+        Map<String, Integer> counts = countByNode(new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 128));
+
+        assertEquals(3, counts.size());
+        counts.forEach((node, count) -> assertEquals(CUSTOMERS / 3.0, count, CUSTOMERS / 3.0 * 0.2, node));
+    }
+
+    /**
+     * Tests that every node computes the same ring, whatever the order of its node list.
+     */
+    @Test
+    void testOwnerOf_IndependentOfNodeOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 16);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("node-3", "node-1", "node-2"), 16);
+
+        for (int customerId = 1; customerId <= CUSTOMERS; customerId++) {
+            assertEquals(ring.ownerOf(customerId), reordered.ownerOf(customerId));
+        }
+    }
+
+    /**
+     * Tests that adding a node only moves customers to it, about a quarter of them when going from three nodes to four.
+     */
+    @Test
+    void testOwnerOf_AddingNodeMovesOnlyItsShare() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 128);
+        ConsistentHashRing grown = new ConsistentHashRing(List.of("node-1", "node-2", "node-3", "node-4"), 128);
+
+        int moved = 0;
+        for (int customerId = 1; customerId <= CUSTOMERS; customerId++) {
+            String owner = grown.ownerOf(customerId);
+            if (!owner.equals(ring.ownerOf(customerId))) {
+                assertEquals("node-4", owner);
+                moved++;
+            }
+        }
+        assertEquals(CUSTOMERS / 4.0, moved, CUSTOMERS / 4.0 * 0.2);
+    }
+
+    /**
+     * Tests that rings without nodes or with repeated node IDs are rejected.
+     */
+    @Test
+    void testConstructor_RejectsInvalidNodes() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of("node-1", "node-1"), 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of("node-1"), 0));
+        assertEquals("node-1", new ConsistentHashRing(List.of("node-1"), 1).ownerOf(42));
+    }
+}
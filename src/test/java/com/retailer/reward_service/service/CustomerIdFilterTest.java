@@ -0,0 +1,125 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import com.retailer.reward_service.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests loading the customer ID filter from an embedded H2 database and following new customers.
+ * The startup load is not scheduled; every test loads the filter itself.
+ */
+@DataJpaTest
+@EnableConfigurationProperties(RewardProperties.class)
+@Import(CustomerIdFilter.class)
+class CustomerIdFilterTest {
+
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RewardProperties rewardProperties;
+
+    @Autowired
+    private CustomerIdFilter customerIdFilter;
+
+    private int saveCustomer(String name) {
+        return customerRepository.save(Customer.builder().name(name).build()).getCustomerId();
+    }
+
+    /**
+     * Tests that every ID may exist until the filter is loaded.
+     */
+    @Test
+    void testMightExist_BeforeLoad() {
+        assertTrue(customerIdFilter.mightExist(-1));
+        assertTrue(customerIdFilter.mightExist(Integer.MAX_VALUE));
+        assertDoesNotThrow(() -> customerIdFilter.requireMightExist(42));
+    }
+
+    /**
+     * Tests that the loaded filter accepts existing customers and rejects the IDs between them and negative IDs.
+     */
+    @Test
+    void testMightExist_AfterLoad() {
+        int alice = saveCustomer("Alice");
+        int bob = saveCustomer("Bob");
+        jdbcTemplate.update("DELETE FROM customer WHERE customer_id = ?", alice);
+        int carol = saveCustomer("Carol");
+
+        customerIdFilter.load();
+
+        assertFalse(customerIdFilter.mightExist(alice));
+        assertTrue(customerIdFilter.mightExist(bob));
+        assertTrue(customerIdFilter.mightExist(carol));
+        assertFalse(customerIdFilter.mightExist(-bob));
+        CustomerNotFoundException ex = assertThrows(CustomerNotFoundException.class, () -> customerIdFilter.requireMightExist(alice));
+        assertEquals("Customer not found with id: " + alice, ex.getMessage());
+    }
+
+    /**
+     * Tests that customers saved through JPA are added to the loaded filter without reading the database again.
+     */
+    @Test
+    void testMightExist_FollowsSavedCustomers() {
+        rewardProperties.getCustomerFilter().setRefreshInterval(Duration.ofHours(1));
+        saveCustomer("Alice");
+        customerIdFilter.load();
+
+        int bob = saveCustomer("Bob");
+
+        assertTrue(customerIdFilter.mightExist(bob));
+        assertFalse(customerIdFilter.mightExist(bob + 1));
+    }
+
+    /**
+     * Tests that customers inserted outside JPA are found by a refresh, which runs at most once per interval.
+     */
+    @Test
+    void testMightExist_RefreshesForCustomersInsertedElsewhere() {
+        int alice = saveCustomer("Alice");
+        customerIdFilter.load();
+        jdbcTemplate.update("INSERT INTO customer (name) VALUES ('Bob')");
+        int bob = jdbcTemplate.queryForObject("SELECT MAX(customer_id) FROM customer", Integer.class);
+        assertTrue(bob > alice);
+
+        rewardProperties.getCustomerFilter().setRefreshInterval(Duration.ofHours(1));
+        assertFalse(customerIdFilter.mightExist(bob));
+
+        rewardProperties.getCustomerFilter().setRefreshInterval(Duration.ZERO);
+        assertTrue(customerIdFilter.mightExist(bob));
+    }
+
+    /**
+     * Tests that adding an ID far beyond the loaded ones grows the bitmap and keeps the loaded IDs.
+     */
+    @Test
+    void testAdd_GrowsBitmap() {
+        int alice = saveCustomer("Alice");
+        customerIdFilter.load();
+
+        customerIdFilter.add(5_000_000);
+
+        assertTrue(customerIdFilter.mightExist(alice));
+        assertTrue(customerIdFilter.mightExist(5_000_000));
+        assertFalse(customerIdFilter.mightExist(alice + 1));
+    }
+}
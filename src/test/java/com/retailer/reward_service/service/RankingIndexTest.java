@@ -0,0 +1,75 @@
+package com.retailer.reward_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RankingIndex}.
+ */
+class RankingIndexTest {
+
+    /**
+     * Tests ordering by points, highest first, with ties ranked by ascending customer ID.
+     */
+    @Test
+    void testRanking_OrdersByPointsThenCustomerId() {
+        RankingIndex index = new RankingIndex();
+        index.put(3, 50);
+        index.put(1, 50);
+        index.put(2, 120);
+        index.put(4, 0);
+
+        assertArrayEquals(new int[]{2, 1, 3, 4}, index.customerIdsAt(0, 10));
+        assertArrayEquals(new int[]{3}, index.customerIdsAt(2, 1));
+        assertEquals(1, index.rankOf(1));
+        assertEquals(-1, index.rankOf(5));
+        assertEquals(2, index.countBefore(50, 2));
+
+        index.put(4, 51);
+        index.remove(2);
+
+        assertArrayEquals(new int[]{4, 1, 3}, index.customerIdsAt(0, 10));
+        assertEquals(3, index.size());
+        assertEquals(0, index.customerIdsAt(3, 10).length);
+    }
+
+    /**
+     * Tests ranks and pages against a sorted list after a long run of random updates.
+     */
+    @Test
+    void testRanking_MatchesSortedList() {
+        Random random = new Random(7);
+        RankingIndex index = new RankingIndex();
+        Map<Integer, Integer> points = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int customerId = random.nextInt(2_000);
+            if (random.nextInt(10) == 0) {
+                index.remove(customerId);
+                points.remove(customerId);
+            } else {
+                int customerPoints = random.nextInt(500);
+                index.put(customerId, customerPoints);
+                points.put(customerId, customerPoints);
+            }
+        }
+
+        List<Integer> expected = new ArrayList<>(points.keySet());
+        expected.sort(Comparator.<Integer>comparingInt(points::get).reversed().thenComparing(Comparator.naturalOrder()));
+        assertEquals(expected.size(), index.size());
+        assertEquals(expected, Arrays.stream(index.customerIdsAt(0, expected.size())).boxed().toList());
+        for (int rank = 0; rank < expected.size(); rank += 37) {
+            assertEquals(rank, index.rankOf(expected.get(rank)));
+            assertEquals(expected.subList(rank, Math.min(rank + 25, expected.size())),
+                    Arrays.stream(index.customerIdsAt(rank, 25)).boxed().toList());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.exceptions.ServiceBusyException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RepositoryBulkhead}.
+ */
+class RepositoryBulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Tests that a call is rejected without waiting once all permits are held, and that
+     * permits are returned when calls finish.
+     */
+    @Test
+    void testCall_RejectsWhenFull() throws Exception {
+        RepositoryBulkhead bulkhead = new RepositoryBulkhead(true, 1, Duration.ZERO, Duration.ZERO, meterRegistry);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> held = executor.submit(() -> bulkhead.call(() -> {
+                holding.countDown();
+                await(release);
+                return 1;
+            }));
+            holding.await();
+
+            assertThrows(ServiceBusyException.class, () -> bulkhead.call(() -> 2));
+            assertEquals(1.0, meterRegistry.get(RepositoryBulkhead.REJECTED).counter().count());
+
+            release.countDown();
+            assertEquals(1, held.get());
+            assertEquals(3, bulkhead.call(() -> 3));
+            assertEquals(1, bulkhead.getAvailablePermits());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that report work waits for a held permit instead of failing, while an online call is still rejected.
+     */
+    @Test
+    void testReportWork_WaitsForPermit() throws Exception {
+        RepositoryBulkhead bulkhead = new RepositoryBulkhead(true, 1, Duration.ZERO, Duration.ofSeconds(10), meterRegistry);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> held = executor.submit(() -> bulkhead.reportWork(() -> bulkhead.call(() -> {
+                holding.countDown();
+                await(release);
+                return 1;
+            })));
+            holding.await();
+            Future<Integer> waiting = executor.submit(() -> bulkhead.reportWork(() -> bulkhead.call(() -> 2)));
+
+            assertThrows(ServiceBusyException.class, () -> bulkhead.call(() -> 3));
+            assertFalse(waiting.isDone());
+
+            release.countDown();
+            assertEquals(1, held.get());
+            assertEquals(2, waiting.get());
+            assertEquals(1.0, meterRegistry.get(RepositoryBulkhead.REJECTED).counter().count());
+            assertEquals(1, bulkhead.getMaxReportWorkers());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that a permit is released when the call fails.
+     */
+    @Test
+    void testCall_ReleasesOnFailure() {
+        RepositoryBulkhead bulkhead = new RepositoryBulkhead(true, 1, Duration.ofMillis(10), Duration.ZERO, meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.call(() -> {
+            throw new IllegalStateException("query failed");
+        }));
+        assertEquals(1, bulkhead.getAvailablePermits());
+    }
+
+    /**
+     * Tests that a disabled bulkhead never rejects.
+     */
+    @Test
+    void testCall_Disabled() {
+        RepositoryBulkhead bulkhead = new RepositoryBulkhead(false, 0, Duration.ZERO, Duration.ZERO, meterRegistry);
+
+        assertEquals(1, bulkhead.call(() -> 1));
+    }
+
+    /**
+     * Tests that the default size follows the Hikari pool.
+     */
+    @Test
+    void testConnectionPoolSize() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setMaximumPoolSize(7);
+            assertEquals(7, RepositoryBulkhead.connectionPoolSize(dataSource));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.retailer.reward_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.ExportStatus;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.exceptions.ExportJobNotFoundException;
+import com.retailer.reward_service.exceptions.ExportNotReadyException;
+import com.retailer.reward_service.exceptions.ServiceBusyException;
+import com.retailer.reward_service.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RewardExportService} using Mockito and a real export executor.
+ * Covers chunked file output, progress, cancellation and the bounded queue.
+ */
+class RewardExportServiceTest {
+
+    @Mock
+    private RewardServiceImpl rewardServiceImpl;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @TempDir
+    Path directory;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+
+    private final RewardWindow window = new RewardWindow(LocalDate.of(2025, 1, 15), LocalDate.of(2025, 3, 10));
+
+    private RewardExportService rewardExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        RewardProperties rewardProperties = new RewardProperties();
+        rewardProperties.getExport().setDirectory(directory);
+        rewardProperties.getExport().setChunkSize(2);
+        rewardExportService = new RewardExportService(rewardServiceImpl, customerRepository, executor, rewardProperties,
+                new RewardMetrics(new SimpleMeterRegistry()), new ObjectMapper().findAndRegisterModules());
+        when(customerRepository.count()).thenReturn(3L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private RewardResponse reward(int customerId, String name, Map<YearMonth, Integer> monthlyPoints) {
+        return new RewardResponse(customerId, name, monthlyPoints,
+                monthlyPoints.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private void stubThreeCustomers() {
+        when(rewardServiceImpl.calculateCustomersRewardsPage(isNull(), eq(2), eq(window))).thenReturn(List.of(
+                reward(1, "Alice", Map.of(YearMonth.of(2025, 1), 90, YearMonth.of(2025, 3), 25)),
+                reward(2, "Smith, \"Bob\"", Map.of())));
+        when(rewardServiceImpl.calculateCustomersRewardsPage(eq(2), eq(2), eq(window))).thenReturn(List.of(
+                reward(3, "Carol", Map.of(YearMonth.of(2025, 2), 10))));
+    }
+
+    private ExportJob awaitFinished(ExportJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.isFinished(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "export did not finish");
+        return job;
+    }
+
+    @Test
+    void testCsvExportWritesAllChunksGzipped() throws Exception {
+        stubThreeCustomers();
+
+        ExportJob job = awaitFinished(rewardExportService.submit(RewardExportService.Format.CSV, true, window));
+
+        assertEquals(ExportStatus.COMPLETED, job.getStatus());
+        assertEquals(3, job.getProcessedCustomers());
+        assertEquals(3L, job.getTotalCustomers());
+        assertEquals(Files.size(job.getFile()), job.getFileSize());
+        assertTrue(job.getFileName().endsWith(".csv.gz"));
+        String content;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(job.getFile()))) {
+            content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals("""
+                customerId,customerName,2025-01,2025-02,2025-03,totalPoints
+                1,Alice,90,,25,115
+                2,"Smith, ""Bob\""",,,,0
+                3,Carol,,10,,10
+                """, content);
+        assertSame(job, rewardExportService.getCompletedJob(job.getId()));
+    }
+
+    @Test
+    void testNdjsonExportWritesOneDocumentPerLine() throws Exception {
+        stubThreeCustomers();
+
+        ExportJob job = awaitFinished(rewardExportService.submit(RewardExportService.Format.NDJSON, false, window));
+
+        assertEquals(ExportStatus.COMPLETED, job.getStatus());
+        List<String> lines = Files.readAllLines(job.getFile());
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"customerId\":1,\"customerName\":\"Alice\""));
+        assertTrue(lines.get(2).contains("\"2025-02\":10"));
+    }
+
+    @Test
+    void testCancelStopsRunningExportAndDeletesPartialFile() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(rewardServiceImpl.calculateCustomersRewardsPage(any(), eq(2), eq(window))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(reward(1, "Alice", Map.of()), reward(2, "Bob", Map.of()));
+        });
+
+        ExportJob job = rewardExportService.submit(RewardExportService.Format.CSV, false, window);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(ExportStatus.RUNNING, rewardExportService.cancelOrDelete(job.getId()).getStatus());
+        assertThrows(ExportNotReadyException.class, () -> rewardExportService.getCompletedJob(job.getId()));
+        release.countDown();
+
+        awaitFinished(job);
+        assertEquals(ExportStatus.CANCELLED, job.getStatus());
+        assertEquals(2, job.getProcessedCustomers());
+        verify(rewardServiceImpl, times(1)).calculateCustomersRewardsPage(any(), anyInt(), any());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testSubmitBeyondQueueIsRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(rewardServiceImpl.calculateCustomersRewardsPage(any(), eq(2), eq(window))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        ExportJob running = rewardExportService.submit(RewardExportService.Format.CSV, false, window);
+        ExportJob queued = rewardExportService.submit(RewardExportService.Format.CSV, false, window);
+        assertThrows(ServiceBusyException.class, () -> rewardExportService.submit(RewardExportService.Format.CSV, false, window));
+
+        // A queued export is cancelled without ever running
+        assertEquals(ExportStatus.CANCELLED, rewardExportService.cancelOrDelete(queued.getId()).getStatus());
+        release.countDown();
+        awaitFinished(running);
+        assertEquals(ExportStatus.COMPLETED, running.getStatus());
+        assertEquals(0, queued.getProcessedCustomers());
+    }
+
+    @Test
+    void testDeletingFinishedExportRemovesFile() throws IOException, InterruptedException {
+        stubThreeCustomers();
+        ExportJob job = awaitFinished(rewardExportService.submit(RewardExportService.Format.CSV, false, window));
+        assertTrue(Files.exists(job.getFile()));
+
+        rewardExportService.cancelOrDelete(job.getId());
+
+        assertFalse(Files.exists(job.getFile()));
+        assertThrows(ExportJobNotFoundException.class, () -> rewardExportService.getJob(job.getId()));
+    }
+}
@@ -0,0 +1,147 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.LeaderboardEntry;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RewardLeaderboardService} using Mockito.
+ * Covers serving the leaderboard from the snapshot ranking, including customers caught up into it.
+ */
+class RewardLeaderboardServiceTest {
+
+    @Mock
+    private RewardServiceImpl rewardServiceImpl;
+
+    private final RewardSnapshotHolder rewardSnapshotHolder = new RewardSnapshotHolder(new RewardRulesHolder(new RewardProperties()));
+
+    private final RewardWindowResolver rewardWindowResolver = new RewardWindowResolver(new RewardProperties());
+
+    private RewardLeaderboardService rewardLeaderboardService;
+
+    private final LocalDate today = LocalDate.now();
+
+    private final RewardWindow window = rewardWindowResolver.defaultWindow();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rewardLeaderboardService = new RewardLeaderboardService(rewardServiceImpl, rewardSnapshotHolder, rewardWindowResolver,
+                new RewardMetrics(new SimpleMeterRegistry()), new CustomerIdFilter(null, new RewardProperties(), null),
+                new RewardPartition(new RewardProperties()));
+    }
+
+    private RewardResponse reward(int customerId, int points) {
+        return new RewardResponse(customerId, "Customer " + customerId,
+                points == 0 ? Map.of() : Map.of(YearMonth.from(today), points), points);
+    }
+
+    /**
+     * Installs a snapshot of customers 1 to 5, where customer 5 is stale, and catches up customer 5
+     * and customers 7 and 8 created after the snapshot.
+     */
+    private void installSnapshot() {
+        rewardSnapshotHolder.beginBuild();
+        RewardSnapshot snapshot = new RewardSnapshot(window, Instant.now(), 0, RewardRules.DEFAULT, List.of(
+                reward(1, 100), reward(2, 30), reward(3, 100), reward(4, 0), reward(5, 70)));
+        rewardSnapshotHolder.applyTransaction(5, today, 10);
+        rewardSnapshotHolder.swap(snapshot);
+        rewardSnapshotHolder.applyTransaction(2, today, 40);
+        rewardSnapshotHolder.catchUp(snapshot, () -> List.of(reward(5, 80), reward(7, 100), reward(8, 5)));
+    }
+
+    /**
+     * Tests that every page matches the full leaderboard, whatever its start and size.
+     */
+    @Test
+    void testGetLeaderboardPage_IncludesCaughtUpCustomers() {
+        installSnapshot();
+        List<Integer> expected = List.of(1, 3, 7, 5, 2, 8, 4);
+
+        for (int afterRank = 0; afterRank <= expected.size(); afterRank++) {
+            for (int limit = 1; limit <= 4; limit++) {
+                List<LeaderboardEntry> page = rewardLeaderboardService.getLeaderboardPage(afterRank, limit);
+
+                assertEquals(expected.subList(afterRank, Math.min(afterRank + limit, expected.size())),
+                        page.stream().map(LeaderboardEntry::getCustomerId).toList(), "after " + afterRank + ", limit " + limit);
+                for (int i = 0; i < page.size(); i++) {
+                    assertEquals(afterRank + i + 1, page.get(i).getRank());
+                }
+            }
+        }
+        assertEquals(70, rewardLeaderboardService.getLeaderboardPage(4, 1).get(0).getTotalPoints());
+        verify(rewardServiceImpl, never()).calculateRewardsNotInSnapshot(any(), any());
+    }
+
+    /**
+     * Tests that transactions committed after the catch-up move a caught-up customer.
+     */
+    @Test
+    void testGetLeaderboardPage_AppliesTransactionsToCaughtUpCustomers() {
+        installSnapshot();
+
+        rewardSnapshotHolder.applyTransaction(8, today, 200);
+
+        assertEquals(List.of(8, 1), rewardLeaderboardService.getLeaderboardPage(0, 2).stream().map(LeaderboardEntry::getCustomerId).toList());
+        assertEquals(205, rewardLeaderboardService.getCustomerRank(8).getTotalPoints());
+    }
+
+    /**
+     * Tests the rank of ranked, caught-up and unknown customers.
+     */
+    @Test
+    void testGetCustomerRank() {
+        installSnapshot();
+        when(rewardServiceImpl.calculateCustomerRewardsById(eq(6), any()))
+                .thenThrow(new CustomerNotFoundException("Customer not found with id: 6"));
+
+        assertEquals(1, rewardLeaderboardService.getCustomerRank(1).getRank());
+        assertEquals(3, rewardLeaderboardService.getCustomerRank(7).getRank());
+        assertEquals(4, rewardLeaderboardService.getCustomerRank(5).getRank());
+        assertEquals(5, rewardLeaderboardService.getCustomerRank(2).getRank());
+        assertEquals(7, rewardLeaderboardService.getCustomerRank(4).getRank());
+        assertThrows(CustomerNotFoundException.class, () -> rewardLeaderboardService.getCustomerRank(6));
+    }
+
+    /**
+     * Tests that a customer created after the last catch-up is ranked among the others from its own calculation.
+     */
+    @Test
+    void testGetCustomerRank_NotCaughtUp() {
+        installSnapshot();
+        when(rewardServiceImpl.calculateCustomerRewardsById(eq(9), any())).thenReturn(reward(9, 90));
+
+        assertEquals(4, rewardLeaderboardService.getCustomerRank(9).getRank());
+        assertEquals(List.of(1, 3, 7, 5), rewardLeaderboardService.getLeaderboardPage(0, 4).stream().map(LeaderboardEntry::getCustomerId).toList());
+    }
+
+    /**
+     * Tests that without a snapshot the leaderboard is sorted from the all-customer calculation.
+     */
+    @Test
+    void testGetLeaderboardPage_WithoutSnapshot() {
+        when(rewardServiceImpl.calculateAllCustomersRewards(any())).thenReturn(List.of(reward(1, 10), reward(2, 90), reward(3, 10)));
+
+        assertEquals(List.of(2, 1), rewardLeaderboardService.getLeaderboardPage(0, 2).stream().map(LeaderboardEntry::getCustomerId).toList());
+        assertEquals(3, rewardLeaderboardService.getCustomerRank(3).getRank());
+        verify(rewardServiceImpl, never()).calculateRewardsNotInSnapshot(any(), any());
+    }
+}
@@ -0,0 +1,214 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.ReportExecutorConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.dto.TransactionResponse;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.MonthlyReward;
+import com.retailer.reward_service.entity.RewardRuleSet;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.exceptions.InvalidTransactionAmountException;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.RewardRuleSetRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the monthly reward ledger maintained on writes matches a rebuild from raw transactions,
+ * and that reward reads combine the ledger with the partial first month correctly.
+ */
+@DataJpaTest
+@ImportAutoConfiguration({TransactionAutoConfiguration.class, MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({CacheConfig.class, ReportExecutorConfig.class, RewardLedgerService.class, RewardSnapshotHolder.class, RewardRulesHolder.class, TransactionServiceImpl.class, RewardServiceImpl.class, RewardWindowResolver.class,
+        RewardMetrics.class, RepositoryBulkhead.class, ColumnarTransactionStore.class, RewardPartition.class,
+        CustomerIdFilter.class, TransactionArchiveService.class})
+class RewardLedgerServiceTest {
+
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private TransactionServiceImpl transactionServiceImpl;
+
+    @Autowired
+    private RewardServiceImpl rewardServiceImpl;
+
+    @Autowired
+    private RewardRulesHolder rewardRulesHolder;
+
+    @Autowired
+    private RewardRuleSetRepository rewardRuleSetRepository;
+
+    private final LocalDate now = LocalDate.now();
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    private List<MonthlyReward> ledgerRows() {
+        testEntityManager.flush();
+        testEntityManager.clear();
+        return monthlyRewardRepository.findAll().stream()
+                .sorted(Comparator.comparing(MonthlyReward::getCustomerId).thenComparing(MonthlyReward::getPeriod))
+                .map(row -> new MonthlyReward(null, row.getCustomerId(), row.getPeriod(), row.getPoints()))
+                .toList();
+    }
+
+    /**
+     * Tests that transactions saved through the service update the ledger exactly like a full rebuild.
+     */
+    @Test
+    void testSaveTransaction_MatchesRebuild() {
+        Integer customerId = customerRepository.save(Customer.builder().name("Alice").build()).getCustomerId();
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 120.0, now));
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 75.0, now));
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 200.0, now.minusMonths(5)));
+
+        List<MonthlyReward> incremental = ledgerRows();
+        rewardLedgerService.rebuild();
+
+        assertEquals(2, incremental.size());
+        assertEquals(115L, incremental.get(1).getPoints());
+        assertEquals(incremental, ledgerRows());
+    }
+
+    /**
+     * Tests that reads only count the part of the first month that is inside the window.
+     */
+    @Test
+    void testCalculateCustomerRewardsById_PartialFirstMonth() {
+        Customer customer = customerRepository.save(Customer.builder().name("Bob").build());
+        LocalDate windowStart = now.minusMonths(3);
+        transactionRepository.saveAll(List.of(
+                new Transaction(customer, 120.0, windowStart),                 // 90, counted
+                new Transaction(customer, 120.0, windowStart.minusDays(1)),    // 90, outside the window
+                new Transaction(customer, 60.0, now)));                        // 10
+        rewardLedgerService.rebuild();
+
+        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customer.getCustomerId(), RewardWindow.lastMonths(now, 3));
+
+        assertEquals(100, response.getTotalPoints());
+    }
+
+    /**
+     * Tests that after new rules are swapped in, fully covered months are calculated with them even before the
+     * ledger has been rebuilt, and read from the ledger again once the rebuild is recorded.
+     */
+    @Test
+    void testCalculateCustomerRewardsById_LedgerOfPreviousRules() {
+        Integer customerId = customerRepository.save(Customer.builder().name("Carol").build()).getCustomerId();
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 120.0, now.minusMonths(1).withDayOfMonth(1)));  // 90, a full month
+        RewardWindow window = RewardWindow.lastMonths(now, 3);
+        RewardRules doublePoints = RewardRules.compile(new RewardRulesDefinition("v2",
+                List.of(new RewardRulesDefinition.Tier(new BigDecimal("50"), new BigDecimal("2"))), List.of()));
+        RewardRuleSet ruleSet = rewardRuleSetRepository.save(new RewardRuleSet(null, "v2", "{}", Instant.now(), null));
+        RewardRules previous = rewardRulesHolder.swap(doublePoints);
+        try {
+            RewardResponse beforeRebuild = rewardServiceImpl.calculateCustomerRewardsById(customerId, window);
+            assertEquals(140, beforeRebuild.getTotalPoints());
+            assertEquals("v2", beforeRebuild.getRuleVersion());
+            assertEquals(90L, ledgerRows().get(0).getPoints());
+
+            rewardLedgerService.rebuild();
+
+            assertEquals(140L, ledgerRows().get(0).getPoints());
+            assertNotNull(rewardRuleSetRepository.findById(ruleSet.getId()).orElseThrow().getLedgerRebuiltAt());
+            assertEquals(140, rewardServiceImpl.calculateCustomerRewardsById(customerId, window).getTotalPoints());
+        } finally {
+            rewardRulesHolder.swap(previous);
+            rewardRulesHolder.ledgerRebuilt(previous);
+        }
+    }
+
+    /**
+     * Tests that invalid amounts are rejected before anything is written.
+     */
+    @Test
+    void testSaveTransaction_InvalidAmount() {
+        Integer customerId = customerRepository.save(Customer.builder().name("Jack").build()).getCustomerId();
+
+        assertThrows(InvalidTransactionAmountException.class,
+                () -> transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 0.0, now)));
+        assertEquals(0, transactionRepository.count());
+        assertEquals(0, monthlyRewardRepository.count());
+    }
+
+    /**
+     * Tests that concurrent first transactions of a month for one customer all succeed and add up in a single
+     * ledger row. Runs without the test transaction, so every write commits on its own.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testSaveTransaction_ConcurrentFirstWritesOfMonth() throws Exception {
+        int writers = 8;
+        Integer customerId = customerRepository.save(Customer.builder().name("Eve").build()).getCustomerId();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            CyclicBarrier start = new CyclicBarrier(writers);
+            List<Future<TransactionResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 120.0, now));
+                }));
+            }
+            for (Future<TransactionResponse> response : responses) {
+                assertEquals(90, response.get(30, TimeUnit.SECONDS).getPoints());
+            }
+
+            List<MonthlyReward> rows = monthlyRewardRepository.findAll();
+            assertEquals(1, rows.size());
+            assertEquals(90L * writers, rows.get(0).getPoints());
+        } finally {
+            executor.shutdownNow();
+            monthlyRewardRepository.deleteAll();
+            transactionRepository.deleteAll();
+            customerRepository.deleteById(customerId);
+        }
+    }
+}
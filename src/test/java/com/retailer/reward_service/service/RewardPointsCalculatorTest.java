@@ -0,0 +1,68 @@
+package com.retailer.reward_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RewardPointsCalculator}.
+ */
+class RewardPointsCalculatorTest {
+
+    /**
+     * Tests that months are emitted in chronological order across a year boundary,
+     * including months whose points add up to zero.
+     */
+    @Test
+    void testMonthlyAccumulator_WindowOrder() {
+        RewardPointsCalculator.MonthlyAccumulator accumulator = new RewardPointsCalculator.MonthlyAccumulator(YearMonth.of(2024, 11), 3);
+        accumulator.add(202501, 30);
+        accumulator.add(202411, 90);
+        accumulator.add(202412, 0);
+        accumulator.add(202411, 10);
+
+        Map<YearMonth, Integer> monthlyPoints = accumulator.toMonthlyPoints();
+
+        assertEquals(List.of(YearMonth.of(2024, 11), YearMonth.of(2024, 12), YearMonth.of(2025, 1)), List.copyOf(monthlyPoints.keySet()));
+        assertEquals(100, monthlyPoints.get(YearMonth.of(2024, 11)));
+        assertEquals(0, monthlyPoints.get(YearMonth.of(2024, 12)));
+        assertEquals(130, accumulator.getTotalPoints());
+        assertThrows(IllegalArgumentException.class, () -> accumulator.add(202502, 1));
+
+        accumulator.reset();
+        assertEquals(0, accumulator.getTotalPoints());
+        assertTrue(accumulator.toMonthlyPoints().isEmpty());
+    }
+
+    /**
+     * Tests that calculating and accumulating points does not allocate per transaction.
+     */
+    @Test
+    void testCalculatePoints_DoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        RewardPointsCalculator.MonthlyAccumulator accumulator = new RewardPointsCalculator.MonthlyAccumulator(YearMonth.of(2025, 1), 12);
+        runTransactions(accumulator, 100_000);  // warm up
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        runTransactions(accumulator, 1_000_000);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        // One object per transaction would take at least 16 MB; the bound leaves room for JIT compilation on this thread
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes for 1M transactions");
+    }
+
+    private void runTransactions(RewardPointsCalculator.MonthlyAccumulator accumulator, int count) {
+        accumulator.reset();
+        long epochDay = LocalDate.of(2025, 1, 15).toEpochDay();
+        for (int i = 0; i < count; i++) {
+            accumulator.add(202501 + i % 12, RewardRules.DEFAULT.calculatePoints(1 + i % 250, epochDay + i % 365));
+        }
+    }
+}
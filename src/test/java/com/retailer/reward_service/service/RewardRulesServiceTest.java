@@ -0,0 +1,150 @@
+package com.retailer.reward_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.entity.RewardRuleSet;
+import com.retailer.reward_service.exceptions.InvalidRewardRulesException;
+import com.retailer.reward_service.repository.RewardRuleSetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RewardRulesService}: activating, restoring and recalculating reward rules.
+ */
+class RewardRulesServiceTest {
+
+    @Mock
+    private RewardRuleSetRepository rewardRuleSetRepository;
+
+    @Mock
+    private RewardLedgerService rewardLedgerService;
+
+    @Mock
+    private ObjectProvider<RewardSnapshotService> rewardSnapshotService;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager("customerRewards");
+
+    private final RewardRulesHolder rewardRulesHolder = new RewardRulesHolder(new RewardProperties());
+
+    private RewardRulesService rewardRulesService;
+
+    private static RewardRulesDefinition doublePoints(String version) {
+        return new RewardRulesDefinition(version,
+                List.of(new RewardRulesDefinition.Tier(new BigDecimal("50"), new BigDecimal("2"))),
+                List.of(new RewardRulesDefinition.Promotion("june", LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30), new BigDecimal("1.5"))));
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rewardRulesService = new RewardRulesService(rewardRulesHolder, rewardRuleSetRepository, rewardLedgerService,
+                rewardSnapshotService, cacheManager, taskScheduler, objectMapper, new RewardPartition(new RewardProperties()));
+    }
+
+    /**
+     * Tests that activation stores the rules, swaps them in, clears the caches and schedules the recalculation.
+     */
+    @Test
+    void testActivate_SwapsRules() {
+        cacheManager.getCache("customerRewards").put(1, "stale");
+
+        RewardRules rules = rewardRulesService.activate(doublePoints("v2"));
+
+        assertSame(rules, rewardRulesHolder.current());
+        assertEquals(100, rewardRulesHolder.current().calculatePoints(100.0, LocalDate.of(2025, 5, 1)));
+        assertEquals(150, rewardRulesHolder.current().calculatePoints(100.0, LocalDate.of(2025, 6, 1)));
+        assertNull(cacheManager.getCache("customerRewards").get(1));
+        ArgumentCaptor<RewardRuleSet> saved = ArgumentCaptor.forClass(RewardRuleSet.class);
+        verify(rewardRuleSetRepository).save(saved.capture());
+        assertEquals("v2", saved.getValue().getVersion());
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    /**
+     * Tests that a version cannot be activated twice and that invalid rules leave the active ones in place.
+     */
+    @Test
+    void testActivate_Rejected() {
+        when(rewardRuleSetRepository.existsByVersion("v1")).thenReturn(true);
+
+        assertThrows(InvalidRewardRulesException.class, () -> rewardRulesService.activate(doublePoints("default")));
+        assertThrows(InvalidRewardRulesException.class, () -> rewardRulesService.activate(doublePoints("v1")));
+        assertThrows(InvalidRewardRulesException.class, () -> rewardRulesService.activate(new RewardRulesDefinition("v3", List.of(), List.of())));
+        assertEquals(RewardRules.DEFAULT, rewardRulesHolder.current());
+        verify(rewardRuleSetRepository, never()).save(any());
+    }
+
+    /**
+     * Tests that the last activated rules are restored from their stored definition on startup.
+     */
+    @Test
+    void testLoadActivatedRules() throws Exception {
+        String json = objectMapper.writeValueAsString(doublePoints("v2"));
+        when(rewardRuleSetRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(new RewardRuleSet(7L, "v2", json, Instant.now(), Instant.now())));
+
+        rewardRulesService.loadActivatedRules();
+        rewardRulesService.resumeRecalculation();
+
+        assertEquals(RewardRules.compile(doublePoints("v2")), rewardRulesHolder.current());
+        assertTrue(rewardRulesHolder.isLedgerBuiltWith(rewardRulesHolder.current()));
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    /**
+     * Tests that rules restored before their ledger rebuild finished keep the ledger bypassed and rebuild it again.
+     */
+    @Test
+    void testLoadActivatedRules_LedgerNotRebuilt() throws Exception {
+        String json = objectMapper.writeValueAsString(doublePoints("v2"));
+        when(rewardRuleSetRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(new RewardRuleSet(7L, "v2", json, Instant.now(), null)));
+
+        rewardRulesService.loadActivatedRules();
+        rewardRulesService.resumeRecalculation();
+
+        assertFalse(rewardRulesHolder.isLedgerBuiltWith(rewardRulesHolder.current()));
+        ArgumentCaptor<Runnable> recalculation = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(recalculation.capture(), any(Instant.class));
+        recalculation.getValue().run();
+        verify(rewardLedgerService).rebuild();
+    }
+
+    /**
+     * Tests that a recalculation is skipped once newer rules were activated.
+     */
+    @Test
+    void testRecalculate_SkipsSupersededRules() {
+        RewardRules v2 = rewardRulesService.activate(doublePoints("v2"));
+        rewardRulesService.activate(doublePoints("v3"));
+
+        rewardRulesService.recalculate(v2);
+        verify(rewardLedgerService, never()).rebuild();
+
+        rewardRulesService.recalculate(rewardRulesHolder.current());
+        verify(rewardLedgerService).rebuild();
+        verify(rewardSnapshotService).ifAvailable(any());
+    }
+}
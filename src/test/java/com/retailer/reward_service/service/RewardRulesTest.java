@@ -0,0 +1,150 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.exceptions.InvalidRewardRulesException;
+import com.retailer.reward_service.exceptions.InvalidTransactionAmountException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RewardRules}: the compiled evaluator against the definition it was compiled from.
+ */
+class RewardRulesTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 15);
+
+    private static RewardRulesDefinition.Tier tier(String threshold, String pointsPerDollar) {
+        return new RewardRulesDefinition.Tier(new BigDecimal(threshold), new BigDecimal(pointsPerDollar));
+    }
+
+    private static RewardRulesDefinition.Promotion promotion(String name, LocalDate from, LocalDate to, String multiplier) {
+        return new RewardRulesDefinition.Promotion(name, from, to, new BigDecimal(multiplier));
+    }
+
+    private static RewardRulesDefinition definition(List<RewardRulesDefinition.Tier> tiers, RewardRulesDefinition.Promotion... promotions) {
+        return new RewardRulesDefinition("test", tiers, List.of(promotions));
+    }
+
+    /**
+     * Tests the tier boundaries of the built-in rules.
+     */
+    @Test
+    void testDefaultRules_TierBoundaries() {
+        RewardRules rules = RewardRules.DEFAULT;
+
+        assertEquals(0, rules.calculatePoints(0.01, DAY));
+        assertEquals(0, rules.calculatePoints(50.0, DAY));
+        assertEquals(0, rules.calculatePoints(50.99, DAY));
+        assertEquals(1, rules.calculatePoints(51.0, DAY));
+        assertEquals(50, rules.calculatePoints(100.0, DAY));
+        assertEquals(51, rules.calculatePoints(100.5, DAY));
+        assertEquals(90, rules.calculatePoints(120.0, DAY));
+        assertThrows(InvalidTransactionAmountException.class, () -> rules.calculatePoints(0.0, DAY));
+        assertThrows(InvalidTransactionAmountException.class, () -> rules.calculatePoints(-1.0, DAY));
+        assertThrows(InvalidTransactionAmountException.class, () -> rules.calculatePoints(Double.NaN, DAY));
+        assertThrows(InvalidTransactionAmountException.class, () -> rules.calculatePoints((Double) null, DAY));
+    }
+
+    /**
+     * Tests dozens of unsorted tiers against a linear scan over the tier definitions.
+     */
+    @Test
+    void testManyTiers_MatchLinearScan() {
+        List<RewardRulesDefinition.Tier> tiers = new ArrayList<>();
+        for (int i = 47; i >= 0; i--) {
+            tiers.add(tier(String.valueOf(20 * i + 5), new BigDecimal("0.05").multiply(BigDecimal.valueOf(i + 1)).toPlainString()));
+        }
+        RewardRules rules = RewardRules.compile(definition(tiers));
+        assertEquals(49, rules.getTierCount());
+
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            long cents = 1 + random.nextLong(120_000);
+            // Exact points of the definition, summed band by band in hundredths of a cent
+            long scaled = 0;
+            for (int t = 0; t < 48; t++) {
+                long from = (20L * t + 5) * 100;
+                long to = t == 47 ? Long.MAX_VALUE : (20L * (t + 1) + 5) * 100;
+                long rate = 5L * (t + 1);
+                scaled += Math.max(0, Math.min(cents, to) - from) * rate;
+            }
+            int expected = (int) (scaled / 10_000);
+            assertEquals(expected, rules.calculatePoints(cents / 100.0, DAY), 1, "amount " + cents / 100.0);
+        }
+    }
+
+    /**
+     * Tests that a tier starting at zero needs no sentinel and earns from the first cent.
+     */
+    @Test
+    void testTierAtZero() {
+        RewardRules rules = RewardRules.compile(definition(List.of(tier("0", "1"), tier("10", "3"))));
+
+        assertEquals(2, rules.getTierCount());
+        assertEquals(5, rules.calculatePoints(5.5, DAY));
+        assertEquals(13, rules.calculatePoints(11.0, DAY));
+    }
+
+    /**
+     * Tests that promotions multiply the points of their days only, rounding down.
+     */
+    @Test
+    void testPromotions_ApplyWithinTheirDays() {
+        RewardRules rules = RewardRules.compile(definition(RewardRulesDefinition.defaults().getTiers(),
+                promotion("late", LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30), "3"),
+                promotion("early", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 12), "1.1")));
+
+        assertEquals(52, rules.calculatePoints(101.0, LocalDate.of(2025, 3, 9)));
+        assertEquals(57, rules.calculatePoints(101.0, LocalDate.of(2025, 3, 10)));
+        assertEquals(57, rules.calculatePoints(101.0, LocalDate.of(2025, 3, 12)));
+        assertEquals(52, rules.calculatePoints(101.0, LocalDate.of(2025, 3, 13)));
+        assertEquals(156, rules.calculatePoints(101.0, LocalDate.of(2025, 6, 30)));
+        assertEquals(52, rules.calculatePoints(101.0, LocalDate.of(2025, 7, 1)));
+        assertEquals(52, rules.calculatePoints(101.0, LocalDate.of(1900, 1, 1)));
+    }
+
+    /**
+     * Tests that invalid definitions are rejected with a message.
+     */
+    @Test
+    void testCompile_RejectsInvalidDefinitions() {
+        List<RewardRulesDefinition.Tier> defaultTiers = RewardRulesDefinition.defaults().getTiers();
+
+        assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(new RewardRulesDefinition(" ", defaultTiers, List.of())));
+        assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(definition(List.of())));
+        assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(definition(List.of(tier("50", "1"), tier("50.00", "2")))));
+        assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(definition(List.of(tier("50.001", "1")))));
+        assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(definition(List.of(tier("-1", "1")))));
+        assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(definition(List.of(new RewardRulesDefinition.Tier(null, BigDecimal.ONE)))));
+        InvalidRewardRulesException overlap = assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(definition(defaultTiers,
+                promotion("a", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 10), "2"),
+                promotion("b", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 20), "2"))));
+        assertEquals("Promotions a and b overlap", overlap.getMessage());
+        assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(definition(defaultTiers,
+                promotion("reversed", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 1), "2"))));
+        assertThrows(InvalidRewardRulesException.class, () -> RewardRules.compile(definition(defaultTiers,
+                promotion("zero", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 1), "0"))));
+    }
+
+    /**
+     * Tests that rules compiled from equal definitions are equal and share a fingerprint, and that the version counts.
+     */
+    @Test
+    void testEquality() {
+        RewardRules rules = RewardRules.compile(RewardRulesDefinition.defaults());
+        RewardRulesDefinition renamed = RewardRulesDefinition.defaults();
+        renamed.setVersion("renamed");
+
+        assertEquals(RewardRules.DEFAULT, rules);
+        assertEquals(RewardRules.DEFAULT.getFingerprint(), rules.getFingerprint());
+        assertNotEquals(RewardRules.DEFAULT, RewardRules.compile(renamed));
+        assertNotEquals(RewardRules.DEFAULT.getFingerprint(), RewardRules.compile(renamed).getFingerprint());
+    }
+}
@@ -1,19 +1,38 @@
 package com.retailer.reward_service.service;
 
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.BatchRewardResponse;
+import com.retailer.reward_service.dto.CustomerIdRange;
+import com.retailer.reward_service.dto.MonthlyPointsView;
 import com.retailer.reward_service.dto.RewardResponse;
-import com.retailer.reward_service.entity.Customer;
-import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.entity.MonthlyReward;
 import com.retailer.reward_service.exceptions.CustomerNotFoundException;
+import com.retailer.reward_service.exceptions.InvalidBatchRequestException;
 import com.retailer.reward_service.exceptions.InvalidTransactionAmountException;
+import com.retailer.reward_service.repository.ArchivedTransactionRepository;
 import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -25,66 +44,162 @@ class RewardServiceImplApplicationTest {
     @Mock
     private CustomerRepository customerRepository;
 
-    @InjectMocks
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ForkJoinPool rewardReportPool = new ForkJoinPool(2);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RewardRulesHolder rewardRulesHolder = new RewardRulesHolder(new RewardProperties());
+
+    private final RewardSnapshotHolder rewardSnapshotHolder = new RewardSnapshotHolder(rewardRulesHolder);
+
     private RewardServiceImpl rewardServiceImpl;
 
+    private CustomerIdFilter customerIdFilter;
+
+    private final LocalDate now = LocalDate.of(2025, 6, 15);
+
+    /**
+     * Partially covers March and June, fully covers April and May.
+     */
+    private final RewardWindow window = RewardWindow.lastMonths(now, 3);
+
+    private RewardProperties rewardProperties;
+
+    private RewardMetrics rewardMetrics;
+
+    private RewardPartition rewardPartition;
+
+    private TransactionArchiveService transactionArchiveService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        rewardProperties = new RewardProperties();
+        rewardProperties.getReport().setParallelism(2);
+        rewardProperties.getReport().setMinRangeSize(2);
+        rewardMetrics = new RewardMetrics(meterRegistry);
+        customerIdFilter = new CustomerIdFilter(customerRepository, rewardProperties, mock(TaskScheduler.class));
+        rewardPartition = new RewardPartition(rewardProperties);
+        transactionArchiveService = new TransactionArchiveService(customerRepository, transactionRepository,
+                archivedTransactionRepository, null, rewardProperties, rewardPartition, rewardMetrics);
+        transactionArchiveService.readArchivedThrough();
+        rewardServiceImpl = newRewardServiceImpl(new RepositoryBulkhead(false, 1, Duration.ZERO, Duration.ZERO, meterRegistry));
+        when(transactionRepository.findMonthlyPointsBetween(any(), any(), any(), anyInt(), anyInt())).thenReturn(List.of());
+    }
+
+    private RewardServiceImpl newRewardServiceImpl(RepositoryBulkhead repositoryBulkhead) {
+        return new RewardServiceImpl(customerRepository, monthlyRewardRepository,
+                rewardReportPool, transactionManager, rewardProperties, rewardMetrics,
+                repositoryBulkhead, rewardSnapshotHolder,
+                new ColumnarTransactionStore(customerRepository, transactionRepository, transactionManager, rewardProperties,
+                        rewardMetrics, rewardRulesHolder, transactionArchiveService), rewardRulesHolder, rewardPartition,
+                customerIdFilter, transactionArchiveService);
     }
 
     /**
-     * Creates a {@link Customer} object with the given ID, name, and transactions.
+     * Creates a {@link MonthlyPointsView} row as returned by the aggregation queries.
      * @param id           the customer ID
      * @param name         the customer's name
-     * @param transactions the list of transactions
-     * @return a populated {@link Customer} instance
+     * @param month        a date in the aggregated month, or {@code null} for a customer without points
+     * @param points       the aggregated points
+     * @param invalidCount the number of invalid transactions in the group
+     * @return a {@link MonthlyPointsView} instance
      */
-    private Customer createCustomerWithTransactions(Integer id, String name, List<Transaction> transactions) {
-        Customer customer = new Customer();
-        customer.setCustomerId(id);
-        customer.setName(name);
-        customer.setTransactions(transactions);
-        return customer;
+    private MonthlyPointsView createMonthlyPoints(Integer id, String name, LocalDate month, long points, long invalidCount) {
+        return createMonthlyPoints(id, name, month, points, invalidCount, 0);
     }
 
     /**
-     * Creates a {@link Transaction} object with the given amount and date.
-     * @param amount the transaction amount
-     * @param date   the transaction date
-     * @return a {@link Transaction} instance
+     * Creates a {@link MonthlyPointsView} row aggregated from the given number of raw transactions.
      */
-    private Transaction createTransaction(Double amount, LocalDate date) {
-        Transaction tx = new Transaction();
-        tx.setAmount(amount);
-        tx.setTransactionDate(date);
-        return tx;
+    private MonthlyPointsView createMonthlyPoints(Integer id, String name, LocalDate month, long points, long invalidCount,
+                                                  long transactionCount) {
+        Integer period = month == null ? null : MonthlyReward.periodOf(month);
+        return new MonthlyPointsView() {
+            public Integer getCustomerId() { return id; }
+            public String getCustomerName() { return name; }
+            public Integer getPeriod() { return period; }
+            public Long getPoints() { return points; }
+            public Long getInvalidCount() { return invalidCount; }
+            public Long getTransactionCount() { return transactionCount; }
+        };
     }
 
     /**
-     * Tests successful calculation of reward points for a single customer
-     * with valid transactions within the last 3 months.
+     * Tests successful calculation of reward points for a single customer, combining
+     * full months from the ledger with the partially covered first and last months of the window.
      */
     @Test
     void testCalculateCustomerRewardsById_Success() {
         Integer customerId = 1;
-        LocalDate now = LocalDate.now();
-        List<Transaction> transactions = Arrays.asList(
-                createTransaction(120.0, now.minusMonths(1)),
-                createTransaction(75.0, now.minusMonths(2)),
-                createTransaction(40.0, now.minusMonths(1)), // should not count
-                createTransaction(200.0, now.minusMonths(3)) // edge of 3 months
-        );
-        Customer customer = createCustomerWithTransactions(customerId, "John", transactions);
+        when(monthlyRewardRepository.findMonthlyPointsBetween(eq(202504), eq(202505), eq(customerId), eq(customerId))).thenReturn(List.of(
+                createMonthlyPoints(customerId, "John", now.minusMonths(2), 25, 0),
+                createMonthlyPoints(customerId, "John", now.minusMonths(1), 90, 0)));
+        when(transactionRepository.findMonthlyPointsBetween(any(), eq(LocalDate.of(2025, 3, 15)), eq(LocalDate.of(2025, 3, 31)), eq(customerId), eq(customerId)))
+                .thenReturn(List.of(createMonthlyPoints(customerId, "John", now.minusMonths(3), 250, 0, 3)));
+        when(transactionRepository.findMonthlyPointsBetween(any(), eq(LocalDate.of(2025, 6, 1)), eq(now), eq(customerId), eq(customerId)))
+                .thenReturn(List.of(createMonthlyPoints(customerId, "John", now, 10, 0, 2)));
 
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-
-        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customerId);
+        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customerId, window);
 
         assertEquals(customerId, response.getCustomerId());
         assertEquals("John", response.getCustomerName());
-        assertTrue(response.getTotalPoints() > 0);
-        assertFalse(response.getMonthlyPoints().isEmpty());
+        assertEquals(375, response.getTotalPoints());
+        assertEquals(List.of(YearMonth.of(2025, 3), YearMonth.of(2025, 4), YearMonth.of(2025, 5), YearMonth.of(2025, 6)),
+                List.copyOf(response.getMonthlyPoints().keySet()));
+        assertEquals(250, response.getMonthlyPoints().get(YearMonth.of(2025, 3)));
+        assertEquals(5, meterRegistry.get(RewardMetrics.TRANSACTIONS_SCANNED).counter().count());
+        assertEquals(2, meterRegistry.get(RewardMetrics.LEDGER_ROWS_READ).counter().count());
+        assertEquals(1, meterRegistry.get(RewardMetrics.CALCULATIONS)
+                .tags("mode", RewardMetrics.MODE_SINGLE, "outcome", "success").timer().count());
+    }
+
+    /**
+     * Tests that a window within a single month is aggregated from the raw transactions once.
+     */
+    @Test
+    void testCalculateCustomerRewardsById_WindowWithinOneMonth() {
+        Integer customerId = 1;
+        RewardWindow singleMonth = new RewardWindow(LocalDate.of(2025, 6, 2), LocalDate.of(2025, 6, 10));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(customerId), eq(customerId)))
+                .thenReturn(List.of(createMonthlyPoints(customerId, "John", null, 0, 0)));
+        when(transactionRepository.findMonthlyPointsBetween(any(), eq(singleMonth.getFromDate()), eq(singleMonth.getToDate()), eq(customerId), eq(customerId)))
+                .thenReturn(List.of(createMonthlyPoints(customerId, "John", now, 40, 0)));
+
+        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customerId, singleMonth);
+
+        assertEquals(40, response.getTotalPoints());
+        assertEquals(Map.of(YearMonth.of(2025, 6), 40), response.getMonthlyPoints());
+        verify(transactionRepository, times(1)).findMonthlyPointsBetween(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    /**
+     * Tests that a window of whole months is read from the ledger only.
+     */
+    @Test
+    void testCalculateCustomerRewardsById_WholeMonthsFromLedger() {
+        Integer customerId = 1;
+        RewardWindow wholeMonths = new RewardWindow(LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 31));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(eq(202412), eq(202501), eq(customerId), eq(customerId))).thenReturn(List.of(
+                createMonthlyPoints(customerId, "John", LocalDate.of(2024, 12, 1), 5, 0),
+                createMonthlyPoints(customerId, "John", LocalDate.of(2025, 1, 1), 7, 0)));
+
+        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customerId, wholeMonths);
+
+        assertEquals(12, response.getTotalPoints());
+        verify(transactionRepository, never()).findMonthlyPointsBetween(any(), any(), any(), anyInt(), anyInt());
     }
 
     /**
@@ -92,8 +207,34 @@ class RewardServiceImplApplicationTest {
      */
     @Test
     void testCalculateCustomerRewardsById_CustomerNotFound() {
-        when(customerRepository.findById(99)).thenReturn(Optional.empty());
-        assertThrows(CustomerNotFoundException.class, () -> rewardServiceImpl.calculateCustomerRewardsById(99));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(99), eq(99))).thenReturn(List.of());
+        assertThrows(CustomerNotFoundException.class, () -> rewardServiceImpl.calculateCustomerRewardsById(99, window));
+        assertEquals(1, meterRegistry.get(RewardMetrics.CALCULATIONS)
+                .tags("mode", RewardMetrics.MODE_SINGLE, "outcome", "not_found").timer().count());
+    }
+
+    /**
+     * Tests that IDs ruled out by the loaded {@link CustomerIdFilter} are rejected without a query or a stack trace,
+     * and left out of batch queries.
+     */
+    @Test
+    void testCalculateCustomerRewardsById_FilteredCustomerNotFound() {
+        when(customerRepository.findCustomerIdsAfter(Integer.MIN_VALUE, Limit.of(CustomerIdFilter.LOAD_BATCH_SIZE))).thenReturn(List.of(1, 2, 5));
+        customerIdFilter.load();
+
+        CustomerNotFoundException ex = assertThrows(CustomerNotFoundException.class,
+                () -> rewardServiceImpl.calculateCustomerRewardsById(3, window));
+        assertEquals("Customer not found with id: 3", ex.getMessage());
+        assertEquals(0, ex.getStackTrace().length);
+        verifyNoInteractions(monthlyRewardRepository, transactionRepository);
+
+        when(monthlyRewardRepository.findMonthlyPointsBetweenForCustomerIds(anyInt(), anyInt(), any()))
+                .thenReturn(List.of(createMonthlyPoints(2, "B", now.minusMonths(1), 90, 0)));
+        BatchRewardResponse response = rewardServiceImpl.calculateCustomersRewardsByIds(List.of(2, 3, 4), window);
+
+        assertEquals(Set.of(2), response.getRewards().keySet());
+        assertEquals(Set.of(3, 4), response.getErrors().keySet());
+        verify(monthlyRewardRepository).findMonthlyPointsBetweenForCustomerIds(anyInt(), anyInt(), eq(new TreeSet<>(List.of(2))));
     }
 
     /**
@@ -103,59 +244,163 @@ class RewardServiceImplApplicationTest {
     @Test
     void testCalculateCustomerRewardsById_ZeroOrNegativeAmount() {
         Integer customerId = 2;
-        LocalDate now = LocalDate.now();
-        List<Transaction> transactions = Arrays.asList(
-                createTransaction(0.0, now),
-                createTransaction(-10.0, now)
-        );
-        Customer customer = createCustomerWithTransactions(customerId, "Jane", transactions);
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(customerId), eq(customerId)))
+                .thenReturn(List.of(createMonthlyPoints(customerId, "Jane", null, 0, 0)));
+        when(transactionRepository.findMonthlyPointsBetween(any(), any(), any(), eq(customerId), eq(customerId)))
+                .thenReturn(List.of(createMonthlyPoints(customerId, "Jane", now.minusMonths(3), 0, 2)));
 
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        assertThrows(InvalidTransactionAmountException.class, () -> rewardServiceImpl.calculateCustomerRewardsById(customerId, window));
+    }
 
-        assertThrows(InvalidTransactionAmountException.class, () -> rewardServiceImpl.calculateCustomerRewardsById(customerId));
+    /**
+     * Creates a {@link CustomerIdRange} projection.
+     */
+    private CustomerIdRange createCustomerIdRange(Integer min, Integer max) {
+        return new CustomerIdRange() {
+            public Integer getMinCustomerId() { return min; }
+            public Integer getMaxCustomerId() { return max; }
+        };
     }
 
     /**
      * Tests reward calculation for all customers.
-     * Validates that the result contains entries for each customer.
+     * Validates that the ranges computed in parallel are merged into one entry per customer in ID order.
      */
     @Test
     void testCalculateAllCustomersRewards() {
-        LocalDate now = LocalDate.now();
-        Customer c1 = createCustomerWithTransactions(1, "A", Arrays.asList(createTransaction(120.0, now)));
-        Customer c2 = createCustomerWithTransactions(2, "B", Arrays.asList(createTransaction(80.0, now.minusMonths(1))));
-        List<Customer> customers = Arrays.asList(c1, c2);
+        when(customerRepository.findCustomerIdRange()).thenReturn(createCustomerIdRange(1, 3));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(1), eq(2))).thenReturn(List.of(
+                createMonthlyPoints(1, "A", now.minusMonths(1), 90, 0),
+                createMonthlyPoints(1, "A", now, 30, 0),
+                createMonthlyPoints(2, "B", now, 30, 0)));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(3), eq(3))).thenReturn(List.of(
+                createMonthlyPoints(3, "C", null, 0, 0)));
 
-        when(customerRepository.findAll()).thenReturn(customers);
+        List<RewardResponse> responses = rewardServiceImpl.calculateAllCustomersRewards(window);
 
-        List<RewardResponse> responses = rewardServiceImpl.calculateAllCustomersRewards();
+        assertEquals(3, responses.size());
+        RewardResponse respA = responses.get(0);
+        assertEquals("A", respA.getCustomerName());
+        assertEquals(120, respA.getTotalPoints());
+        assertEquals(Map.of(YearMonth.of(2025, 5), 90, YearMonth.of(2025, 6), 30), respA.getMonthlyPoints());
+        assertEquals(30, responses.get(1).getTotalPoints());
+        assertEquals(0, responses.get(2).getTotalPoints());
+        assertTrue(responses.get(2).getMonthlyPoints().isEmpty());
+        verify(customerRepository, never()).findAll();
+    }
 
-        assertEquals(2, responses.size());
-        RewardResponse respA = responses.stream().filter(r -> "A".equals(r.getCustomerName())).findFirst().orElse(null);
-        RewardResponse respB = responses.stream().filter(r -> "B".equals(r.getCustomerName())).findFirst().orElse(null);
-        assertNotNull(respA);
-        assertNotNull(respB);
+    /**
+     * Tests that a report with more ranges running at once than the bulkhead has permits completes: its
+     * ranges wait for a permit instead of failing the report, while online calls still fail fast.
+     */
+    @Test
+    void testCalculateAllCustomersRewards_MoreRangesThanPermits() {
+        RepositoryBulkhead repositoryBulkhead = new RepositoryBulkhead(true, 1, Duration.ZERO, Duration.ofSeconds(10), meterRegistry);
+        rewardServiceImpl = newRewardServiceImpl(repositoryBulkhead);
+        when(customerRepository.findCustomerIdRange()).thenReturn(createCustomerIdRange(1, 8));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            int fromCustomerId = invocation.getArgument(2);
+            int toCustomerId = invocation.getArgument(3);
+            List<MonthlyPointsView> rows = new ArrayList<>();
+            for (int customerId = fromCustomerId; customerId <= toCustomerId; customerId++) {
+                rows.add(createMonthlyPoints(customerId, "C" + customerId, now, 30, 0));
+            }
+            return rows;
+        });
+
+        List<RewardResponse> responses = rewardServiceImpl.calculateAllCustomersRewards(window);
+
+        assertEquals(4, rewardServiceImpl.splitCustomerIdRange(1, 8).size());
+        assertEquals(8, responses.size());
+        assertEquals(8, responses.get(7).getCustomerId());
+        assertEquals(0.0, meterRegistry.get(RepositoryBulkhead.REJECTED).counter().count());
+        assertEquals(1, repositoryBulkhead.getAvailablePermits());
+    }
+
+    /**
+     * Tests that an empty customer table yields an empty report without further queries.
+     */
+    @Test
+    void testCalculateAllCustomersRewards_NoCustomers() {
+        when(customerRepository.findCustomerIdRange()).thenReturn(createCustomerIdRange(null, null));
+
+        assertTrue(rewardServiceImpl.calculateAllCustomersRewards(window).isEmpty());
+        verifyNoInteractions(monthlyRewardRepository);
+    }
+
+    /**
+     * Tests that the customer ID span is split into contiguous ranges bounded by the parallelism
+     * and the minimum range size.
+     */
+    @Test
+    void testSplitCustomerIdRange() {
+        List<int[]> ranges = rewardServiceImpl.splitCustomerIdRange(1, 3);
+        assertEquals(2, ranges.size());
+        assertArrayEquals(new int[]{1, 2}, ranges.get(0));
+        assertArrayEquals(new int[]{3, 3}, ranges.get(1));
+
+        ranges = rewardServiceImpl.splitCustomerIdRange(1, 1_000_000);
+        assertEquals(8, ranges.size());
+        assertEquals(1, ranges.get(0)[0]);
+        assertEquals(1_000_000, ranges.get(7)[1]);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1)[1] + 1, ranges.get(i)[0]);
+        }
+
+        ranges = rewardServiceImpl.splitCustomerIdRange(Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, ranges.get(ranges.size() - 1)[1]);
     }
 
     /**
-     * Tests that transactions older than 3 months are not included in reward point calculation.
+     * Tests that customers whose only transactions are older than 3 months get no points.
      */
     @Test
     void testCalculateCustomerRewardsById_TransactionOutsideThreeMonths() {
         Integer customerId = 3;
-        LocalDate now = LocalDate.now();
-        List<Transaction> transactions = Arrays.asList(
-                createTransaction(120.0, now.minusMonths(4)), // should not count
-                createTransaction(90.0, now.minusMonths(5))   // should not count
-        );
-        Customer customer = createCustomerWithTransactions(customerId, "Old", transactions);
-
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(customerId), eq(customerId)))
+                .thenReturn(List.of(createMonthlyPoints(customerId, "Old", null, 0, 0)));
 
-        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customerId);
+        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customerId, window);
 
         assertEquals(0, response.getTotalPoints());
         assertTrue(response.getMonthlyPoints().isEmpty());
+        verify(monthlyRewardRepository).findMonthlyPointsBetween(eq(202504), eq(202505), eq(customerId), eq(customerId));
+    }
+
+    /**
+     * Tests that a batch lookup resolves all customers with one query per source
+     * and reports unknown IDs per item.
+     */
+    @Test
+    void testCalculateCustomersRewardsByIds_ReportsUnknownIds() {
+        when(monthlyRewardRepository.findMonthlyPointsBetweenForCustomerIds(anyInt(), anyInt(), any())).thenReturn(List.of(
+                createMonthlyPoints(1, "A", now.minusMonths(1), 90, 0),
+                createMonthlyPoints(3, "C", null, 0, 0)));
+        when(transactionRepository.findMonthlyPointsBetweenForCustomerIds(any(), any(), any(), any())).thenReturn(List.of());
+
+        BatchRewardResponse response = rewardServiceImpl.calculateCustomersRewardsByIds(List.of(3, 1, 99, 1), window);
+
+        assertEquals(List.of(1, 3), List.copyOf(response.getRewards().keySet()));
+        assertEquals(90, response.getRewards().get(1).getTotalPoints());
+        assertEquals(Map.of(99, "Customer not found with id: 99"), response.getErrors());
+        verify(monthlyRewardRepository).findMonthlyPointsBetweenForCustomerIds(eq(202504), eq(202505), eq(new TreeSet<>(List.of(1, 3, 99))));
+        verify(transactionRepository, times(2)).findMonthlyPointsBetweenForCustomerIds(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that empty, null-containing and oversized batches are rejected.
+     */
+    @Test
+    void testCalculateCustomersRewardsByIds_InvalidBatch() {
+        List<Integer> tooMany = new ArrayList<>();
+        for (int i = 0; i <= new RewardProperties().getBatch().getMaxIds(); i++) {
+            tooMany.add(i);
+        }
+        assertThrows(InvalidBatchRequestException.class, () -> rewardServiceImpl.calculateCustomersRewardsByIds(List.of(), window));
+        assertThrows(InvalidBatchRequestException.class, () -> rewardServiceImpl.calculateCustomersRewardsByIds(Arrays.asList(1, null), window));
+        assertThrows(InvalidBatchRequestException.class, () -> rewardServiceImpl.calculateCustomersRewardsByIds(tooMany, window));
+        verifyNoInteractions(monthlyRewardRepository);
     }
 
     /**
@@ -164,10 +409,10 @@ class RewardServiceImplApplicationTest {
     @Test
     void testCalculateCustomerRewardsById_NoTransactions() {
         Integer customerId = 10;
-        Customer customer = createCustomerWithTransactions(customerId, "NoTx", Collections.emptyList());
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(customerId), eq(customerId)))
+                .thenReturn(List.of(createMonthlyPoints(customerId, "NoTx", null, 0, 0)));
 
-        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customerId);
+        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(customerId, window);
 
         assertEquals(customerId, response.getCustomerId());
         assertEquals("NoTx", response.getCustomerName());
@@ -175,4 +420,69 @@ class RewardServiceImplApplicationTest {
         assertTrue(response.getMonthlyPoints().isEmpty());
     }
 
+    /**
+     * Tests that a customer covered by the snapshot is served from it, including later transactions,
+     * without querying the database.
+     */
+    @Test
+    void testCalculateCustomerRewardsById_ServedFromSnapshot() {
+        Instant builtAt = Instant.parse("2025-06-15T00:00:00Z");
+        rewardSnapshotHolder.swap(new RewardSnapshot(window, builtAt, 0, RewardRules.DEFAULT, List.of(
+                new RewardResponse(1, "A", Map.of(YearMonth.of(2025, 4), 90), 90))));
+        rewardSnapshotHolder.applyTransaction(1, now, 25);
+
+        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(1, window);
+
+        assertEquals(115, response.getTotalPoints());
+        assertEquals(Map.of(YearMonth.of(2025, 4), 90, YearMonth.of(2025, 6), 25), response.getMonthlyPoints());
+        assertEquals(builtAt, response.getSnapshotTime());
+        verifyNoInteractions(monthlyRewardRepository, transactionRepository);
+    }
+
+    /**
+     * Tests that the all-customer report merges the snapshot with customers written during the build
+     * and customers created after it, in customer ID order.
+     */
+    @Test
+    void testCalculateAllCustomersRewards_MergesSnapshotWithLiveCustomers() {
+        rewardSnapshotHolder.beginBuild();
+        RewardSnapshot snapshot = new RewardSnapshot(window, Instant.now(), 0, RewardRules.DEFAULT, List.of(
+                new RewardResponse(1, "A", Map.of(YearMonth.of(2025, 4), 90), 90),
+                new RewardResponse(2, "B", Map.of(), 0)));
+        rewardSnapshotHolder.applyTransaction(2, now, 40);
+        rewardSnapshotHolder.swap(snapshot);
+        when(customerRepository.findCustomerIdRange()).thenReturn(createCustomerIdRange(1, 3));
+        when(monthlyRewardRepository.findMonthlyPointsBetweenForCustomerIds(anyInt(), anyInt(), eq(new TreeSet<>(Set.of(2)))))
+                .thenReturn(List.of(createMonthlyPoints(2, "B", null, 0, 0)));
+        when(transactionRepository.findMonthlyPointsBetweenForCustomerIds(any(), any(), any(), any())).thenReturn(List.of());
+        when(transactionRepository.findMonthlyPointsBetweenForCustomerIds(any(), eq(LocalDate.of(2025, 6, 1)), eq(now), any()))
+                .thenReturn(List.of(createMonthlyPoints(2, "B", now, 40, 0, 1)));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(3), eq(3)))
+                .thenReturn(List.of(createMonthlyPoints(3, "C", now.minusMonths(1), 10, 0)));
+
+        List<RewardResponse> rewards = rewardServiceImpl.calculateAllCustomersRewards(window);
+
+        assertEquals(List.of(1, 2, 3), rewards.stream().map(RewardResponse::getCustomerId).toList());
+        assertEquals(List.of(90, 40, 10), rewards.stream().map(RewardResponse::getTotalPoints).toList());
+        assertNotNull(rewards.get(0).getSnapshotTime());
+        assertNull(rewards.get(1).getSnapshotTime());
+        assertNull(rewards.get(2).getSnapshotTime());
+        verify(monthlyRewardRepository, never()).findMonthlyPointsBetween(anyInt(), anyInt(), eq(1), anyInt());
+    }
+
+    /**
+     * Tests that a snapshot of another window is ignored.
+     */
+    @Test
+    void testCalculateCustomerRewardsById_IgnoresSnapshotOfOtherWindow() {
+        rewardSnapshotHolder.swap(new RewardSnapshot(RewardWindow.lastMonths(now.minusDays(1), 3), Instant.now(), 0, RewardRules.DEFAULT, List.of(
+                new RewardResponse(1, "A", Map.of(), 0))));
+        when(monthlyRewardRepository.findMonthlyPointsBetween(anyInt(), anyInt(), eq(1), eq(1)))
+                .thenReturn(List.of(createMonthlyPoints(1, "A", now.minusMonths(1), 90, 0)));
+
+        RewardResponse response = rewardServiceImpl.calculateCustomerRewardsById(1, window);
+
+        assertEquals(90, response.getTotalPoints());
+        assertNull(response.getSnapshotTime());
+    }
 }
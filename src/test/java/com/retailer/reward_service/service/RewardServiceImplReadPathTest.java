@@ -0,0 +1,141 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.ReportExecutorConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests with Hibernate statistics that the reward read paths load no entities and never flush.
+ * Runs without a test transaction, as requests do, so every read opens its own read-only transaction.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({TransactionAutoConfiguration.class, MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({CacheConfig.class, ReportExecutorConfig.class, RewardLedgerService.class, RewardSnapshotHolder.class, RewardRulesHolder.class,
+        RewardServiceImpl.class, RewardWindowResolver.class, RewardMetrics.class, RepositoryBulkhead.class, ColumnarTransactionStore.class, RewardPartition.class,
+        CustomerIdFilter.class, TransactionArchiveService.class})
+class RewardServiceImplReadPathTest {
+
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private RewardServiceImpl rewardServiceImpl;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final LocalDate now = LocalDate.now();
+
+    /**
+     * Spans partially covered months, so both the ledger and the raw transactions are read.
+     */
+    private final RewardWindow window = new RewardWindow(now.minusMonths(3).withDayOfMonth(10), now);
+
+    private Statistics statistics;
+
+    private Customer alice;
+
+    @BeforeEach
+    void seed() {
+        alice = customerRepository.save(Customer.builder().name("Alice").build());
+        Customer bob = customerRepository.save(Customer.builder().name("Bob").build());
+        transactionRepository.saveAll(List.of(
+                new Transaction(alice, 120.0, now.minusMonths(2)),
+                new Transaction(alice, 75.0, now),
+                new Transaction(bob, 200.0, now.minusMonths(3).withDayOfMonth(15))));
+        rewardLedgerService.rebuild();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void deleteAll() {
+        transactionRepository.deleteAll();
+        monthlyRewardRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private void assertNoEntityWork() {
+        assertTrue(statistics.getQueryExecutionCount() > 0, "no query ran");
+        assertTrue(statistics.getTransactionCount() > 0, "reads ran outside a transaction");
+        assertEquals(0, statistics.getEntityLoadCount(), "entities loaded");
+        assertEquals(0, statistics.getEntityFetchCount(), "entities fetched");
+        assertEquals(0, statistics.getCollectionLoadCount(), "collections loaded");
+        assertEquals(0, statistics.getFlushCount(), "sessions flushed");
+    }
+
+    /**
+     * Tests that the statistics see entity loads at all, so the zero counts below are meaningful.
+     */
+    @Test
+    void testStatisticsCountEntityLoads() {
+        customerRepository.findAll();
+
+        assertEquals(2, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testSingleCustomerReadLoadsNoEntities() {
+        assertEquals(115, rewardServiceImpl.calculateCustomerRewardsById(alice.getCustomerId(), window).getTotalPoints());
+
+        assertNoEntityWork();
+    }
+
+    @Test
+    void testPageAndBatchReadsLoadNoEntities() {
+        assertEquals(2, rewardServiceImpl.calculateCustomersRewardsPage(null, 10, window).size());
+        assertEquals(1, rewardServiceImpl.calculateCustomersRewardsByIds(List.of(alice.getCustomerId()), window).getRewards().size());
+
+        assertNoEntityWork();
+    }
+
+    @Test
+    void testAllCustomersReadLoadsNoEntities() {
+        assertEquals(2, rewardServiceImpl.calculateAllCustomersRewards(window).size());
+
+        assertNoEntityWork();
+    }
+}
@@ -0,0 +1,178 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.DataSourceConfig;
+import com.retailer.reward_service.configuration.DataSourceRoute;
+import com.retailer.reward_service.configuration.ReadWriteRoutingDataSource;
+import com.retailer.reward_service.configuration.ReportExecutorConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests reward reads against a primary and a read replica, two in-memory H2 databases. The replica is a copy of
+ * the primary taken with H2's {@code SCRIPT}, so writes after the copy stand in for replication lag.
+ * Runs without a test transaction, as requests do, so every read opens its own read-only transaction.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-test-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "reward.replicas.datasources[0].url=" + RewardServiceImplReplicaTest.REPLICA_URL + ";IFEXISTS=TRUE",
+        "reward.replicas.datasources[0].username=sa",
+        "reward.replicas.connection-timeout=250ms"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({TransactionAutoConfiguration.class, MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({DataSourceConfig.class, CacheConfig.class, ReportExecutorConfig.class, RewardLedgerService.class, RewardSnapshotHolder.class,
+        RewardRulesHolder.class, TransactionServiceImpl.class, RewardServiceImpl.class, RewardWindowResolver.class, RewardMetrics.class,
+        RepositoryBulkhead.class, ColumnarTransactionStore.class, RewardPartition.class,
+        CustomerIdFilter.class, TransactionArchiveService.class})
+class RewardServiceImplReplicaTest {
+
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-test-replica";
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private TransactionServiceImpl transactionServiceImpl;
+
+    @Autowired
+    private RewardServiceImpl rewardServiceImpl;
+
+    @Autowired
+    private ReadWriteRoutingDataSource dataSource;
+
+    private final LocalDate now = LocalDate.now();
+
+    /**
+     * Not the default window, so neither the snapshot nor the caches answer.
+     */
+    private final RewardWindow window = new RewardWindow(now.minusMonths(3).withDayOfMonth(10), now);
+
+    private Customer alice;
+
+    private static Connection replicaConnection() throws SQLException {
+        JdbcDataSource replica = new JdbcDataSource();
+        replica.setURL(REPLICA_URL + ";DB_CLOSE_DELAY=-1");
+        replica.setUser("sa");
+        return replica.getConnection();
+    }
+
+    // Copies the primary into the replica, creating the replica if it was shut down
+    private void replicate() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection primary = dataSource.getConnection(); Statement statement = primary.createStatement();
+             ResultSet rows = statement.executeQuery("SCRIPT")) {
+            while (rows.next()) {
+                script.add(rows.getString(1));
+            }
+        }
+        try (Connection replica = replicaConnection(); Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @BeforeEach
+    void seed() throws SQLException {
+        alice = customerRepository.save(Customer.builder().name("Alice").build());
+        transactionRepository.save(new Transaction(alice, 120.0, now.minusMonths(2)));
+        rewardLedgerService.rebuild();
+        replicate();
+        dataSource.checkReplicas();
+        // Recorded on the primary only, as if the replica lagged behind
+        transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 120.0, now));
+    }
+
+    @AfterEach
+    void deleteAll() {
+        transactionRepository.deleteAll();
+        monthlyRewardRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    /**
+     * Tests that reads come from the replica and that requiring the primary reads the latest writes,
+     * also for the all-customer report calculated on the report pool.
+     */
+    @Test
+    void testReadsFromReplica_UnlessPrimaryRequired() {
+        assertEquals(90, rewardServiceImpl.calculateCustomerRewardsById(alice.getCustomerId(), window).getTotalPoints());
+        assertEquals(90, rewardServiceImpl.calculateAllCustomersRewards(window).get(0).getTotalPoints());
+
+        assertEquals(180, DataSourceRoute.onPrimary(
+                () -> rewardServiceImpl.calculateCustomerRewardsById(alice.getCustomerId(), window)).getTotalPoints());
+        assertEquals(180, DataSourceRoute.onPrimary(
+                () -> rewardServiceImpl.calculateAllCustomersRewards(window)).get(0).getTotalPoints());
+    }
+
+    /**
+     * Tests that reads fail over to the primary once a check found the replica down, and return to it once it is back.
+     */
+    @Test
+    void testFailover() throws SQLException {
+        try (Connection replica = replicaConnection(); Statement statement = replica.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        dataSource.checkReplicas();
+
+        assertEquals(180, rewardServiceImpl.calculateCustomerRewardsById(alice.getCustomerId(), window).getTotalPoints());
+        assertEquals(Map.of("replica-1", false), dataSource.getReplicaAvailability());
+
+        replicate();
+        dataSource.checkReplicas();
+
+        assertEquals(Map.of("replica-1", true), dataSource.getReplicaAvailability());
+        assertEquals(180, rewardServiceImpl.calculateCustomerRewardsById(alice.getCustomerId(), window).getTotalPoints());
+    }
+}
@@ -0,0 +1,120 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardRulesDefinition;
+import com.retailer.reward_service.dto.RewardWindow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RewardSnapshotFile}.
+ */
+class RewardSnapshotFileTest {
+
+    private final RewardWindow window = new RewardWindow(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 6, 15));
+
+    private final Instant builtAt = Instant.parse("2025-06-15T00:00:00.123456789Z");
+
+    @TempDir
+    private Path directory;
+
+    private RewardSnapshot snapshot() {
+        Map<YearMonth, Integer> alice = new LinkedHashMap<>();
+        alice.put(YearMonth.of(2025, 3), 0);
+        alice.put(YearMonth.of(2025, 5), 90);
+        // Customer 11 does not exist, leaving a gap in the ID space
+        RewardSnapshot snapshot = new RewardSnapshot(window, builtAt, 42, RewardRules.DEFAULT, List.of(
+                new RewardResponse(10, "Alice", alice, 90),
+                new RewardResponse(12, "Zoë", Map.of(YearMonth.of(2025, 6), 25), 25),
+                new RewardResponse(13, null, Map.of(), 0)));
+        snapshot.markStale(13);
+        return snapshot;
+    }
+
+    /**
+     * Tests that a snapshot read back from its file answers exactly like the written one.
+     */
+    @Test
+    void testWriteAndRead_RoundTrip() throws IOException {
+        Path file = directory.resolve("snapshots/rewards.bin");
+        RewardSnapshot written = snapshot();
+
+        RewardSnapshotFile.write(written, file);
+        RewardSnapshot read = RewardSnapshotFile.read(file, RewardRules.DEFAULT);
+
+        assertEquals(window, read.getWindow());
+        assertEquals(builtAt, read.getBuiltAt());
+        assertEquals(42, read.getWatermark());
+        assertEquals(13, read.getLastCustomerId());
+        assertEquals(Set.of(13), read.getStaleCustomerIds());
+        assertEquals(written.findAll(), read.findAll());
+        assertEquals("Zoë", read.find(12).getCustomerName());
+        assertEquals("default", read.find(12).getRuleVersion());
+        assertNull(read.find(11));
+
+        read.applyTransaction(12, LocalDate.of(2025, 6, 1), 5);
+        assertEquals(30, read.find(12).getTotalPoints());
+    }
+
+    /**
+     * Tests that a file with a flipped byte is rejected by its checksum.
+     */
+    @Test
+    void testRead_CorruptFile() throws IOException {
+        Path file = directory.resolve("rewards.bin");
+        RewardSnapshotFile.write(snapshot(), file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 1));
+            channel.write(last.rewind(), channel.size() - 1);
+        }
+
+        IOException ex = assertThrows(IOException.class, () -> RewardSnapshotFile.read(file, RewardRules.DEFAULT));
+        assertTrue(ex.getMessage().contains("checksum"));
+    }
+
+    /**
+     * Tests that a file built with other reward rules is rejected, since its points would no longer be correct.
+     */
+    @Test
+    void testRead_OtherRules() throws IOException {
+        Path file = directory.resolve("rewards.bin");
+        RewardSnapshotFile.write(snapshot(), file);
+        RewardRulesDefinition campaign = RewardRulesDefinition.defaults();
+        campaign.setVersion("campaign");
+
+        IOException ex = assertThrows(IOException.class, () -> RewardSnapshotFile.read(file, RewardRules.compile(campaign)));
+        assertTrue(ex.getMessage().contains("other reward rules"));
+    }
+
+    /**
+     * Tests that a file of another format version is rejected before its content is interpreted.
+     */
+    @Test
+    void testRead_OtherVersion() throws IOException {
+        Path file = directory.resolve("rewards.bin");
+        RewardSnapshotFile.write(snapshot(), file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, RewardSnapshotFile.VERSION + 1), Integer.BYTES);
+        }
+
+        IOException ex = assertThrows(IOException.class, () -> RewardSnapshotFile.read(file, RewardRules.DEFAULT));
+        assertTrue(ex.getMessage().contains("version"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.ReportExecutorConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.Transaction;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests writing the reward snapshot file and loading it back with a catch-up on an embedded H2 database.
+ * Runs without a test transaction so that writes commit; the startup build is not scheduled.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({TransactionAutoConfiguration.class, MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({CacheConfig.class, ReportExecutorConfig.class, RewardLedgerService.class, RewardSnapshotHolder.class, RewardRulesHolder.class, RewardSnapshotService.class, TransactionServiceImpl.class,
+        RewardServiceImpl.class, RewardWindowResolver.class, RewardMetrics.class, RepositoryBulkhead.class, ColumnarTransactionStore.class, RewardPartition.class,
+        CustomerIdFilter.class, TransactionArchiveService.class})
+class RewardSnapshotServiceTest {
+
+    @TempDir
+    private static Path directory;
+
+    @DynamicPropertySource
+    static void snapshotFile(DynamicPropertyRegistry registry) {
+        registry.add("reward.snapshot.file", () -> directory.resolve("reward-snapshot.bin").toString());
+    }
+
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private RewardServiceImpl rewardServiceImpl;
+
+    @Autowired
+    private RewardSnapshotService rewardSnapshotService;
+
+    @Autowired
+    private RewardSnapshotHolder rewardSnapshotHolder;
+
+    @Autowired
+    private RewardWindowResolver rewardWindowResolver;
+
+    @Autowired
+    private TransactionServiceImpl transactionServiceImpl;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final LocalDate now = LocalDate.now();
+
+    @AfterEach
+    void deleteAll() {
+        transactionRepository.deleteAll();
+        monthlyRewardRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private Customer seedCustomer(String name, double... amountsAndDaysAgo) {
+        Customer customer = customerRepository.save(Customer.builder().name(name).build());
+        for (int i = 0; i < amountsAndDaysAgo.length; i += 2) {
+            transactionRepository.save(new Transaction(customer, amountsAndDaysAgo[i], now.minusDays((long) amountsAndDaysAgo[i + 1])));
+        }
+        return customer;
+    }
+
+    /**
+     * Tests that a snapshot loaded from the file includes the transactions recorded after it was written,
+     * as if the service had been restarted, and leaves newer customers to the database.
+     */
+    @Test
+    void testLoadFromFile_CatchesUpOnLaterTransactions() {
+        Customer alice = seedCustomer("Alice", 120.0, 10, 75.0, 40);
+        Customer bob = seedCustomer("Bob", 200.0, 5);
+        rewardLedgerService.rebuild();
+        RewardSnapshot built = rewardSnapshotService.rebuild();
+        assertTrue(Files.exists(directory.resolve("reward-snapshot.bin")));
+
+        // Written straight to the database, like the transactions recorded while the service was down
+        transactionRepository.save(new Transaction(alice, 60.0, now));
+        transactionRepository.save(new Transaction(bob, 130.0, now.minusDays(1)));
+        transactionRepository.save(new Transaction(bob, 500.0, now.minusYears(1)));
+        Customer carol = seedCustomer("Carol", 110.0, 2);
+        rewardLedgerService.rebuild();
+
+        RewardSnapshot loaded = rewardSnapshotService.loadFromFile();
+
+        RewardWindow window = rewardWindowResolver.defaultWindow();
+        assertNotSame(built, loaded);
+        assertSame(loaded, rewardSnapshotHolder.current(window));
+        assertEquals(built.getWatermark(), loaded.getWatermark());
+        assertEquals(built.getBuiltAt(), loaded.getBuiltAt());
+        List<RewardResponse> expected = rewardServiceImpl.calculateAllCustomersRewardsFromDatabase(window);
+        // Carol was created after the build and is caught up from the database once the file is loaded
+        for (Customer customer : List.of(alice, bob, carol)) {
+            RewardResponse fromDatabase = expected.stream().filter(reward -> reward.getCustomerId().equals(customer.getCustomerId())).findFirst().orElseThrow();
+            RewardResponse fromFile = loaded.find(customer.getCustomerId());
+            assertEquals(fromDatabase.getMonthlyPoints(), fromFile.getMonthlyPoints());
+            assertEquals(fromDatabase.getTotalPoints(), fromFile.getTotalPoints());
+        }
+        assertEquals(360, loaded.find(bob.getCustomerId()).getTotalPoints());
+    }
+
+    /**
+     * Tests that a transaction that got its ID before the build but commits after the swap, below the watermark,
+     * is not lost when the file is loaded after a restart: its customer is caught up from the database.
+     */
+    @Test
+    void testLoadFromFile_LateCommittingLowerId() throws Exception {
+        Customer alice = seedCustomer("Alice", 120.0, 10);
+        Customer bob = seedCustomer("Bob", 200.0, 5);
+        rewardLedgerService.rebuild();
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        AtomicLong lateId = new AtomicLong();
+        CompletableFuture<Void> lateWrite = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            lateId.set(transactionServiceImpl.saveTransaction(new TransactionRequest(alice.getCustomerId(), 60.0, now)).getId());
+            saved.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(saved.await(30, TimeUnit.SECONDS));
+        transactionServiceImpl.saveTransaction(new TransactionRequest(bob.getCustomerId(), 130.0, now));
+
+        RewardSnapshot built = rewardSnapshotService.rebuild();
+        commit.countDown();
+        lateWrite.get(30, TimeUnit.SECONDS);
+
+        RewardSnapshot loaded = rewardSnapshotService.loadFromFile();
+
+        RewardWindow window = rewardWindowResolver.defaultWindow();
+        assertTrue(lateId.get() < built.getWatermark());
+        assertEquals(100, loaded.find(alice.getCustomerId()).getTotalPoints());
+        assertEquals(360, loaded.find(bob.getCustomerId()).getTotalPoints());
+        assertEquals(100, rewardServiceImpl.calculateAllCustomersRewards(window).get(0).getTotalPoints());
+    }
+
+    /**
+     * Tests that a file ahead of the database, as left behind by a previous in-memory database, is ignored.
+     */
+    @Test
+    void testLoadFromFile_IgnoresFileOfAnotherDatabase() {
+        seedCustomer("Alice", 120.0, 10);
+        RewardSnapshot built = rewardSnapshotService.rebuild();
+        transactionRepository.deleteAll();
+
+        assertNull(rewardSnapshotService.loadFromFile());
+        assertSame(built, rewardSnapshotHolder.current(rewardWindowResolver.defaultWindow()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RewardSnapshot} and {@link RewardSnapshotHolder}.
+ */
+class RewardSnapshotTest {
+
+    private final RewardWindow window = new RewardWindow(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 6, 15));
+
+    private final Instant builtAt = Instant.parse("2025-06-15T00:00:00Z");
+
+    private RewardSnapshot snapshot() {
+        Map<YearMonth, Integer> alice = new LinkedHashMap<>();
+        alice.put(YearMonth.of(2025, 3), 0);
+        alice.put(YearMonth.of(2025, 5), 90);
+        // Customer 11 does not exist, leaving a gap in the ID space
+        return new RewardSnapshot(window, builtAt, 0, RewardRules.DEFAULT, List.of(
+                new RewardResponse(10, "Alice", alice, 90),
+                new RewardResponse(12, "Bob", Map.of(), 0)));
+    }
+
+    /**
+     * Tests that the snapshot returns the rewards it was built from, in month order, and nothing for unknown IDs.
+     */
+    @Test
+    void testFind_ReturnsBuiltRewards() {
+        RewardSnapshot snapshot = snapshot();
+
+        RewardResponse alice = snapshot.find(10);
+
+        assertEquals("Alice", alice.getCustomerName());
+        assertEquals(List.of(YearMonth.of(2025, 3), YearMonth.of(2025, 5)), List.copyOf(alice.getMonthlyPoints().keySet()));
+        assertEquals(90, alice.getTotalPoints());
+        assertEquals(builtAt, alice.getSnapshotTime());
+        assertTrue(snapshot.find(12).getMonthlyPoints().isEmpty());
+        assertNull(snapshot.find(9));
+        assertNull(snapshot.find(11));
+        assertNull(snapshot.find(13));
+        assertEquals(12, snapshot.getLastCustomerId());
+        assertEquals(List.of(10, 12), snapshot.findAll().stream().map(RewardResponse::getCustomerId).toList());
+    }
+
+    /**
+     * Tests that later transactions inside the window are added as deltas and others are ignored.
+     */
+    @Test
+    void testApplyTransaction_AddsDeltasInsideWindow() {
+        RewardSnapshot snapshot = snapshot();
+
+        snapshot.applyTransaction(10, LocalDate.of(2025, 5, 20), 10);
+        snapshot.applyTransaction(10, LocalDate.of(2025, 6, 1), 0);
+        snapshot.applyTransaction(10, LocalDate.of(2025, 6, 16), 500);
+        snapshot.applyTransaction(10, LocalDate.of(2025, 3, 14), 500);
+        snapshot.applyTransaction(12, LocalDate.of(2025, 4, 1), 25);
+
+        assertEquals(Map.of(YearMonth.of(2025, 3), 0, YearMonth.of(2025, 5), 100, YearMonth.of(2025, 6), 0),
+                snapshot.find(10).getMonthlyPoints());
+        assertEquals(100, snapshot.find(10).getTotalPoints());
+        assertEquals(25, snapshot.find(12).getTotalPoints());
+    }
+
+    /**
+     * Tests that customers written while a snapshot is built are not served from it after the swap.
+     */
+    @Test
+    void testSwap_MarksCustomersWrittenDuringBuildStale() {
+        RewardSnapshotHolder holder = new RewardSnapshotHolder(new RewardRulesHolder(new RewardProperties()));
+        holder.beginBuild();
+        RewardSnapshot snapshot = snapshot();
+        holder.applyTransaction(12, LocalDate.of(2025, 6, 1), 25);
+        holder.swap(snapshot);
+
+        assertSame(snapshot, holder.current(window));
+        assertNotNull(snapshot.find(10));
+        assertNull(snapshot.find(12));
+        assertEquals(List.of(10), snapshot.findAll().stream().map(RewardResponse::getCustomerId).toList());
+        assertNull(holder.current(new RewardWindow(window.getFromDate(), window.getToDate().plusDays(1))));
+
+        holder.applyTransaction(10, LocalDate.of(2025, 6, 1), 5);
+        assertEquals(95, snapshot.find(10).getTotalPoints());
+    }
+
+    /**
+     * Tests that caught-up customers are answered without counting their deltas twice, and that a customer
+     * written while the catch-up calculates is left stale.
+     */
+    @Test
+    void testCatchUp_AnswersCalculatedCustomers() {
+        RewardSnapshotHolder holder = new RewardSnapshotHolder(new RewardRulesHolder(new RewardProperties()));
+        holder.beginBuild();
+        RewardSnapshot snapshot = snapshot();
+        holder.applyTransaction(12, LocalDate.of(2025, 4, 1), 10);
+        holder.swap(snapshot);
+        holder.applyTransaction(12, LocalDate.of(2025, 6, 1), 25);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            holder.catchUp(snapshot, () -> {
+                holder.beginWrite(List.of(14));
+                return List.of(
+                        new RewardResponse(12, "Bob", Map.of(YearMonth.of(2025, 4), 10, YearMonth.of(2025, 6), 25), 35),
+                        new RewardResponse(13, "Carol", Map.of(YearMonth.of(2025, 5), 40), 40),
+                        new RewardResponse(14, "Dave", Map.of(), 0));
+            });
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(35, snapshot.find(12).getTotalPoints());
+        assertEquals("Carol", snapshot.find(13).getCustomerName());
+        assertNull(snapshot.find(14));
+        assertEquals(List.of(14), List.copyOf(snapshot.getUnansweredCustomerIds()));
+        assertEquals(13, snapshot.getCaughtUpThrough());
+        assertEquals(List.of(10, 12, 13), snapshot.findAll().stream().map(RewardResponse::getCustomerId).toList());
+
+        holder.applyTransaction(12, LocalDate.of(2025, 6, 2), 60);
+        assertEquals(Map.of(YearMonth.of(2025, 4), 10, YearMonth.of(2025, 6), 85), snapshot.find(12).getMonthlyPoints());
+        assertArrayEquals(new int[] {12, 10, 13}, snapshot.queryRanking(index -> index.customerIdsAt(0, 3)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.exceptions.InvalidRewardWindowException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RewardWindowResolver}.
+ */
+class RewardWindowResolverTest {
+
+    private final RewardWindowResolver resolver = new RewardWindowResolver(new RewardProperties());
+
+    /**
+     * Tests that missing parameters fall back to the default window ending today.
+     */
+    @Test
+    void testResolve_Defaults() {
+        LocalDate today = LocalDate.now();
+        assertEquals(new RewardWindow(today.minusMonths(3), today), resolver.resolve(null, null, null));
+        assertEquals(resolver.defaultWindow(), resolver.resolve(null, null, null));
+        assertEquals(new RewardWindow(today.minusMonths(6), today), resolver.resolve(null, null, 6));
+    }
+
+    /**
+     * Tests that {@code months} counts back from an explicit end date and that {@code from} takes precedence.
+     */
+    @Test
+    void testResolve_ExplicitDates() {
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        assertEquals(new RewardWindow(LocalDate.of(2024, 6, 30), to), resolver.resolve(null, to, 6));
+        assertEquals(new RewardWindow(LocalDate.of(2024, 1, 1), to), resolver.resolve(LocalDate.of(2024, 1, 1), to, 6));
+        assertEquals(12, resolver.resolve(LocalDate.of(2024, 1, 1), to, null).getMonthCount());
+    }
+
+    /**
+     * Tests that empty, reversed and overlong windows are rejected.
+     */
+    @Test
+    void testResolve_Invalid() {
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        assertThrows(InvalidRewardWindowException.class, () -> resolver.resolve(to.plusDays(1), to, null));
+        assertThrows(InvalidRewardWindowException.class, () -> resolver.resolve(null, to, 0));
+        assertThrows(InvalidRewardWindowException.class, () -> resolver.resolve(null, to, 25));
+        assertThrows(InvalidRewardWindowException.class, () -> resolver.resolve(to.minusMonths(24).minusDays(1), to, null));
+    }
+}
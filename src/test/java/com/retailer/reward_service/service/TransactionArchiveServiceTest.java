@@ -0,0 +1,164 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.ReportExecutorConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.RewardResponse;
+import com.retailer.reward_service.dto.RewardWindow;
+import com.retailer.reward_service.dto.TransactionRequest;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.MonthlyReward;
+import com.retailer.reward_service.repository.ArchivedTransactionRepository;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that archiving moves whole months before the horizon out of the transaction table while rewards and
+ * ledger rebuilds keep reading them from the archive.
+ */
+@DataJpaTest
+@ImportAutoConfiguration({TransactionAutoConfiguration.class, MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({CacheConfig.class, ReportExecutorConfig.class, RewardLedgerService.class, RewardSnapshotHolder.class, RewardRulesHolder.class, TransactionServiceImpl.class,
+        RewardServiceImpl.class, RewardWindowResolver.class, RewardMetrics.class, RepositoryBulkhead.class, ColumnarTransactionStore.class, RewardPartition.class,
+        CustomerIdFilter.class, TransactionArchiveService.class})
+class TransactionArchiveServiceTest {
+
+    @MockBean
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Autowired
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private TransactionServiceImpl transactionServiceImpl;
+
+    @Autowired
+    private RewardServiceImpl rewardServiceImpl;
+
+    @Autowired
+    private TransactionArchiveService transactionArchiveService;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    private final LocalDate horizon = YearMonth.now().minusMonths(6).atDay(1);
+
+    /**
+     * Starts on the 10th of the month two months before the horizon, so its first month is read from the archive.
+     */
+    private final RewardWindow historicalWindow = new RewardWindow(horizon.minusMonths(2).withDayOfMonth(10), horizon.plusDays(14));
+
+    private Integer customerWithHistory() {
+        Integer customerId = customerRepository.save(Customer.builder().name("Alice").build()).getCustomerId();
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 120.0, horizon.minusMonths(2).withDayOfMonth(5)));   // before the window
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 120.0, horizon.minusMonths(2).withDayOfMonth(20)));  // 90
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 75.0, horizon.minusDays(1)));                        // 25
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 200.0, horizon));                                   // 250
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 60.0, LocalDate.now()));
+        testEntityManager.flush();
+        return customerId;
+    }
+
+    private List<MonthlyReward> ledgerRows() {
+        testEntityManager.flush();
+        testEntityManager.clear();
+        return monthlyRewardRepository.findAll().stream()
+                .sorted(Comparator.comparing(MonthlyReward::getCustomerId).thenComparing(MonthlyReward::getPeriod))
+                .map(row -> new MonthlyReward(null, row.getCustomerId(), row.getPeriod(), row.getPoints()))
+                .toList();
+    }
+
+    /**
+     * Tests that transactions dated before the horizon are moved, and that rewards of a window reaching before it
+     * and the ledger rebuilt from the raw transactions are unchanged.
+     */
+    @Test
+    void testArchiveBefore_KeepsRewardsAndLedger() {
+        Integer customerId = customerWithHistory();
+        RewardResponse before = rewardServiceImpl.calculateCustomerRewardsById(customerId, historicalWindow);
+        List<MonthlyReward> ledger = ledgerRows();
+
+        assertEquals(3, transactionArchiveService.archiveBefore(horizon));
+        testEntityManager.clear();
+
+        assertEquals(2, transactionRepository.count());
+        assertEquals(3, archivedTransactionRepository.count());
+        assertTrue(transactionArchiveService.isArchived(horizon.minusDays(1)));
+        assertFalse(transactionArchiveService.isArchived(horizon));
+        RewardResponse after = rewardServiceImpl.calculateCustomerRewardsById(customerId, historicalWindow);
+        assertEquals(365, after.getTotalPoints());
+        assertEquals(before.getMonthlyPoints(), after.getMonthlyPoints());
+        rewardLedgerService.rebuild();
+        assertEquals(ledger, ledgerRows());
+    }
+
+    /**
+     * Tests that archiving is rejected at startup when fewer months are retained than the default window covers.
+     */
+    @Test
+    void testRequireDefaultWindowRetained() {
+        RewardProperties properties = new RewardProperties();
+        properties.getArchive().setEnabled(true);
+        properties.getArchive().setRetainMonths(properties.getWindow().getDefaultMonths() - 1);
+        TransactionArchiveService archiveService = new TransactionArchiveService(customerRepository, transactionRepository,
+                archivedTransactionRepository, null, properties, new RewardPartition(properties), null);
+
+        assertThrows(IllegalStateException.class, archiveService::requireDefaultWindowRetained);
+        properties.getArchive().setRetainMonths(properties.getWindow().getDefaultMonths());
+        archiveService.requireDefaultWindowRetained();
+        properties.getArchive().setRetainMonths(0);
+        properties.getArchive().setEnabled(false);
+        archiveService.requireDefaultWindowRetained();
+    }
+
+    /**
+     * Tests that a transaction recorded for an archived month after it was archived is counted together with the
+     * archived ones, and moved by the next run.
+     */
+    @Test
+    void testArchiveBefore_LateTransactionForArchivedMonth() {
+        Integer customerId = customerWithHistory();
+        transactionArchiveService.archiveBefore(horizon);
+
+        transactionServiceImpl.saveTransaction(new TransactionRequest(customerId, 110.0, horizon.minusMonths(2).withDayOfMonth(25)));  // 70
+        testEntityManager.flush();
+
+        assertEquals(435, rewardServiceImpl.calculateCustomerRewardsById(customerId, historicalWindow).getTotalPoints());
+        assertEquals(1, transactionArchiveService.archiveBefore(horizon));
+        assertEquals(4, archivedTransactionRepository.count());
+        assertEquals(435, rewardServiceImpl.calculateCustomerRewardsById(customerId, historicalWindow).getTotalPoints());
+    }
+}
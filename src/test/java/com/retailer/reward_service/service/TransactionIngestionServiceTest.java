@@ -0,0 +1,101 @@
+package com.retailer.reward_service.service;
+
+import com.retailer.reward_service.configuration.CacheConfig;
+import com.retailer.reward_service.configuration.RewardProperties;
+import com.retailer.reward_service.dto.IngestionSummary;
+import com.retailer.reward_service.entity.Customer;
+import com.retailer.reward_service.entity.MonthlyReward;
+import com.retailer.reward_service.repository.CustomerRepository;
+import com.retailer.reward_service.repository.MonthlyRewardRepository;
+import com.retailer.reward_service.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests bulk ingestion of NDJSON and CSV input against an embedded H2 database.
+ */
+@DataJpaTest
+@ImportAutoConfiguration({TransactionAutoConfiguration.class, JacksonAutoConfiguration.class, MetricsAutoConfiguration.class,
+        SimpleMetricsExportAutoConfiguration.class})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({CacheConfig.class, RewardLedgerService.class, RewardSnapshotHolder.class, RewardRulesHolder.class, TransactionIngestionService.class,
+        ColumnarTransactionStore.class, RewardMetrics.class, RewardPartition.class, TransactionArchiveService.class})
+@TestPropertySource(properties = "reward.ingest.batch-size=2")
+class TransactionIngestionServiceTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardRepository monthlyRewardRepository;
+
+    @Autowired
+    private TransactionIngestionService transactionIngestionService;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    /**
+     * Tests that valid CSV lines are stored in batches, invalid ones are reported per line,
+     * and the ledger receives the aggregated points.
+     */
+    @Test
+    void testIngestCsv_ReportsPerBatch() throws Exception {
+        Integer customerId = customerRepository.save(Customer.builder().name("Alice").build()).getCustomerId();
+        String csv = "customerId,amount,transactionDate\n"
+                + customerId + ",120.0,2025-06-01\n"
+                + customerId + ",-1,2025-06-02\n"
+                + "999999,80.0,2025-06-03\n"
+                + customerId + ",75.0,2025-06-04\n"
+                + "not-a-number,1,2025-06-05\n";
+
+        IngestionSummary summary = transactionIngestionService.ingest(new StringReader(csv), TransactionIngestionService.Format.CSV);
+
+        assertEquals(2, summary.getAccepted());
+        assertEquals(3, summary.getRejected());
+        assertEquals(3, summary.getBatches().size());
+        assertEquals(2, summary.getBatches().get(0).getFirstLine());
+        assertEquals(3, summary.getBatches().get(0).getErrors().get(0).getLine());
+        assertEquals(4, summary.getBatches().get(1).getErrors().get(0).getLine());
+        assertEquals(2, transactionRepository.count());
+
+        testEntityManager.flush();
+        testEntityManager.clear();
+        MonthlyReward ledger = monthlyRewardRepository.findAll().get(0);
+        assertEquals(202506, ledger.getPeriod());
+        assertEquals(115L, ledger.getPoints());
+    }
+
+    /**
+     * Tests that NDJSON lines are parsed into transactions.
+     */
+    @Test
+    void testIngestNdjson() throws Exception {
+        Integer customerId = customerRepository.save(Customer.builder().name("Bob").build()).getCustomerId();
+        String ndjson = "{\"customerId\":" + customerId + ",\"amount\":200.0,\"transactionDate\":\"2025-05-01\"}\n"
+                + "{\"customerId\":" + customerId + ",\"amount\":60.0}\n";
+
+        IngestionSummary summary = transactionIngestionService.ingest(new StringReader(ndjson), TransactionIngestionService.Format.NDJSON);
+
+        assertEquals(1, summary.getAccepted());
+        assertEquals(1, summary.getRejected());
+        assertEquals(1, transactionRepository.count());
+    }
+}